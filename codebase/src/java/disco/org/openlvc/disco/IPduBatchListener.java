@@ -0,0 +1,53 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco;
+
+import java.util.List;
+
+import org.openlvc.disco.pdu.PDU;
+
+/**
+ * An {@link IPduListener} that can also take PDUs in batches. Receivers that pull several
+ * packets off their queue in one go will hand over everything they decoded at once through
+ * {@link #receive(List)}, rather than calling {@link #receive(PDU)} for each one. This lets the
+ * application amortise any per-call overhead (locking, lookups, dispatch) across the batch.
+ * <p/>
+ * Receivers that only ever have one PDU at a time, and listeners that don't implement this
+ * interface, continue to get PDUs one at a time through {@link #receive(PDU)}.
+ * <p/>
+ * <b>Note:</b> The list belongs to the receiver and is reused for the next batch. It is only
+ * valid for the duration of the call. Keep a reference to the PDUs, not to the list. The usual
+ * rules about retaining PDUs (see {@link PduFactory}) apply to every PDU in the batch.
+ */
+public interface IPduBatchListener extends IPduListener
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+	/**
+	 * Process a batch of PDUs, in the order they were received.
+	 * 
+	 * @param batch The PDUs. Never empty. Only valid for the duration of the call.
+	 */
+	public void receive( List<PDU> batch );
+
+}
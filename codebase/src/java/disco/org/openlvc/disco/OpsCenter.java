@@ -98,6 +98,7 @@ public class OpsCenter
 		this.configuration.getDisConfiguration().getRegisteredCustomPdu().forEach( type -> {
 			this.pduFactory.registerCustomPdu( type );
 		});
+		this.pduFactory.setRecycling( configuration.getDisConfiguration().isPduRecyclingEnabled() );
 
 		// enable networking
 		if( this.connection == null )
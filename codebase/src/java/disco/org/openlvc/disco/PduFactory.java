@@ -17,14 +17,24 @@
  */
 package org.openlvc.disco;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.EnumMap;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.openlvc.disco.configuration.DisConfiguration;
 import org.openlvc.disco.configuration.DiscoConfiguration;
 import org.openlvc.disco.configuration.Flag;
-import org.openlvc.disco.pdu.DisInputStream;
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.PDU;
 import org.openlvc.disco.pdu.UnparsedPdu;
 import org.openlvc.disco.pdu.UnsupportedPDU;
@@ -34,6 +44,23 @@ import org.openlvc.disco.pdu.record.PduHeader;
 /**
  * Methods to help quickly create certain types of PDU's, or to create PDUs from an
  * incoming stream/source.
+ * <p/>
+ * <b>Instantiation:</b> Each supported {@link PduType} is bound to its implementation's no-arg
+ * constructor once, when it is registered. Creating a PDU is then a plain constructor call; no
+ * reflection happens per packet.
+ * <p/>
+ * <b>Recycling:</b> If enabled with {@link #setRecycling(boolean)}, PDUs can be handed back
+ * via {@link #recycle(PDU)} once they are no longer needed, and will be reused by later calls
+ * to <code>create()</code> on the same thread. The rules are:
+ * <ul>
+ *   <li>Pools are per-thread. A PDU is only reused by the thread that recycled it, so it only
+ *       helps when the same thread creates and recycles (as the single threaded receivers do).</li>
+ *   <li>Whoever recycles a PDU must be its last user. Receivers recycle each PDU as soon as the
+ *       listener returns from <code>receive()</code>.</li>
+ *   <li>A listener that wants to keep a PDU (or any record it got from one) beyond its
+ *       <code>receive()</code> call must call {@link PDU#retain()}. Retained PDUs are never
+ *       recycled.</li>
+ * </ul>
  */
 public class PduFactory
 {
@@ -47,10 +74,21 @@ public class PduFactory
 	 */
 	private static final PduFactory DEFAULT = new PduFactory();
 
+	/** Offset of the PDU type field from the start of the header */
+	private static final int OFFSET_PDU_TYPE = 2;
+
+	/** Maximum number of idle instances of each PDU type held in each thread's pool */
+	private static final int POOL_LIMIT = 16;
+
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
 	private EnumMap<PduType,Class<? extends PDU>> typeMap;
+	private EnumMap<PduType,Supplier<PDU>> constructors;
+
+	// PDU recycling
+	private volatile boolean recycling;
+	private ThreadLocal<EnumMap<PduType,ArrayDeque<PDU>>> pools;
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -59,12 +97,15 @@ public class PduFactory
 	{
 		// create an empty type map
 		this.typeMap = new EnumMap<>( PduType.class );
+		this.constructors = new EnumMap<>( PduType.class );
+		this.recycling = false;
+		this.pools = ThreadLocal.withInitial( () -> new EnumMap<>(PduType.class) );
 		
 		// populate it for all the default types which are referenced in the PduType enum
 		for( PduType type : PduType.values() )
 		{
 			if( type.getImplementationClass() != null )
-				typeMap.put( type, type.getImplementationClass() );
+				bind( type, type.getImplementationClass() );
 		}
 	}
 
@@ -72,7 +113,7 @@ public class PduFactory
 	{
 		this();
 		if( typeMap != null )
-			this.typeMap.putAll( typeMap );
+			typeMap.forEach( this::bind );
 	}
 
 	//----------------------------------------------------------
@@ -93,37 +134,49 @@ public class PduFactory
 	 * @throws DiscoException If there is an internal problem instantiating the PDU type.
 	 */
 	public PDU create( PduHeader header ) throws UnsupportedPDU, DiscoException
+	{
+		return create( header.getPduType() ).setHeader( header );
+	}
+
+	/**
+	 * Creates a new, empty PDU of the given type. If recycling is enabled and this thread has a
+	 * recycled instance of the type available, that is returned instead of a new one. Either way
+	 * the caller should treat the contents as undefined and populate it completely.
+	 * 
+	 * @param type The type of PDU to create
+	 * @return A PDU instance of the appropriate type (or an {@link UnparsedPdu} if the flags say so)
+	 * @throws UnsupportedPDU If Disco does not currently support PDUs of this type.
+	 */
+	private PDU create( PduType type ) throws UnsupportedPDU
 	{
 		// If the configuration it set to use Unparsed PDUs exclusively, just do that
 		if( DiscoConfiguration.isSet(Flag.UnparsedExclusive) )
-			return new UnparsedPdu().setHeader(header);
+			return new UnparsedPdu();
 
-		// Get the implementation class for this PDU type
-		PduType type = header.getPduType();
-		//Class<? extends PDU> implementationClass = type.getImplementationClass();
-		Class<? extends PDU> implementationClass = typeMap.get( type );
-		
-		// If we don't have an implementation class, the PDU is unsupported
-		if( implementationClass == null )
+		// If we're passing PDUs through, only entity state gets looked at in any depth
+		if( type != PduType.EntityState && DiscoConfiguration.isSet(Flag.Passthrough) )
+			return new UnparsedPdu();
+
+		// If we don't have a constructor, the PDU is unsupported
+		Supplier<PDU> constructor = constructors.get( type );
+		if( constructor == null )
 		{
 			if( DiscoConfiguration.isSet(Flag.Unparsed) )
-				return new UnparsedPdu().setHeader(header);
+				return new UnparsedPdu();
 			else
 				throw new UnsupportedPDU( "PDU Type not supported: "+type.name() );
-			
 		}
-		
-		// Create a new PDU instance from the type and return it
-		try
-		{
-			PDU pdu = implementationClass.newInstance();
-			pdu.setHeader( header );
-			return pdu;
-		}
-		catch( IllegalAccessException | InstantiationException e )
+
+		// Reuse a recycled instance if we have one
+		if( recycling )
 		{
-			throw new DiscoException( "Error creating PDU ["+type.name()+"]: "+e.getMessage(), e );
+			ArrayDeque<PDU> pool = pools.get().get( type );
+			PDU pdu = pool == null ? null : pool.pollLast();
+			if( pdu != null )
+				return pdu.setLocalTimestamp( System.currentTimeMillis() );
 		}
+
+		return constructor.get();
 	}
 
 	///////////////////////////////////////////////////////////////////////////////////////
@@ -164,18 +217,141 @@ public class PduFactory
 	public PDU create( byte[] buffer, int offset, int length )
 		throws IOException, UnsupportedPDU, DiscoException
 	{
-		// wrap the buffer in a stream we can read from
-		DisInputStream instream = new DisInputStream( buffer, offset, length );
-		
-		// 1. Read off the header first
-		PduHeader header = new PduHeader();
-		header.from( instream );
+		return create( new DisBuffer(buffer,offset,length) );
+	}
 
-		// 2. Read in the body
-		PDU pdu = create( header );
-		pdu.from( instream );
-		
-		return pdu;
+	/**
+	 * Create a new PDU from the remaining contents of the given buffer (position through to
+	 * limit). The buffer may be direct, which allows PDUs to be read straight out of pooled
+	 * network buffers without first copying them into a <code>byte[]</code>.
+	 * <p/>
+	 * The buffer position will be advanced by the number of bytes read. The returned PDU does
+	 * not keep any reference to the buffer, so it can be released/reused as soon as this
+	 * method returns.
+	 * 
+	 * @param buffer The buffer to read from
+	 * @return       A new instance of the appropriate {@link PDU} subclass, populated from
+	 *               the contents of the buffer
+	 * @throws IOException     Problem parsing the buffer (e.g. underflow)
+	 * @throws UnsupportedPDU  The PDU type identified in the header is not supported by Disco yet
+	 * @throws DiscoException  Problem instantiating a new instances of the desired PDU
+	 */
+	public PDU create( ByteBuffer buffer ) throws IOException, UnsupportedPDU, DiscoException
+	{
+		return create( new DisBuffer(buffer) );
+	}
+
+	/**
+	 * Create a new PDU from the remaining contents of the given {@link DisBuffer}. This is the
+	 * method all the other buffer based <code>create()</code> calls funnel through.
+	 * <p/>
+	 * The buffer position will be advanced by the number of bytes read. If the buffer runs out
+	 * before the PDU is fully read, an <code>EOFException</code> is thrown, just as it would be
+	 * if the PDU were read from a stream.
+	 * 
+	 * @param buffer The buffer to read from
+	 * @return       A new instance of the appropriate {@link PDU} subclass, populated from
+	 *               the contents of the buffer
+	 * @throws IOException     Problem parsing the buffer (e.g. underflow)
+	 * @throws UnsupportedPDU  The PDU type identified in the header is not supported by Disco yet
+	 * @throws DiscoException  Problem instantiating a new instances of the desired PDU
+	 */
+	public PDU create( DisBuffer buffer ) throws IOException, UnsupportedPDU, DiscoException
+	{
+		if( buffer.remaining() < PduHeader.HEADER_LENGTH )
+			throw new EOFException( "Buffer underflow: PDU is truncated" );
+
+		try
+		{
+			// 1. Peek at the type so we know what to create, then read the header into it
+			PduType type = PduType.fromValue( buffer.getUI8(buffer.position()+OFFSET_PDU_TYPE) );
+			PDU pdu = create( type );
+			pdu.getHeader().from( buffer );
+
+			// 2. Read in the body
+			pdu.from( buffer );
+			
+			return pdu;
+		}
+		catch( BufferUnderflowException bue )
+		{
+			throw new EOFException( "Buffer underflow: PDU is truncated" );
+		}
+	}
+
+	/**
+	 * Fully decode the body of an {@link UnparsedPdu} into the PDU type its header says it is,
+	 * regardless of the {@link Flag#Passthrough} and {@link Flag#UnparsedExclusive} flags. This
+	 * is how something that needs a proper PDU gets one when PDUs are being passed through.
+	 * <p/>
+	 * The returned PDU shares the header of the given one.
+	 *
+	 * @param unparsed The PDU to decode
+	 * @return A new instance of the appropriate {@link PDU} subclass
+	 * @throws IOException     Problem parsing the body (e.g. underflow)
+	 * @throws UnsupportedPDU  The PDU type in the header is not supported by Disco
+	 */
+	public PDU parse( UnparsedPdu unparsed ) throws IOException, UnsupportedPDU
+	{
+		PduType type = unparsed.getType();
+		Supplier<PDU> constructor = constructors.get( type );
+		if( constructor == null )
+			throw new UnsupportedPDU( "PDU Type not supported: "+type.name() );
+
+		PDU pdu = constructor.get().setHeader( unparsed.getHeader() );
+		try
+		{
+			pdu.from( new DisBuffer(unparsed.getPayload()) );
+			return pdu;
+		}
+		catch( BufferUnderflowException bue )
+		{
+			throw new EOFException( "Buffer underflow: PDU is truncated" );
+		}
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////////
+	/// PDU Recycling      ////////////////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Hand a PDU back to the factory so that it can be reused by a later call to
+	 * <code>create()</code> on this thread. This is a no-op if recycling is disabled, if the
+	 * PDU has been {@link PDU#retain() retained}, if it isn't one of the implementation types
+	 * this factory creates, or if this thread's pool for the type is already full.
+	 * <p/>
+	 * The caller must be the last user of the PDU. See the class documentation for the rules.
+	 * The PDU's serialized form cache is switched off and emptied as it goes into the pool.
+	 * 
+	 * @param pdu The PDU to recycle. May be null.
+	 */
+	public void recycle( PDU pdu )
+	{
+		if( recycling == false || pdu == null || pdu.isRetained() )
+			return;
+
+		PduType type = pdu.getType();
+		if( typeMap.get(type) != pdu.getClass() )
+			return;
+
+		ArrayDeque<PDU> pool = pools.get().computeIfAbsent( type, key -> new ArrayDeque<>() );
+		if( pool.size() < POOL_LIMIT )
+			pool.addLast( pdu.setCacheEnabled(false) );
+	}
+
+	/**
+	 * Turn PDU recycling on or off. When turned off, any PDUs sitting in pools are left for the
+	 * garbage collector. Off by default.
+	 */
+	public void setRecycling( boolean recycling )
+	{
+		this.recycling = recycling;
+		if( recycling == false )
+			this.pools = ThreadLocal.withInitial( () -> new EnumMap<>(PduType.class) );
+	}
+
+	public boolean isRecycling()
+	{
+		return this.recycling;
 	}
 
 	///////////////////////////////////////////////////////////////////////////////////////
@@ -205,16 +381,16 @@ public class PduFactory
 	{
 		PduType pduType = null;
 		
-		// create an instance of the PDU to make sure that we can
+		// bind the constructor and create an instance of the PDU to make sure that we can
+		Supplier<PDU> constructor = null;
 		try
 		{
-			// create a test instance
-			PDU test = pduClass.newInstance();
-			
-			// get the PDU type it wants from the test instance
-			pduType = test.getType();
+			constructor = bindConstructor( pduClass );
+
+			// create a test instance and get the PDU type it wants from it
+			pduType = constructor.get().getType();
 		}
-		catch( IllegalAccessException | InstantiationException e )
+		catch( RuntimeException e )
 		{
 			throw new DiscoException( e, "Cannot register custom PDU (%s). Instantiation error: %s",
 			                          pduClass.getSimpleName(),
@@ -242,6 +418,16 @@ public class PduFactory
 		
 		// register the mapping
 		this.typeMap.put( pduType, pduClass );
+		this.constructors.put( pduType, constructor );
+	}
+
+	/**
+	 * Register the given implementation class for the type, binding its constructor.
+	 */
+	private void bind( PduType type, Class<? extends PDU> pduClass )
+	{
+		this.typeMap.put( type, pduClass );
+		this.constructors.put( type, bindConstructor(pduClass) );
 	}
 	
 	///////////////////////////////////////////////////////////////////////////////////////
@@ -277,4 +463,60 @@ public class PduFactory
 		return DEFAULT;
 	}
 
+	/**
+	 * Turn the public no-arg constructor of the given PDU class into a {@link Supplier}. Where
+	 * we can, we have the JVM spin up a class that calls the constructor directly (the same thing
+	 * it does for <code>EntityStatePdu::new</code>). If the class isn't visible to us for that
+	 * (a custom PDU from another class loader, say), we fall back to invoking a method handle.
+	 * 
+	 * @throws DiscoException If the class has no accessible no-arg constructor
+	 */
+	@SuppressWarnings("unchecked")
+	private static Supplier<PDU> bindConstructor( Class<? extends PDU> pduClass )
+		throws DiscoException
+	{
+		MethodHandle handle = null;
+		try
+		{
+			handle = MethodHandles.publicLookup().findConstructor( pduClass,
+			                                                       MethodType.methodType(void.class) );
+		}
+		catch( NoSuchMethodException | IllegalAccessException e )
+		{
+			throw new DiscoException( e, "PDU class (%s) must have a public no-arg constructor",
+			                          pduClass.getSimpleName() );
+		}
+
+		try
+		{
+			CallSite site = LambdaMetafactory.metafactory( MethodHandles.lookup(),
+			                                               "get",
+			                                               MethodType.methodType(Supplier.class),
+			                                               MethodType.methodType(Object.class),
+			                                               handle,
+			                                               MethodType.methodType(pduClass) );
+			return (Supplier<PDU>)site.getTarget().invokeExact();
+		}
+		catch( Throwable throwable )
+		{
+			// not visible to us - call through the handle instead
+			final MethodHandle constructor = handle.asType( MethodType.methodType(PDU.class) );
+			return () -> {
+				try
+				{
+					return (PDU)constructor.invokeExact();
+				}
+				catch( RuntimeException | Error e )
+				{
+					throw e;
+				}
+				catch( Throwable t )
+				{
+					throw new DiscoException( t, "Error creating PDU (%s): %s",
+					                          pduClass.getSimpleName(), t.getMessage() );
+				}
+			};
+		}
+	}
+
 }
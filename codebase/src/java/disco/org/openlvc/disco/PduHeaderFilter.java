@@ -0,0 +1,168 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import org.openlvc.disco.configuration.DisConfiguration;
+import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.pdu.field.ProtocolFamily;
+import org.openlvc.disco.pdu.field.ProtocolVersion;
+
+/**
+ * Cheap filter that is applied to raw packets before they are turned into PDUs. It looks at
+ * fields that sit at fixed offsets in every PDU and decides whether the packet is worth decoding
+ * at all. Nothing is allocated: each check is a single array lookup.
+ * <p/>
+ * The checks available are:
+ * <ul>
+ *   <li>Protocol version (header byte 0)</li>
+ *   <li>PDU type (header byte 2)</li>
+ *   <li>Protocol family (header byte 3)</li>
+ *   <li>Site and application id (bytes 12-15). These are the first two fields of the body,
+ *       which for almost every PDU type is the id of the entity/object that sent it.</li>
+ * </ul>
+ * Each check is optional. Anything not configured is not checked. Packets too short to hold the
+ * fields being checked are let through so that the decoder can report them properly.
+ * <p/>
+ * The filter is configured through the {@link DisConfiguration}. It is immutable once built and
+ * safe to share between threads.
+ */
+public class PduHeaderFilter
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int OFFSET_VERSION = 0;
+	private static final int OFFSET_TYPE    = 2;
+	private static final int OFFSET_FAMILY  = 3;
+	private static final int OFFSET_SITE    = 12;
+	private static final int OFFSET_APP     = 14;
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	// Lookup tables indexed by the raw byte value. Null if the check isn't active.
+	private boolean[] versions;
+	private boolean[] types;
+	private boolean[] families;
+
+	// Indexed by the raw 16-bit value. Null if the check isn't active.
+	private BitSet sites;
+	private BitSet apps;
+
+	private boolean active;
+	private int minimumLength;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	public PduHeaderFilter( DisConfiguration configuration )
+	{
+		this.versions = toTable( configuration.getFilterProtocolVersions(), ProtocolVersion::value );
+		this.types = toTable( configuration.getFilterPduTypes(), PduType::value );
+		this.families = toTable( configuration.getFilterProtocolFamilies(), ProtocolFamily::value );
+		this.sites = configuration.getFilterSiteIds();
+		this.apps = configuration.getFilterAppIds();
+
+		this.active = versions != null || types != null || families != null ||
+		              sites != null || apps != null;
+
+		if( sites != null || apps != null )
+			this.minimumLength = OFFSET_APP + 2;
+		else
+			this.minimumLength = OFFSET_FAMILY + 1;
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+	/**
+	 * @return True if there is at least one check configured. If not, everything will pass and
+	 *         callers can skip the filter altogether.
+	 */
+	public boolean isActive()
+	{
+		return this.active;
+	}
+
+	/**
+	 * Check the packet held in <code>packet[offset]</code> through
+	 * <code>packet[offset+length-1]</code>.
+	 *
+	 * @return True if the packet should be decoded, false if it should be dropped
+	 */
+	public boolean accept( byte[] packet, int offset, int length )
+	{
+		if( active == false || length < minimumLength )
+			return true;
+
+		return test( versions, packet[offset+OFFSET_VERSION] ) &&
+		       test( types, packet[offset+OFFSET_TYPE] ) &&
+		       test( families, packet[offset+OFFSET_FAMILY] ) &&
+		       test( sites, packet[offset+OFFSET_SITE], packet[offset+OFFSET_SITE+1] ) &&
+		       test( apps, packet[offset+OFFSET_APP], packet[offset+OFFSET_APP+1] );
+	}
+
+	/**
+	 * Check the packet held between the buffer's position and limit. The buffer's position is
+	 * not changed.
+	 *
+	 * @return True if the packet should be decoded, false if it should be dropped
+	 */
+	public boolean accept( ByteBuffer packet )
+	{
+		if( active == false || packet.remaining() < minimumLength )
+			return true;
+
+		int offset = packet.position();
+		return test( versions, packet.get(offset+OFFSET_VERSION) ) &&
+		       test( types, packet.get(offset+OFFSET_TYPE) ) &&
+		       test( families, packet.get(offset+OFFSET_FAMILY) ) &&
+		       test( sites, packet.get(offset+OFFSET_SITE), packet.get(offset+OFFSET_SITE+1) ) &&
+		       test( apps, packet.get(offset+OFFSET_APP), packet.get(offset+OFFSET_APP+1) );
+	}
+
+	private final boolean test( boolean[] table, byte value )
+	{
+		return table == null || table[value & 0xff];
+	}
+
+	private final boolean test( BitSet table, byte high, byte low )
+	{
+		return table == null || table.get( ((high & 0xff) << 8) | (low & 0xff) );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	private static <T> boolean[] toTable( Set<T> values, ToIntFunction<T> valueOf )
+	{
+		if( values == null || values.isEmpty() )
+			return null;
+
+		boolean[] table = new boolean[256];
+		for( T value : values )
+			table[valueOf.applyAsInt(value) & 0xff] = true;
+
+		return table;
+	}
+}
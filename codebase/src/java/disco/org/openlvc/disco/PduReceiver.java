@@ -17,13 +17,22 @@
  */
 package org.openlvc.disco;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.apache.logging.log4j.Logger;
+import org.openlvc.disco.connection.Metrics;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.UnsupportedPDU;
+import org.openlvc.disco.receivers.RingReceiver;
+import org.openlvc.disco.receivers.ShardedReceiver;
 import org.openlvc.disco.receivers.SimpleReceiver;
 import org.openlvc.disco.receivers.SingleThreadReceiver;
 import org.openlvc.disco.receivers.ThreadPoolReceiver;
+import org.openlvc.disco.utils.BufferPool;
 
 /**
  * Networking is hard. There are a bunch of approaches to doing something as simple as PDU
@@ -43,6 +52,8 @@ public abstract class PduReceiver
 	//----------------------------------------------------------
 	//                    STATIC VARIABLES
 	//----------------------------------------------------------
+	/** Most PDUs a queueing receiver should pull off its queue for one batch delivery */
+	protected static final int MAX_BATCH = 256;
 
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
@@ -51,6 +62,8 @@ public abstract class PduReceiver
 	protected OpsCenter opscenter;
 	protected PduFactory pduFactory;
 	protected IPduListener clientListener;
+	protected IPduBatchListener batchListener; // null if the client can't take batches
+	protected PduHeaderFilter headerFilter;
 	
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -61,6 +74,9 @@ public abstract class PduReceiver
 		this.opscenter = opscenter;
 		this.pduFactory = opscenter.getPduFactory();
 		this.clientListener = opscenter.getPduListener();
+		if( clientListener instanceof IPduBatchListener )
+			this.batchListener = (IPduBatchListener)clientListener;
+		this.headerFilter = new PduHeaderFilter( opscenter.getConfiguration().getDisConfiguration() );
 	}
 
 	//----------------------------------------------------------
@@ -74,6 +90,170 @@ public abstract class PduReceiver
 	 */
 	public abstract void receive( byte[] packet );
 
+	/**
+	 * A packet has been received from the network into a buffer that was taken from the given
+	 * {@link BufferPool}. The packet contents sit between the buffer's position and limit.
+	 * <p/>
+	 * Ownership of the buffer passes to the receiver with this call. The receiver <b>must</b>
+	 * hand it back via {@link BufferPool#release(ByteBuffer)} once it no longer needs the bytes
+	 * (typically as soon as the PDU has been decoded), and the caller must not touch it again.
+	 * <p/>
+	 * The default implementation copies the packet into a new <code>byte[]</code>, releases the
+	 * buffer straight away and passes the copy to {@link #receive(byte[])}. Receivers that can
+	 * work from the buffer directly should override this to avoid the copy.
+	 * 
+	 * @param packet The buffer holding the packet
+	 * @param pool   The pool the buffer must be returned to
+	 */
+	public void receive( ByteBuffer packet, BufferPool pool )
+	{
+		byte[] copy = new byte[packet.remaining()];
+		packet.get( copy );
+		pool.release( packet );
+		receive( copy );
+	}
+
+	/**
+	 * Run the packet past the {@link PduHeaderFilter}. If it is rejected the filtered count in
+	 * the connection {@link org.openlvc.disco.connection.Metrics} is bumped. Implementations
+	 * should call this before doing any decoding work, and drop the packet if it returns true.
+	 * 
+	 * @return True if the packet should be dropped without being decoded
+	 */
+	protected boolean isFiltered( byte[] packet )
+	{
+		if( headerFilter.accept(packet,0,packet.length) )
+			return false;
+
+		opscenter.getMetrics().pduFiltered();
+		return true;
+	}
+
+	/**
+	 * Same as {@link #isFiltered(byte[])}, for a packet sitting between the buffer's position
+	 * and limit. The buffer is not modified.
+	 */
+	protected boolean isFiltered( ByteBuffer packet )
+	{
+		if( headerFilter.accept(packet) )
+			return false;
+
+		opscenter.getMetrics().pduFiltered();
+		return true;
+	}
+
+	/**
+	 * Record a packet that was thrown away without being processed, for example because the
+	 * queue it was headed for was full, against its PDU type in the connection {@link Metrics}.
+	 */
+	protected void discarded( byte[] packet )
+	{
+		opscenter.getMetrics().pduDiscarded( Metrics.typeOf(packet) );
+	}
+
+	/**
+	 * Same as {@link #discarded(byte[])}, for a packet sitting between the buffer's position
+	 * and limit. Must be called before the buffer is released.
+	 */
+	protected void discarded( ByteBuffer packet )
+	{
+		opscenter.getMetrics().pduDiscarded( Metrics.typeOf(packet) );
+	}
+
+	/**
+	 * Decode the packet sitting between the buffer's position and limit. Any problem with the
+	 * packet is logged and <code>null</code> returned, so that callers working through a queue
+	 * can just move on to the next one. If a pool is given, the buffer is returned to it
+	 * whether or not the decode worked.
+	 * 
+	 * @param packet The packet to decode
+	 * @param pool   The pool to release the buffer to once done, or null if it isn't pooled
+	 * @return The PDU, or null if the packet couldn't be decoded
+	 */
+	protected PDU decode( ByteBuffer packet, BufferPool pool )
+	{
+		try
+		{
+			return pduFactory.create( packet );
+		}
+		catch( IOException ioex )
+		{
+			logger.warn( "(PduRecv) Problem deserializing PDU: "+ioex.getMessage(), ioex );
+		}
+		catch( UnsupportedPDU up )
+		{
+			// log and continue
+			if( logger.isTraceEnabled() )
+				logger.trace( "(PduRecv) Received unsupported PDU, skipping it: "+up.getMessage() );
+		}
+		catch( DiscoException de )
+		{
+			// log and continue
+			if( logger.isDebugEnabled() )
+				logger.debug( "(PduRecv) Problem deserializing PDU, skipping it: "+de.getMessage(), de );
+		}
+		catch( Exception e )
+		{
+			logger.warn( "(PduRecv) Unknown exception while processing PDU, skipping it: "+e.getMessage(), e );
+		}
+		finally
+		{
+			// PDU doesn't hold on to the buffer, so it can go back as soon as we've decoded
+			if( pool != null )
+				pool.release( packet );
+		}
+
+		return null;
+	}
+
+	/**
+	 * Hand a batch of decoded PDUs to the client. If the listener is an
+	 * {@link IPduBatchListener} it gets the whole list in one call, otherwise each PDU is passed
+	 * to {@link IPduListener#receive(PDU)} in turn. Once the listener is done, the PDUs are handed
+	 * back to the factory for recycling and the list is cleared ready for the next batch.
+	 * 
+	 * @param batch The PDUs to deliver. Must only be touched by the calling thread.
+	 */
+	protected void deliver( List<PDU> batch )
+	{
+		if( batch.isEmpty() )
+			return;
+
+		try
+		{
+			if( batchListener != null )
+			{
+				batchListener.receive( batch );
+			}
+			else
+			{
+				for( int i = 0; i < batch.size(); i++ )
+				{
+					try
+					{
+						clientListener.receive( batch.get(i) );
+					}
+					catch( Exception e )
+					{
+						logger.warn( "(PduRecv) Listener threw exception processing PDU, skipping it: "+e.getMessage(), e );
+					}
+				}
+			}
+		}
+		catch( Exception e )
+		{
+			logger.warn( "(PduRecv) Listener threw exception processing batch: "+e.getMessage(), e );
+		}
+		finally
+		{
+			// listener is done with them - hand back for reuse (no-op unless recycling is on)
+			for( int i = 0; i < batch.size(); i++ )
+				pduFactory.recycle( batch.get(i) );
+
+			batch.clear();
+		}
+	}
+
 	/**
 	 * You may proceed. Receiver should now accept and act on incoming PDUs.
 	 */
@@ -118,6 +298,8 @@ public abstract class PduReceiver
 	 *   <li>single-thread creates {@link SingleThreadReceiver}
 	 *   <li>thread-pool   creates {@link ThreadPoolReceiver}
 	 *   <li>simple        creates {@link SimpleReceiver}
+	 *   <li>ring          creates {@link RingReceiver}
+	 *   <li>sharded       creates {@link ShardedReceiver}
 	 * </ul>
 	 * 
 	 * If the name is not any of these, we will treat it as a class name, trying to find the class
@@ -141,6 +323,8 @@ public abstract class PduReceiver
 			case "simple"       : return new SimpleReceiver( opscenter );
 			case "single-thread": return new SingleThreadReceiver( opscenter );
 			case "thread-pool"  : return new ThreadPoolReceiver( opscenter );
+			case "ring"         : return new RingReceiver( opscenter );
+			case "sharded"      : return new ShardedReceiver( opscenter );
 			default: break;
 		}
 		
@@ -23,6 +23,7 @@ import java.lang.reflect.InvocationTargetException;
 import org.apache.logging.log4j.Logger;
 import org.openlvc.disco.connection.IConnection;
 import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.senders.RingSender;
 import org.openlvc.disco.senders.SimpleSender;
 import org.openlvc.disco.senders.SingleThreadSender;
 import org.openlvc.disco.senders.ThreadPoolSender;
@@ -81,9 +82,30 @@ public abstract class PduSender
 	 */
 	public abstract void close() throws DiscoException;
 
+	/**
+	 * Record a PDU that was never sent, whether because it failed to serialize or because
+	 * it couldn't be queued, against its type in the connection metrics.
+	 */
+	protected void discarded( PDU pdu )
+	{
+		discarded( connection, pdu );
+	}
+
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+	/**
+	 * Same as {@link #discarded(PDU)}, for use where the sender itself can't be referenced,
+	 * such as from a listener registered in a subclass constructor.
+	 */
+	protected static void discarded( IConnection connection, PDU pdu )
+	{
+		if( pdu != null )
+			connection.getMetrics().pduDiscarded( pdu.getType().value() );
+		else
+			connection.getMetrics().pduDiscarded();
+	}
+
 	/**
 	 * Creates a new sender based on the name. Valid values are:
 	 * 
@@ -91,6 +113,7 @@ public abstract class PduSender
 	 *   <li>single-thread creates {@link SingleThreadSender}
 	 *   <li>thread-pool   creates {@link ThreadPoolSender}
 	 *   <li>simple        creates {@link SimpleSender}
+	 *   <li>ring          creates {@link RingSender}
 	 * </ul>
 	 * 
 	 * If the name is not any of these, we will treat it as a class name, trying to find the class
@@ -114,6 +137,11 @@ public abstract class PduSender
 			case "simple"       : return new SimpleSender( opscenter );
 			case "single-thread": return new SingleThreadSender( opscenter );
 			case "thread-pool"  : return new ThreadPoolSender( opscenter );
+			case "ring":
+				// start the send thread only once the sender is fully constructed
+				RingSender ringSender = new RingSender( opscenter );
+				ringSender.open();
+				return ringSender;
 			default: break;
 		}
 		
@@ -0,0 +1,366 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.application;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openlvc.disco.configuration.DisConfiguration;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.DeadReckoningAlgorithm;
+import org.openlvc.disco.pdu.record.AngularVelocityVector;
+import org.openlvc.disco.pdu.record.DeadReckoningParameter;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.pdu.record.EulerAngles;
+import org.openlvc.disco.pdu.record.VectorRecord;
+import org.openlvc.disco.pdu.record.WorldCoordinate;
+import org.openlvc.disco.utils.DeadReckoning;
+
+/**
+ * Publisher-side update suppression for locally owned entities. Remote applications dead
+ * reckon our entities between updates, so there is no need to send a new Entity State PDU
+ * until the entity has drifted away from where they think it is.
+ * <p/>
+ * For each entity we remember the state we last sent. When asked about a new update, we dead
+ * reckon that state forward to now, using the algorithm the receivers will be using, and only
+ * let the update through if:
+ * <ul>
+ *   <li>The predicted location is further than the position threshold from the real one</li>
+ *   <li>The predicted orientation is more than the orientation threshold away from the real one</li>
+ *   <li>The dead reckoning algorithm or appearance has changed</li>
+ *   <li>It has been longer than the heartbeat period since the last update went out</li>
+ *   <li>We have never sent anything for this entity</li>
+ * </ul>
+ *
+ * When enabled in the {@link DisConfiguration}, the {@link DisApplication} passes every Entity
+ * State PDU given to {@link DisApplication#send(org.openlvc.disco.pdu.PDU)} through the gate.
+ * Changes the gate doesn't look at (marking, capabilities, articulations, ...) should be followed
+ * by a call to {@link #forceUpdate(EntityId)} so the next send goes out regardless. Entities that
+ * are removed from the simulation should be {@link #remove(EntityId) removed}.
+ * <p/>
+ * Thresholds are loaded from the {@link DisConfiguration} when the application starts and can
+ * be adjusted while running with the setters here.
+ */
+public class DeadReckoningGate
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private DisApplication app;
+	private ConcurrentMap<EntityId,SentState> sentStates;
+
+	private volatile boolean enabled;
+	private volatile double positionThreshold;    // meters
+	private volatile double orientationThreshold; // radians
+	private volatile long heartbeatPeriod;        // millis
+
+	// Monitoring
+	private LongAdder passed;
+	private LongAdder suppressed;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	protected DeadReckoningGate( DisApplication app )
+	{
+		this.app = app;
+		this.sentStates = new ConcurrentHashMap<>();
+
+		this.enabled = false;
+		this.positionThreshold = 1.0;
+		this.orientationThreshold = Math.toRadians( 3.0 );
+		this.heartbeatPeriod = 5000;
+
+		this.passed = new LongAdder();
+		this.suppressed = new LongAdder();
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Lifecycle Methods   ////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public void start()
+	{
+		DisConfiguration configuration = app.getConfiguration().getDisConfiguration();
+		this.enabled = configuration.isDeadReckoningGateEnabled();
+		this.positionThreshold = configuration.getDeadReckoningPositionThreshold();
+		this.orientationThreshold = Math.toRadians( configuration.getDeadReckoningOrientationThreshold() );
+		this.heartbeatPeriod = configuration.getDeadReckoningHeartbeatPeriod();
+
+		this.sentStates.clear();
+		this.passed.reset();
+		this.suppressed.reset();
+	}
+
+	public void stop()
+	{
+		this.sentStates.clear();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Gate Methods   /////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Same as {@link #shouldSend(EntityStatePdu, long)} using the current time.
+	 */
+	public boolean shouldSend( EntityStatePdu pdu )
+	{
+		return shouldSend( pdu, System.currentTimeMillis() );
+	}
+
+	/**
+	 * Decide whether the given update needs to go out, based on how far it is from where the
+	 * last update we sent would have it be by now. If it does need to go out, it is recorded
+	 * as the last sent state for the entity.
+	 *
+	 * @param pdu  The latest state of a locally owned entity
+	 * @param time The current time, millis since the epoch
+	 * @return True if the update should be sent, false if receivers are close enough already
+	 */
+	public boolean shouldSend( EntityStatePdu pdu, long time )
+	{
+		SentState sent = sentStates.get( pdu.getEntityID() );
+		if( sent == null )
+		{
+			sent = new SentState();
+			SentState existing = sentStates.putIfAbsent( pdu.getEntityID().clone(), sent );
+			if( existing != null )
+				sent = existing;
+		}
+
+		if( sent.updateIfOutOfDate(pdu,time) )
+		{
+			passed.increment();
+			return true;
+		}
+		else
+		{
+			suppressed.increment();
+			return false;
+		}
+	}
+
+	/**
+	 * Make sure the next update for the given entity is sent, regardless of thresholds.
+	 */
+	public void forceUpdate( EntityId id )
+	{
+		SentState sent = sentStates.get( id );
+		if( sent != null )
+			sent.invalidate();
+	}
+
+	/**
+	 * Forget everything we know about the given entity.
+	 */
+	public void remove( EntityId id )
+	{
+		sentStates.remove( id );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public boolean isEnabled()
+	{
+		return this.enabled;
+	}
+
+	public void setEnabled( boolean enabled )
+	{
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return Distance (meters) an entity may drift from its dead reckoned location before an
+	 *         update is sent
+	 */
+	public double getPositionThreshold()
+	{
+		return this.positionThreshold;
+	}
+
+	public void setPositionThreshold( double meters )
+	{
+		this.positionThreshold = meters;
+	}
+
+	/**
+	 * @return Angle (degrees) an entity may turn away from its dead reckoned orientation before
+	 *         an update is sent
+	 */
+	public double getOrientationThreshold()
+	{
+		return Math.toDegrees( this.orientationThreshold );
+	}
+
+	public void setOrientationThreshold( double degrees )
+	{
+		this.orientationThreshold = Math.toRadians( degrees );
+	}
+
+	/**
+	 * @return Longest time (millis) we will go without sending an update for an entity
+	 */
+	public long getHeartbeatPeriod()
+	{
+		return this.heartbeatPeriod;
+	}
+
+	public void setHeartbeatPeriod( long millis )
+	{
+		this.heartbeatPeriod = millis;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Monitoring Methods   ///////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public long getPassedCount()
+	{
+		return passed.sum();
+	}
+
+	public long getSuppressedCount()
+	{
+		return suppressed.sum();
+	}
+
+	public int getTrackedEntityCount()
+	{
+		return sentStates.size();
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Inner Class: SentState   ///////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Copy of the dead reckoning relevant parts of the last update sent for an entity. All
+	 * records are preallocated and copied into, so checking an update allocates nothing.
+	 */
+	private class SentState
+	{
+		private long sentTime = Long.MIN_VALUE; // never sent
+		private DeadReckoningAlgorithm algorithm;
+		private int appearance;
+		private WorldCoordinate location = new WorldCoordinate();
+		private EulerAngles orientation = new EulerAngles();
+		private VectorRecord velocity = new VectorRecord();
+		private VectorRecord acceleration = new VectorRecord();
+		private AngularVelocityVector angularVelocity = new AngularVelocityVector();
+
+		// scratch for the predicted state
+		private WorldCoordinate predictedLocation = new WorldCoordinate();
+		private EulerAngles predictedOrientation = new EulerAngles();
+		private double[] scratch = new double[DeadReckoning.SCRATCH_SIZE];
+
+		private synchronized boolean updateIfOutOfDate( EntityStatePdu pdu, long time )
+		{
+			if( isOutOfDate(pdu,time) == false )
+				return false;
+
+			DeadReckoningParameter parameters = pdu.getDeadReckoningParams();
+			this.sentTime = time;
+			this.algorithm = parameters.getDeadReckoningAlgorithm();
+			this.appearance = pdu.getAppearance();
+			copy( pdu.getLocation(), location );
+			copy( pdu.getOrientation(), orientation );
+			copy( pdu.getLinearVelocity(), velocity );
+			copy( parameters.getEntityLinearAcceleration(), acceleration );
+			copy( parameters.getEntityAngularVelocity(), angularVelocity );
+			return true;
+		}
+
+		private boolean isOutOfDate( EntityStatePdu pdu, long time )
+		{
+			if( sentTime == Long.MIN_VALUE || (time - sentTime) >= heartbeatPeriod )
+				return true;
+
+			DeadReckoningParameter parameters = pdu.getDeadReckoningParams();
+			if( parameters.getDeadReckoningAlgorithm() != algorithm ||
+			    pdu.getAppearance() != appearance )
+				return true;
+
+			// where do receivers think the entity is right now?
+			DeadReckoning.extrapolate( algorithm,
+			                           location,
+			                           orientation,
+			                           velocity,
+			                           acceleration,
+			                           angularVelocity,
+			                           (time - sentTime) / 1000.0,
+			                           predictedLocation,
+			                           predictedOrientation,
+			                           scratch );
+
+			double distance = WorldCoordinate.getStraightLineDistanceBetween( predictedLocation,
+			                                                                  pdu.getLocation() );
+			if( distance > positionThreshold )
+				return true;
+
+			double angle = DeadReckoning.getAngleBetween( predictedOrientation,
+			                                              pdu.getOrientation(),
+			                                              scratch );
+			return angle > orientationThreshold;
+		}
+
+		private synchronized void invalidate()
+		{
+			this.sentTime = Long.MIN_VALUE;
+		}
+
+		private void copy( WorldCoordinate from, WorldCoordinate to )
+		{
+			to.setX( from.getX() );
+			to.setY( from.getY() );
+			to.setZ( from.getZ() );
+		}
+
+		private void copy( EulerAngles from, EulerAngles to )
+		{
+			to.setPsi( from.getPsi() );
+			to.setTheta( from.getTheta() );
+			to.setPhi( from.getPhi() );
+		}
+
+		private void copy( VectorRecord from, VectorRecord to )
+		{
+			to.setFirstComponent( from.getFirstComponent() );
+			to.setSecondComponent( from.getSecondComponent() );
+			to.setThirdComponent( from.getThirdComponent() );
+		}
+
+		private void copy( AngularVelocityVector from, AngularVelocityVector to )
+		{
+			to.setRateAboutXAxis( from.getRateAboutXAxis() );
+			to.setRateAboutYAxis( from.getRateAboutYAxis() );
+			to.setRateAboutZAxis( from.getRateAboutZAxis() );
+		}
+	}
+}
@@ -17,26 +17,40 @@
  */
 package org.openlvc.disco.application;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.Logger;
+import org.openlvc.disco.utils.TimerWheel;
 
-public class DeleteReaper implements Runnable
+/**
+ * Removes data from the registered stores once it hasn't been updated for longer than the
+ * delete timeout.
+ * <p/>
+ * Each store gets its own timer on the application's {@link TimerWheel}. When it fires, the
+ * store is reaped and then asked for its oldest remaining update time
+ * ({@link IDeleteReaperManaged#getOldestTimestamp()}). The timer is set for the moment that
+ * record will go stale, so data is removed close to when it expires and a store with nothing
+ * about to expire isn't touched. Stores that can't say how old their oldest record is are
+ * checked every 1/5th of the delete timeout (but no more often than every 3 seconds).
+ */
+public class DeleteReaper
 {
 	//----------------------------------------------------------
 	//                    STATIC VARIABLES
 	//----------------------------------------------------------
+	private static final long MIN_INTERVAL = 1000;   // never reap a store more often than this
+	private static final long MIN_POLL     = 3000;   // poll interval floor for UNKNOWN stores
 
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
 	private DisApplication app;
-	private Set<IDeleteReaperManaged> targets;
+	private Map<IDeleteReaperManaged,ReapTimer> targets;
 	private volatile long deleteTimeout;
 	private Logger logger;
 	
-	private Thread thread;
+	private volatile boolean running;
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -44,11 +58,11 @@ public class DeleteReaper implements Runnable
 	protected DeleteReaper( DisApplication app )
 	{
 		this.app = app;
-		this.targets = new HashSet<>();
+		this.targets = new ConcurrentHashMap<>();
 		this.deleteTimeout = 60000;
-		this.logger = null; // set in run()
+		this.logger = null; // set in start()
 		
-		this.thread = null; // set in start()
+		this.running = false;
 	}
 
 	//----------------------------------------------------------
@@ -59,28 +73,6 @@ public class DeleteReaper implements Runnable
 	/// Lifecycle Methods   ////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
 	public void start()
-	{
-		this.thread = new Thread( this, "DeleteReaper" );
-		this.thread.start();
-	}
-	
-	public void stop()
-	{
-		if( this.thread == null )
-		{
-			return;
-		}
-		
-		this.thread.interrupt();
-		try
-		{
-			this.thread.join( 1000 );
-		}
-		catch( InterruptedException ie )
-		{ /*no-op*/ }
-	}
-	
-	public void run()
 	{
 		this.logger = app.getLogger();
 		if( this.deleteTimeout == 0 )
@@ -93,35 +85,45 @@ public class DeleteReaper implements Runnable
 			logger.info( "Starting delete timeout reaper: Max age %d millis", deleteTimeout );
 		}
 
-		while( Thread.interrupted() == false )
-		{
-			// Sleep for a while; typically a period 1/5th the delete timeout
-			try
-			{
-				long sleepTime = Math.max( 3000, deleteTimeout/5 ); // wait at least 3 seconds
-				Thread.sleep( sleepTime );
-			}
-			catch( InterruptedException ie )
-			{
-				return;
-			}
-			
-			// Collect all the souls
-			harvest();
-		}
+		this.running = true;
+		long firstCheck = System.currentTimeMillis() + deleteTimeout;
+		for( ReapTimer timer : targets.values() )
+			app.getTimerWheel().schedule( timer, firstCheck );
 	}
 	
-	private void harvest()
+	public void stop()
 	{
-		long timeOfDeath = System.currentTimeMillis()-deleteTimeout;
+		this.running = false;
+		for( ReapTimer timer : targets.values() )
+			app.getTimerWheel().cancel( timer );
+	}
+	
+	private void harvest( ReapTimer timer, long now )
+	{
+		IDeleteReaperManaged target = timer.target;
+		long timeout = this.deleteTimeout;
+		if( timeout == 0 )
+			return; // turned off while we were running; leave the timer unscheduled
+		
+		long timeOfDeath = now - timeout;
 		logger.trace( "Removing data not updated since %1$tY-%1$tm-%1$td %1$tH:%1$tM:%1$tS", timeOfDeath );
 		
-		for( IDeleteReaperManaged target : this.targets )
-		{
-			int removed = target.removeStaleData( timeOfDeath );
-			if( removed > 0 )
-				logger.debug( "Removed [%d] records from [%s]", removed, target.getClass().getSimpleName() );
-		}
+		int removed = target.removeStaleData( timeOfDeath );
+		if( removed > 0 )
+			logger.debug( "Removed [%d] records from [%s]", removed, target.getClass().getSimpleName() );
+		
+		// come back when the next record is due to expire
+		long oldest = target.getOldestTimestamp();
+		long next;
+		if( oldest == IDeleteReaperManaged.UNKNOWN )
+			next = now + Math.max( MIN_POLL, timeout/5 );
+		else if( oldest == IDeleteReaperManaged.EMPTY )
+			next = now + timeout;
+		else
+			next = oldest + timeout;
+		
+		if( running )
+			app.getTimerWheel().schedule( timer, Math.max(now+MIN_INTERVAL,next) );
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -129,19 +131,21 @@ public class DeleteReaper implements Runnable
 	////////////////////////////////////////////////////////////////////////////////////////////
 	protected void registerTarget( IDeleteReaperManaged target )
 	{
-		this.targets.add( target );
+		ReapTimer timer = new ReapTimer( target );
+		if( targets.putIfAbsent(target,timer) == null && running )
+			app.getTimerWheel().schedule( timer, System.currentTimeMillis()+deleteTimeout );
 	}
 	
 	/**
 	 * Specify the application delete timeout.
 	 * <p/>
 	 * 
-	 * Periodically (typically 1/5th of the given value) a thread will loop over all the data
-	 * we have collected and remove any that has not been updated within the last x milliseconds
-	 * (as given in the argument).
+	 * Data that has not been updated within the last x milliseconds (as given in the argument)
+	 * will be removed. Each store is revisited when its oldest data is due to expire. Changes
+	 * take effect the next time the reaper is started.
 	 * 
 	 * @param millis How long it can be between updates before data is considered stale and removed.
-	 *               Time in milliseconds.
+	 *               Time in milliseconds. 0 disables the reaper.
 	 */
 	public void setDeleteTimeout( long millis )
 	{
@@ -161,4 +165,23 @@ public class DeleteReaper implements Runnable
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: ReapTimer   /////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private class ReapTimer extends TimerWheel.Timer
+	{
+		private final IDeleteReaperManaged target;
+
+		private ReapTimer( IDeleteReaperManaged target )
+		{
+			this.target = target;
+		}
+
+		@Override
+		protected void expired( long now )
+		{
+			harvest( this, now );
+		}
+	}
 }
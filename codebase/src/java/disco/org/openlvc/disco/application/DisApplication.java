@@ -17,18 +17,23 @@
  */
 package org.openlvc.disco.application;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.Logger;
 import org.openlvc.disco.DiscoException;
-import org.openlvc.disco.IPduListener;
+import org.openlvc.disco.IPduBatchListener;
 import org.openlvc.disco.OpsCenter;
 import org.openlvc.disco.bus.ErrorHandler;
 import org.openlvc.disco.bus.MessageBus;
 import org.openlvc.disco.configuration.DiscoConfiguration;
 import org.openlvc.disco.pdu.DisSizes;
 import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.PduType;
 import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.utils.ConflatingQueue;
+import org.openlvc.disco.utils.TimerWheel;
 
 /**
  * For applications that don't want to work directly with the complete stream of PDUs, or want
@@ -39,6 +44,7 @@ import org.openlvc.disco.pdu.record.EntityId;
  * <ul>
  *   <li>Store and retrieve last known status of entities, transmitters, emitters, ...</li>
  *   <li>Automatically handle common tasks like issuing of heartbeats for locally created entities</li>
+ *   <li>Hold back entity updates that remote dead reckoning already covers</li>
  *   <li>Subscribe to receive updates only for particular types of PDUs</li>
  *   <li>...</li>
  * </ul>
@@ -64,8 +70,10 @@ public class DisApplication
 	private MessageBus<PDU> pduBus;
 	
 	// State Management Services and Helpers
+	private TimerWheel timerWheel;
 	private Heartbeater heartbeater;
 	private DeleteReaper deleteReaper;
+	private DeadReckoningGate deadReckoningGate;
 	private AtomicInteger entityCounter;
 	
 
@@ -78,14 +86,18 @@ public class DisApplication
 		this.opscenter = null; // set in start()
 		
 		// State Management Services and Helpers
+		this.timerWheel = new TimerWheel( "Disco-AppTimer" );
 		this.heartbeater = new Heartbeater( this );
 		this.deleteReaper = new DeleteReaper( this );
+		this.deadReckoningGate = new DeadReckoningGate( this );
 		this.entityCounter = new AtomicInteger(0);
 
 		// PDU Storage and Management
 		this.pduStore = new PduStore( this );
 		this.pduBus = new MessageBus<>();
 		this.pduBus.subscribe( new ApplicationBusErrorReporter() );
+		this.pduBus.setConflationKey( PDU::getConflationKey );
+		this.pduBus.setRetainer( PDU::retain ); // async subscribers hold PDUs past publish
 	}
 
 	public DisApplication( DiscoConfiguration configuration )
@@ -115,8 +127,10 @@ public class DisApplication
 		
 		// open the connection up
 		this.opscenter.open();
+		this.deadReckoningGate.start();
 		
 		// start the recurring tasks
+		this.timerWheel.start();
 		this.heartbeater.start();
 		this.deleteReaper.start();
 		this.entityCounter.set(0);
@@ -127,9 +141,11 @@ public class DisApplication
 		// close off the recurring tasks
 		this.heartbeater.stop();
 		this.deleteReaper.stop();
+		this.timerWheel.stop();
 		
 		// close off the stream of data
 		this.opscenter.close();
+		this.deadReckoningGate.stop();
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -137,18 +153,27 @@ public class DisApplication
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/**
 	 * Send the given PDU out to the network through whatever connection Disco is configured for.
+	 * <p/>
+	 * If the {@link DeadReckoningGate} is enabled, Entity State PDUs are only sent when remote
+	 * dead reckoning of the last update has drifted past its thresholds, or a heartbeat is due.
+	 * Otherwise they are quietly dropped.
 	 * 
 	 * @param pdu The PDU to serialize and send
 	 */
 	public void send( PDU pdu )
 	{
+		if( deadReckoningGate.isEnabled() &&
+		    pdu.getType() == PduType.EntityState &&
+		    deadReckoningGate.shouldSend((EntityStatePdu)pdu) == false )
+			return;
+
 		opscenter.send( pdu );
 	}
 	
 	/**
 	 * Sends the given PDU out to the network through whatever connection Disco is configured for without 
 	 * making any modifications or additions (such as settings its exercise/site/app ids or anything like 
-	 * that). Just send the PDU straight through as it is.
+	 * that). Just send the PDU straight through as it is. This also bypasses the {@link DeadReckoningGate}.
 	 * 
 	 * @param pdu The PDU to serialize and send
 	 */
@@ -177,6 +202,25 @@ public class DisApplication
 		this.pduBus.subscribe( subscriber );
 	}
 
+	/**
+	 * Add a PDU subscriber that is called from its own thread, fed from its own queue, so that
+	 * it can't hold up the receipt of PDUs or any other subscriber. If it falls behind, the
+	 * overflow policy says what happens once the queue is full. With
+	 * {@link ConflatingQueue.Overflow#Conflate}, a PDU that carries the full state of something
+	 * (see {@link PDU#getConflationKey()}) replaces any older one for the same thing that is
+	 * still waiting, and events such as Fire and Detonation are never replaced.
+	 * 
+	 * @param subscriber The subscriber to call
+	 * @param queueSize  The most PDUs that can be waiting for the subscriber
+	 * @param overflow   What to do when the queue is full
+	 * @throws DiscoException If the subscriber incorrectly uses the message bus annotations
+	 * @see #getSubscriberMetrics()
+	 */
+	public void addAsyncSubscriber( Object subscriber, int queueSize, ConflatingQueue.Overflow overflow )
+	{
+		this.pduBus.subscribeAsync( subscriber, queueSize, overflow );
+	}
+
 	/**
 	 * Remove any subscriptions that the provided subscriber object has. This will only work
 	 * for this specific instance.
@@ -188,6 +232,14 @@ public class DisApplication
 		this.pduBus.unsubscribe( subscriber );
 	}
 
+	/**
+	 * @return Queue depth, lag and drop counts for each asynchronous subscriber
+	 */
+	public List<MessageBus.AsyncMetrics> getSubscriberMetrics()
+	{
+		return this.pduBus.getAsyncMetrics();
+	}
+
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -216,6 +268,20 @@ public class DisApplication
 		return this.deleteReaper;
 	}
 
+	/**
+	 * @return The timer wheel that runs the application's recurring tasks (heartbeats, delete
+	 *         timeouts). Only running between {@link #start()} and {@link #stop()}.
+	 */
+	public TimerWheel getTimerWheel()
+	{
+		return this.timerWheel;
+	}
+
+	public DeadReckoningGate getDeadReckoningGate()
+	{
+		return this.deadReckoningGate;
+	}
+
 	/**
 	 * The {@link DisApplication} maintains a counter for locally created/managed objects.
 	 * You can combine this with the site/app ids to generate a unique identifier on the network.
@@ -263,7 +329,7 @@ public class DisApplication
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Private Inner Class: PduListener   /////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
-	private class PduListener implements IPduListener
+	private class PduListener implements IPduBatchListener
 	{
 		@Override
 		public void receive( PDU pdu )
@@ -274,6 +340,16 @@ public class DisApplication
 			// Step 2: Notify all subscribers
 			pduBus.publish( pdu );
 		}
+
+		@Override
+		public void receive( List<PDU> batch )
+		{
+			// Step 1: Pass the updates to the store
+			pduStore.pduReceived( batch );
+
+			// Step 2: Notify all subscribers
+			pduBus.publishAll( batch );
+		}
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
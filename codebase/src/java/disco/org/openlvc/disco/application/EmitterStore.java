@@ -32,6 +32,7 @@ import org.openlvc.disco.pdu.entity.EntityStatePdu;
 import org.openlvc.disco.pdu.field.BeamFunction;
 import org.openlvc.disco.pdu.record.EntityId;
 import org.openlvc.disco.pdu.record.WorldCoordinate;
+import org.openlvc.disco.utils.ConcurrentLongMap;
 
 public class EmitterStore implements IDeleteReaperManaged
 {
@@ -43,7 +44,7 @@ public class EmitterStore implements IDeleteReaperManaged
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
 	private EntityStateStore entityStore;
-	private ConcurrentMap<EntityId,EmitterSet> byId;
+	private ConcurrentLongMap<EmitterSet> byId; // keyed on the packed EntityId
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -51,7 +52,7 @@ public class EmitterStore implements IDeleteReaperManaged
 	protected EmitterStore( PduStore parentStore )
 	{
 		this.entityStore = parentStore.getEntityStore();
-		this.byId = new ConcurrentHashMap<>();
+		this.byId = new ConcurrentLongMap<>();
 	}
 
 	//----------------------------------------------------------
@@ -77,12 +78,7 @@ public class EmitterStore implements IDeleteReaperManaged
 		EntityId emitter = pdu.getEmittingEntityId();
 
 		// Find the emitter set associated with this emitting entity
-		EmitterSet set = byId.get( emitter );
-		if( set == null )
-		{
-			set = new EmitterSet();
-			byId.put( emitter, set );
-		}
+		EmitterSet set = byId.computeIfAbsent( emitter.getPackedId(), packed -> new EmitterSet() );
 
 		// For each system, add all the beams from the incoming PDU to the existing matching
 		// system that we have. If we don't have one, just store the incoming system as a whole
@@ -160,7 +156,7 @@ public class EmitterStore implements IDeleteReaperManaged
 	////////////////////////////////////////////////////////////////////////////////////////////
 	public Collection<EmitterSystem> getEmittersOnEntity( EntityId carrierId )
 	{
-		return Collections.unmodifiableCollection( byId.get(carrierId).systems.values() );
+		return Collections.unmodifiableCollection( byId.get(carrierId.getPackedId()).systems.values() );
 	}
 	
 	public Set<EmitterBeam> getActiveBeams()
@@ -179,27 +175,15 @@ public class EmitterStore implements IDeleteReaperManaged
 	
 	public Set<EmitterBeam> getActiveBeamsNear( WorldCoordinate location, int radiusMeters )
 	{
-
 		Set<EmitterBeam> beams = new HashSet<>();
 		
-		// For each known EmitterSet, find out if it is close to the target, and if so, grab
-		// all the active beams inside it
-		for( EntityId localEntity : byId.keySet() )
+		// Let the entity store's spatial index find the entities close to the target, and for
+		// any of those that are emitting, grab all the active beams
+		for( EntityStatePdu espdu : entityStore.getEntityStatesNear(location,radiusMeters) )
 		{
-			// get the location of the parent entity
-			EntityStatePdu espdu = entityStore.getEntityState(localEntity);
-			if( espdu == null )
-				continue; // no entity? ruh-roh
-			
-			WorldCoordinate entityLocation = espdu.getLocation();
-			
-			// is this entity close to where our target is?
-			if( WorldCoordinate.getStraightLineDistanceBetween(location, entityLocation) > radiusMeters )
-				continue;
-			
-			// we are in proximity; find all the active beams
-			EmitterSet set = byId.get(localEntity);
-			beams.addAll( set.findBeamsMatching(beam -> beam.isBeamActive()) );
+			EmitterSet set = byId.get( espdu.getPackedEntityId() );
+			if( set != null )
+				beams.addAll( set.findBeamsMatching(beam -> beam.isBeamActive()) );
 		}
 
 		return beams;
@@ -265,7 +249,7 @@ public class EmitterStore implements IDeleteReaperManaged
 		
 		// After this we might have some empty emitter sets (platforms with no emitters left) that
 		// we need to clean up
-		byId.entrySet().removeIf( entry -> entry.getValue().systems.isEmpty() );
+		byId.removeIf( set -> set.systems.isEmpty() );
 		
 		return removed;
 	}
@@ -17,17 +17,24 @@
  */
 package org.openlvc.disco.application;
 
+import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.PduFactory;
+import org.openlvc.disco.pdu.PDU;
 import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.PduType;
 import org.openlvc.disco.pdu.record.EntityId;
 import org.openlvc.disco.pdu.record.WorldCoordinate;
+import org.openlvc.disco.utils.ConcurrentLongMap;
+import org.openlvc.disco.utils.DeadReckoning;
+import org.openlvc.disco.utils.SpatialIndex;
+import org.openlvc.disco.utils.TimeIndex;
 
 /**
  * Tracks the current state of all known {@link EntityStatePdu}s received from the network
@@ -42,16 +49,22 @@ public class EntityStateStore implements IDeleteReaperManaged
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
-	private ConcurrentMap<EntityId,EntityStatePdu> byId;
+	private ConcurrentLongMap<EntityStatePdu> byId; // keyed on the packed EntityId
 	private ConcurrentMap<String,EntityStatePdu> byMarking;
+	private SpatialIndex<EntityId,EntityStatePdu> byLocation;
+	private TimeIndex<EntityId,EntityStatePdu> byTime;
+	private PduFactory copier; // for handing out dead reckoned copies
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
 	//----------------------------------------------------------
 	protected EntityStateStore( PduStore store )
 	{
-		this.byId = new ConcurrentHashMap<>();
+		this.byId = new ConcurrentLongMap<>();
 		this.byMarking = new ConcurrentHashMap<>();
+		this.byLocation = new SpatialIndex<>();
+		this.byTime = new TimeIndex<>();
+		this.copier = new PduFactory();
 	}
 
 	//----------------------------------------------------------
@@ -64,7 +77,7 @@ public class EntityStateStore implements IDeleteReaperManaged
 	protected void receivePdu( EntityStatePdu pdu )
 	{
 		// bang the entity into the ID indexed store
-		EntityStatePdu existing = byId.put( pdu.getEntityID(), pdu );
+		EntityStatePdu existing = byId.put( pdu.getPackedEntityId(), pdu );
 		
 		// if we are discovering this entity for first time, store in marking indexed store as well
 		if( existing == null )
@@ -77,8 +90,11 @@ public class EntityStateStore implements IDeleteReaperManaged
 			// Note: This check was added for observed behavior when restarting a VR-Forces 
 			// simulation with HLA. The Entities in the scenario are removed and then re-added 
 			// with different EntityIds, however their marking are the same.
-			if( existingMarking != null )
-				byId.remove( existingMarking.getEntityID(), existingMarking );
+			if( existingMarking != null && byId.remove(existingMarking.getPackedEntityId(),existingMarking) )
+			{
+				byLocation.remove( existingMarking.getEntityID() );
+				byTime.remove( existingMarking.getEntityID() );
+			}
 			
 		}
 		else if( existing.getMarking().equals(pdu.getMarking()) == false )
@@ -87,6 +103,37 @@ public class EntityStateStore implements IDeleteReaperManaged
 			byMarking.remove( existing.getMarking() );
 			byMarking.put( pdu.getMarking(), pdu );
 		}
+
+		// keep the spatial and time indexes up to date with where the entity is now
+		byLocation.put( pdu.getEntityID(), pdu, pdu.getLocation() );
+		byTime.put( pdu.getEntityID(), pdu, pdu.getLocalTimestamp() );
+	}
+
+	/**
+	 * Store the {@link EntityStatePdu}s from a batch that may hold other PDU types too (they are
+	 * ignored). Busy entities often have several updates in the one batch, and each would just
+	 * replace the one before it, so only the last update for each entity is stored. That saves
+	 * an id, spatial and time index update for every update that is skipped. The updates that
+	 * are kept are stored in the order they arrived, and are the only ones retained.
+	 */
+	protected void receivePdus( List<PDU> batch )
+	{
+		// walk backwards to find the last update for each entity
+		boolean[] latest = new boolean[batch.size()];
+		Set<Long> seen = new HashSet<>();
+		for( int i = batch.size()-1; i >= 0; i-- )
+		{
+			PDU pdu = batch.get( i );
+			if( pdu.getType() == PduType.EntityState )
+				latest[i] = seen.add( ((EntityStatePdu)pdu).getPackedEntityId() );
+		}
+
+		for( int i = 0; i < latest.length; i++ )
+		{
+			// we hold on to these, so make sure they're not recycled out from under us
+			if( latest[i] )
+				receivePdu( (EntityStatePdu)batch.get(i).retain() );
+		}
 	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -116,7 +163,15 @@ public class EntityStateStore implements IDeleteReaperManaged
 	
 	public boolean hasEntityState( EntityId id )
 	{
-		return byId.containsKey( id );
+		return byId.containsKey( id.getPackedId() );
+	}
+
+	/**
+	 * @param packedId An entity id as packed by {@link EntityId#pack(int, int, int)}
+	 */
+	public boolean hasEntityState( long packedId )
+	{
+		return byId.containsKey( packedId );
 	}
 
 	public EntityStatePdu getEntityState( String marking )
@@ -129,7 +184,50 @@ public class EntityStateStore implements IDeleteReaperManaged
 	
 	public EntityStatePdu getEntityState( EntityId id )
 	{
-		return byId.get( id );
+		return byId.get( id.getPackedId() );
+	}
+
+	/**
+	 * Look an entity up by its packed id. With {@link EntityId#pack(byte[], int)} this lets a
+	 * caller go straight from the bytes of a received packet to the stored entity without
+	 * decoding or creating an {@link EntityId}.
+	 * 
+	 * @param packedId An entity id as packed by {@link EntityId#pack(int, int, int)}
+	 */
+	public EntityStatePdu getEntityState( long packedId )
+	{
+		return byId.get( packedId );
+	}
+
+	/**
+	 * Get a copy of the last known state of the entity, with its location and orientation dead
+	 * reckoned forward to the given time (millis since the epoch) using the algorithm and
+	 * parameters the entity published. Extrapolation runs from Disco's local timestamp for the
+	 * last update, NOT the DIS timestamp. The copy's local timestamp is set to the given time.
+	 * 
+	 * @param id   The id of the entity to extrapolate
+	 * @param time The time to extrapolate to
+	 * @return A new PDU with the extrapolated state, or null if we don't know the entity
+	 */
+	public EntityStatePdu getDeadReckonedEntityState( EntityId id, long time )
+	{
+		EntityStatePdu last = byId.get( id.getPackedId() );
+		if( last == null )
+			return null;
+
+		EntityStatePdu copy;
+		try
+		{
+			copy = (EntityStatePdu)copier.create( last.toByteArray() );
+		}
+		catch( IOException ioex )
+		{
+			throw new DiscoException( ioex.getMessage(), ioex );
+		}
+
+		DeadReckoning.extrapolateTo( last, time, copy.getLocation(), copy.getOrientation() );
+		copy.setLocalTimestamp( time );
+		return copy;
 	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -141,15 +239,18 @@ public class EntityStateStore implements IDeleteReaperManaged
 	}
 	
 	/**
-	 * Return all the entities that have been updated only AFTER the given timestamp (millis
+	 * Return all the entities that have been updated at or after the given timestamp (millis
 	 * since the epoch). Note that we use Disco's local timestamp, NOT the DIS timestamp.
+	 * <p/>
+	 * Entities are kept in a {@link TimeIndex} ordered on when they were last updated, so the
+	 * cost of this call depends on how many entities have changed, not on the size of the store.
 	 * 
 	 * @param time The oldest time a PDU can have been updated to be returned
 	 * @return The set of all PDUs that have been updated since the given time, which may be empty
 	 */
 	public Set<EntityStatePdu> getEntityStatesUpdatedSince( long time )
 	{
-		return null;
+		return new HashSet<>( byTime.getUpdatedSince(time) );
 	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -171,6 +272,9 @@ public class EntityStateStore implements IDeleteReaperManaged
 	/**
 	 * Get the set of Entity States whose location is within the specified radius of the specified
 	 * location. If none are close, an empty set is returned.
+	 * <p/>
+	 * Entities are tracked in a {@link SpatialIndex}, so this only looks at entities in the
+	 * neighbourhood of the location rather than every entity in the store.
 	 * 
 	 * @param location     The location we want to find entities in proximity to
 	 * @param radiusMeters Limit of how far a entity can be from the location
@@ -178,9 +282,32 @@ public class EntityStateStore implements IDeleteReaperManaged
 	 */
 	public Set<EntityStatePdu> getEntityStatesNear( WorldCoordinate location, int radiusMeters )
 	{
-		return byId.values().parallelStream()
-		                    .filter( other -> WorldCoordinate.getStraightLineDistanceBetween(location, other.getLocation()) < radiusMeters )
-		                    .collect( Collectors.toSet() );
+		return new HashSet<>( byLocation.findWithin(location,radiusMeters) );
+	}
+
+	/**
+	 * Get the set of Entity States whose location is inside the axis-aligned ECEF box formed by
+	 * the two given corners (inclusive). If there are none, an empty set is returned.
+	 * 
+	 * @param min The corner with the smallest x/y/z values
+	 * @param max The corner with the largest x/y/z values
+	 * @return    Set of all entities inside the box
+	 */
+	public Set<EntityStatePdu> getEntityStatesInBox( WorldCoordinate min, WorldCoordinate max )
+	{
+		return new HashSet<>( byLocation.findInBox(min,max) );
+	}
+
+	/**
+	 * Find the entities closest to the given location.
+	 * 
+	 * @param location The location we want to find the closest entities to
+	 * @param count    The most entities to return
+	 * @return         Up to <code>count</code> entities, closest first
+	 */
+	public List<EntityStatePdu> getNearestEntityStates( WorldCoordinate location, int count )
+	{
+		return byLocation.findNearest( location, count );
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -189,22 +316,24 @@ public class EntityStateStore implements IDeleteReaperManaged
 	@Override
 	public int removeStaleData( long oldestTimestamp )
 	{
-		AtomicInteger removed = new AtomicInteger(0); 
-		byId.values().parallelStream()
-		             .filter( espdu -> espdu.getLocalTimestamp() < oldestTimestamp )
-		             .forEach( espdu -> {
-		                 EntityId entityId = espdu.getEntityID();
-		                 String entityMarking = espdu.getMarking();
-		                 
-		                 byId.remove( entityId );
-		                 EntityStatePdu markingEntry = byMarking.get( entityMarking );
-		                 if( markingEntry.getEntityID().equals(entityId) )
-		                     byMarking.remove( espdu.getMarking() );
-		                 
-		                 removed.incrementAndGet();
-		              });
-		
-		return removed.intValue();
+		// the time index hands us just the entities that have gone stale, oldest first
+		return byTime.removeOlderThan( oldestTimestamp, (entityId,espdu) -> {
+			// a fresh update may have been stored since the stamp was popped; leave that alone
+			if( byId.remove(entityId.getPackedId(),espdu) == false )
+				return;
+
+			byLocation.remove( entityId, espdu );
+			EntityStatePdu markingEntry = byMarking.get( espdu.getMarking() );
+			if( markingEntry != null && markingEntry.getEntityID().equals(entityId) )
+				byMarking.remove( espdu.getMarking() );
+		});
+	}
+
+	@Override
+	public long getOldestTimestamp()
+	{
+		// -1 when empty, which lines up with EMPTY
+		return byTime.getOldestUpdateTime();
 	}
 
 	
@@ -215,6 +344,8 @@ public class EntityStateStore implements IDeleteReaperManaged
 	{
 		this.byId.clear();
 		this.byMarking.clear();
+		this.byLocation.clear();
+		this.byTime.clear();
 	}
 	
 	public int size()
@@ -17,23 +17,30 @@
  */
 package org.openlvc.disco.application;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.logging.log4j.Logger;
 import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.utils.TimerWheel;
 
 /**
- * The Heartbeater will periodically sweep over all registered PDUs, and if their timestamp is
- * older than the designated heartbeat period it will serialize and send them to the network as
- * a heartbeat. The two settings that matter for the heartbeater are:
+ * The Heartbeater resends registered PDUs to the network as a heartbeat whenever they have gone
+ * longer than the designated heartbeat period without being sent. The setting that matters for
+ * the heartbeater is:
  * <ul>
- *   <li>Test Period: How often the heartbeater will assess its set of PDUs to decide whether
- *                    a heartbeat is required (default: 5 seconds).</li>
  *   <li>Heartbeat Period: How long it must have been since a PDU was last updated before a
  *                         heartbeat is generated (default: 10 seconds).</li>
  * </ul>
  *
+ * <b>Scheduling</b><br/>
+ * <p>Each registered PDU has its own timer on the application's {@link TimerWheel}, due when
+ * that PDU's heartbeat period runs out. Rather than sweeping over every PDU on a fixed period,
+ * the heartbeater only ever looks at the PDUs that are actually due. PDUs that have never been
+ * sent have their first heartbeat spread randomly across the period, so registering a large
+ * number of PDUs at once doesn't produce a burst of heartbeats every period from then on.</p>
+ *
  * <b>Registered PDUs</b><br/>
  * <p>For a PDU to be managed by the heartbeater, it must be registered with it. Typically you will
  * do this for PDUs that represent persistent objects. As long as a PDU is registered with the
@@ -42,10 +49,15 @@ import org.openlvc.disco.pdu.PDU;
  * 
  * <b>Updates outside the Heartbeater</b><br/>
  * <p>If a PDU is updated outside the heartbeater, this will cause its local timestamp to be
- * updated. This in turn will cause the heartbeat period calculation to readjust for that PDU,
- * resulting in a being unlikely that a heartbeat will be needed.</p> 
+ * updated. When its timer next fires, the heartbeater sees the newer timestamp and pushes the
+ * timer back to a full period after it, so no heartbeat is sent.</p> 
+ *
+ * <b>Static PDUs</b><br/>
+ * <p>Entity state PDUs that rarely change (static entities, for example) can have their
+ * serialized form cached with {@link PDU#setCacheEnabled(boolean)}, so that each heartbeat is just a copy of
+ * the bytes sent last time. See that method for what has to be done when such a PDU changes.</p>
  */
-public class Heartbeater implements Runnable
+public class Heartbeater
 {
 	//----------------------------------------------------------
 	//                    STATIC VARIABLES
@@ -55,12 +67,12 @@ public class Heartbeater implements Runnable
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
 	private DisApplication app;
-	private Set<PDU> registeredPdus;
+	private Map<PDU,HeartbeatTimer> registeredPdus;
 	private volatile long testPeriod;
 	private volatile long heartbeatPeriod;
 	private Logger logger;
 	
-	private Thread thread;
+	private volatile boolean running;
 	
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -68,11 +80,11 @@ public class Heartbeater implements Runnable
 	protected Heartbeater( DisApplication app )
 	{
 		this.app = app;
-		this.registeredPdus = new HashSet<>();
+		this.registeredPdus = new ConcurrentHashMap<>();
 		this.testPeriod = 5000;
 		this.heartbeatPeriod = 10000;
-		this.logger = null; // set in run()
-		this.thread = null; // set in start()
+		this.logger = null; // set in start()
+		this.running = false;
 	}
 
 	//----------------------------------------------------------
@@ -83,28 +95,6 @@ public class Heartbeater implements Runnable
 	/// Lifecycle Methods   ////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
 	public void start()
-	{
-		this.thread = new Thread( this, "Heartbeater" );
-		this.thread.start();
-	}
-	
-	public void stop()
-	{
-		if( this.thread == null )
-		{
-			return;
-		}
-		
-		this.thread.interrupt();
-		try
-		{
-			this.thread.join( 1000 );
-		}
-		catch( InterruptedException ie )
-		{ /*no-op*/ }
-	}
-	
-	public void run()
 	{
 		this.logger = app.getLogger();
 		if( this.heartbeatPeriod == 0 || this.testPeriod == 0 )
@@ -117,39 +107,53 @@ public class Heartbeater implements Runnable
 			logger.info( "Starting heartbeater: Max age %d millis", heartbeatPeriod );
 		}
 
-		while( Thread.interrupted() == false )
-		{
-			// Sleep for a while; typically a period 1/5th the delete timeout
-			try
-			{
-				Thread.sleep( testPeriod );
-			}
-			catch( InterruptedException ie )
-			{
-				return;
-			}
-			
-			// Collect all the souls
-			heartbeat();
-		}
+		this.running = true;
+		for( HeartbeatTimer timer : registeredPdus.values() )
+			scheduleFirst( timer );
+	}
+	
+	public void stop()
+	{
+		this.running = false;
+		for( HeartbeatTimer timer : registeredPdus.values() )
+			app.getTimerWheel().cancel( timer );
+	}
+
+	/**
+	 * Schedule the first heartbeat for a PDU somewhere random within the next period. PDUs that
+	 * are registered together (typically all at startup) would otherwise all come due on the
+	 * same tick, and then again every period after that. Going out early the first time costs at
+	 * most one extra send per PDU.
+	 */
+	private void scheduleFirst( HeartbeatTimer timer )
+	{
+		long now = System.currentTimeMillis();
+		timer.seenTimestamp = timer.pdu.getLocalTimestamp();
+		app.getTimerWheel().schedule( timer, now+ThreadLocalRandom.current().nextLong(heartbeatPeriod) );
 	}
 	
-	private void heartbeat()
+	private void heartbeat( HeartbeatTimer timer, long now )
 	{
-		long oldestAllowable = System.currentTimeMillis()-heartbeatPeriod;
-		logger.trace( "Heartbeating PDUs not updated since %1$tY-%1$tm-%1$td %1$tH:%1$tM:%1$tS", oldestAllowable );
+		if( timer.cancelled || running == false )
+			return;
 
-		int heartbeats = 0;
-		for( PDU pdu : registeredPdus )
+		// if it has been updated since we last looked, wait until a period after that instead
+		long period = this.heartbeatPeriod;
+		long timestamp = timer.pdu.getLocalTimestamp();
+		if( timestamp != timer.seenTimestamp && timestamp+period > now )
 		{
-			if( oldestAllowable >= pdu.getLocalTimestamp() )
-			{
-				app.send( pdu );
-				heartbeats++;
-			}
+			timer.seenTimestamp = timestamp;
+			app.getTimerWheel().schedule( timer, timestamp+period );
+			return;
 		}
-		
-		logger.trace( "Sent [%d] heartbeats", heartbeats );
+
+		app.send( timer.pdu );
+		timer.seenTimestamp = timer.pdu.getLocalTimestamp();
+		app.getTimerWheel().schedule( timer, now+period );
+
+		// lost a race with unregisterPdu(); make sure we don't keep going
+		if( timer.cancelled )
+			app.getTimerWheel().cancel( timer );
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -157,35 +161,46 @@ public class Heartbeater implements Runnable
 	////////////////////////////////////////////////////////////////////////////////////////////
 	public void registerPdu( PDU pdu )
 	{
-		this.registeredPdus.add( pdu );
+		HeartbeatTimer timer = new HeartbeatTimer( pdu );
+		if( registeredPdus.putIfAbsent(pdu,timer) == null && running )
+			scheduleFirst( timer );
 	}
 	
 	public void unregisterPdu( PDU pdu )
 	{
-		this.registeredPdus.remove( pdu );
+		HeartbeatTimer timer = registeredPdus.remove( pdu );
+		if( timer != null )
+		{
+			timer.cancelled = true;
+			app.getTimerWheel().cancel( timer );
+		}
 	}
 	
 	public boolean isRegistered( PDU pdu )
 	{
-		return this.registeredPdus.contains( pdu );
+		return this.registeredPdus.containsKey( pdu );
 	}
 
 	/**
-	 * @return The period in milliseconds between test sweeps over the set of registered PDUs
+	 * @return The test period. Only checked for 0, which disables the heartbeater.
+	 * @deprecated PDUs are now checked when their own heartbeat falls due rather than in
+	 *             periodic sweeps, so there is no test period any more
 	 */
+	@Deprecated
 	public long getTestPeriod()
 	{
 		return this.testPeriod;
 	}
 
 	/**
-	 * Set how often we will sweep over the set of registered PDUs to determine whether any of
-	 * them need to be sent as a heartbeat. If this is set to 0 the heartbeater will be disabled.
+	 * Heartbeats are now scheduled individually for each PDU, so this no longer controls how
+	 * often PDUs are checked. Setting it to 0 still disables the heartbeater.
 	 * 
-	 * @param period The period in milliseconds between heartbeat sweep checks. Make sure not to
-	 *               set this to longer than the heartbeat period. Typically a 1/2 or 1/3rd ratio
-	 *               is enough.
+	 * @param period Any non-zero value to leave the heartbeater enabled, 0 to disable it
+	 * @deprecated PDUs are now checked when their own heartbeat falls due rather than in
+	 *             periodic sweeps, so there is no test period any more
 	 */
+	@Deprecated
 	public void setTestPeriod( long period )
 	{
 		this.testPeriod = period;
@@ -214,4 +229,27 @@ public class Heartbeater implements Runnable
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: HeartbeatTimer   ////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private class HeartbeatTimer extends TimerWheel.Timer
+	{
+		private final PDU pdu;
+		private volatile boolean cancelled;
+		private long seenTimestamp; // local timestamp of the PDU when we last scheduled
+
+		private HeartbeatTimer( PDU pdu )
+		{
+			this.pdu = pdu;
+			this.cancelled = false;
+			this.seenTimestamp = pdu.getLocalTimestamp();
+		}
+
+		@Override
+		protected void expired( long now )
+		{
+			heartbeat( this, now );
+		}
+	}
 }
@@ -25,6 +25,11 @@ public interface IDeleteReaperManaged
 	//----------------------------------------------------------
 	//                    STATIC VARIABLES
 	//----------------------------------------------------------
+	/** Returned from {@link #getOldestTimestamp()} when the store doesn't track update order */
+	public static final long UNKNOWN = Long.MIN_VALUE;
+
+	/** Returned from {@link #getOldestTimestamp()} when the store holds nothing */
+	public static final long EMPTY = -1;
 
 	//----------------------------------------------------------
 	//                    INSTANCE METHODS
@@ -37,4 +42,18 @@ public interface IDeleteReaperManaged
 	 * @return The number of values that were removed
 	 */
 	public int removeStaleData( long oldestTimestamp );
+
+	/**
+	 * The time that the least recently updated record in the store was last updated. The reaper
+	 * uses this to work out when the next record will go stale, so it can come back at exactly
+	 * that point rather than polling. Stores that can't answer cheaply should leave this as is,
+	 * and they'll be checked periodically instead.
+	 * 
+	 * @return The oldest update time, {@link #EMPTY} if there are no records, or {@link #UNKNOWN}
+	 *         if the store doesn't know
+	 */
+	public default long getOldestTimestamp()
+	{
+		return UNKNOWN;
+	}
 }
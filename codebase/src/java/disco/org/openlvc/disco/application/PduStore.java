@@ -17,9 +17,12 @@
  */
 package org.openlvc.disco.application;
 
+import java.util.List;
+
 import org.openlvc.disco.pdu.PDU;
 import org.openlvc.disco.pdu.emissions.EmissionPdu;
 import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.PduType;
 import org.openlvc.disco.pdu.radio.TransmitterPdu;
 
 /**
@@ -62,9 +65,10 @@ public class PduStore
 	{
 		switch( pdu.getType() )
 		{
-			case EntityState: entityStore.receivePdu( (EntityStatePdu)pdu ); break;
-			case Transmitter: transmitterStore.receivePdu( (TransmitterPdu)pdu ); break;
-			case Emission: emitterStore.receivePdu( (EmissionPdu)pdu ); break;
+			// we hold on to these, so make sure they're not recycled out from under us
+			case EntityState: entityStore.receivePdu( (EntityStatePdu)pdu.retain() ); break;
+			case Transmitter: transmitterStore.receivePdu( (TransmitterPdu)pdu.retain() ); break;
+			case Emission: emitterStore.receivePdu( (EmissionPdu)pdu.retain() ); break;
 			
 			// PDUs to support next
 			case Designator:
@@ -86,6 +90,24 @@ public class PduStore
 		}
 	}
 
+	/**
+	 * Store a batch of PDUs. Entity state is stored in one pass over the whole batch, which
+	 * skips updates that are replaced by a later one for the same entity in the same batch.
+	 * See {@link EntityStateStore#receivePdus(List)}. Everything else goes one at a time.
+	 */
+	protected void pduReceived( List<PDU> batch )
+	{
+		// entities first, the other stores look them up
+		entityStore.receivePdus( batch );
+
+		for( int i = 0; i < batch.size(); i++ )
+		{
+			PDU pdu = batch.get( i );
+			if( pdu.getType() != PduType.EntityState )
+				pduReceived( pdu );
+		}
+	}
+
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
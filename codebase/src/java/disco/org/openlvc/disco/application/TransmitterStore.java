@@ -30,7 +30,9 @@ import org.openlvc.disco.pdu.radio.TransmitterPdu;
 import org.openlvc.disco.pdu.record.EntityId;
 import org.openlvc.disco.pdu.record.RadioEntityType;
 import org.openlvc.disco.pdu.record.WorldCoordinate;
-import org.openlvc.disco.utils.LLA;
+import org.openlvc.disco.utils.ConcurrentLongMap;
+import org.openlvc.disco.utils.SpatialIndex;
+import org.openlvc.disco.utils.TimeIndex;
 
 /**
  * The {@link TransmitterStore} tracks known instances of Transmitters on the network.
@@ -49,7 +51,9 @@ public class TransmitterStore implements IDeleteReaperManaged
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
 	private EntityStateStore entityStore;
-	private ConcurrentMap<EntityId,TransmitterSet> byId;
+	private ConcurrentLongMap<TransmitterSet> byId; // keyed on the packed EntityId
+	private SpatialIndex<EntityId,TransmitterSet> byLocation;
+	private TimeIndex<RadioKey,TransmitterPdu> byTime;
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -57,7 +61,9 @@ public class TransmitterStore implements IDeleteReaperManaged
 	protected TransmitterStore( PduStore parentStore )
 	{
 		this.entityStore = parentStore.getEntityStore();
-		this.byId = new ConcurrentHashMap<>();
+		this.byId = new ConcurrentLongMap<>();
+		this.byLocation = new SpatialIndex<>();
+		this.byTime = new TimeIndex<>();
 	}
 
 	//----------------------------------------------------------
@@ -70,15 +76,15 @@ public class TransmitterStore implements IDeleteReaperManaged
 	protected void receivePdu( TransmitterPdu pdu )
 	{
 		// Get any existing record for the entity, and if we don't have one, create one
-		TransmitterSet set = byId.get( pdu.getEntityId() );
-		if( set == null )
-		{
-			set = new TransmitterSet();
-			byId.put( pdu.getEntityId(), set );
-		}
+		TransmitterSet set = byId.computeIfAbsent( pdu.getEntityId().getPackedId(),
+		                                           packed -> new TransmitterSet() );
 		
 		// store the pdu at the last known location within the set
 		set.radios.put( pdu.getRadioID(), pdu );
+
+		// the set is located wherever the most recently heard radio's antenna is
+		byLocation.put( pdu.getEntityId(), set, pdu.getAntennaLocation().getAntennaLocation() );
+		byTime.put( new RadioKey(pdu.getEntityId(),pdu.getRadioID()), pdu, pdu.getLocalTimestamp() );
 	}
 	
 
@@ -87,7 +93,7 @@ public class TransmitterStore implements IDeleteReaperManaged
 	////////////////////////////////////////////////////////////////////////////////////////////
 	public boolean hasTransmitter( EntityId id )
 	{
-		return byId.containsKey( id );
+		return byId.containsKey( id.getPackedId() );
 	}
 
 	/**
@@ -109,7 +115,7 @@ public class TransmitterStore implements IDeleteReaperManaged
 	 */
 	public ConcurrentMap<Integer,TransmitterPdu> getTransmitters( EntityId id )
 	{
-		return byId.getOrDefault(id,new TransmitterSet()).radios;
+		return byId.getOrDefault(id.getPackedId(),new TransmitterSet()).radios;
 	}
 
 	/**
@@ -122,7 +128,7 @@ public class TransmitterStore implements IDeleteReaperManaged
 	 */
 	public TransmitterPdu getTransmitter( EntityId id, int radioId )
 	{
-		return byId.getOrDefault(id,new TransmitterSet()).radios.get( radioId );
+		return byId.getOrDefault(id.getPackedId(),new TransmitterSet()).radios.get( radioId );
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -136,17 +142,18 @@ public class TransmitterStore implements IDeleteReaperManaged
 	}
 
 	/**
-	 * Return all the transmitters that have been updated only AFTER the given timestamp (millis
+	 * Return all the transmitters that have been updated at or after the given timestamp (millis
 	 * since the epoch). Note that we use Disco's local timestamp, NOT the DIS timestamp.
+	 * <p/>
+	 * Radios are kept in a {@link TimeIndex} ordered on when they were last updated, so the cost
+	 * of this call depends on how many radios have changed, not on the size of the store.
 	 * 
 	 * @param time The oldest time a PDU can have been updated to be returned
 	 * @return The set of all PDUs that have been updated since the given time, which may be empty
 	 */
 	public Set<TransmitterPdu> getTransmittersUpdatedSince( long time )
 	{
-		Set<TransmitterPdu> results = Collections.synchronizedSet( new HashSet<>() );
-		byId.values().parallelStream().forEach( tset -> tset.collectRadiosUpdatedSince(time,results) );
-		return results;
+		return new HashSet<>( byTime.getUpdatedSince(time) );
 	}
 	
 	public Set<TransmitterPdu> getTransmittersOnFrequency( BigInteger frequency )
@@ -179,10 +186,13 @@ public class TransmitterStore implements IDeleteReaperManaged
 	/**
 	 * Get the set of transmitters within the given radius of the given location. Note that if 
 	 * multiple transmitters are using the same EntityID (to represent being attached to the
-	 * same platform) we only test against the first one. If it matches, all are returned. If
-	 * a radio is representing itself as a unique entity, then that entity is tested.
+	 * same platform) we only test against the one we heard from most recently. If it matches,
+	 * all are returned. If a radio is representing itself as a unique entity, then that entity
+	 * is tested.
 	 * <p/>
-	 * This method uses the transmitter's antenna location to determine proximity.
+	 * This method uses the straight-line distance to the transmitter's antenna location to
+	 * determine proximity. Transmitters are tracked in a {@link SpatialIndex}, so only those
+	 * in the neighbourhood of the location are tested.
 	 * 
 	 * @param location     The location we want to find transmitters in proximity to
 	 * @param radiusMeters Limit of how far a transmitter can be from the location
@@ -190,13 +200,12 @@ public class TransmitterStore implements IDeleteReaperManaged
 	 */
 	public Set<TransmitterPdu> getTransmittersNear( WorldCoordinate location, int radiusMeters )
 	{
-		LLA target = location.toLLA();
-		Set<TransmitterPdu> results = Collections.synchronizedSet( new HashSet<>() );
-
-		byId.values().parallelStream()
-		             .filter( tset -> tset.isNear(target,radiusMeters) )
-		             .forEach( tset -> results.addAll(tset.radios.values()) );
-		
+		Set<TransmitterPdu> results = new HashSet<>();
+		byLocation.forEachWithin( location.getX(),
+		                          location.getY(),
+		                          location.getZ(),
+		                          radiusMeters,
+		                          tset -> results.addAll(tset.radios.values()) );
 		return results;
 	}
 
@@ -224,14 +233,24 @@ public class TransmitterStore implements IDeleteReaperManaged
 	@Override
 	public int removeStaleData( long timestamp )
 	{
-		Set<TransmitterPdu> removed = new HashSet<>();
+		// the time index hands us just the radios that have gone stale, oldest first
+		return byTime.removeOlderThan( timestamp, (key,pdu) -> {
+			TransmitterSet set = byId.get( key.entityId.getPackedId() );
+			if( set == null )
+				return;
 
-		// doens't remove the root entry even if all radios are now gone
-		byId.values().parallelStream()
-		             .forEach( tset -> tset.removeStaleData(timestamp,removed) );
-		
-		byId.keySet().removeIf( entityId -> byId.get(entityId).radios.isEmpty() );
-		return removed.size();
+			// clean up the entity as well once its last radio is gone
+			set.radios.remove( key.radioId, pdu );
+			if( set.radios.isEmpty() && byId.remove(key.entityId.getPackedId(),set) )
+				byLocation.remove( key.entityId, set );
+		});
+	}
+
+	@Override
+	public long getOldestTimestamp()
+	{
+		// -1 when empty, which lines up with EMPTY
+		return byTime.getOldestUpdateTime();
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -240,6 +259,8 @@ public class TransmitterStore implements IDeleteReaperManaged
 	public void clear()
 	{
 		this.byId.clear();
+		this.byLocation.clear();
+		this.byTime.clear();
 	}
 	
 	public int size()
@@ -265,37 +286,6 @@ public class TransmitterStore implements IDeleteReaperManaged
 		//private TransmitterPdu[] radios = new TransmitterPdu[16]; // limit to 16 for now
 		private ConcurrentMap<Integer,TransmitterPdu> radios = new ConcurrentHashMap<>();
 
-		/**
-		 * Finds the first radio in this transmitter set and uses its antenna location
-		 * to decided wheather it is near the given location (within the given range).
-		 * <p/>
-		 * 
-		 * If the radio is a standalone entity, there will only be one, so using the antenna
-		 * location of the first is valid. If the radio is attached to a platfrom (using its
-		 * EntityID), then all transmitters in the set should be attached to the platform and
-		 * thus in the same location (for the most part), so using the first found is a reasonable
-		 * approximation.
-		 *   
-		 * @param location The location to check whether radios in this set are near to
-		 * @param radiusMeters The number of meters that radios should be within
-		 * @return True if this set of radios is within the radius of the location, false otherwise
-		 */
-		private boolean isNear( LLA location, int radiusMeters )
-		{
-			// No easy way to just get the first element, so we pretend we're going to loop,
-			// and then just return off the first value. If there are no values, then we can't
-			// compare to anything and return false
-			for( TransmitterPdu pdu : radios.values() )
-			{
-				return pdu.getAntennaLocation()
-				          .getAntennaLocation()
-				          .toLLA()
-				          .distanceBetweenHavershine( location ) < radiusMeters;
-			}
-			
-			return false;
-		}
-		
 		/**
 		 * Loop over all transmitters in this set and if their radio type is the
 		 * same as the given type, add it to the given set.
@@ -310,20 +300,6 @@ public class TransmitterStore implements IDeleteReaperManaged
 					target.add( pdu );
 		}
 		
-		/**
-		 * Loop over all contained transmitter PDUs and if they were received AFTER the given
-		 * timestamp, add them to the target set.
-		 * 
-		 * @param timestamp The timestamp to compare their recieve time to
-		 * @param target    The set to collect any PDUs that meet the criteria in
-		 */
-		private void collectRadiosUpdatedSince( long timestamp, Set<TransmitterPdu> target )
-		{
-			for( TransmitterPdu pdu : radios.values() )
-				if( pdu.getLocalTimestamp() >= timestamp )
-					target.add( pdu );
-		}
-
 		/**
 		 * Find all the radios that meet the given test predicate, and if they do, add them to
 		 * the provided set.
@@ -339,18 +315,42 @@ public class TransmitterStore implements IDeleteReaperManaged
 					target.add( pdu );
 		}
 		
-		private void removeStaleData( long timestamp, Set<TransmitterPdu> removedSet )
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: RadioKey     ////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Identifies a single radio (entity id plus radio id) in the time index.
+	 */
+	private static class RadioKey
+	{
+		private final EntityId entityId;
+		private final int radioId;
+
+		private RadioKey( EntityId entityId, int radioId )
 		{
-			for( TransmitterPdu pdu : radios.values() )
+			this.entityId = entityId;
+			this.radioId = radioId;
+		}
+
+		@Override
+		public boolean equals( Object other )
+		{
+			if( other instanceof RadioKey )
 			{
-				if( pdu.getLocalTimestamp() < timestamp )
-				{
-					removedSet.add( pdu );
-					radios.remove( pdu.getRadioID() );
-				}
+				RadioKey otherKey = (RadioKey)other;
+				return radioId == otherKey.radioId && entityId.equals( otherKey.entityId );
 			}
+
+			return false;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return entityId.hashCode() * 31 + radioId;
 		}
-		
 	}
 	
 }
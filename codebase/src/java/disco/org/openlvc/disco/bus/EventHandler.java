@@ -22,15 +22,37 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import org.openlvc.disco.utils.ConflatingQueue;
+
 /**
  * Marker annotation to flag a method as an event handler for a {@link MessageBus}.
  * When you add a class to a bus via {@link MessageBus#subscribe(Object)}, any methods that
  * are carrying this annotation will be linked into the bus as handlers for whatever type
  * the first parameter of the message is.
+ * <p/>
+ * By default handlers are called on the publishing thread. Set {@link #async()} to have the
+ * handler called from its own thread instead, fed by its own bounded queue, so that a slow
+ * handler can't hold up the publisher or anyone else.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface EventHandler
 {
-	// Marker only
+	/**
+	 * @return True if the handler should get its own queue and thread. Ignored for subscribers
+	 *         added with {@link MessageBus#subscribeAsync(Object, int, ConflatingQueue.Overflow)},
+	 *         which share one queue across all their handlers.
+	 */
+	boolean async() default false;
+
+	/**
+	 * @return The most messages that can be waiting for an async handler
+	 */
+	int queueSize() default 1000;
+
+	/**
+	 * @return What to do when an async handler's queue is full. The default never loses
+	 *         messages, but holds up the publisher until there is space.
+	 */
+	ConflatingQueue.Overflow overflow() default ConflatingQueue.Overflow.Block;
 }
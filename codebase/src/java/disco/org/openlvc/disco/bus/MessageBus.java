@@ -17,14 +17,25 @@
  */
 package org.openlvc.disco.bus;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.utils.ConflatingQueue;
 
 /**
  * Very basic publish/subscribe message bus.
@@ -41,7 +52,18 @@ import org.openlvc.disco.DiscoException;
  * <p/>
  * 
  * <b>Synchronous v. Asynchronous</b><p/>
- * The bus currently only supports synchronous calls.
+ * By default handlers are called synchronously, on the thread that called {@link #publish(Object)}.
+ * A handler can instead ask to be called asynchronously by setting {@link EventHandler#async()},
+ * and a whole subscriber can be made asynchronous with
+ * {@link #subscribeAsync(Object, int, ConflatingQueue.Overflow)}. Asynchronous subscribers get
+ * their own bounded {@link ConflatingQueue} and thread: publishing just queues the message, and
+ * the subscriber's thread calls its handlers in order. What happens when the queue fills up is
+ * set by its {@link ConflatingQueue.Overflow} policy. To conflate, the bus needs to know which
+ * messages supersede each other; see {@link #setConflationKey(ToLongFunction)}. Queue depth, lag
+ * and drop counts for each asynchronous subscriber are available from {@link #getAsyncMetrics()}.
+ * <p/>
+ * Messages given to asynchronous subscribers outlive the call to publish. If the publisher reuses
+ * its messages, register a hook to stop that with {@link #setRetainer(Consumer)}.
  * <p/>
  * 
  * <b>Inheritance<b><p/>
@@ -49,6 +71,16 @@ import org.openlvc.disco.DiscoException;
  * that type. The bus will then pass the message to all subscribers for the types parent class, and
  * so on all the way up to <code>Object</code> (Object will not be processed).
  * 
+ * <b>Dispatch</b><p/>
+ * Each {@link EventHandler} method is bound to its subscriber through {@link LambdaMetafactory}
+ * when it is subscribed, so calling it is a plain interface call rather than a reflective
+ * {@link Method#invoke(Object, Object...)}. The full list of handlers for each concrete message
+ * class (its own, then its parents') is worked out the first time that class is published and
+ * cached as an array, so publishing is a single map lookup and a loop. The cache is thrown away
+ * whenever subscribers are added or removed. If a handler can't be bound (for example, it lives
+ * in a module that isn't open to us) the bus falls back to reflection for that handler.
+ * <p/>
+ * 
  * <b>Error Handlers</b><p/>
  * Subscribers can have methods that register the {@link ErrorHandler} annotation. These methods
  * will be passed any errors that get generated when an event is called. Error handlers must declare
@@ -63,15 +95,31 @@ public class MessageBus<T>
 	//----------------------------------------------------------
 	//                    STATIC VARIABLES
 	//----------------------------------------------------------
+	// Factories for the generated Consumer of each handler method, so subscribing many instances
+	// of the same class only spins the lambda class once. Held per declaring class, so they go
+	// away with it.
+	private static final ClassValue<Map<Method,MethodHandle>> FACTORIES =
+		new ClassValue<Map<Method,MethodHandle>>()
+		{
+			@Override
+			protected Map<Method,MethodHandle> computeValue( Class<?> type )
+			{
+				return new ConcurrentHashMap<>();
+			}
+		};
 
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
-	private ConcurrentHashMap<Class<?>,List<CallablePair>> subscribers;
+	private ConcurrentHashMap<Class<?>,List<CallablePair>> subscribers; // by declared param type
+	private volatile Map<Class<?>,Delivery[]> dispatch;                  // by concrete message type
 	private List<CallablePair> errorHandlers;
+	private List<AsyncDelivery> asyncDeliveries;
 
 	// Configuration Options
 	private boolean throwExceptionOnError;
+	private volatile ToLongFunction<? super T> conflationKey;
+	private volatile Consumer<? super T> retainer;
 	
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -79,10 +127,14 @@ public class MessageBus<T>
 	public MessageBus()
 	{
 		this.subscribers = new ConcurrentHashMap<>();
+		this.dispatch = new ConcurrentHashMap<>();
 		this.errorHandlers = new CopyOnWriteArrayList<>();
+		this.asyncDeliveries = new CopyOnWriteArrayList<>();
 		
 		// Configuration Options
 		this.throwExceptionOnError = false;
+		this.conflationKey = null;
+		this.retainer = null;
 	}
 
 	//----------------------------------------------------------
@@ -97,19 +149,103 @@ public class MessageBus<T>
 	 * the class of the message and invoke them. It will then loop up to the parent class and
 	 * repeat (up to, but not including, Object).
 	 * <p/>
-	 * This method will block until the message has been passed to all subscribers.
+	 * This method will block until the message has been passed to all synchronous subscribers
+	 * and queued for all asynchronous ones.
 	 * 
 	 * @param message The message to send to subscribers
 	 */
 	public void publish( T message ) throws DiscoException
 	{
-		Class<?> type = message.getClass();
+		Delivery[] handlers = dispatchFor( message.getClass() );
+		for( int i = 0; i < handlers.length; i++ )
+			handlers[i].deliver( message );
+	}
+
+	/**
+	 * Publish each of the given messages in turn, exactly as if {@link #publish(Object)} had
+	 * been called for each one. Subscriber lookups are shared between consecutive messages of
+	 * the same class, so publishing a batch that is mostly one type (as PDU traffic usually is)
+	 * is cheaper than publishing them one at a time.
+	 * <p/>
+	 * This method will block until every message has been passed to all subscribers.
+	 * 
+	 * @param messages The messages to send to subscribers, in order
+	 */
+	public void publishAll( List<? extends T> messages ) throws DiscoException
+	{
+		Class<?> lastType = null;
+		Delivery[] handlers = null; // set on the first message
+		for( int i = 0; i < messages.size(); i++ )
+		{
+			T message = messages.get( i );
+			if( message.getClass() != lastType )
+			{
+				lastType = message.getClass();
+				handlers = dispatchFor( lastType );
+			}
+
+			for( int j = 0; j < handlers.length; j++ )
+				handlers[j].deliver( message );
+		}
+	}
+
+	/**
+	 * @return Every handler that should see a message of the given concrete class, in the order
+	 *         they should be called: handlers for the class itself, then its parent, and so on up
+	 *         to (but not including) Object. Asynchronous subscribers appear once, where their
+	 *         first matching handler would be, and sort out which of their handlers to call on
+	 *         their own thread.
+	 */
+	private Delivery[] dispatchFor( Class<?> messageType )
+	{
+		Map<Class<?>,Delivery[]> cache = this.dispatch;
+		Delivery[] handlers = cache.get( messageType );
+		if( handlers != null )
+			return handlers;
+
+		List<Delivery> collected = new ArrayList<>();
+		for( CallablePair pair : handlersFor(messageType,subscribers::get) )
+		{
+			Delivery delivery = pair.async == null ? pair : pair.async;
+			if( delivery == pair || collected.contains(delivery) == false )
+				collected.add( delivery );
+		}
+
+		// If subscriptions changed while we were working, the cache we read has already been
+		// replaced and whatever we put into it here is thrown away with it
+		handlers = collected.toArray( new Delivery[collected.size()] );
+		cache.putIfAbsent( messageType, handlers );
+		return handlers;
+	}
+
+	/**
+	 * @return The handlers for the given class and each of its parents (up to, but not including,
+	 *         Object), in that order, as found by the given lookup
+	 */
+	private List<CallablePair> handlersFor( Class<?> messageType,
+	                                        Function<Class<?>,List<CallablePair>> lookup )
+	{
+		List<CallablePair> collected = new ArrayList<>();
+		Class<?> type = messageType;
 		do
 		{
-			safeGet(type).forEach( subscriber -> subscriber.call(message) );
+			List<CallablePair> list = lookup.apply( type );
+			if( list != null )
+				collected.addAll( list );
+
 			type = type.getSuperclass();
 		}
 		while( type != null && type != Object.class );
+
+		return collected;
+	}
+
+	/**
+	 * Drop all the cached dispatch arrays. Called after any change to the subscriptions.
+	 */
+	private void invalidate()
+	{
+		this.dispatch = new ConcurrentHashMap<>();
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -121,7 +257,36 @@ public class MessageBus<T>
 			subscribe(subscriber);
 	}
 	
-	public void subscribe( Object subscriber )
+	public synchronized void subscribe( Object subscriber )
+	{
+		subscribe( subscriber, null );
+	}
+
+	/**
+	 * Subscribe the given object so that all of its handlers are called from a single thread of
+	 * its own, fed by a queue of the given size. Publishing to it only ever waits if the queue is
+	 * full and the overflow policy is {@link ConflatingQueue.Overflow#Block}. The handlers see
+	 * messages in the order they were published (less any dropped or conflated).
+	 * 
+	 * @param subscriber The subscriber to call
+	 * @param queueSize  The most messages that can be waiting for the subscriber
+	 * @param overflow   What to do when the queue is full
+	 * @throws DiscoException If the subscriber incorrectly uses the message bus annotations
+	 */
+	public synchronized void subscribeAsync( Object subscriber,
+	                                         int queueSize,
+	                                         ConflatingQueue.Overflow overflow )
+	{
+		String name = "MessageBus-"+subscriber.getClass().getSimpleName();
+		subscribe( subscriber, new AsyncDelivery(name,queueSize,overflow) );
+	}
+
+	/**
+	 * Link in all the handlers on the subscriber. If an async delivery is given, every event
+	 * handler goes through it; otherwise each handler is synchronous unless its annotation says
+	 * otherwise.
+	 */
+	private void subscribe( Object subscriber, AsyncDelivery shared )
 	{
 		// Find all declared methods with the @EventHandler annotation
 		for( Method method : subscriber.getClass().getDeclaredMethods() )
@@ -132,7 +297,28 @@ public class MessageBus<T>
 				CallablePair pair = new CallablePair( subscriber, method );
 				List<CallablePair> list = safeGet(pair.type);
 				if( list.contains(pair) == false )
+				{
+					pair.bind();
+					EventHandler annotation = method.getDeclaredAnnotation( EventHandler.class );
+					if( shared != null )
+					{
+						pair.async = shared;
+					}
+					else if( annotation.async() )
+					{
+						String name = "MessageBus-"+subscriber.getClass().getSimpleName()+"."+method.getName();
+						pair.async = new AsyncDelivery( name, annotation.queueSize(), annotation.overflow() );
+					}
+
+					if( pair.async != null )
+					{
+						pair.async.add( pair );
+						if( asyncDeliveries.contains(pair.async) == false )
+							asyncDeliveries.add( pair.async );
+					}
+
 					list.add( pair );
+				}
 			}
 
 			// If this is a valid @ErrorHandler, add it to the store of error handlers
@@ -143,6 +329,12 @@ public class MessageBus<T>
 					errorHandlers.add( pair );
 			}
 		}
+
+		// only start threads once all their handlers are in place
+		for( AsyncDelivery async : asyncDeliveries )
+			async.start();
+
+		invalidate();
 	}
 
 	public void unsubscribe( Object... subscribers )
@@ -151,7 +343,7 @@ public class MessageBus<T>
 			unsubscribe( subscriber );
 	}
 
-	public void unsubscribe( Object subscriber )
+	public synchronized void unsubscribe( Object subscriber )
 	{
 		// remove from subscriber map
 		for( List<CallablePair> list : subscribers.values() )
@@ -159,6 +351,18 @@ public class MessageBus<T>
 
 		// remove from error handler map
 		errorHandlers.removeIf( pair -> pair.target == subscriber );
+
+		// stop the threads of any async handlers; anything still queued for them is dropped
+		for( AsyncDelivery async : asyncDeliveries )
+		{
+			if( async.target == subscriber )
+			{
+				asyncDeliveries.remove( async );
+				async.stop();
+			}
+		}
+		
+		invalidate();
 	}
 
 	/**
@@ -247,14 +451,7 @@ public class MessageBus<T>
 	 */
 	private List<CallablePair> safeGet( Class<?> type )
 	{
-		List<CallablePair> list = subscribers.get( type );
-		if( list == null )
-		{
-			list = new CopyOnWriteArrayList<>();
-			subscribers.put( type, list );
-		}
-		
-		return list;
+		return subscribers.computeIfAbsent( type, key -> new CopyOnWriteArrayList<>() );
 	}
 
 	
@@ -279,11 +476,272 @@ public class MessageBus<T>
 	{
 		this.throwExceptionOnError = value;
 	}
+
+	/**
+	 * Set the function that gives the conflation key for a message, used by asynchronous
+	 * subscribers whose overflow policy is {@link ConflatingQueue.Overflow#Conflate}. When such a
+	 * subscriber falls behind, a message replaces any message with the same key that is still
+	 * waiting for it. Messages whose key is {@link ConflatingQueue#NO_KEY} are never replaced.
+	 * Without a key function, nothing is conflated and a full queue drops its oldest message.
+	 * 
+	 * @param conflationKey Returns the key for a message. May be null.
+	 */
+	public void setConflationKey( ToLongFunction<? super T> conflationKey )
+	{
+		this.conflationKey = conflationKey;
+	}
+
+	/**
+	 * Set a hook that is called for each message before it is queued for an asynchronous
+	 * subscriber. Publishers that reuse their messages once publish returns should use this to
+	 * stop that happening to messages that are still queued.
+	 * 
+	 * @param retainer Called with each message that is queued. May be null.
+	 */
+	public void setRetainer( Consumer<? super T> retainer )
+	{
+		this.retainer = retainer;
+	}
+
+	/**
+	 * @return A snapshot of the queue metrics for each asynchronous subscriber
+	 */
+	public List<AsyncMetrics> getAsyncMetrics()
+	{
+		List<AsyncMetrics> metrics = new ArrayList<>();
+		for( AsyncDelivery async : asyncDeliveries )
+			metrics.add( new AsyncMetrics(async.name,async.queue) );
+
+		return metrics;
+	}
 	
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+	/**
+	 * Spin a {@link Consumer} implementation that calls the given handler method, and return a
+	 * handle to its factory: given the subscriber instance, it returns a Consumer bound to it.
+	 * The lookup is done from the handler's own class so the generated class can see it no
+	 * matter which class loader it came from.
+	 */
+	private static MethodHandle createFactory( Method method )
+	{
+		try
+		{
+			Class<?> owner = method.getDeclaringClass();
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn( owner, MethodHandles.lookup() );
+			MethodHandle implementation = lookup.unreflect( method );
+			CallSite site = LambdaMetafactory.metafactory( lookup,
+			                                               "accept",
+			                                               MethodType.methodType(Consumer.class,owner),
+			                                               MethodType.methodType(void.class,Object.class),
+			                                               implementation,
+			                                               MethodType.methodType(void.class,method.getParameterTypes()[0]) );
+			return site.getTarget();
+		}
+		catch( Throwable throwable )
+		{
+			throw new DiscoException( throwable, "Could not bind @EventHandler %s: %s",
+			                          method.toGenericString(), throwable.getMessage() );
+		}
+	}
 	
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Public Class: AsyncMetrics   ///////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Point-in-time view of the queue in front of an asynchronous subscriber
+	 */
+	public static class AsyncMetrics
+	{
+		private final String name;
+		private final int depth;
+		private final int capacity;
+		private final int highWaterMark;
+		private final long lagMillis;
+		private final long deliveredCount;
+		private final long droppedCount;
+		private final long conflatedCount;
+
+		private AsyncMetrics( String name, ConflatingQueue<?> queue )
+		{
+			this.name = name;
+			this.depth = queue.size();
+			this.capacity = queue.getCapacity();
+			this.highWaterMark = queue.getHighWaterMark();
+			this.lagMillis = queue.getOldestAgeMillis();
+			this.deliveredCount = queue.getTakenCount();
+			this.droppedCount = queue.getDroppedCount();
+			this.conflatedCount = queue.getConflatedCount();
+		}
+
+		/** @return The name of the subscriber's delivery thread */
+		public String getName() { return this.name; }
+
+		/** @return The number of messages waiting */
+		public int getDepth() { return this.depth; }
+
+		public int getCapacity() { return this.capacity; }
+
+		/** @return The most messages that have been waiting at once */
+		public int getHighWaterMark() { return this.highWaterMark; }
+
+		/** @return How long the oldest waiting message has been waiting, in millis */
+		public long getLagMillis() { return this.lagMillis; }
+
+		/** @return The number of messages taken off the queue for the subscriber */
+		public long getDeliveredCount() { return this.deliveredCount; }
+
+		/** @return The number of messages dropped because the queue was full */
+		public long getDroppedCount() { return this.droppedCount; }
+
+		/** @return The number of messages replaced by a newer one before they were delivered */
+		public long getConflatedCount() { return this.conflatedCount; }
+
+		@Override
+		public String toString()
+		{
+			return String.format( "%s: depth=%d/%d (max %d), lag=%dms, delivered=%d, dropped=%d, conflated=%d",
+			                      name, depth, capacity, highWaterMark, lagMillis,
+			                      deliveredCount, droppedCount, conflatedCount );
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Interface: Delivery   //////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Something a published message is handed to: either a handler called directly, or the
+	 * queue in front of an asynchronous subscriber.
+	 */
+	private interface Delivery
+	{
+		public void deliver( Object message ) throws DiscoException;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Inner Class: AsyncDelivery   ///////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The queue and thread in front of an asynchronous subscriber (or a single asynchronous
+	 * handler). Publishing puts the message on the queue once, however many of the subscriber's
+	 * handlers it matches, and the thread calls each matching handler in turn.
+	 */
+	private class AsyncDelivery implements Delivery, Runnable
+	{
+		private final String name;
+		private final ConflatingQueue<Object> queue;
+		private Object target;                                             // set when the first pair is added
+		private final Map<Class<?>,List<CallablePair>> pairs;              // by declared param type
+		private final Map<Class<?>,MessageBus<?>.CallablePair[]> handlers; // by concrete message type
+		private Thread thread;
+
+		@SuppressWarnings("unchecked")
+		private AsyncDelivery( String name, int queueSize, ConflatingQueue.Overflow overflow )
+		{
+			this.name = name;
+			this.queue = new ConflatingQueue<>( queueSize, overflow, message -> {
+				ToLongFunction<? super T> function = conflationKey;
+				return function == null ? ConflatingQueue.NO_KEY : function.applyAsLong( (T)message );
+			});
+			this.target = null;
+			this.pairs = new ConcurrentHashMap<>();
+			this.handlers = new ConcurrentHashMap<>();
+			this.thread = null; // set in start()
+		}
+
+		private void add( CallablePair pair )
+		{
+			this.target = pair.target;
+			this.pairs.computeIfAbsent( pair.type, key -> new CopyOnWriteArrayList<>() ).add( pair );
+			this.handlers.clear();
+		}
+
+		private void start()
+		{
+			if( this.thread != null )
+				return;
+
+			this.thread = new Thread( this, name );
+			this.thread.setDaemon( true );
+			this.thread.start();
+		}
+
+		private void stop()
+		{
+			this.thread.interrupt();
+			this.queue.clear();
+			if( this.thread != Thread.currentThread() )
+			{
+				try
+				{
+					this.thread.join( 1000 );
+				}
+				catch( InterruptedException ie )
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void deliver( Object message )
+		{
+			Consumer<? super T> hook = retainer;
+			if( hook != null )
+				hook.accept( (T)message );
+
+			try
+			{
+				queue.put( message );
+			}
+			catch( InterruptedException ie )
+			{
+				// publisher is being shut down; the message goes undelivered
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public void run()
+		{
+			while( Thread.currentThread().isInterrupted() == false )
+			{
+				Object message;
+				try
+				{
+					message = queue.take();
+				}
+				catch( InterruptedException ie )
+				{
+					return;
+				}
+
+				MessageBus<?>.CallablePair[] matching = handlers.get( message.getClass() );
+				if( matching == null )
+				{
+					// generic arrays aren't allowed, but the wildcard form is fine for calling
+					List<CallablePair> found = handlersFor( message.getClass(), pairs::get );
+					matching = found.toArray( new MessageBus<?>.CallablePair[found.size()] );
+					handlers.put( message.getClass(), matching );
+				}
+
+				for( int i = 0; i < matching.length; i++ )
+				{
+					try
+					{
+						matching[i].call( message );
+					}
+					catch( DiscoException de )
+					{
+						// the error handlers have been told, and there is nobody to throw to
+					}
+				}
+			}
+		}
+	}
+
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Private Inner Class: CallablePair   ////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -291,17 +749,46 @@ public class MessageBus<T>
 	 * Links a methods carrying the {@link EventHandler} annotation with the object that it should
 	 * be invoked on into one object nad provides a convenient invocation method for it.
 	 */
-	private class CallablePair
+	private class CallablePair implements Delivery
 	{
 		private Object target;
 		private Method method;
 		private Class<?> type;
+		private Consumer<Object> invoker; // generated call to method on target; null if reflective
+		private AsyncDelivery async;      // queue to go through if the handler is asynchronous
 		
 		private CallablePair( Object target, Method method )
 		{
 			this.target = target;
 			this.method = method;
 			this.type = method.getParameterTypes()[0]; // Either MessageType, or Throwable for error handler
+			this.invoker = null; // set in bind()
+			this.async = null;   // set in subscribe()
+		}
+
+		@Override
+		public void deliver( Object message ) throws DiscoException
+		{
+			call( message );
+		}
+
+		/**
+		 * Generate a {@link Consumer} that calls the handler method on the target directly. If
+		 * that can't be done, leave the invoker null and {@link #call(Object)} uses reflection.
+		 */
+		@SuppressWarnings("unchecked")
+		private void bind()
+		{
+			try
+			{
+				MethodHandle factory = FACTORIES.get( method.getDeclaringClass() )
+				                                .computeIfAbsent( method, MessageBus::createFactory );
+				this.invoker = (Consumer<Object>)factory.invoke( target );
+			}
+			catch( Throwable throwable )
+			{
+				this.invoker = null;
+			}
 		}
 
 		/**
@@ -315,7 +802,10 @@ public class MessageBus<T>
 		{
 			try
 			{
-				this.method.invoke( target, message );
+				if( invoker != null )
+					invoker.accept( message );
+				else
+					method.invoke( target, message );
 			}
 			catch( InvocationTargetException ie )
 			{
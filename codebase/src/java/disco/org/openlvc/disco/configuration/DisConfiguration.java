@@ -17,12 +17,19 @@
  */
 package org.openlvc.disco.configuration;
 
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.openlvc.disco.DiscoException;
 import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.pdu.field.ProtocolFamily;
+import org.openlvc.disco.pdu.field.ProtocolVersion;
 
 /**
  * General DIS protocol settings that are applicable regardless of transport, sender or receiver
@@ -37,6 +44,20 @@ public class DisConfiguration
 	private static final String PROP_EXERCISE_ID  = "disco.dis.exerciseId"; 
 	private static final String PROP_SITE_ID      = "disco.dis.siteId";
 	private static final String PROP_APP_ID       = "disco.dis.appId";
+	private static final String PROP_RECYCLE_PDUS = "disco.dis.recyclePdus";
+
+	// Header pre-filter, see org.openlvc.disco.PduHeaderFilter. Empty means "accept all".
+	private static final String PROP_FILTER_TYPES    = "disco.dis.filter.pduTypes";
+	private static final String PROP_FILTER_FAMILIES = "disco.dis.filter.families";
+	private static final String PROP_FILTER_VERSIONS = "disco.dis.filter.versions";
+	private static final String PROP_FILTER_SITES    = "disco.dis.filter.sites";
+	private static final String PROP_FILTER_APPS     = "disco.dis.filter.apps";
+
+	// Dead reckoning update suppression, see org.openlvc.disco.application.DeadReckoningGate
+	private static final String PROP_DR_ENABLED     = "disco.dis.dr.enabled";
+	private static final String PROP_DR_POSITION    = "disco.dis.dr.positionThreshold";
+	private static final String PROP_DR_ORIENTATION = "disco.dis.dr.orientationThreshold";
+	private static final String PROP_DR_HEARTBEAT   = "disco.dis.dr.heartbeat";
 
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
@@ -158,6 +179,169 @@ public class DisConfiguration
 		this.appId = appId;
 	}
 	
+	/**
+	 * @return True if received PDUs should be recycled once the listener is done with them.
+	 *         Defaults to false. See {@link org.openlvc.disco.PduFactory} for the rules listeners
+	 *         must follow when this is on.
+	 */
+	public boolean isPduRecyclingEnabled()
+	{
+		return parent.isProperty( PROP_RECYCLE_PDUS, false );
+	}
+
+	/**
+	 * Turn recycling of received PDUs on or off. When on, listeners that want to keep a PDU past
+	 * the end of their <code>receive()</code> call must call {@link PDU#retain()} on it.
+	 */
+	public void setPduRecyclingEnabled( boolean enabled )
+	{
+		parent.setProperty( PROP_RECYCLE_PDUS, ""+enabled );
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	/// Header Filter Methods    ////////////////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return The PDU types that incoming packets are allowed to be. Anything else is dropped
+	 *         before it is decoded. An empty set (the default) lets all types through.
+	 */
+	public Set<PduType> getFilterPduTypes()
+	{
+		return parseEnums( PduType.class, parent.getProperty(PROP_FILTER_TYPES,"") );
+	}
+
+	public void setFilterPduTypes( Set<PduType> types )
+	{
+		parent.setProperty( PROP_FILTER_TYPES, toString(types) );
+	}
+
+	/**
+	 * @return The protocol families that incoming packets are allowed to belong to. Anything
+	 *         else is dropped before it is decoded. An empty set (the default) lets all through.
+	 */
+	public Set<ProtocolFamily> getFilterProtocolFamilies()
+	{
+		return parseEnums( ProtocolFamily.class, parent.getProperty(PROP_FILTER_FAMILIES,"") );
+	}
+
+	public void setFilterProtocolFamilies( Set<ProtocolFamily> families )
+	{
+		parent.setProperty( PROP_FILTER_FAMILIES, toString(families) );
+	}
+
+	/**
+	 * @return The protocol versions that incoming packets are allowed to have. Anything else is
+	 *         dropped before it is decoded. An empty set (the default) lets all through.
+	 */
+	public Set<ProtocolVersion> getFilterProtocolVersions()
+	{
+		return parseEnums( ProtocolVersion.class, parent.getProperty(PROP_FILTER_VERSIONS,"") );
+	}
+
+	public void setFilterProtocolVersions( Set<ProtocolVersion> versions )
+	{
+		parent.setProperty( PROP_FILTER_VERSIONS, toString(versions) );
+	}
+
+	/**
+	 * @return The site ids that incoming packets are allowed to come from, or <code>null</code>
+	 *         if there is no restriction (the default). The site id is read from the first two
+	 *         bytes of the PDU body, which is the originating site for nearly all PDU types.
+	 */
+	public BitSet getFilterSiteIds()
+	{
+		return parseRanges( parent.getProperty(PROP_FILTER_SITES,"") );
+	}
+
+	/**
+	 * Set the site ids incoming packets may come from as a list of ids and ranges, such as
+	 * <code>"1-5,10"</code>. An empty string removes the restriction.
+	 */
+	public void setFilterSiteIds( String ranges )
+	{
+		parseRanges( ranges ); // validate
+		parent.setProperty( PROP_FILTER_SITES, ranges );
+	}
+
+	/**
+	 * @return The application ids that incoming packets are allowed to come from, or
+	 *         <code>null</code> if there is no restriction (the default). As with the site id,
+	 *         this is read from the start of the PDU body.
+	 */
+	public BitSet getFilterAppIds()
+	{
+		return parseRanges( parent.getProperty(PROP_FILTER_APPS,"") );
+	}
+
+	/**
+	 * Set the application ids incoming packets may come from as a list of ids and ranges, such
+	 * as <code>"1-5,10"</code>. An empty string removes the restriction.
+	 */
+	public void setFilterAppIds( String ranges )
+	{
+		parseRanges( ranges ); // validate
+		parent.setProperty( PROP_FILTER_APPS, ranges );
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	/// Dead Reckoning Methods    ///////////////////////////////////////////////////////
+	/////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return True if a DisApplication should hold back Entity State updates for local entities
+	 *         until they drift past the dead reckoning thresholds. Defaults to false.
+	 */
+	public boolean isDeadReckoningGateEnabled()
+	{
+		return parent.isProperty( PROP_DR_ENABLED, false );
+	}
+
+	public void setDeadReckoningGateEnabled( boolean enabled )
+	{
+		parent.setProperty( PROP_DR_ENABLED, ""+enabled );
+	}
+
+	/**
+	 * @return Meters a local entity may drift from its dead reckoned location before a new
+	 *         update is sent. Defaults to 1.0.
+	 */
+	public double getDeadReckoningPositionThreshold()
+	{
+		return Double.parseDouble( parent.getProperty(PROP_DR_POSITION,"1.0") );
+	}
+
+	public void setDeadReckoningPositionThreshold( double meters )
+	{
+		parent.setProperty( PROP_DR_POSITION, ""+meters );
+	}
+
+	/**
+	 * @return Degrees a local entity may turn from its dead reckoned orientation before a new
+	 *         update is sent. Defaults to 3.0.
+	 */
+	public double getDeadReckoningOrientationThreshold()
+	{
+		return Double.parseDouble( parent.getProperty(PROP_DR_ORIENTATION,"3.0") );
+	}
+
+	public void setDeadReckoningOrientationThreshold( double degrees )
+	{
+		parent.setProperty( PROP_DR_ORIENTATION, ""+degrees );
+	}
+
+	/**
+	 * @return Longest time (millis) a local entity can go without an update being sent, even
+	 *         if it is within thresholds. Defaults to 5000, the DIS standard heartbeat.
+	 */
+	public long getDeadReckoningHeartbeatPeriod()
+	{
+		return Long.parseLong( parent.getProperty(PROP_DR_HEARTBEAT,"5000") );
+	}
+
+	public void setDeadReckoningHeartbeatPeriod( long millis )
+	{
+		parent.setProperty( PROP_DR_HEARTBEAT, ""+millis );
+	}
+
 	/////////////////////////////////////////////////////////////////////////////////////
 	/// Custom PDU Support Methods    ///////////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////////////////////////
@@ -174,4 +358,69 @@ public class DisConfiguration
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+	private static <E extends Enum<E>> Set<E> parseEnums( Class<E> type, String value )
+	{
+		EnumSet<E> set = EnumSet.noneOf( type );
+		for( String token : value.split(",") )
+		{
+			token = token.trim();
+			if( token.isEmpty() )
+				continue;
+
+			boolean found = false;
+			for( E candidate : type.getEnumConstants() )
+			{
+				if( candidate.name().equalsIgnoreCase(token) )
+				{
+					set.add( candidate );
+					found = true;
+					break;
+				}
+			}
+
+			if( !found )
+				throw new DiscoException( "Unknown %s in filter: %s", type.getSimpleName(), token );
+		}
+
+		return set;
+	}
+
+	private static String toString( Set<? extends Enum<?>> values )
+	{
+		if( values == null )
+			return "";
+
+		return values.stream().map( Enum::name ).collect( Collectors.joining(",") );
+	}
+
+	/**
+	 * Parse a list such as "1-5,10" into a set of 16-bit ids. Returns null for an empty list.
+	 */
+	private static BitSet parseRanges( String value )
+	{
+		BitSet set = new BitSet( 65536 );
+		for( String token : value.split(",") )
+		{
+			token = token.trim();
+			if( token.isEmpty() )
+				continue;
+
+			try
+			{
+				int dash = token.indexOf( '-' );
+				int low  = Integer.parseInt( dash == -1 ? token : token.substring(0,dash).trim() );
+				int high = dash == -1 ? low : Integer.parseInt( token.substring(dash+1).trim() );
+				if( low < 0 || high > 65535 || low > high )
+					throw new DiscoException( "Invalid id range in filter: %s", token );
+
+				set.set( low, high+1 );
+			}
+			catch( NumberFormatException nfe )
+			{
+				throw new DiscoException( "Invalid id range in filter: %s", token );
+			}
+		}
+
+		return set.isEmpty() ? null : set;
+	}
 }
@@ -24,6 +24,8 @@ import java.util.Properties;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.openlvc.disco.utils.ConflatingQueue.Overflow;
+import org.openlvc.disco.utils.RingBuffer.WaitStrategy;
 
 public class DiscoConfiguration
 {
@@ -44,6 +46,11 @@ public class DiscoConfiguration
 	
 	public static final String PROP_PDU_SENDER   = "disco.pdu.sender";
 	public static final String PROP_PDU_RECEIVER = "disco.pdu.receiver";
+	public static final String PROP_RING_SIZE    = "disco.pdu.ring.size";  // slots, "ring" sender/receiver
+	public static final String PROP_RING_WAIT    = "disco.pdu.ring.wait";  // busy-spin, yield, park
+	public static final String PROP_RECV_WORKERS = "disco.pdu.receiver.workers"; // "sharded" receiver
+	public static final String PROP_QUEUE_SIZE     = "disco.pdu.queue.size";     // "single-thread" & "thread-pool"
+	public static final String PROP_QUEUE_OVERFLOW = "disco.pdu.queue.overflow"; // block, drop-oldest, conflate
 	
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
@@ -183,6 +190,91 @@ public class DiscoConfiguration
 			properties.setProperty( PROP_PDU_RECEIVER, receiver );
 	}
 
+	/**
+	 * @return The number of slots in the ring buffer used by the "ring" sender and receiver.
+	 *         Rounded up to a power of two when the ring is created. Defaults to 65536.
+	 */
+	public int getRingBufferSize()
+	{
+		return Integer.parseInt( properties.getProperty(PROP_RING_SIZE,"65536") );
+	}
+
+	public void setRingBufferSize( int slots )
+	{
+		if( slots < 1 )
+			throw new IllegalArgumentException( "Ring buffer size must be positive: "+slots );
+
+		properties.setProperty( PROP_RING_SIZE, ""+slots );
+	}
+
+	/**
+	 * @return How the "ring" sender and receiver threads wait when there is no work for them.
+	 *         Defaults to {@link WaitStrategy#Park}.
+	 */
+	public WaitStrategy getRingWaitStrategy()
+	{
+		return WaitStrategy.fromString( properties.getProperty(PROP_RING_WAIT,"park") );
+	}
+
+	public void setRingWaitStrategy( WaitStrategy strategy )
+	{
+		properties.setProperty( PROP_RING_WAIT, strategy.name() );
+	}
+
+	/**
+	 * @return The number of decode/delivery threads the "sharded" receiver should use. Defaults
+	 *         to the number of available processors.
+	 */
+	public int getReceiverWorkerCount()
+	{
+		int workers = Integer.parseInt( properties.getProperty(PROP_RECV_WORKERS,"0") );
+		return workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+	}
+
+	/** Set to 0 to use one worker per available processor */
+	public void setReceiverWorkerCount( int workers )
+	{
+		if( workers < 0 )
+			throw new IllegalArgumentException( "Worker count cannot be negative: "+workers );
+
+		properties.setProperty( PROP_RECV_WORKERS, ""+workers );
+	}
+
+	/**
+	 * @return The most PDUs the "single-thread" and "thread-pool" senders, and the
+	 *         "single-thread" receiver, will hold on their queues. Defaults to 100,000.
+	 */
+	public int getPduQueueSize()
+	{
+		return Integer.parseInt( properties.getProperty(PROP_QUEUE_SIZE,"100000") );
+	}
+
+	public void setPduQueueSize( int size )
+	{
+		if( size < 1 )
+			throw new IllegalArgumentException( "PDU queue size must be positive: "+size );
+
+		properties.setProperty( PROP_QUEUE_SIZE, ""+size );
+	}
+
+	/**
+	 * @return What the queueing senders and receivers do when their queue is full. With
+	 *         {@link Overflow#Conflate}, state PDUs (EntityState, Transmitter) that are still
+	 *         waiting are replaced by newer ones for the same entity, so the queue never holds
+	 *         more than one stale update per entity. Events (Fire, Detonation, Signal, ...) are
+	 *         never conflated. Defaults to {@link Overflow#Block}: senders wait for space and
+	 *         receivers drop new packets.
+	 */
+	public Overflow getPduQueueOverflow()
+	{
+		return Overflow.fromString( properties.getProperty(PROP_QUEUE_OVERFLOW,"block") );
+	}
+
+	public void setPduQueueOverflow( Overflow overflow )
+	{
+		properties.setProperty( PROP_QUEUE_OVERFLOW, overflow.name() );
+	}
+
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Connection Properties   ////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -44,7 +44,26 @@ public enum Flag
 	 * that we can interrogate more deeply. Useful for forwarders/loggers who just
 	 * want to pass the data without processing it deeply.
 	 */
-	UnparsedExclusive;
+	UnparsedExclusive,
+
+	/**
+	 * Defer decoding of PDU body fields until they are first accessed. The PDU holds on to a
+	 * copy of its body bytes and, when re-encoded, starts from those rather than rebuilding
+	 * everything from fields. Useful for filters/forwarders that only look at a handful of
+	 * fields on each PDU. Currently supported by {@link org.openlvc.disco.pdu.entity.EntityStatePdu}.
+	 */
+	Lazy,
+
+	/**
+	 * Carry PDUs as the bytes they arrived as. Every type other than Entity State is read into
+	 * an {@link UnparsedPdu} (header decoded, body kept as-is) and written back out unchanged.
+	 * Entity State PDUs are still created as such, so that filters can look at their fields,
+	 * and should be combined with {@link #Lazy} so that only the fields looked at are decoded.
+	 * <p/>
+	 * Anything that does need a fully decoded PDU can get one from
+	 * {@link org.openlvc.disco.PduFactory#parse(UnparsedPdu)}. Useful for bridges/forwarders.
+	 */
+	Passthrough;
 
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
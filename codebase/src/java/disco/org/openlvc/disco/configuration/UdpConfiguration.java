@@ -43,6 +43,8 @@ public class UdpConfiguration
 	private static final String PROP_TTL          = "disco.udp.ttl";
 	private static final String PROP_TRAFFIC_CLASS= "disco.udp.trafficClass";
 	private static final String PROP_MAX_PDU_SIZE = "disco.udp.maxPduSize";
+	private static final String PROP_BUFFER_POOL  = "disco.udp.bufferPoolSize";
+	private static final String PROP_RECV_THREADS = "disco.udp.receiverThreads";
 
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
@@ -323,6 +325,53 @@ public class UdpConfiguration
 	{
 		parent.setProperty( PROP_MAX_PDU_SIZE, Integer.toString(bytes) );
 	}
+
+	/**
+	 * Returns the maximum number of idle receive buffers that connections which use pooled
+	 * buffers (such as the NIO UDP connection) will hold on to for reuse. Each buffer is
+	 * {@link #getMaxPduSize()} bytes of direct memory.
+	 * <p/>
+	 * If more packets than this are in flight at once (e.g. sitting in a receiver queue), extra
+	 * buffers are allocated and later discarded, so keep this above the typical queue depth.
+	 * 
+	 * @return The number of buffers to keep in the receive buffer pool
+	 */
+	public int getBufferPoolSize()
+	{
+		return Integer.parseInt( parent.getProperty(PROP_BUFFER_POOL,"1024") );
+	}
+
+	public void setBufferPoolSize( int buffers )
+	{
+		parent.setProperty( PROP_BUFFER_POOL, Integer.toString(buffers) );
+	}
+
+	/**
+	 * Returns the number of threads that should be reading packets off the receive socket.
+	 * With more than one, the work each does after the read (filtering, handing the packet to
+	 * the PDU receiver and, for the simple receiver, decoding and delivery) runs in parallel.
+	 * <p/>
+	 * All threads share the one socket. Our sockets are multicast or broadcast, and the kernel
+	 * delivers a copy of those datagrams to <i>every</i> socket bound to the port, even with
+	 * <code>SO_REUSEPORT</code> set, so separate sockets would just see every packet N times.
+	 * <p/>
+	 * Note that with more than one thread, packets may reach the PDU receiver in a slightly
+	 * different order to the one they arrived in.
+	 * 
+	 * @return The number of receive threads to run. Defaults to 1.
+	 */
+	public int getReceiverThreads()
+	{
+		return Integer.parseInt( parent.getProperty(PROP_RECV_THREADS,"1") );
+	}
+
+	public void setReceiverThreads( int threads )
+	{
+		if( threads < 1 )
+			throw new IllegalArgumentException( "Must have at least one receiver thread: "+threads );
+
+		parent.setProperty( PROP_RECV_THREADS, Integer.toString(threads) );
+	}
 	
 	//----------------------------------------------------------
 	//                     STATIC METHODS
@@ -45,13 +45,16 @@ public class ConnectionFactory
 	 * 
 	 * Values are:
 	 *   - udp
-	 *   - tba (when I get around do making more)
+	 *   - udp-nio (NIO channels with pooled receive buffers, see {@link UdpNioConnection})
+	 *   - rpr
 	 */
 	public static IConnection getConnection( String name ) throws IllegalArgumentException
 	{
 		name = name.trim();
 		if( name.equalsIgnoreCase("udp") )
 			return new UdpConnection();
+		else if( name.equalsIgnoreCase("udp-nio") )
+			return new UdpNioConnection();
 		else if( name.equals("rpr") )
 			return new RprConnection();
 		else
@@ -17,6 +17,7 @@
  */
 package org.openlvc.disco.connection;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 
 import org.openlvc.disco.DiscoException;
@@ -73,6 +74,19 @@ public interface IConnection
 	 */
 	public void send( byte[] pdubytes ) throws DiscoException;
 
+	/**
+	 * Send the PDU bytes sitting between the buffer's position and limit to the network. The
+	 * buffer's position may be moved. Connections that can hand a buffer straight to the
+	 * network should override this; the default copies the bytes out and calls
+	 * {@link #send(byte[])}.
+	 */
+	public default void send( ByteBuffer packet ) throws DiscoException
+	{
+		byte[] pdubytes = new byte[packet.remaining()];
+		packet.get( pdubytes );
+		send( pdubytes );
+	}
+
 	/**
 	 * Return the {@link Metrics} gathered for this data source.
 	 */
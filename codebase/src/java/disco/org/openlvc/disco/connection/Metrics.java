@@ -17,32 +17,78 @@
  */
 package org.openlvc.disco.connection;
 
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openlvc.disco.pdu.field.PduType;
 import org.openlvc.disco.utils.StringUtils;
 
 /**
  * Generic object for recording baseline metrics in.
+ * <p/>
+ * Counters are updated from whatever threads are doing the work (network receive threads,
+ * sender threads, RTI callbacks, ...), so each is a {@link LongAdder}. Updates from different
+ * threads land in different cells and never contend; the cost is paid when a value is read,
+ * which is rare in comparison.
+ * <p/>
+ * Alongside the totals, counts are broken down by PDU type. Types are given as the raw type
+ * byte from the PDU header so that the network threads can record them without decoding
+ * anything. Updates that don't know their type are recorded against {@link PduType#Other}.
+ * <p/>
+ * For a consistent view of everything at once, use {@link #getSnapshot()}. For throughput, use
+ * the rate methods such as {@link #getPdusSentRate(int)}, which work over a sliding window of
+ * recent samples (see {@link #sample()}).
  */
 public class Metrics
 {
 	//----------------------------------------------------------
 	//                    STATIC VARIABLES
 	//----------------------------------------------------------
+	private static final int TYPE_COUNT = 256;
+	private static final int OFFSET_PDU_TYPE = 2;
+
+	/** Samples closer together than this are not recorded in the rate history */
+	private static final long SAMPLE_INTERVAL_MILLIS = 1000;
+	/** Number of samples kept for rate calculations; bounds the longest usable window */
+	private static final int SAMPLE_HISTORY = 300;
 
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
-	private long pdusSent;
-	private long pdusReceived;
-	private long bytesSent;
-	private long bytesReceived;
-	
-	private long pdusDiscarded;
+	private final LongAdder pdusSent;
+	private final LongAdder pdusReceived;
+	private final LongAdder bytesSent;
+	private final LongAdder bytesReceived;
+
+	private final LongAdder pdusDiscarded;
+	private final LongAdder pdusFiltered;
+
+	// Per-type counters, indexed by raw type value. Created the first time a type is seen.
+	private final AtomicReferenceArray<TypeCounters> types;
+
+	// Rate history. Ring of samples, only touched on the (rare) read side.
+	private final Sample[] history;
+	private int historyHead;   // index of the newest sample
+	private int historySize;
+	private volatile long resetTime;
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
 	//----------------------------------------------------------
 	public Metrics()
 	{
+		this.pdusSent = new LongAdder();
+		this.pdusReceived = new LongAdder();
+		this.bytesSent = new LongAdder();
+		this.bytesReceived = new LongAdder();
+		this.pdusDiscarded = new LongAdder();
+		this.pdusFiltered = new LongAdder();
+		this.types = new AtomicReferenceArray<>( TYPE_COUNT );
+		this.history = new Sample[SAMPLE_HISTORY];
+
 		reset();
 	}
 
@@ -51,76 +97,468 @@ public class Metrics
 	//----------------------------------------------------------
 
 	////////////////////////////////////////////////////////////////////////////////////////////
-	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	/// Recording Methods   ////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
 	public void pduSent( long bytes )
 	{
-		++pdusSent;
-		bytesSent += bytes;
+		pduSent( PduType.Other.value(), bytes );
 	}
-	
+
+	/**
+	 * @param type  Raw PDU type value (header byte 2)
+	 * @param bytes Size of the PDU
+	 */
+	public void pduSent( int type, long bytes )
+	{
+		pdusSent.increment();
+		bytesSent.add( bytes );
+
+		TypeCounters counters = counters( type );
+		counters.sent.increment();
+		counters.bytesSent.add( bytes );
+	}
+
 	public void pduReceived( long bytes )
 	{
-		++pdusReceived;
-		bytesReceived += bytes;
+		pduReceived( PduType.Other.value(), bytes );
+	}
+
+	/**
+	 * @param type  Raw PDU type value (header byte 2)
+	 * @param bytes Size of the PDU
+	 */
+	public void pduReceived( int type, long bytes )
+	{
+		pdusReceived.increment();
+		bytesReceived.add( bytes );
+
+		TypeCounters counters = counters( type );
+		counters.received.increment();
+		counters.bytesReceived.add( bytes );
 	}
 
 	public void pduDiscarded()
 	{
-		++pdusDiscarded;
+		pduDiscarded( PduType.Other.value() );
+	}
+
+	/**
+	 * A PDU was thrown away rather than being processed: it was for another exercise, a queue
+	 * it was waiting on was full, or it failed to go out.
+	 *
+	 * @param type Raw PDU type value (header byte 2)
+	 */
+	public void pduDiscarded( int type )
+	{
+		pdusDiscarded.increment();
+		counters(type).discarded.increment();
+	}
+
+	/**
+	 * A packet was dropped by the header filter before being decoded
+	 */
+	public void pduFiltered()
+	{
+		pdusFiltered.increment();
 	}
 
+	private final TypeCounters counters( int type )
+	{
+		int index = type & 0xff;
+		TypeCounters counters = types.get( index );
+		if( counters == null )
+		{
+			types.compareAndSet( index, null, new TypeCounters() );
+			counters = types.get( index );
+		}
+
+		return counters;
+	}
+
+	/**
+	 * Zero all the counters and the rate history. Updates that happen while the reset is in
+	 * progress may or may not survive it.
+	 */
 	public void reset()
 	{
-		this.pdusSent = 0;
-		this.pdusReceived = 0;
-		this.bytesSent = 0;
-		this.bytesReceived = 0;
-		
-		this.pdusDiscarded = 0;
+		this.pdusSent.reset();
+		this.pdusReceived.reset();
+		this.bytesSent.reset();
+		this.bytesReceived.reset();
+
+		this.pdusDiscarded.reset();
+		this.pdusFiltered.reset();
+
+		for( int i = 0; i < TYPE_COUNT; i++ )
+			types.set( i, null );
+
+		synchronized( history )
+		{
+			this.resetTime = System.currentTimeMillis();
+			this.historyHead = 0;
+			this.historySize = 1;
+			this.history[0] = new Sample( resetTime, 0, 0, 0, 0 );
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Rate Methods   /////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Record the current totals in the rate history, so long as the last sample is at least a
+	 * second old. This is done automatically whenever a rate or snapshot is asked for, so
+	 * there is no need to call it unless rates will be requested irregularly and the windows
+	 * need to line up more closely with what was asked for.
+	 */
+	public void sample()
+	{
+		sampleNow();
+	}
+
+	/**
+	 * @param windowSeconds How far back to look
+	 * @return Average PDUs sent per second over roughly the last <code>windowSeconds</code>
+	 */
+	public double getPdusSentRate( int windowSeconds )
+	{
+		return rate( windowSeconds, 0 );
+	}
+
+	/**
+	 * @param windowSeconds How far back to look
+	 * @return Average PDUs received per second over roughly the last <code>windowSeconds</code>
+	 */
+	public double getPdusReceivedRate( int windowSeconds )
+	{
+		return rate( windowSeconds, 1 );
+	}
+
+	/**
+	 * @param windowSeconds How far back to look
+	 * @return Average bytes sent per second over roughly the last <code>windowSeconds</code>
+	 */
+	public double getBytesSentRate( int windowSeconds )
+	{
+		return rate( windowSeconds, 2 );
+	}
+
+	/**
+	 * @param windowSeconds How far back to look
+	 * @return Average bytes received per second over roughly the last <code>windowSeconds</code>
+	 */
+	public double getBytesReceivedRate( int windowSeconds )
+	{
+		return rate( windowSeconds, 3 );
+	}
+
+	/**
+	 * Work out the rate for one of the sampled values between now and the oldest sample that
+	 * still falls inside the window. If every sample is older than the window (nobody has
+	 * asked for a while), the newest one is used instead, stretching the window to cover it.
+	 */
+	private double rate( int windowSeconds, int field )
+	{
+		synchronized( history )
+		{
+			Sample now = sampleNow();
+			long cutoff = now.time - (windowSeconds * 1000L);
+
+			Sample from = null;
+			Sample newest = null;
+			for( int i = 0; i < historySize; i++ )
+			{
+				Sample candidate = history[(historyHead-i+SAMPLE_HISTORY) % SAMPLE_HISTORY];
+				if( candidate == now )
+					continue;
+
+				if( newest == null )
+					newest = candidate;
+
+				if( candidate.time < cutoff )
+					break;
+
+				from = candidate;
+			}
+
+			if( from == null )
+				from = newest;
+			if( from == null )
+				return 0.0;
+
+			long millis = now.time - from.time;
+			if( millis <= 0 )
+				return 0.0;
+
+			return (now.values[field] - from.values[field]) * 1000.0 / millis;
+		}
+	}
+
+	/**
+	 * Take a sample of the current totals, storing it in the history if the interval has
+	 * passed since the last one. Returns the sample either way.
+	 */
+	private Sample sampleNow()
+	{
+		synchronized( history )
+		{
+			Sample sample = new Sample( System.currentTimeMillis(),
+			                            pdusSent.sum(),
+			                            pdusReceived.sum(),
+			                            bytesSent.sum(),
+			                            bytesReceived.sum() );
+
+			if( sample.time - history[historyHead].time >= SAMPLE_INTERVAL_MILLIS )
+			{
+				historyHead = (historyHead+1) % SAMPLE_HISTORY;
+				history[historyHead] = sample;
+				if( historySize < SAMPLE_HISTORY )
+					++historySize;
+			}
+
+			return sample;
+		}
 	}
-	
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
 	public long getPdusSent()
 	{
-		return pdusSent;
+		return pdusSent.sum();
 	}
 
 	public long getPdusReceived()
 	{
-		return pdusReceived;
+		return pdusReceived.sum();
 	}
 
 	public long getPdusDiscarded()
 	{
-		return pdusDiscarded;
+		return pdusDiscarded.sum();
+	}
+
+	public long getPdusFiltered()
+	{
+		return pdusFiltered.sum();
 	}
 
 	public long getBytesSent()
 	{
-		return bytesSent;
+		return bytesSent.sum();
 	}
 
 	public long getBytesReceived()
 	{
-		return bytesReceived;
+		return bytesReceived.sum();
+	}
+
+	public long getPdusSent( PduType type )
+	{
+		TypeCounters counters = types.get( type.value() & 0xff );
+		return counters == null ? 0 : counters.sent.sum();
+	}
+
+	public long getPdusReceived( PduType type )
+	{
+		TypeCounters counters = types.get( type.value() & 0xff );
+		return counters == null ? 0 : counters.received.sum();
+	}
+
+	public long getPdusDiscarded( PduType type )
+	{
+		TypeCounters counters = types.get( type.value() & 0xff );
+		return counters == null ? 0 : counters.discarded.sum();
+	}
+
+	/**
+	 * Take a copy of every counter. Each counter is read once, so the snapshot is cheap, but
+	 * updates that land while it is being taken may be included in some values and not others.
+	 * Also records a sample in the rate history if one is due.
+	 */
+	public Snapshot getSnapshot()
+	{
+		Snapshot snapshot = new Snapshot();
+		snapshot.time = System.currentTimeMillis();
+		snapshot.since = this.resetTime;
+		snapshot.pdusSent = pdusSent.sum();
+		snapshot.pdusReceived = pdusReceived.sum();
+		snapshot.bytesSent = bytesSent.sum();
+		snapshot.bytesReceived = bytesReceived.sum();
+		snapshot.pdusDiscarded = pdusDiscarded.sum();
+		snapshot.pdusFiltered = pdusFiltered.sum();
+
+		for( int i = 0; i < TYPE_COUNT; i++ )
+		{
+			TypeCounters counters = types.get( i );
+			if( counters == null )
+				continue;
+
+			snapshot.typeSent[i] = counters.sent.sum();
+			snapshot.typeReceived[i] = counters.received.sum();
+			snapshot.typeDiscarded[i] = counters.discarded.sum();
+			snapshot.typeBytesSent[i] = counters.bytesSent.sum();
+			snapshot.typeBytesReceived[i] = counters.bytesReceived.sum();
+		}
+
+		sampleNow();
+		return snapshot;
 	}
 
 	/**
 	 * Returns metrics summary in the form:
-	 * <code>{ pduSent=123 (10.44KB), pduRecv=123 (10.44KB), pduDisc=0 }</code>
+	 * <code>{ pduSent=123 (10.44KB), pduRecv=123 (10.44KB), pduDisc=0, pFilt=0 }</code>
 	 */
 	public String getSummaryString()
 	{
 		return
-		String.format( "{ pSent=%d (%s), pRecv=%d (%s), pDisc=%d } ",
-		               pdusSent,
-		               StringUtils.humanReadableSize(bytesSent),
-		               pdusReceived,
-		               StringUtils.humanReadableSize(bytesReceived),
-		               pdusDiscarded );
+		String.format( "{ pSent=%d (%s), pRecv=%d (%s), pDisc=%d, pFilt=%d } ",
+		               pdusSent.sum(),
+		               StringUtils.humanReadableSize(bytesSent.sum()),
+		               pdusReceived.sum(),
+		               StringUtils.humanReadableSize(bytesReceived.sum()),
+		               pdusDiscarded.sum(),
+		               pdusFiltered.sum() );
 	}
 
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+	/**
+	 * @return The raw PDU type value from the header of the given packet, or the value for
+	 *         {@link PduType#Other} if the packet is too short to hold one
+	 */
+	public static int typeOf( byte[] packet )
+	{
+		return packet.length > OFFSET_PDU_TYPE ? packet[OFFSET_PDU_TYPE] & 0xff : 0;
+	}
+
+	/**
+	 * Same as {@link #typeOf(byte[])} for the packet between the buffer's position and limit.
+	 * The buffer is not modified.
+	 */
+	public static int typeOf( ByteBuffer packet )
+	{
+		return packet.remaining() > OFFSET_PDU_TYPE ?
+		       packet.get(packet.position()+OFFSET_PDU_TYPE) & 0xff : 0;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Class: TypeCounters   //////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private static class TypeCounters
+	{
+		private final LongAdder sent = new LongAdder();
+		private final LongAdder received = new LongAdder();
+		private final LongAdder discarded = new LongAdder();
+		private final LongAdder bytesSent = new LongAdder();
+		private final LongAdder bytesReceived = new LongAdder();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Class: Sample   ////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private static class Sample
+	{
+		private final long time;
+		private final long[] values; // pdusSent, pdusReceived, bytesSent, bytesReceived
+
+		private Sample( long time, long pdusSent, long pdusReceived, long bytesSent, long bytesReceived )
+		{
+			this.time = time;
+			this.values = new long[]{ pdusSent, pdusReceived, bytesSent, bytesReceived };
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Class: Snapshot   //////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Point-in-time copy of a {@link Metrics}. Immutable and safe to hand to other threads.
+	 * Two snapshots can be compared with {@link #getPdusSentRate(Snapshot)} and friends to get
+	 * rates over whatever period the caller likes.
+	 */
+	public static class Snapshot
+	{
+		private long time;
+		private long since;
+		private long pdusSent;
+		private long pdusReceived;
+		private long bytesSent;
+		private long bytesReceived;
+		private long pdusDiscarded;
+		private long pdusFiltered;
+
+		private final long[] typeSent = new long[TYPE_COUNT];
+		private final long[] typeReceived = new long[TYPE_COUNT];
+		private final long[] typeDiscarded = new long[TYPE_COUNT];
+		private final long[] typeBytesSent = new long[TYPE_COUNT];
+		private final long[] typeBytesReceived = new long[TYPE_COUNT];
+
+		private Snapshot()
+		{
+		}
+
+		/** @return Wall-clock time (millis) the snapshot was taken */
+		public long getTime() { return time; }
+		/** @return Wall-clock time (millis) the counters were last reset */
+		public long getResetTime() { return since; }
+
+		public long getPdusSent() { return pdusSent; }
+		public long getPdusReceived() { return pdusReceived; }
+		public long getBytesSent() { return bytesSent; }
+		public long getBytesReceived() { return bytesReceived; }
+		public long getPdusDiscarded() { return pdusDiscarded; }
+		public long getPdusFiltered() { return pdusFiltered; }
+
+		public long getPdusSent( PduType type ) { return typeSent[type.value() & 0xff]; }
+		public long getPdusReceived( PduType type ) { return typeReceived[type.value() & 0xff]; }
+		public long getPdusDiscarded( PduType type ) { return typeDiscarded[type.value() & 0xff]; }
+		public long getBytesSent( PduType type ) { return typeBytesSent[type.value() & 0xff]; }
+		public long getBytesReceived( PduType type ) { return typeBytesReceived[type.value() & 0xff]; }
+
+		/**
+		 * @return Every PDU type that has been sent, received or discarded at least once
+		 */
+		public Set<PduType> getActiveTypes()
+		{
+			Set<PduType> active = EnumSet.noneOf( PduType.class );
+			for( int i = 0; i < TYPE_COUNT; i++ )
+			{
+				if( typeSent[i] != 0 || typeReceived[i] != 0 || typeDiscarded[i] != 0 )
+					active.add( PduType.fromValue((short)i) );
+			}
+
+			return active;
+		}
+
+		/** @return PDUs sent per second between the earlier snapshot and this one */
+		public double getPdusSentRate( Snapshot earlier )
+		{
+			return perSecond( pdusSent - earlier.pdusSent, earlier );
+		}
+
+		/** @return PDUs received per second between the earlier snapshot and this one */
+		public double getPdusReceivedRate( Snapshot earlier )
+		{
+			return perSecond( pdusReceived - earlier.pdusReceived, earlier );
+		}
+
+		/** @return Bytes sent per second between the earlier snapshot and this one */
+		public double getBytesSentRate( Snapshot earlier )
+		{
+			return perSecond( bytesSent - earlier.bytesSent, earlier );
+		}
+
+		/** @return Bytes received per second between the earlier snapshot and this one */
+		public double getBytesReceivedRate( Snapshot earlier )
+		{
+			return perSecond( bytesReceived - earlier.bytesReceived, earlier );
+		}
+
+		private double perSecond( long delta, Snapshot earlier )
+		{
+			long millis = time - earlier.time;
+			return millis <= 0 ? 0.0 : delta * 1000.0 / millis;
+		}
+	}
 }
@@ -0,0 +1,133 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.connection;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.pdu.DisBuffer;
+import org.openlvc.disco.pdu.PDU;
+
+/**
+ * Reusable buffer that PDUs are serialized into on their way to the network. Encoding a PDU
+ * writes it straight into the buffer and hands back a view of the bytes, ready to be given to
+ * a socket or channel. Once the buffer is big enough for the PDUs being sent, nothing is
+ * allocated per PDU.
+ * <p/>
+ * An encoder is <b>not thread safe</b>, and the buffer returned by {@link #encode(PDU)} is only
+ * valid until the next call. Connections keep one per sending thread, typically in a
+ * <code>ThreadLocal</code>.
+ * <p/>
+ * The buffer is sized from {@link PDU#getPduLength()} and grown if a PDU needs more room. If a
+ * PDU turns out to write more than it said it would, the buffer is grown and the PDU written
+ * again.
+ */
+public class PduEncoder
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	/** Largest payload that fits in a UDP datagram. We won't grow past this. */
+	private static final int MAX_CAPACITY = 65507;
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private final boolean direct;
+	private ByteBuffer buffer;
+	private DisBuffer disBuffer;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	/**
+	 * @param direct True to use a direct buffer. This is what NIO channels want, as they would
+	 *               otherwise copy a heap buffer into a direct one of their own before sending.
+	 *               Classic sockets need a heap buffer with an accessible array.
+	 */
+	public PduEncoder( boolean direct )
+	{
+		this.direct = direct;
+		this.buffer = allocate( PDU.MAX_SIZE );
+		this.disBuffer = new DisBuffer( buffer );
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+	/**
+	 * Serialize the PDU into this encoder's buffer.
+	 *
+	 * @return The buffer, with position at the start of the PDU and limit at its end. Only valid
+	 *         until the next call to this method.
+	 * @throws DiscoException If the PDU can't be serialized, or is too big to send
+	 */
+	public ByteBuffer encode( PDU pdu ) throws DiscoException
+	{
+		int expected = pdu.getPduLength();
+		if( expected > MAX_CAPACITY )
+			throw new DiscoException( "PDU too large to send, %d bytes exceeds %d", expected, MAX_CAPACITY );
+		else if( expected > buffer.capacity() )
+			grow( expected );
+
+		while( true )
+		{
+			buffer.clear();
+			try
+			{
+				pdu.writePdu( disBuffer );
+				buffer.flip();
+				return buffer;
+			}
+			catch( BufferOverflowException boe )
+			{
+				// PDU wrote more than getPduLength() said it would; make room and go again
+				grow( buffer.capacity() * 2 );
+			}
+			catch( IOException ioex )
+			{
+				throw new DiscoException( ioex.getMessage(), ioex );
+			}
+		}
+	}
+
+	private void grow( int needed )
+	{
+		if( buffer.capacity() >= MAX_CAPACITY )
+			throw new DiscoException( "PDU too large to send, exceeds %d bytes", MAX_CAPACITY );
+
+		this.buffer = allocate( Math.min(needed,MAX_CAPACITY) );
+		this.disBuffer.wrap( buffer );
+	}
+
+	private ByteBuffer allocate( int capacity )
+	{
+		return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+
+	public int getCapacity()
+	{
+		return buffer.capacity();
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
@@ -17,7 +17,6 @@
  */
 package org.openlvc.disco.connection;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
@@ -26,13 +25,13 @@ import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
 import java.net.SocketAddress;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 
 import org.apache.logging.log4j.Logger;
 import org.openlvc.disco.DiscoException;
 import org.openlvc.disco.OpsCenter;
 import org.openlvc.disco.configuration.UdpConfiguration;
-import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.PDU;
 import org.openlvc.disco.pdu.field.PduType;
 import org.openlvc.disco.utils.NetworkUtils;
@@ -53,10 +52,12 @@ public class UdpConnection implements IConnection
 	private UdpConfiguration configuration;
 	private DatagramSocket sendSocket;
 	private DatagramSocket recvSocket;
-	private Thread receiverThread;
+	private Receiver[] receivers;
 
 	// cache of details to assist with sending
 	private SocketAddress targetAddress;
+	private ThreadLocal<PduEncoder> encoder;          // each sending thread has its own buffer
+	private ThreadLocal<DatagramPacket> sendPacket;   // and its own packet to send it in
 	
 	// cache of configuration to assist with receive filtering
 	private short exerciseId;
@@ -72,11 +73,13 @@ public class UdpConnection implements IConnection
 		this.logger = null;          // set in configure()
 		this.opscenter = null;       // set in configure()
 		this.configuration = null;   // set in configure()
-		this.receiverThread = null;  // set in open()
+		this.receivers = null;       // set in open()
 		
 		this.sendSocket = null;      // set in open()
 		this.recvSocket = null;      // set in open()
 		this.targetAddress = null;   // set in open()
+		this.encoder = ThreadLocal.withInitial( () -> new PduEncoder(false) );
+		this.sendPacket = ThreadLocal.withInitial( () -> new DatagramPacket(new byte[0],0) );
 		this.exerciseId = -1;        // set in configure()
 		this.metrics = null;         // set in open()
 	}
@@ -170,10 +173,17 @@ public class UdpConnection implements IConnection
 
 
 		//
-		// Start the receiver thread so we can process PDUs
+		// Start the receiver thread(s) so we can process PDUs
 		//
-		this.receiverThread = new Thread( new Receiver(), "UDP Receiver" );
-		this.receiverThread.start();
+		int threads = configuration.getReceiverThreads();
+		this.receivers = new Receiver[threads];
+		for( int i = 0; i < threads; i++ )
+		{
+			String name = threads == 1 ? "UDP Receiver" : "UDP Receiver "+i;
+			this.receivers[i] = new Receiver();
+			this.receivers[i].thread = new Thread( receivers[i], name );
+			this.receivers[i].thread.start();
+		}
 
 		logger.info( "UDP Provider open and processing" );
 	}
@@ -184,8 +194,10 @@ public class UdpConnection implements IConnection
 		if( this.recvSocket == null || this.recvSocket.isClosed() )
 			return;
 		
-		// Close the socket we're listening on and the thread will drop out
-		this.receiverThread.interrupt();
+		// Close the socket we're listening on and the threads will drop out
+		for( Receiver receiver : receivers )
+			receiver.thread.interrupt();
+
 		this.sendSocket.close();
 		if( this.recvSocket.isClosed() == false )
 			// have to be careful - could be the same as the send socket
@@ -195,14 +207,24 @@ public class UdpConnection implements IConnection
 		logger.info( "=== PDU Summary ===" );
 		logger.info( "       Sent: %,d (%,d bytes)", metrics.getPdusSent(), metrics.getBytesSent() );
 		logger.info( "   Received: %,d (%,d bytes)", metrics.getPdusReceived(), metrics.getBytesReceived() );
+		if( receivers.length > 1 )
+		{
+			for( int i = 0; i < receivers.length; i++ )
+			{
+				logger.info( "  Thread %2d: %,d received, %,d discarded",
+				             i, receivers[i].received, receivers[i].discarded );
+			}
+		}
 		logger.info( "" );
 
-		// Wait for the receiver to close up shop
+		// Wait for the receivers to close up shop
 		try
 		{
-			this.logger.debug( "Waiting for receiver thread to shut down" );
-			this.receiverThread.join();
-			this.logger.debug( "Receiver thread is down, UDP provider successfully closed" );
+			this.logger.debug( "Waiting for receiver threads to shut down" );
+			for( Receiver receiver : receivers )
+				receiver.thread.join();
+
+			this.logger.debug( "Receiver threads are down, UDP provider successfully closed" );
 		}
 		catch( InterruptedException ie )
 		{}
@@ -220,42 +242,83 @@ public class UdpConnection implements IConnection
 		return this.metrics;
 	}
 
+	/**
+	 * @return The number of threads reading from the receive socket
+	 */
+	public int getReceiverThreadCount()
+	{
+		return receivers == null ? 0 : receivers.length;
+	}
+
+	/**
+	 * @return The number of packets the given receive thread has passed on to the PDU receiver
+	 */
+	public long getReceivedCount( int thread )
+	{
+		return receivers[thread].received;
+	}
+
+	/**
+	 * @return The number of packets the given receive thread has thrown away because they
+	 *         were for a different exercise
+	 */
+	public long getDiscardedCount( int thread )
+	{
+		return receivers[thread].discarded;
+	}
+
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Sender Methods   ///////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
 	public void send( byte[] payload ) throws DiscoException
 	{
-		try
+		send( payload, 0, payload.length );
+	}
+
+	/**
+	 * Send the buffer's bytes without copying them if it is backed by an accessible array.
+	 * Direct and read-only buffers are copied out first.
+	 */
+	@Override
+	public void send( ByteBuffer packet ) throws DiscoException
+	{
+		if( packet.hasArray() )
 		{
-			sendSocket.send( new DatagramPacket(payload,0,payload.length,targetAddress) );
-			metrics.pduSent( payload.length );
+			send( packet.array(), packet.arrayOffset()+packet.position(), packet.remaining() );
+			packet.position( packet.limit() );
 		}
-		catch( IOException ioex )
+		else
 		{
-			throw new DiscoException( ioex.getMessage(), ioex );
+			byte[] payload = new byte[packet.remaining()];
+			packet.get( payload );
+			send( payload, 0, payload.length );
 		}
 	}
 
+	/**
+	 * Serialize the PDU into this thread's send buffer and send it from there. The buffer and
+	 * the packet it goes out in are both reused, so nothing is allocated per PDU.
+	 */
 	public void send( PDU pdu ) throws DiscoException
 	{
-		// Create a DISOutputStream to write to
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		DisOutputStream dos = new DisOutputStream( baos );
-		
+		send( encoder.get().encode(pdu) );
+	}
+
+	private void send( byte[] payload, int offset, int length ) throws DiscoException
+	{
 		try
 		{
-			// Firstly write the PDU header to the stream
-			pdu.writeHeader( dos );
-			
-			// Write the body content
-			pdu.to( dos );
-			
-			// Send the payload
-			send( baos.toByteArray() );
+			// DatagramSocket.send() holds the packet's lock while it runs, but each thread
+			// has its own packet so there is never any contention on it
+			DatagramPacket packet = sendPacket.get();
+			packet.setData( payload, offset, length );
+			packet.setSocketAddress( targetAddress );
+			sendSocket.send( packet );
+			metrics.pduSent( length > 2 ? payload[offset+2] & 0xff : 0, length );
 		}
 		catch( IOException ioex )
 		{
-			logger.warn( "Error trying to send PDU ("+pdu+"): "+ioex.getMessage(), ioex );
+			throw new DiscoException( ioex.getMessage(), ioex );
 		}
 	}
 
@@ -264,6 +327,12 @@ public class UdpConnection implements IConnection
 	////////////////////////////////////////////////////////////////////////////////////////////
 	private class Receiver implements Runnable
 	{
+		private Thread thread;
+
+		// only written by this receiver's thread
+		private volatile long received = 0;
+		private volatile long discarded = 0;
+
 		public void run()
 		{
 			logger.debug( "UDP Provider receiver thread up and running" );
@@ -289,18 +358,20 @@ public class UdpConnection implements IConnection
 					}
 					
 					// 3. Discard if outside our exercise (0=accept any exercise)
-					if( exerciseId == 0 || buffer[1] == exerciseId )
+					if( exerciseId == 0 || (buffer[1] & 0xff) == exerciseId )
 					{
 						// hand it off to the receiver
 						if( logger.isTraceEnabled() )
 							logger.trace( "(Packet) size="+packet.getLength()+", source="+packet.getSocketAddress() );
 
 						opscenter.getPduReceiver().receive( buffer );
-						metrics.pduReceived( packet.getLength() );
+						metrics.pduReceived( Metrics.typeOf(buffer), packet.getLength() );
+						++received;
 					}
 					else
 					{
-						metrics.pduDiscarded();
+						metrics.pduDiscarded( Metrics.typeOf(buffer) );
+						++discarded;
 						continue;
 					}
 				}
@@ -311,7 +382,7 @@ public class UdpConnection implements IConnection
 				}
 				catch( Exception e )
 				{
-					e.printStackTrace();
+					logger.warn( "Error receiving packet, discarded: "+e.getMessage(), e );
 				}
 			}
 		}
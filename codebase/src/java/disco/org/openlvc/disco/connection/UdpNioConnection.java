@@ -0,0 +1,424 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.connection;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.Collection;
+
+import org.apache.logging.log4j.Logger;
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.OpsCenter;
+import org.openlvc.disco.PduReceiver;
+import org.openlvc.disco.configuration.UdpConfiguration;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.utils.BufferPool;
+import org.openlvc.disco.utils.NetworkUtils;
+import org.openlvc.disco.utils.SocketOptions;
+import org.openlvc.disco.utils.StringUtils;
+
+/**
+ * UDP connection built on NIO {@link DatagramChannel}s rather than {@link java.net.DatagramSocket}s.
+ * <p/>
+ * Functionally this is the same as {@link UdpConnection}: same multicast/broadcast setup, same
+ * exercise id filtering and same local loopback suppression. The difference is on the receive
+ * side. Rather than allocating a new <code>byte[]</code> and packet for each datagram, we read
+ * into direct buffers taken from a {@link BufferPool} and pass them to the {@link PduReceiver}
+ * via {@link PduReceiver#receive(ByteBuffer, BufferPool)}. The receiver hands them back to the
+ * pool once it is done, so in steady state the receive loop does not allocate at all.
+ * <p/>
+ * Select this connection by setting <code>disco.connection = udp-nio</code>.
+ */
+public class UdpNioConnection implements IConnection
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private Logger logger;
+	private OpsCenter opscenter;
+	private UdpConfiguration configuration;
+	private DatagramChannel sendChannel;
+	private DatagramChannel recvChannel;
+	private Receiver[] receivers;
+	private BufferPool bufferPool;
+
+	// cache of details to assist with sending
+	private SocketAddress targetAddress;
+	private ThreadLocal<PduEncoder> encoder;  // each sending thread serializes into its own buffer
+
+	// cache of configuration to assist with receive filtering
+	private short exerciseId;
+
+	// metrics
+	private Metrics metrics;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	public UdpNioConnection()
+	{
+		this.logger = null;          // set in configure()
+		this.opscenter = null;       // set in configure()
+		this.configuration = null;   // set in configure()
+		this.receivers = null;       // set in open()
+		this.bufferPool = null;      // set in open()
+
+		this.sendChannel = null;     // set in open()
+		this.recvChannel = null;     // set in open()
+		this.targetAddress = null;   // set in open()
+		this.encoder = ThreadLocal.withInitial( () -> new PduEncoder(true) );
+		this.exerciseId = -1;        // set in configure()
+		this.metrics = null;         // set in open()
+	}
+
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/////////////////////////////// Accessor and Mutator Methods ///////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public Collection<PduType> getSupportedPduTypes()
+	{
+		return opscenter.getPduFactory().getSupportedPduTypes();
+	}
+
+	@Override
+	public void configure( OpsCenter opscenter ) throws DiscoException
+	{
+		this.opscenter = opscenter;
+		this.logger = opscenter.getLogger();
+		this.configuration = opscenter.getConfiguration().getUdpConfiguration();
+
+		// receive-side cache values
+		this.exerciseId = opscenter.getConfiguration().getDisConfiguration().getExerciseId();
+	}
+
+	@Override
+	public void open() throws DiscoException
+	{
+		this.metrics = new Metrics();
+		this.bufferPool = new BufferPool( configuration.getMaxPduSize(),
+		                                  configuration.getBufferPoolSize() );
+		logger.debug( "Opening UDP (NIO) Provider connection" );
+
+		// Store any temporary information we need to make things a bit faster
+		this.targetAddress = new InetSocketAddress( configuration.getAddress(), configuration.getPort() );
+
+		//
+		// Create Channels
+		//
+		InetAddress address = configuration.getAddress();
+		int port = configuration.getPort();
+		NetworkInterface networkInterface = configuration.getNetworkInterface();
+
+		SocketOptions options = new SocketOptions();
+		options.setSendBufferSize( configuration.getSendBufferSize() );
+		options.setRecvBufferSize( configuration.getRecvBufferSize() );
+		options.setTimeToLive( configuration.getTimeToLive() );
+		options.setTrafficClass( configuration.getTrafficClass() );
+
+		if( address.isMulticastAddress() )
+		{
+			logger.info( "Connecting to multicast group - "+address+":"+port+" (interface: "+networkInterface+")" );
+			DatagramChannel[] pair = NetworkUtils.createMulticastChannelPair( address, port, networkInterface, options );
+			this.sendChannel = pair[0];
+			this.recvChannel = pair[1];
+		}
+		else
+		{
+			logger.info( "Connecting broadcast channel - %s:%d (interface: %s)", address, port, networkInterface );
+			DatagramChannel[] pair = NetworkUtils.createBroadcastChannelPair( port, networkInterface, options );
+			this.sendChannel = pair[0];
+			this.recvChannel = pair[1];
+		}
+
+		try
+		{
+			logger.debug( "  -> Send Buffer: %s  (requested: %s)",
+			              StringUtils.humanReadableSize(sendChannel.getOption(StandardSocketOptions.SO_SNDBUF)),
+			              StringUtils.humanReadableSize(configuration.getSendBufferSize()) );
+			logger.debug( "  -> Recv Buffer: %s  (requested: %s)",
+			              StringUtils.humanReadableSize(recvChannel.getOption(StandardSocketOptions.SO_RCVBUF)),
+			              StringUtils.humanReadableSize(configuration.getRecvBufferSize()) );
+			logger.debug( "  -> Buffer Pool: %d x %s",
+			              bufferPool.getCapacity(),
+			              StringUtils.humanReadableSize(bufferPool.getBufferSize()) );
+		}
+		catch( IOException ioex )
+		{
+			logger.debug( "Could not determine buffer sizes: "+ioex.getMessage(), ioex );
+		}
+
+		//
+		// Start the receiver thread(s) so we can process PDUs. See
+		// UdpConfiguration.getReceiverThreads() for why these all share the one channel.
+		//
+		int threads = configuration.getReceiverThreads();
+		this.receivers = new Receiver[threads];
+		for( int i = 0; i < threads; i++ )
+		{
+			String name = threads == 1 ? "UDP Receiver (NIO)" : "UDP Receiver (NIO) "+i;
+			this.receivers[i] = new Receiver();
+			this.receivers[i].thread = new Thread( receivers[i], name );
+			this.receivers[i].thread.start();
+		}
+
+		logger.info( "UDP (NIO) Provider open and processing" );
+	}
+
+	@Override
+	public void close() throws DiscoException
+	{
+		if( this.recvChannel == null || this.recvChannel.isOpen() == false )
+			return;
+
+		// Close the channels. The blocked receive() will throw and the thread will drop out
+		try
+		{
+			this.sendChannel.close();
+			this.recvChannel.close();
+		}
+		catch( IOException ioex )
+		{
+			logger.debug( "Exception while closing channels: "+ioex.getMessage(), ioex );
+		}
+
+		// Print some metrics while we wait
+		logger.info( "=== PDU Summary ===" );
+		logger.info( "       Sent: %,d (%,d bytes)", metrics.getPdusSent(), metrics.getBytesSent() );
+		logger.info( "   Received: %,d (%,d bytes)", metrics.getPdusReceived(), metrics.getBytesReceived() );
+		logger.info( "    Buffers: %,d allocated", bufferPool.getAllocatedCount() );
+		if( receivers.length > 1 )
+		{
+			for( int i = 0; i < receivers.length; i++ )
+			{
+				logger.info( "  Thread %2d: %,d received, %,d discarded",
+				             i, receivers[i].received, receivers[i].discarded );
+			}
+		}
+		logger.info( "" );
+
+		// Wait for the receivers to close up shop
+		try
+		{
+			this.logger.debug( "Waiting for receiver threads to shut down" );
+			for( Receiver receiver : receivers )
+				receiver.thread.join();
+
+			this.logger.debug( "Receiver threads are down, UDP (NIO) provider successfully closed" );
+		}
+		catch( InterruptedException ie )
+		{}
+	}
+
+	@Override
+	public String getName()
+	{
+		return "network.udp-nio";
+	}
+
+	@Override
+	public Metrics getMetrics()
+	{
+		return this.metrics;
+	}
+
+	public BufferPool getBufferPool()
+	{
+		return this.bufferPool;
+	}
+
+	/**
+	 * @return The number of threads reading from the receive channel
+	 */
+	public int getReceiverThreadCount()
+	{
+		return receivers == null ? 0 : receivers.length;
+	}
+
+	/**
+	 * @return The number of packets the given receive thread has passed on to the PDU receiver
+	 */
+	public long getReceivedCount( int thread )
+	{
+		return receivers[thread].received;
+	}
+
+	/**
+	 * @return The number of packets the given receive thread has thrown away because they
+	 *         were for a different exercise
+	 */
+	public long getDiscardedCount( int thread )
+	{
+		return receivers[thread].discarded;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Sender Methods   ///////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public void send( byte[] payload ) throws DiscoException
+	{
+		try
+		{
+			sendChannel.send( ByteBuffer.wrap(payload), targetAddress );
+			metrics.pduSent( Metrics.typeOf(payload), payload.length );
+		}
+		catch( IOException ioex )
+		{
+			throw new DiscoException( ioex.getMessage(), ioex );
+		}
+	}
+
+	/**
+	 * Hand the buffer straight to the send channel. Direct buffers go out without being copied.
+	 */
+	@Override
+	public void send( ByteBuffer packet ) throws DiscoException
+	{
+		try
+		{
+			int type = Metrics.typeOf( packet );
+			int length = packet.remaining();
+			sendChannel.send( packet, targetAddress );
+			metrics.pduSent( type, length );
+		}
+		catch( IOException ioex )
+		{
+			throw new DiscoException( ioex.getMessage(), ioex );
+		}
+	}
+
+	/**
+	 * Serialize the PDU into this thread's direct send buffer and pass that to the channel.
+	 * Nothing is allocated or copied along the way.
+	 */
+	public void send( PDU pdu ) throws DiscoException
+	{
+		send( encoder.get().encode(pdu) );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Inner Class: Receiver   ////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private class Receiver implements Runnable
+	{
+		private Thread thread;
+
+		// only written by this receiver's thread
+		private volatile long received = 0;
+		private volatile long discarded = 0;
+
+		public void run()
+		{
+			logger.debug( "UDP (NIO) Provider receiver thread up and running" );
+
+			// cache this for efficient lookup below
+			final InetSocketAddress ourSendAddress;
+			try
+			{
+				ourSendAddress = (InetSocketAddress)sendChannel.getLocalAddress();
+			}
+			catch( IOException ioex )
+			{
+				logger.error( "Could not determine send channel address, receiver exiting", ioex );
+				return;
+			}
+
+			final int ourSendPort = ourSendAddress.getPort();
+			final InetAddress ourSendInetAddress = ourSendAddress.getAddress();
+			final PduReceiver pduReceiver = opscenter.getPduReceiver();
+
+			while( Thread.interrupted() == false )
+			{
+				ByteBuffer buffer = bufferPool.acquire();
+				boolean handedOff = false;
+				try
+				{
+					// 1. Receive the packet
+					InetSocketAddress source = (InetSocketAddress)recvChannel.receive( buffer );
+					buffer.flip();
+
+					// 2. Discard if loopback packet (only relevant to broadcast for us)
+					if( source.getPort() == ourSendPort &&
+						source.getAddress().equals(ourSendInetAddress) )
+					{
+						bufferPool.release( buffer );
+						continue;
+					}
+
+					// 3. Discard if outside our exercise (0=accept any exercise)
+					int length = buffer.remaining();
+					if( exerciseId == 0 || (length > 1 && (buffer.get(1) & 0xff) == exerciseId) )
+					{
+						// hand it off to the receiver
+						if( logger.isTraceEnabled() )
+							logger.trace( "(Packet) size="+length+", source="+source );
+
+						// buffer is theirs now - they'll return it to the pool
+						metrics.pduReceived( Metrics.typeOf(buffer), length );
+						++received;
+						handedOff = true;
+						pduReceiver.receive( buffer, bufferPool );
+					}
+					else
+					{
+						metrics.pduDiscarded( Metrics.typeOf(buffer) );
+						bufferPool.release( buffer );
+						++discarded;
+						continue;
+					}
+				}
+				catch( ClosedChannelException cce )
+				{
+					// channel was closed on it - that's our cue to leave!
+					if( handedOff == false )
+						bufferPool.release( buffer );
+
+					return;
+				}
+				catch( Exception e )
+				{
+					// once handed off the buffer is the receiver's to release, even if it failed
+					if( handedOff == false )
+						bufferPool.release( buffer );
+
+					logger.warn( "Error receiving packet, discarded: "+e.getMessage(), e );
+				}
+			}
+		}
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
@@ -34,6 +34,7 @@ import org.openlvc.disco.connection.rpr.types.array.RTIobjectId;
 import org.openlvc.disco.pdu.emissions.EmitterSystem.EmitterSystemId;
 import org.openlvc.disco.pdu.record.FullRadioId;
 import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.utils.ConcurrentLongMap;
 
 import hla.rti1516e.ObjectInstanceHandle;
 
@@ -52,10 +53,10 @@ public class ObjectStore
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
 	// DIS Object Storage
-	private Map<EntityId,ObjectInstance> disGeneral;
+	private ConcurrentLongMap<ObjectInstance> disGeneral;   // keyed on packed EntityId
 	private Map<FullRadioId,RadioTransmitter> disTransmitters;
 //	private Map<EntityId,RadioTransmitter> disTransmitters;
-	private Map<EntityId,PhysicalEntity> disEntities;
+	private ConcurrentLongMap<PhysicalEntity> disEntities;  // keyed on packed EntityId
 	private Map<EmitterSystemId,EmitterSystemRpr> disEmitters;
 	private Map<EmitterSystemId,Map<Short,EmitterBeamRpr>> disBeams; // Maps of maps *facepalm*
 
@@ -64,7 +65,7 @@ public class ObjectStore
 	private Map<RTIobjectId,ObjectInstance> rprObjects; // HLA Objects, but indexed by "RTI id"
 	
 	// Entity Identifier Maps -- Should only be for Physical Entities
-	private Map<EntityId,RTIobjectId> disIdToRprIdMap; 
+	private ConcurrentLongMap<RTIobjectId> disIdToRprIdMap; // keyed on packed EntityId
 	
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -72,9 +73,9 @@ public class ObjectStore
 	public ObjectStore()
 	{
 		// DIS Object Storage
-		this.disGeneral = new ConcurrentHashMap<>();
+		this.disGeneral = new ConcurrentLongMap<>();
 		this.disTransmitters = new ConcurrentHashMap<>();
-		this.disEntities = new ConcurrentHashMap<>();
+		this.disEntities = new ConcurrentLongMap<>();
 		this.disEmitters = new ConcurrentHashMap<>();
 		this.disBeams = new ConcurrentHashMap<>();
 		
@@ -83,7 +84,7 @@ public class ObjectStore
 		this.rprObjects = new ConcurrentHashMap<>();
 		
 		// Identifier Maps
-		this.disIdToRprIdMap = new ConcurrentHashMap<>();
+		this.disIdToRprIdMap = new ConcurrentLongMap<>();
 	}
 
 	//----------------------------------------------------------
@@ -103,14 +104,14 @@ public class ObjectStore
 	 */
 	public void addLocalObject( EntityId disId, ObjectInstance hlaObject )
 	{
-		this.disGeneral.put( disId, hlaObject );
+		this.disGeneral.put( disId.getPackedId(), hlaObject );
 		hlaObject.addToStore( this );
 	}
 	
 	@SuppressWarnings("unchecked")
 	public <T extends ObjectInstance> T getLocalObject( EntityId disId )
 	{
-		return (T)this.disGeneral.get( disId );
+		return (T)this.disGeneral.get( disId.getPackedId() );
 	}
 	
 	public void addLocalTransmitter( EntityId disId, int radioId, RadioTransmitter hlaObject )
@@ -152,15 +153,15 @@ public class ObjectStore
 	
 	public void addLocalEntity( EntityId disId, PhysicalEntity hlaObject )
 	{
-		this.disEntities.put( disId, hlaObject );
-		this.disIdToRprIdMap.put( disId, hlaObject.getRtiObjectId() );
+		this.disEntities.put( disId.getPackedId(), hlaObject );
+		this.disIdToRprIdMap.put( disId.getPackedId(), hlaObject.getRtiObjectId() );
 		this.rprObjects.put( hlaObject.getRtiObjectId(), hlaObject );
 		hlaObject.addToStore( this );
 	}
 
 	public PhysicalEntity getLocalEntity( EntityId disId )
 	{
-		return this.disEntities.get( disId );
+		return this.disEntities.get( disId.getPackedId() );
 	}
 
 	public void addLocalEmitter( EmitterSystemId disId, EmitterSystemRpr hlaObject )
@@ -256,7 +257,7 @@ public class ObjectStore
 
 		// if this is a physical entity (platform, lifeform) remove its id from the id lookup map
 		if( hlaObject instanceof PhysicalEntity )
-			this.disIdToRprIdMap.remove( ((PhysicalEntity)hlaObject).getDisId() );
+			this.disIdToRprIdMap.remove( ((PhysicalEntity)hlaObject).getDisId().getPackedId() );
 		
 		return hlaObject;
 	}
@@ -328,7 +329,7 @@ public class ObjectStore
 	////////////////////////////////////////////////////////////////////////////////////////////
 	public void updateRtiIdForDisId( EntityId disId, RTIobjectId rprId )
 	{
-		this.disIdToRprIdMap.put( disId, rprId );
+		this.disIdToRprIdMap.put( disId.getPackedId(), rprId );
 	}
 	
 	/**
@@ -346,7 +347,7 @@ public class ObjectStore
 		// due to the potential for overlap). Thus, it is _LIKELY_ that this map won't have any
 		// value for the DIS ID. In this case, rather than return null, we should return an empty
 		// object id to prevent any NPE issues further down the line
-		RTIobjectId id = this.disIdToRprIdMap.get( disId );
+		RTIobjectId id = this.disIdToRprIdMap.get( disId.getPackedId() );
 		return id != null ? id : new RTIobjectId("");
 	}
 
@@ -314,12 +314,12 @@ public class RprConnection implements IConnection
 		try
 		{
 			pduBus.publish( pdu );
-			metrics.pduSent( pdu.getPduLength() );
+			metrics.pduSent( pdu.getType().value(), pdu.getPduLength() );
 		}
 		catch( Exception e )
 		{
 			logger.warn( "(RprConnection) Exception sending DIS >> HLA: "+e.getMessage(), e );
-			metrics.pduDiscarded();
+			metrics.pduDiscarded( pdu.getType().value() );
 		}
 	}
 
@@ -549,6 +549,7 @@ public class RprConnection implements IConnection
 		
 		// Publish a reflection event to the bus
 		hlaObject.setLastUpdatedTimeToNow();
+		pduHeartbeater.objectUpdated( hlaObject );
 		hlaBus.publish( new HlaReflect(hlaObject,attributes) );
 
 		// Track metrics
@@ -562,6 +563,8 @@ public class RprConnection implements IConnection
 	protected void receiveHlaRemove( ObjectInstanceHandle objectHandle )
 	{
 		ObjectInstance hlaObject = objectStore.removeDiscoveredHlaObject( objectHandle );
+		if( hlaObject != null )
+			pduHeartbeater.objectRemoved( hlaObject );
 
 		if( logger.isDebugEnabled() )
 		{
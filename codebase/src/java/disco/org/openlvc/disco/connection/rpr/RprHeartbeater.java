@@ -17,21 +17,29 @@
  */
 package org.openlvc.disco.connection.rpr;
 
-import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.logging.log4j.Logger;
 import org.openlvc.disco.DiscoException;
 import org.openlvc.disco.connection.rpr.objects.ObjectInstance;
+import org.openlvc.disco.utils.TimerWheel;
 
 import hla.rti1516e.AttributeHandleValueMap;
+import hla.rti1516e.ObjectInstanceHandle;
 
 /**
  * This class generates artifical heartbeat PDUs for objects that have been discovered from
- * the HLA. It will loop over the object store and for appropriate types (PhysicalEntity for
- * example) it will generate a heartbeat PDU if there has not been one on a configurable period
- * of time.
+ * the HLA. For appropriate types (PhysicalEntity for example) it will generate a heartbeat PDU
+ * if there has not been one on a configurable period of time.
+ * <p/>
+ * Each object gets its own timer on a {@link TimerWheel}, created the first time it is reflected
+ * and dropped when it is removed. Updates don't touch the timer; when it fires, an object that
+ * has been updated since is simply pushed back to a period after that update. Only objects that
+ * really are due are looked at, instead of scanning the whole object store on a fixed period.
  */
-public class RprHeartbeater implements Runnable
+public class RprHeartbeater
 {
 	//----------------------------------------------------------
 	//                    STATIC VARIABLES
@@ -43,7 +51,10 @@ public class RprHeartbeater implements Runnable
 	private RprConnection connection;
 	private Logger logger;
 	private volatile long heartbeatPeriod;
-	private Thread thread;
+	private TimerWheel timerWheel;
+	private Map<ObjectInstanceHandle,ObjectTimer> timers;
+	private AttributeHandleValueMap empty;
+	private volatile boolean running;
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -51,9 +62,12 @@ public class RprHeartbeater implements Runnable
 	protected RprHeartbeater( RprConnection connection )
 	{
 		this.connection = connection;
-		this.logger = null; // set in run()
+		this.logger = null; // set in start()
 		this.heartbeatPeriod = 10000;
-		this.thread = null; // set in start()
+		this.timerWheel = new TimerWheel( "RprHeartbeater" );
+		this.timers = new ConcurrentHashMap<>();
+		this.empty = null; // set in start()
+		this.running = false;
 	}
 
 	//----------------------------------------------------------
@@ -61,26 +75,6 @@ public class RprHeartbeater implements Runnable
 	//----------------------------------------------------------
 
 	public void start()
-	{
-		this.thread = new Thread( this, "RprHeartbeater" );
-		this.thread.start();
-	}
-	
-	public void stop()
-	{
-		if( this.thread == null )
-			return;
-		
-		this.thread.interrupt();
-		try
-		{
-			this.thread.join( 1000 );
-		}
-		catch( InterruptedException ie )
-		{ /*no-op*/ }
-	}
-	
-	public void run()
 	{
 		this.logger = this.connection.getLogger();
 		if( this.heartbeatPeriod == 0 )
@@ -93,53 +87,82 @@ public class RprHeartbeater implements Runnable
 			logger.info( "Starting RPR Heartbeater: Max age %d millis", heartbeatPeriod );
 		}
 
-		while( Thread.interrupted() == false )
-		{
-			// Sleep for a while; typically a period 1/5th the delete timeout
-			try
-			{
-				long sleepTime = Math.max( 3000, heartbeatPeriod/5 ); // run at least every 3s
-				Thread.sleep( sleepTime );
-			}
-			catch( InterruptedException ie )
-			{
-				return;
-			}
-			
-			// Process all objects and announce
-			flush();
-		}
+		// Create an empty attribute value set we'll use in the synthesized reflection calls
+		this.empty = getEmptyAttributes();
+		this.running = true;
+		this.timerWheel.start();
+		
+		// Pick up anything that was reflected before we started
+		for( ObjectInstance hlaObject : connection.getObjectStore().getDiscoveredHlaObjectsMatching(oi -> true) )
+			objectUpdated( hlaObject );
+	}
+	
+	public void stop()
+	{
+		this.running = false;
+		this.timerWheel.stop();
+		this.timerWheel.clear();
+		this.timers.clear();
 	}
 
-	private void flush()
+	/**
+	 * Tell the heartbeater that an object has been updated. The first time an object is seen
+	 * its timer is created and scheduled. Later updates cost just the map lookup.
+	 */
+	protected void objectUpdated( ObjectInstance hlaObject )
 	{
-		long staleTime = System.currentTimeMillis()-heartbeatPeriod;
-		logger.trace( "hla >> dis (Heartbeat) Check for objects to heartbeat (not updated since %1$tY-%1$tm-%1$td %1$tH:%1$tM:%1$tS)",
-		              staleTime );
-		
-		// Get discovered objects not updated since the timeout time
-		Collection<ObjectInstance> oldies =
-			connection.getObjectStore().getDiscoveredHlaObjectsMatching( oi -> oi.getLastUpdatedTime() < staleTime );
-		
-		// If there is nothing to do, do nothing
-		if( oldies.isEmpty() )
+		if( running == false )
 			return;
 
-		// Create an empty attribute value set we'll use in the synthesized reflection calls
-		AttributeHandleValueMap empty = getEmptyAttributes();
-		
-		int updateCount = 0;
-		for( ObjectInstance hlaObject : oldies )
+		timers.computeIfAbsent( hlaObject.getObjectHandle(), handle -> {
+			// spread the first check out across the period so objects discovered together
+			// don't all come due together
+			ObjectTimer timer = new ObjectTimer( handle );
+			long jitter = ThreadLocalRandom.current().nextLong( heartbeatPeriod );
+			timerWheel.schedule( timer, hlaObject.getLastUpdatedTime()+heartbeatPeriod+jitter );
+			return timer;
+		});
+	}
+
+	/**
+	 * Tell the heartbeater an object has gone, so it can drop the object's timer.
+	 */
+	protected void objectRemoved( ObjectInstance hlaObject )
+	{
+		ObjectTimer timer = timers.remove( hlaObject.getObjectHandle() );
+		if( timer != null )
+			timerWheel.cancel( timer );
+	}
+
+	private void heartbeat( ObjectTimer timer, long now )
+	{
+		ObjectInstance hlaObject = connection.getObjectStore().getDiscoveredHlaObject( timer.handle );
+		if( hlaObject == null || running == false )
+		{
+			timers.remove( timer.handle, timer );
+			return;
+		}
+
+		// updated since we were scheduled, come back a period after that
+		long due = hlaObject.getLastUpdatedTime() + heartbeatPeriod;
+		if( due > now )
+		{
+			timerWheel.schedule( timer, due );
+			return;
+		}
+
+		if( hlaObject.isReady() )
 		{
-			if( hlaObject.isReady() == false )
-				continue;
-			
 			// Generate a fake reflection event so that we can stimulate a PDU
-			connection.receiveHlaReflection( hlaObject.getObjectHandle(), empty );
-			++updateCount;
+			logger.trace( "hla >> dis (Heartbeat) Generating heartbeat for %s", timer.handle );
+			connection.receiveHlaReflection( timer.handle, empty );
 		}
-		
-		logger.trace( "hla >> dis (Heartbeat) Generated %d heartbeat events", updateCount );
+
+		timerWheel.schedule( timer, now+heartbeatPeriod );
+
+		// lost a race with objectRemoved(); make sure we don't keep going
+		if( timers.get(timer.handle) != timer )
+			timerWheel.cancel( timer );
 	}
 
 	private AttributeHandleValueMap getEmptyAttributes() throws DiscoException
@@ -163,4 +186,23 @@ public class RprHeartbeater implements Runnable
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: ObjectTimer   ///////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private class ObjectTimer extends TimerWheel.Timer
+	{
+		private final ObjectInstanceHandle handle;
+
+		private ObjectTimer( ObjectInstanceHandle handle )
+		{
+			this.handle = handle;
+		}
+
+		@Override
+		protected void expired( long now )
+		{
+			heartbeat( this, now );
+		}
+	}
 }
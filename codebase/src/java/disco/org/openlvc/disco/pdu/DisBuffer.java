@@ -0,0 +1,531 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.pdu;
+
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffer-oriented reader/writer for DIS data. This is the {@link ByteBuffer} based counterpart
+ * to {@link DisInputStream} and {@link DisOutputStream}. It offers the same set of relative
+ * read/write methods (with the same names, so component code reads the same either way), plus
+ * absolute <code>get</code>/<code>put</code> methods that work at a fixed offset without moving
+ * the position.
+ * <p/>
+ * All values are big-endian (network order) as required by DIS. Reads past the limit throw a
+ * {@link BufferUnderflowException} and writes past the limit throw a
+ * {@link java.nio.BufferOverflowException}, both of which are unchecked. The
+ * {@link org.openlvc.disco.PduFactory} converts underflows into an <code>EOFException</code>
+ * so its contract is unchanged.
+ * <p/>
+ * A <code>DisBuffer</code> is just a thin view over the {@link ByteBuffer}. Reads and writes
+ * move the position of the underlying buffer. Instances can be reused by pointing them at a
+ * different buffer with {@link #wrap(ByteBuffer)}. They are not thread safe.
+ */
+public class DisBuffer
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private ByteBuffer buffer;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	/**
+	 * Wrap the given buffer. Reading/writing starts at its current position. The byte order of
+	 * the buffer will be set to big-endian.
+	 */
+	public DisBuffer( ByteBuffer buffer )
+	{
+		wrap( buffer );
+	}
+
+	/**
+	 * Wrap the given array in its entirety.
+	 */
+	public DisBuffer( byte[] array )
+	{
+		this( ByteBuffer.wrap(array) );
+	}
+
+	/**
+	 * Wrap the given array, starting at <code>offset</code> and spanning <code>length</code>
+	 * bytes. The position of the buffer will be <code>offset</code>.
+	 */
+	public DisBuffer( byte[] array, int offset, int length )
+	{
+		this( ByteBuffer.wrap(array,offset,length) );
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	/**
+	 * Point this instance at a different buffer so that it can be reused. The byte order of the
+	 * buffer will be set to big-endian.
+	 *
+	 * @param buffer The buffer to read from/write to
+	 * @return This object so calls can be chained
+	 */
+	public final DisBuffer wrap( ByteBuffer buffer )
+	{
+		this.buffer = buffer.order( ByteOrder.BIG_ENDIAN );
+		return this;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Position Methods   /////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public ByteBuffer getByteBuffer()
+	{
+		return this.buffer;
+	}
+
+	public int position()
+	{
+		return buffer.position();
+	}
+
+	public DisBuffer position( int position )
+	{
+		buffer.position( position );
+		return this;
+	}
+
+	public int limit()
+	{
+		return buffer.limit();
+	}
+
+	public int remaining()
+	{
+		return buffer.remaining();
+	}
+
+	public boolean hasRemaining()
+	{
+		return buffer.hasRemaining();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Relative Read Methods   ////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public byte readByte()
+	{
+		return buffer.get();
+	}
+
+	public short readShort()
+	{
+		return buffer.getShort();
+	}
+
+	public int readInt()
+	{
+		return buffer.getInt();
+	}
+
+	public long readLong()
+	{
+		return buffer.getLong();
+	}
+
+	public float readFloat()
+	{
+		return buffer.getFloat();
+	}
+
+	public double readDouble()
+	{
+		return buffer.getDouble();
+	}
+
+	/**
+	 * Reads the next byte as an 8-bit Unsigned Integer and returns the value as a short.
+	 */
+	public short readUI8()
+	{
+		return (short)(buffer.get() & 0xff);
+	}
+
+	/**
+	 * Reads the next two bytes as a 16-bit Unsigned Integer and returns the value as an int.
+	 */
+	public int readUI16()
+	{
+		return buffer.getShort() & 0xffff;
+	}
+
+	/**
+	 * Reads the next four bytes as a 32-bit Unsigned Integer and returns the value as a long.
+	 */
+	public long readUI32()
+	{
+		return buffer.getInt() & 0xffffffffL;
+	}
+
+	/**
+	 * Reads the next eight bytes as a 64-bit Unsigned Integer and returns it as a
+	 * {@link BigInteger}. Matches {@link DisInputStream#readUI64()}.
+	 */
+	public BigInteger readUI64()
+	{
+		byte[] bytes = new byte[DisSizes.UI64_SIZE];
+		buffer.get( bytes );
+		return new BigInteger( bytes );
+	}
+
+	/**
+	 * Fill the given array from the buffer.
+	 */
+	public void readFully( byte[] bytes )
+	{
+		buffer.get( bytes );
+	}
+
+	public void readFully( byte[] bytes, int offset, int length )
+	{
+		buffer.get( bytes, offset, length );
+	}
+
+	/**
+	 * Reads a fixed length string that is preceded by a single character set byte (which is
+	 * ignored). Matches {@link DisInputStream#readFixedString(int)}.
+	 *
+	 * @param length The number of characters in the string (excluding the character set byte)
+	 */
+	public String readFixedString( int length )
+	{
+		// read in the character set -- ignore for now
+		buffer.get();
+		return readString( length );
+	}
+
+	/**
+	 * Reads a string whose length is given by a leading unsigned byte.
+	 * Matches {@link DisInputStream#readVariableString256()}.
+	 */
+	public String readVariableString256()
+	{
+		return readAsciiString( readUI8() );
+	}
+
+	/**
+	 * Reads a string whose length is given by a leading unsigned short.
+	 * Matches {@link DisInputStream#readVariableString65K()}.
+	 */
+	public String readVariableString65K()
+	{
+		return readAsciiString( readUI16() );
+	}
+
+	/** Read <code>length</code> bytes as a string in the platform charset, as the stream does */
+	private String readString( int length )
+	{
+		if( buffer.hasArray() )
+		{
+			// no need to copy if we can see the backing array
+			int start = buffer.arrayOffset() + buffer.position();
+			if( length > buffer.remaining() )
+				throw new BufferUnderflowException();
+
+			buffer.position( buffer.position()+length );
+			return new String( buffer.array(), start, length );
+		}
+		else
+		{
+			byte[] bytes = new byte[length];
+			buffer.get( bytes );
+			return new String( bytes );
+		}
+	}
+
+	/** Read <code>length</code> bytes as a US-ASCII string */
+	private String readAsciiString( int length )
+	{
+		if( buffer.hasArray() )
+		{
+			int start = buffer.arrayOffset() + buffer.position();
+			if( length > buffer.remaining() )
+				throw new BufferUnderflowException();
+
+			buffer.position( buffer.position()+length );
+			return new String( buffer.array(), start, length, StandardCharsets.US_ASCII );
+		}
+		else
+		{
+			byte[] bytes = new byte[length];
+			buffer.get( bytes );
+			return new String( bytes, StandardCharsets.US_ASCII );
+		}
+	}
+
+	/**
+	 * Skip over the given number of bytes.
+	 *
+	 * @throws BufferUnderflowException If there aren't that many bytes remaining
+	 */
+	public void skip( int bytes )
+	{
+		if( bytes > buffer.remaining() )
+			throw new BufferUnderflowException();
+
+		buffer.position( buffer.position()+bytes );
+	}
+
+	public void skip8()  { skip( 1 ); }
+	public void skip16() { skip( 2 ); }
+	public void skip24() { skip( 3 ); }
+	public void skip32() { skip( 4 ); }
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Absolute Read Methods   ////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	// These read at an index relative to the start of the underlying buffer and do not move
+	// the position. Handy for peeking at fixed offsets (such as header fields).
+	public byte getByte( int index )     { return buffer.get( index ); }
+	public short getUI8( int index )     { return (short)(buffer.get(index) & 0xff); }
+	public int getUI16( int index )      { return buffer.getShort(index) & 0xffff; }
+	public long getUI32( int index )     { return buffer.getInt(index) & 0xffffffffL; }
+	public int getInt( int index )       { return buffer.getInt( index ); }
+	public long getLong( int index )     { return buffer.getLong( index ); }
+	public float getFloat( int index )   { return buffer.getFloat( index ); }
+	public double getDouble( int index ) { return buffer.getDouble( index ); }
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Relative Write Methods   ///////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public void writeByte( int value )
+	{
+		buffer.put( (byte)value );
+	}
+
+	public void writeShort( int value )
+	{
+		buffer.putShort( (short)value );
+	}
+
+	public void writeInt( int value )
+	{
+		buffer.putInt( value );
+	}
+
+	public void writeLong( long value )
+	{
+		buffer.putLong( value );
+	}
+
+	public void writeFloat( float value )
+	{
+		buffer.putFloat( value );
+	}
+
+	public void writeDouble( double value )
+	{
+		buffer.putDouble( value );
+	}
+
+	public void write( byte[] bytes )
+	{
+		buffer.put( bytes );
+	}
+
+	public void write( byte[] bytes, int offset, int length )
+	{
+		buffer.put( bytes, offset, length );
+	}
+
+	/**
+	 * Writes the given 8-bit unsigned value.
+	 *
+	 * @throws IllegalArgumentException If the value is outside the range 0-255
+	 */
+	public void writeUI8( short value )
+	{
+		if( value < 0 || value > DisSizes.UI8_MAX_VALUE )
+		{
+			String message = "Out of range ("+value+"): Expecting number between 0 and "+DisSizes.UI8_MAX_VALUE;
+			throw new IllegalArgumentException( message );
+		}
+
+		buffer.put( (byte)value );
+	}
+
+	/**
+	 * Writes the given 16-bit unsigned value.
+	 *
+	 * @throws IllegalArgumentException If the value is outside the range 0-65,535
+	 */
+	public void writeUI16( int value )
+	{
+		if( value < 0 || value > DisSizes.UI16_MAX_VALUE )
+		{
+			String message = "Out of range ("+value+"): Expecting number between 0 and "+DisSizes.UI16_MAX_VALUE;
+			throw new IllegalArgumentException( message );
+		}
+
+		buffer.putShort( (short)value );
+	}
+
+	/**
+	 * Writes the given 32-bit unsigned value.
+	 *
+	 * @throws IllegalArgumentException If the value is outside the range 0-4,294,967,295
+	 */
+	public void writeUI32( long value )
+	{
+		if( value < 0 || value > DisSizes.UI32_MAX_VALUE )
+		{
+			String msg = "Out of range ("+value+"): Expecting number between 0 and "+DisSizes.UI32_MAX_VALUE;
+			throw new IllegalArgumentException( msg );
+		}
+
+		buffer.putInt( (int)value );
+	}
+
+	/**
+	 * Writes the given 64-bit unsigned value. Matches {@link DisOutputStream#writeUI64(BigInteger)}.
+	 */
+	public void writeUI64( BigInteger value )
+	{
+		if( value.compareTo( BigInteger.ZERO ) < 0 ||
+			value.compareTo( DisSizes.UI64_MAX_VALUE ) > 0 )
+		{
+			String msg = "Out of range ("+value.toString()+"): Expecting number between 0 and "+DisSizes.UI64_MAX_VALUE.toString();
+			throw new IllegalArgumentException( msg );
+		}
+
+		writeBits64( value );
+	}
+
+	/**
+	 * Writes 64-bits of the given value without a range check.
+	 * Matches {@link DisOutputStream#writeBits64(BigInteger)}.
+	 */
+	public void writeBits64( BigInteger value )
+	{
+		byte[] valueAsBytes = value.toByteArray();
+		int paddingRequired = Math.max( 0, (8-valueAsBytes.length) );
+		writePadding( paddingRequired );
+		buffer.put( valueAsBytes );
+	}
+
+	/**
+	 * Writes <code>count</code> zero bytes.
+	 */
+	public void writePadding( int count )
+	{
+		for( int i = 0; i < count; i++ )
+			buffer.put( (byte)0 );
+	}
+
+	public void writePadding16() { buffer.putShort( (short)0 ); }
+	public void writePadding24() { writePadding( 3 ); }
+	public void writePadding32() { buffer.putInt( 0 ); }
+
+	/**
+	 * Writes a fixed length string preceded by a character set byte (ASCII). Shorter strings are
+	 * padded with zeros and longer ones are trimmed. Matches
+	 * {@link DisOutputStream#writeFixedString(String, int)}.
+	 */
+	public void writeFixedString( String string, int size )
+	{
+		buffer.put( (byte)1 ); // DIS Indicator of character set. Just defaulting to ASCII
+
+		int max = Math.min( string.length(), size );
+		for( int i = 0; i < max; i++ )
+		{
+			char c = string.charAt( i );
+			buffer.put( c < 128 ? (byte)c : (byte)'?' );
+		}
+
+		writePadding( size-max );
+	}
+
+	/**
+	 * Writes a string of up to <code>max</code> (no more than 255) characters preceded by a
+	 * length byte. Matches {@link DisOutputStream#writeVariableString(String, int)}.
+	 *
+	 * @throws IllegalArgumentException If <code>max</code> is larger than 255
+	 */
+	public void writeVariableString( String string, int max )
+	{
+		if( max > 255 )
+			throw new IllegalArgumentException( "Max length can not be longer than 255. Found "+max );
+
+		int cap = Math.min( string.length(), max );
+		buffer.put( (byte)cap );
+		writeAscii( string, cap );
+	}
+
+	/**
+	 * Non-standard string encoding, see {@link DisOutputStream#writeVariableStringMax256(String)}.
+	 */
+	public void writeVariableStringMax256( String string )
+	{
+		int cap = Math.min( 255, string.length() );
+		buffer.put( (byte)cap );
+		writeAscii( string, cap );
+	}
+
+	/**
+	 * Non-standard string encoding, see {@link DisOutputStream#writeVariableStringMax65K(String)}.
+	 */
+	public void writeVariableStringMax65K( String string )
+	{
+		int cap = Math.min( 65533, string.length() );
+		buffer.putShort( (short)cap );
+		writeAscii( string, cap );
+	}
+
+	private void writeAscii( String string, int count )
+	{
+		for( int i = 0; i < count; i++ )
+		{
+			char c = string.charAt( i );
+			buffer.put( c < 128 ? (byte)c : (byte)'?' );
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Absolute Write Methods   ///////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	// These write at an index relative to the start of the underlying buffer and do not move
+	// the position. Useful for patching fields (such as the header length) after the fact.
+	public void putByte( int index, int value )       { buffer.put( index, (byte)value ); }
+	public void putUI8( int index, short value )      { buffer.put( index, (byte)value ); }
+	public void putUI16( int index, int value )       { buffer.putShort( index, (short)value ); }
+	public void putUI32( int index, long value )      { buffer.putInt( index, (int)value ); }
+	public void putInt( int index, int value )        { buffer.putInt( index, value ); }
+	public void putLong( int index, long value )      { buffer.putLong( index, value ); }
+	public void putFloat( int index, float value )    { buffer.putFloat( index, value ); }
+	public void putDouble( int index, double value )  { buffer.putDouble( index, value ); }
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
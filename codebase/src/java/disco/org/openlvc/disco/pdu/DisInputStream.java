@@ -21,7 +21,9 @@ import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -62,6 +64,18 @@ public class DisInputStream extends DataInputStream
 	{
 		super( new ByteArrayInputStream(buffer,offset,length) );
 	}
+
+	/**
+	 * Construct a new DisInputStream that reads the remaining contents of the given buffer
+	 * (from its position up to its limit). The buffer can be direct or heap backed. Reads will
+	 * advance the position of the buffer.
+	 * 
+	 * @param buffer The buffer to read from
+	 */
+	public DisInputStream( ByteBuffer buffer )
+	{
+		super( new ByteBufferInputStream(buffer) );
+	}
 	
 	//----------------------------------------------------------
 	//                    INSTANCE METHODS
@@ -255,4 +269,50 @@ public class DisInputStream extends DataInputStream
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Inner Class: ByteBufferInputStream   ///////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Minimal {@link InputStream} that reads directly from a {@link ByteBuffer} so that we
+	 * don't have to copy the contents of direct buffers into a <code>byte[]</code> first.
+	 */
+	private static class ByteBufferInputStream extends InputStream
+	{
+		private ByteBuffer buffer;
+		public ByteBufferInputStream( ByteBuffer buffer ) { this.buffer = buffer; }
+
+		@Override
+		public int read()
+		{
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read( byte[] bytes, int offset, int length )
+		{
+			if( length == 0 )
+				return 0;
+			if( buffer.hasRemaining() == false )
+				return -1;
+
+			int count = Math.min( length, buffer.remaining() );
+			buffer.get( bytes, offset, count );
+			return count;
+		}
+
+		@Override
+		public long skip( long count )
+		{
+			int skipped = (int)Math.min( Math.max(count,0), buffer.remaining() );
+			buffer.position( buffer.position()+skipped );
+			return skipped;
+		}
+
+		@Override
+		public int available()
+		{
+			return buffer.remaining();
+		}
+	}
 }
@@ -21,6 +21,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -44,6 +45,18 @@ public class DisOutputStream extends DataOutputStream
 	{
 		super( ostream );
 	}
+
+	/**
+	 * Construct a new DisOutputStream that writes into the given buffer, starting at its current
+	 * position. Writes will advance the position of the buffer. If the buffer fills, a
+	 * {@link java.nio.BufferOverflowException} will be thrown.
+	 * 
+	 * @param buffer The buffer to write to
+	 */
+	public DisOutputStream( ByteBuffer buffer )
+	{
+		super( new ByteBufferOutputStream(buffer) );
+	}
 	
 	//----------------------------------------------------------
 	//                    INSTANCE METHODS
@@ -297,4 +310,28 @@ public class DisOutputStream extends DataOutputStream
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Inner Class: ByteBufferOutputStream   //////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Minimal {@link OutputStream} that writes directly into a {@link ByteBuffer}.
+	 */
+	private static class ByteBufferOutputStream extends OutputStream
+	{
+		private ByteBuffer buffer;
+		public ByteBufferOutputStream( ByteBuffer buffer ) { this.buffer = buffer; }
+
+		@Override
+		public void write( int value )
+		{
+			buffer.put( (byte)value );
+		}
+
+		@Override
+		public void write( byte[] bytes, int offset, int length )
+		{
+			buffer.put( bytes, offset, length );
+		}
+	}
 }
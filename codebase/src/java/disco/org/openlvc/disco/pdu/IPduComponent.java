@@ -55,6 +55,36 @@ public interface IPduComponent
 	 * @throws IOException Thrown if there was an error writing to the provided DISOutputStream
 	 */
 	public abstract void to( DisOutputStream dos ) throws IOException;
+
+	/**
+	 * Reads new field values for the PDU Component from the provided {@link DisBuffer}, starting
+	 * at its current position and advancing it past the component.
+	 * <p/>
+	 * The default implementation reads through a {@link DisInputStream} wrapped around the
+	 * buffer. Components on the hot path override this to read from the buffer directly.
+	 * 
+	 * @param buffer The buffer to read the new field values from
+	 * @throws IOException Thrown if there was an error reading from the buffer
+	 */
+	public default void from( DisBuffer buffer ) throws IOException
+	{
+		from( new DisInputStream(buffer.getByteBuffer()) );
+	}
+
+	/**
+	 * Writes the PDU Component's current field values into the provided {@link DisBuffer},
+	 * starting at its current position and advancing it past the component.
+	 * <p/>
+	 * The default implementation writes through a {@link DisOutputStream} wrapped around the
+	 * buffer. Components on the hot path override this to write to the buffer directly.
+	 * 
+	 * @param buffer The buffer to write field values to
+	 * @throws IOException Thrown if there was an error writing to the buffer
+	 */
+	public default void to( DisBuffer buffer ) throws IOException
+	{
+		to( new DisOutputStream(buffer.getByteBuffer()) );
+	}
 	
 	/**
 	 * Returns the length of this IPDUComponent in bytes
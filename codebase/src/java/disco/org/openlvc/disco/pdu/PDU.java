@@ -19,6 +19,9 @@ package org.openlvc.disco.pdu;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.openlvc.disco.DiscoException;
 import org.openlvc.disco.pdu.field.PduType;
@@ -41,11 +44,27 @@ public abstract class PDU
 	/** Max size of a single PDU as defined by IEEE 1278.2 */
 	public static final int MAX_SIZE = 8912;
 
+	/** Returned by {@link #getConflationKey()} for PDUs that must never be conflated */
+	public static final long NO_CONFLATION_KEY = -1;
+
+	/** Per-thread scratch space that {@link #toByteArray()} serializes into before copying out */
+	private static final ThreadLocal<ByteBuffer> SCRATCH =
+		ThreadLocal.withInitial( () -> ByteBuffer.allocate(MAX_SIZE) );
+
+	// Header fields written fresh around the cached bytes, see setCacheEnabled()
+	private static final int OFFSET_EXERCISE_ID = 1;
+	private static final int OFFSET_TIMESTAMP   = 4;
+
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
 	protected PduHeader header;
 	protected long localTimestamp; // NOT the DIS timestamp, just a regular millis since epoch thang
+	private boolean retained;      // true if someone is holding on to us - don't recycle
+
+	// Serialized form cache, see setCacheEnabled()
+	private boolean cacheEnabled;
+	private volatile byte[] cachedBytes;
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -102,6 +121,38 @@ public abstract class PDU
 	 */
 	public abstract void to( DisOutputStream dos ) throws IOException;
 
+	/**
+	 * Reads new field values for the PDU body from the provided {@link DisBuffer}, starting at
+	 * its current position. This is the buffer based counterpart to {@link #from(DisInputStream)}.
+	 * <p/>
+	 * The default implementation wraps the buffer in a {@link DisInputStream} and calls
+	 * {@link #from(DisInputStream)}. Commonly used PDUs override this to read from the buffer
+	 * directly, which avoids creating any stream objects.
+	 * 
+	 * @param buffer The buffer to read the new field values from
+	 * @throws IOException Thrown if there was an error reading from the buffer
+	 */
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		from( new DisInputStream(buffer.getByteBuffer()) );
+	}
+
+	/**
+	 * Writes the PDU body into the provided {@link DisBuffer}, starting at its current position.
+	 * This is the buffer based counterpart to {@link #to(DisOutputStream)}.
+	 * <p/>
+	 * The default implementation wraps the buffer in a {@link DisOutputStream} and calls
+	 * {@link #to(DisOutputStream)}. Commonly used PDUs override this to write to the buffer
+	 * directly.
+	 * 
+	 * @param buffer The buffer to write field values to
+	 * @throws IOException Thrown if there was an error writing to the buffer
+	 */
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		to( new DisOutputStream(buffer.getByteBuffer()) );
+	}
+
 	/**
 	 * Returns the length of this PDU's content section in bytes
 	 * 
@@ -140,6 +191,40 @@ public abstract class PDU
 	 *         PDU type.
 	 */
 	public abstract int getAppId();
+
+	/**
+	 * Return a key identifying the thing this PDU reports the full state of, so that when a
+	 * queue of PDUs backs up, a newer PDU with the same key can replace an older one that is
+	 * still waiting (see {@link org.openlvc.disco.utils.ConflatingQueue}). Only PDUs that carry
+	 * the complete state of something, so that dropping the older one loses nothing, should
+	 * return a key. Keys from different PDU types must not collide.
+	 * <p/>
+	 * Where the identity of the thing doesn't fit in a key, two things of the same type may
+	 * share a key. Types like that must override {@link #conflatesWith(PDU)} to tell them apart.
+	 * <p/>
+	 * By default PDUs are events that must all be delivered, and this returns
+	 * {@link #NO_CONFLATION_KEY}.
+	 * 
+	 * @return The conflation key for this PDU, or {@link #NO_CONFLATION_KEY}
+	 */
+	public long getConflationKey()
+	{
+		return NO_CONFLATION_KEY;
+	}
+
+	/**
+	 * Confirm that this PDU can replace an older one that has the same conflation key, because
+	 * they really do report the state of the same thing. Conflating queues check this before
+	 * replacing anything. The default trusts the keys, which is right for any type whose key
+	 * holds its full identity.
+	 * 
+	 * @param older A waiting PDU with the same {@link #getConflationKey()} as this one
+	 * @return True if this PDU supersedes the older one
+	 */
+	public boolean conflatesWith( PDU older )
+	{
+		return getConflationKey() == older.getConflationKey();
+	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
@@ -172,6 +257,7 @@ public abstract class PDU
 	public PDU setHeader( PduHeader header )
 	{
 		this.header = header;
+		this.markDirty();
 		return this;
 	}
 	
@@ -196,9 +282,44 @@ public abstract class PDU
 		this.localTimestamp = received;
 		return this;
 	}
+
+	/**
+	 * Mark this PDU as being kept by the caller. If PDU recycling is enabled, received PDUs are
+	 * handed back to the {@link org.openlvc.disco.PduFactory} for reuse as soon as the listener
+	 * returns. Any listener that holds on to a PDU (or to any of its records) past that point
+	 * must call this first, or the contents will be overwritten by a later PDU.
+	 * 
+	 * @return This PDU, for chaining
+	 * @see org.openlvc.disco.PduFactory#recycle(PDU)
+	 */
+	public PDU retain()
+	{
+		this.retained = true;
+		return this;
+	}
+
+	/**
+	 * @return True if {@link #retain()} has been called on this PDU
+	 */
+	public boolean isRetained()
+	{
+		return this.retained;
+	}
 	
 	public final void writePdu( DisOutputStream dos ) throws IOException
 	{
+		if( cacheEnabled )
+		{
+			// copy around the header fields that change from send to send, see setCacheEnabled()
+			byte[] bytes = getCachedBytes();
+			dos.write( bytes, 0, OFFSET_EXERCISE_ID );
+			dos.writeByte( header.getExerciseId() );
+			dos.write( bytes, OFFSET_EXERCISE_ID+1, OFFSET_TIMESTAMP-OFFSET_EXERCISE_ID-1 );
+			dos.writeInt( (int)header.getTimestamp() );
+			dos.write( bytes, OFFSET_TIMESTAMP+4, bytes.length-OFFSET_TIMESTAMP-4 );
+			return;
+		}
+
 		writeHeader( dos );
 		to( dos );
 	}
@@ -208,6 +329,161 @@ public abstract class PDU
 		this.header.to( dos, getContentLength() );
 		return this;
 	}
+
+	/**
+	 * Write the full PDU (header and body) into the given buffer, starting at its current position.
+	 */
+	public final void writePdu( DisBuffer buffer ) throws IOException
+	{
+		if( cacheEnabled )
+		{
+			// copy around the header fields that change from send to send, see setCacheEnabled()
+			byte[] bytes = getCachedBytes();
+			buffer.write( bytes, 0, OFFSET_EXERCISE_ID );
+			buffer.writeByte( header.getExerciseId() );
+			buffer.write( bytes, OFFSET_EXERCISE_ID+1, OFFSET_TIMESTAMP-OFFSET_EXERCISE_ID-1 );
+			buffer.writeInt( (int)header.getTimestamp() );
+			buffer.write( bytes, OFFSET_TIMESTAMP+4, bytes.length-OFFSET_TIMESTAMP-4 );
+			return;
+		}
+
+		writeHeader( buffer );
+		to( buffer );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Serialization Cache Methods   //////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Turn the serialized form cache on or off for this PDU. It is off by default, and only
+	 * PDU types whose setters all call {@link #markDirty()} support it (see
+	 * {@link #isCacheable()}). For any other type this call does nothing.
+	 * <p/>
+	 * With the cache on, the first time the PDU is written out its bytes are kept. Every write
+	 * after that copies those bytes rather than serializing the PDU again, with the two header
+	 * fields that the {@link org.openlvc.disco.OpsCenter} changes on every send (exercise id
+	 * and timestamp) written fresh from the current header. This makes resending a PDU that
+	 * hasn't changed, such as a heartbeat for a static entity or one PDU reflected out to
+	 * several links, little more than an array copy. The cached bytes themselves are never
+	 * changed once built, so several threads can write the PDU at once.
+	 * <p/>
+	 * The cache is thrown away by {@link #markDirty()}. {@link #setHeader(PduHeader)} and the
+	 * setters call this for you, but nothing can see changes made to a record from one of the
+	 * getters (for example <code>getLocation().setX(...)</code>). Code that changes a cached
+	 * PDU that way <b>must</b> call {@link #markDirty()} afterwards, or the old bytes will
+	 * keep being sent.
+	 * 
+	 * @param enabled True to cache the serialized form, false to serialize on every write
+	 * @return This PDU, for chaining
+	 */
+	public PDU setCacheEnabled( boolean enabled )
+	{
+		this.cacheEnabled = enabled && isCacheable();
+		this.cachedBytes = null;
+		return this;
+	}
+
+	/**
+	 * Fill the serialized form cache now, if it is enabled and empty, rather than on the next
+	 * write. When one PDU is about to be written by several threads, call this first so that
+	 * it is serialized once, and the writers only ever read the cached bytes.
+	 * 
+	 * @return This PDU, for chaining
+	 */
+	public PDU prepareCache()
+	{
+		if( cacheEnabled )
+		{
+			try
+			{
+				getCachedBytes();
+			}
+			catch( IOException ioex )
+			{
+				throw new DiscoException( ioex.getMessage(), ioex );
+			}
+		}
+
+		return this;
+	}
+
+	/**
+	 * Only PDU types that call {@link #markDirty()} from every setter can safely have their
+	 * serialized form cached. Those types override this to return true.
+	 * 
+	 * @return True if {@link #setCacheEnabled(boolean)} is supported for this PDU type
+	 */
+	protected boolean isCacheable()
+	{
+		return false;
+	}
+
+	public boolean isCacheEnabled()
+	{
+		return this.cacheEnabled;
+	}
+
+	/**
+	 * Let the PDU know that its contents have changed, so that any cached serialized form is
+	 * rebuilt the next time it is written. Cheap enough to call after every change, and a no-op
+	 * if the cache isn't enabled.
+	 * 
+	 * @return This PDU, for chaining
+	 */
+	public PDU markDirty()
+	{
+		this.cachedBytes = null;
+		return this;
+	}
+
+	/**
+	 * @return True if the serialized form cache is enabled and currently holds bytes that will
+	 *         be used for the next write
+	 */
+	public boolean isCached()
+	{
+		return cacheEnabled && cachedBytes != null;
+	}
+
+	/**
+	 * Get the cached bytes, serializing the PDU to fill the cache if it is empty. The bytes
+	 * must not be modified, they may be being written by other threads. Their exercise id and
+	 * timestamp are whatever they were when the cache was filled, so writers must take those
+	 * from the header instead.
+	 */
+	private byte[] getCachedBytes() throws IOException
+	{
+		byte[] bytes = this.cachedBytes;
+		if( bytes == null )
+		{
+			// Can't use the scratch buffer, we might be writing into it already from toByteArray()
+			bytes = new byte[getPduLength()];
+			try
+			{
+				DisBuffer buffer = new DisBuffer( bytes );
+				writeHeader( buffer );
+				to( buffer );
+				if( buffer.position() != bytes.length )
+					bytes = Arrays.copyOf( bytes, buffer.position() );
+			}
+			catch( BufferOverflowException boe )
+			{
+				// wrote more than getPduLength() said it would
+				bytes = toByteArrayFromStream();
+			}
+
+			// two threads filling at once each build their own identical copy, so no lock needed
+			this.cachedBytes = bytes;
+		}
+
+		return bytes;
+	}
+
+	public final PDU writeHeader( DisBuffer buffer ) throws IOException
+	{
+		this.header.to( buffer, getContentLength() );
+		return this;
+	}
 	
 	/**
 	 * Gets the full PDU length. Header + Content.
@@ -221,6 +497,28 @@ public abstract class PDU
 	 * Convert the given PDU into a `byte[]`.
 	 */
 	public byte[] toByteArray()
+	{
+		// Serialize into our thread's scratch buffer and copy out only what we wrote. We don't
+		// trust getPduLength() enough to size the array up front for every PDU type.
+		ByteBuffer scratch = SCRATCH.get();
+		scratch.clear();
+		try
+		{
+			this.writePdu( new DisBuffer(scratch) );
+			return Arrays.copyOf( scratch.array(), scratch.position() );
+		}
+		catch( BufferOverflowException boe )
+		{
+			// Bigger than any PDU should be, but let's not fall over - use a growable stream
+			return toByteArrayFromStream();
+		}
+		catch( IOException ioex )
+		{
+			throw new DiscoException( ioex.getMessage(), ioex );
+		}
+	}
+
+	private byte[] toByteArrayFromStream()
 	{
 		try
 		{
@@ -0,0 +1,102 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.pdu;
+
+import java.nio.ByteBuffer;
+
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.pdu.radio.TransmitterPdu;
+import org.openlvc.disco.pdu.record.EntityId;
+
+/**
+ * Conflation for PDUs that are still in their encoded form. Gives the same answers as
+ * {@link PDU#getConflationKey()} and {@link PDU#conflatesWith(PDU)} would for the decoded PDUs,
+ * so queues of received packets can be conflated before any decoding is done. Packets are
+ * read between their buffer's position and limit, and are never modified.
+ */
+public class PduConflation
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int OFFSET_PDU_TYPE  = 2;
+	private static final int OFFSET_ENTITY_ID = 12; // first body field of ESPDU and Transmitter
+	private static final int OFFSET_RADIO_ID  = 18; // Transmitter only
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	private PduConflation()
+	{
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	/**
+	 * @return The conflation key for the packet, or {@link PDU#NO_CONFLATION_KEY}
+	 */
+	public static long keyOf( ByteBuffer packet )
+	{
+		int start = packet.position();
+		if( packet.remaining() < OFFSET_RADIO_ID+2 )
+			return PDU.NO_CONFLATION_KEY;
+
+		byte type = packet.get( start+OFFSET_PDU_TYPE );
+		if( type == PduType.EntityState.value() )
+			return EntityStatePdu.conflationKey( EntityId.pack(packet,start+OFFSET_ENTITY_ID) );
+		else if( type == PduType.Transmitter.value() )
+			return TransmitterPdu.conflationKey( EntityId.pack(packet,start+OFFSET_ENTITY_ID),
+			                                     packet.getShort(start+OFFSET_RADIO_ID) );
+		else
+			return PDU.NO_CONFLATION_KEY;
+	}
+
+	/**
+	 * Confirm that two packets with the same {@link #keyOf(ByteBuffer)} are about the same
+	 * thing, by comparing the type and identifying fields rather than trusting the key.
+	 *
+	 * @return True if the newer packet supersedes the older one
+	 */
+	public static boolean conflatesWith( ByteBuffer newer, ByteBuffer older )
+	{
+		// anything shorter than this never had a key in the first place
+		if( newer.remaining() < OFFSET_RADIO_ID+2 || older.remaining() < OFFSET_RADIO_ID+2 )
+			return false;
+
+		int a = newer.position();
+		int b = older.position();
+		byte type = newer.get( a+OFFSET_PDU_TYPE );
+		if( type != older.get(b+OFFSET_PDU_TYPE) ||
+		    EntityId.pack(newer,a+OFFSET_ENTITY_ID) != EntityId.pack(older,b+OFFSET_ENTITY_ID) )
+			return false;
+
+		// entity id is the full identity of an ESPDU, transmitters need the radio as well
+		return type != PduType.Transmitter.value() ||
+		       newer.getShort(a+OFFSET_RADIO_ID) == older.getShort(b+OFFSET_RADIO_ID);
+	}
+}
@@ -18,8 +18,15 @@
 package org.openlvc.disco.pdu;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
 import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.pdu.radio.TransmitterPdu;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.utils.BitHelpers;
 
 /**
  * This class represetns a raw PDU whose body is not parsed, but rather just stored.
@@ -32,6 +39,10 @@ import org.openlvc.disco.pdu.field.PduType;
  * that are not yet supported by Disco. By wrapping them in an {@link UnparsedPdu}
  * instance they can work through the framework safely even though we don't know what
  * to do with them.
+ * <p/>
+ * It is also how PDUs are carried when {@link org.openlvc.disco.configuration.Flag#Passthrough}
+ * is set: the body is written back out exactly as it was read, and the originating site/app id
+ * and conflation key are read straight from the body bytes.
  */
 public class UnparsedPdu extends PDU
 {
@@ -40,6 +51,20 @@ public class UnparsedPdu extends PDU
 	//----------------------------------------------------------
 	private static final byte[] EMPTY = new byte[0];
 
+	// Nearly every PDU body starts with the id of the entity that sent it (firing entity,
+	// emitting entity, radio's entity, ...), and the transmitter follows it with its radio id
+	private static final int OFFSET_ENTITY_ID = 0;
+	private static final int OFFSET_RADIO_ID  = 6;
+
+	// The types we know do start that way, and whose decoded PDU reports that id's site/app.
+	// For anything else the first bytes could be anything, so they aren't read as an id.
+	private static final Set<PduType> ENTITY_ID_FIRST =
+		EnumSet.of( PduType.EntityState, PduType.Fire, PduType.Detonation,
+		            PduType.StartResume, PduType.StopFreeze, PduType.ActionRequest,
+		            PduType.ActionResponse, PduType.DataQuery, PduType.SetData, PduType.Data,
+		            PduType.Comment, PduType.Emission, PduType.Designator,
+		            PduType.Transmitter, PduType.Signal, PduType.Receiver );
+
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
@@ -90,21 +115,86 @@ public class UnparsedPdu extends PDU
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Abstract PDU Methods   /////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return The site id from the entity id at the start of the body, or 0 if this type of
+	 *         PDU doesn't start with one or the body is too short to have one
+	 */
 	@Override
 	public int getSiteId()
 	{
-		return 0;
+		if( hasEntityId() == false )
+			return 0;
+		else
+			return BitHelpers.readShortBE( payload, OFFSET_ENTITY_ID ) & 0xffff;
 	}
 	
+	/**
+	 * @return The app id from the entity id at the start of the body, or 0 if this type of
+	 *         PDU doesn't start with one or the body is too short to have one
+	 */
 	@Override
 	public int getAppId()
 	{
-		return 0;
+		if( hasEntityId() == false )
+			return 0;
+		else
+			return BitHelpers.readShortBE( payload, OFFSET_ENTITY_ID+2 ) & 0xffff;
+	}
+
+	/**
+	 * Same key as the decoded PDU would have, read from the body bytes.
+	 */
+	@Override
+	public long getConflationKey()
+	{
+		PduType type = getType();
+		if( type == PduType.EntityState && hasEntityId() )
+			return EntityStatePdu.conflationKey( EntityId.pack(payload,OFFSET_ENTITY_ID) );
+		else if( type == PduType.Transmitter && payload.length >= OFFSET_RADIO_ID+2 )
+			return TransmitterPdu.conflationKey( EntityId.pack(payload,OFFSET_ENTITY_ID),
+			                                     BitHelpers.readShortBE(payload,OFFSET_RADIO_ID) );
+		else
+			return NO_CONFLATION_KEY;
+	}
+
+	/**
+	 * Transmitter keys can collide (see {@link TransmitterPdu#getConflationKey()}), so compare
+	 * the entity and radio id bytes before letting one replace another.
+	 */
+	@Override
+	public boolean conflatesWith( PDU older )
+	{
+		if( getType() != PduType.Transmitter )
+			return super.conflatesWith( older );
+
+		if( older instanceof UnparsedPdu == false || older.getType() != PduType.Transmitter )
+			return false;
+
+		byte[] other = ((UnparsedPdu)older).payload;
+		int length = OFFSET_RADIO_ID + 2;
+		return payload.length >= length && other.length >= length &&
+		       Arrays.equals( payload, 0, length, other, 0, length );
+	}
+
+	/**
+	 * @return True if this is a type of PDU whose body starts with an entity id, and the body
+	 *         is long enough to hold it
+	 */
+	private boolean hasEntityId()
+	{
+		return ENTITY_ID_FIRST.contains( getType() ) && payload.length >= OFFSET_ENTITY_ID+6;
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return The body bytes, exactly as they were read. Don't modify them.
+	 */
+	public byte[] getPayload()
+	{
+		return this.payload;
+	}
 
 	//----------------------------------------------------------
 	//                     STATIC METHODS
@@ -19,11 +19,17 @@ package org.openlvc.disco.pdu.entity;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.configuration.Flag;
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.DisSizes;
+import org.openlvc.disco.pdu.IPduComponent;
 import org.openlvc.disco.pdu.PDU;
 import org.openlvc.disco.pdu.field.Domain;
 import org.openlvc.disco.pdu.field.ForceId;
@@ -38,12 +44,58 @@ import org.openlvc.disco.pdu.record.EulerAngles;
 import org.openlvc.disco.pdu.record.VectorRecord;
 import org.openlvc.disco.pdu.record.WorldCoordinate;
 import org.openlvc.disco.utils.BitField32;
-
+import org.openlvc.disco.utils.BitHelpers;
+
+/**
+ * Entity State PDU.
+ * <p/>
+ * When the {@link Flag#Lazy} flag is set, decoding an ESPDU does not build any of its records.
+ * Instead the PDU keeps a copy of the body bytes and only decodes a field the first time its
+ * getter is called. Primitive/immutable values (force id, appearance, marking, site/app id,
+ * kind and domain) can be read without touching the larger records at all.
+ * <p/>
+ * Re-encoding a lazily decoded PDU starts from the original bytes and writes each decoded field
+ * back over its slot. Fields nobody looked at cost nothing, and any changes made through the
+ * returned records or setters still end up on the wire.
+ * <p/>
+ * Getters are safe to call from several threads at once, even though lazy decoding means they
+ * write to the PDU: each field is decoded under the PDU's lock and published through the
+ * volatile {@link #decoded} mask, and the raw bytes stay put once set. Setters are not thread
+ * safe, as for all PDUs, so don't change a PDU while other threads may be reading it.
+ */
 public class EntityStatePdu extends PDU
 {
 	//----------------------------------------------------------
 	//                    STATIC VARIABLES
 	//----------------------------------------------------------
+	// Byte offsets of each field from the start of the PDU body
+	private static final int OFFSET_ENTITY_ID      = 0;
+	private static final int OFFSET_FORCE_ID       = 6;
+	private static final int OFFSET_PARAM_COUNT    = 7;
+	private static final int OFFSET_ENTITY_TYPE    = 8;
+	private static final int OFFSET_ALT_TYPE       = 16;
+	private static final int OFFSET_VELOCITY       = 24;
+	private static final int OFFSET_LOCATION       = 36;
+	private static final int OFFSET_ORIENTATION    = 60;
+	private static final int OFFSET_APPEARANCE     = 72;
+	private static final int OFFSET_DEAD_RECKONING = 76;
+	private static final int OFFSET_MARKING        = 116;
+	private static final int OFFSET_CAPABILITIES   = 128;
+	private static final int OFFSET_ARTICULATIONS  = 132;
+	private static final int ARTICULATION_SIZE     = 16;
+
+	// Bits for the fields that are decoded on demand
+	private static final int FIELD_ENTITY_ID      = 1;
+	private static final int FIELD_ENTITY_TYPE    = 1 << 1;
+	private static final int FIELD_ALT_TYPE       = 1 << 2;
+	private static final int FIELD_VELOCITY       = 1 << 3;
+	private static final int FIELD_LOCATION       = 1 << 4;
+	private static final int FIELD_ORIENTATION    = 1 << 5;
+	private static final int FIELD_DEAD_RECKONING = 1 << 6;
+	private static final int FIELD_MARKING        = 1 << 7;
+	private static final int FIELD_CAPABILITIES   = 1 << 8;
+	private static final int FIELD_ARTICULATIONS  = 1 << 9;
+	private static final int FIELD_ALL            = (1 << 10) - 1;
 
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
@@ -61,6 +113,12 @@ public class EntityStatePdu extends PDU
 	private EntityCapabilities capabilities;
 	private List<ArticulationParameter> articulationParameters;
 
+	// Lazy decoding support. When raw is null, any field not yet marked as
+	// decoded is created with its default value on first access. A field's
+	// bit is only set in decoded after the field itself has been written.
+	private byte[] raw;
+	private volatile int decoded;
+
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
 	//----------------------------------------------------------
@@ -68,18 +126,12 @@ public class EntityStatePdu extends PDU
 	{
 		super( PduType.EntityState );
 
-		this.entityID = new EntityId();
+		// records are created on first access
 		this.forceID = ForceId.Other;
-		this.entityType = new EntityType();
-		this.alternativeEntityType = new EntityType();
-		this.linearVelocity = new VectorRecord();
-		this.location = new WorldCoordinate();
-		this.orientation = new EulerAngles();
 		this.appearance = 0;
-		this.deadReckoningParams = new DeadReckoningParameter();
 		this.marking = "DiscoObject";
-		this.capabilities = new EntityCapabilities();
-		this.articulationParameters = new ArrayList<ArticulationParameter>();
+		this.raw = null;
+		this.decoded = FIELD_MARKING;
 	}
 	
 	//----------------------------------------------------------
@@ -88,7 +140,7 @@ public class EntityStatePdu extends PDU
 
 	public String toString()
 	{
-		return "Marking: " + marking;
+		return "Marking: " + decodeMarking();
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -97,7 +149,18 @@ public class EntityStatePdu extends PDU
 	@Override
 	public void from( DisInputStream dis ) throws IOException
 	{
-		articulationParameters.clear();
+		if( DiscoConfiguration.isSet(Flag.Lazy) )
+		{
+			byte[] fixed = new byte[OFFSET_ARTICULATIONS];
+			dis.readFully( fixed );
+			int parameterBytes = (fixed[OFFSET_PARAM_COUNT] & 0xff) * ARTICULATION_SIZE;
+			byte[] body = Arrays.copyOf( fixed, OFFSET_ARTICULATIONS+parameterBytes );
+			dis.readFully( body, OFFSET_ARTICULATIONS, parameterBytes );
+			setRaw( body );
+			return;
+		}
+
+		ensureRecords();
 
 		entityID.from( dis );
 		forceID = ForceId.fromValue( dis.readUI8() );
@@ -112,7 +175,6 @@ public class EntityStatePdu extends PDU
 		marking = dis.readFixedString( 11 ).trim(); // Should we do the trim?? Not sure
 		capabilities.from( dis );
 
-		articulationParameters.clear();
 		for( int i = 0; i < numberOfArticulationParameters; i++ )
 		{
 			ArticulationParameter articulationParameter = new ArticulationParameter();
@@ -121,9 +183,54 @@ public class EntityStatePdu extends PDU
 		}
 	}
 
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		if( DiscoConfiguration.isSet(Flag.Lazy) )
+		{
+			int count = buffer.getUI8( buffer.position()+OFFSET_PARAM_COUNT );
+			byte[] body = new byte[OFFSET_ARTICULATIONS+(count*ARTICULATION_SIZE)];
+			buffer.readFully( body );
+			setRaw( body );
+			return;
+		}
+
+		ensureRecords();
+
+		entityID.from( buffer );
+		forceID = ForceId.fromValue( buffer.readUI8() );
+		short numberOfArticulationParameters = buffer.readUI8();
+		entityType.from( buffer );
+		alternativeEntityType.from( buffer );
+		linearVelocity.from( buffer );
+		location.from( buffer );
+		orientation.from( buffer );
+		appearance = buffer.readInt();
+		deadReckoningParams.from( buffer );
+		marking = buffer.readFixedString( 11 ).trim(); // Should we do the trim?? Not sure
+		capabilities.from( buffer );
+
+		for( int i = 0; i < numberOfArticulationParameters; i++ )
+		{
+			ArticulationParameter articulationParameter = new ArticulationParameter();
+			articulationParameter.from( buffer );
+			articulationParameters.add( articulationParameter );
+		}
+	}
+
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
 	{
+		// if we're still backed by the original bytes, patch them up and write those
+		if( canWriteFromRaw() )
+		{
+			byte[] body = new byte[raw.length];
+			to( new DisBuffer(body) );
+			dos.write( body );
+			return;
+		}
+
+		decodeAll();
 		entityID.to( dos );
 		dos.writeUI8( forceID.value() );
 
@@ -149,10 +256,49 @@ public class EntityStatePdu extends PDU
 			parameter.to( dos );
 	}
 
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		// if we're still backed by the original bytes, patch them up and write those
+		if( canWriteFromRaw() )
+		{
+			writeFromRaw( buffer );
+			return;
+		}
+
+		decodeAll();
+		entityID.to( buffer );
+		buffer.writeUI8( forceID.value() );
+
+		int articulationParamCount = articulationParameters.size();
+		if( articulationParamCount > DisSizes.UI8_MAX_VALUE )
+		{
+			// TODO Warn about truncation
+		}
+
+		short paramCountAsShort = (short)articulationParamCount;
+		buffer.writeUI8( paramCountAsShort );
+		entityType.to( buffer );
+		alternativeEntityType.to( buffer );
+		linearVelocity.to( buffer );
+		location.to( buffer );
+		orientation.to( buffer );
+		buffer.writeInt( appearance );
+		deadReckoningParams.to( buffer );
+		buffer.writeFixedString( marking, 11 );
+		capabilities.to( buffer );
+
+		for( ArticulationParameter parameter : articulationParameters )
+			parameter.to( buffer );
+	}
+
 	@Override
 	public final int getContentLength()
 	{
-		return 132 + DisSizes.getByteLengthOfCollection(articulationParameters);
+		if( canWriteFromRaw() )
+			return raw.length;
+
+		return 132 + DisSizes.getByteLengthOfCollection(getArticulationParameter());
 
 		/*
 		int size = entityID.getByteLength();            // 6
@@ -173,29 +319,325 @@ public class EntityStatePdu extends PDU
 		*/
 	}
 
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Lazy Decoding Methods   ////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return True if this PDU is holding on to its encoded body and has not yet decoded all
+	 *         of its fields from it
+	 */
+	public boolean isLazy()
+	{
+		return raw != null && decoded != FIELD_ALL;
+	}
+
+	private void setRaw( byte[] body )
+	{
+		// new contents, so whatever was cached from a previous read is no longer valid
+		markDirty();
+		this.raw = body;
+		this.decoded = 0;
+
+		// cheap, allocation free values are always decoded up front
+		this.forceID = ForceId.fromValue( (short)(body[OFFSET_FORCE_ID] & 0xff) );
+		this.appearance = BitHelpers.readIntBE( body, OFFSET_APPEARANCE );
+
+		this.entityID = null;
+		this.entityType = null;
+		this.alternativeEntityType = null;
+		this.linearVelocity = null;
+		this.location = null;
+		this.orientation = null;
+		this.deadReckoningParams = null;
+		this.marking = null;
+		this.capabilities = null;
+		this.articulationParameters = null;
+	}
+
+	private void clearRaw()
+	{
+		this.raw = null;
+	}
+
+	/**
+	 * Get ready for a full decode. Makes sure every record exists, re-using the ones we already
+	 * have (when this instance is being recycled) so that they can be read straight into.
+	 */
+	private void ensureRecords()
+	{
+		markDirty();
+		clearRaw();
+		this.decoded = FIELD_ALL;
+
+		if( entityID == null )              entityID = new EntityId();
+		if( entityType == null )            entityType = new EntityType();
+		if( alternativeEntityType == null ) alternativeEntityType = new EntityType();
+		if( linearVelocity == null )        linearVelocity = new VectorRecord();
+		if( location == null )              location = new WorldCoordinate();
+		if( orientation == null )           orientation = new EulerAngles();
+		if( deadReckoningParams == null )   deadReckoningParams = new DeadReckoningParameter();
+		if( capabilities == null )          capabilities = new EntityCapabilities();
+
+		if( articulationParameters == null )
+			articulationParameters = new ArrayList<>();
+		else
+			articulationParameters.clear();
+	}
+
+	/**
+	 * Populate the given record from the raw bytes at the given offset (if we have any). Without
+	 * raw bytes, the record keeps its default values. Each call reads through its own view of
+	 * the raw bytes so that two threads reading different fields don't trip over each other.
+	 */
+	private <T extends IPduComponent> T decode( T record, int offset )
+	{
+		if( raw != null )
+		{
+			try
+			{
+				record.from( new DisBuffer(raw,offset,raw.length-offset) );
+			}
+			catch( IOException ioex )
+			{
+				throw new DiscoException( ioex, "Error decoding EntityStatePdu field at offset %d: %s",
+				                          offset, ioex.getMessage() );
+			}
+		}
+
+		return record;
+	}
+
+	private String decodeMarking()
+	{
+		if( (decoded & FIELD_MARKING) == 0 )
+			decodeField( FIELD_MARKING );
+
+		return marking;
+	}
+
+	/**
+	 * Decode the given field from the raw bytes, unless another thread beat us to it. The field
+	 * is written before its bit is set in the volatile {@link #decoded} mask, so any thread that
+	 * sees the bit also sees the field.
+	 */
+	private synchronized void decodeField( int field )
+	{
+		if( (decoded & field) != 0 )
+			return;
+
+		switch( field )
+		{
+			case FIELD_ENTITY_ID:
+				this.entityID = decode( new EntityId(), OFFSET_ENTITY_ID );
+				break;
+			case FIELD_ENTITY_TYPE:
+				this.entityType = decode( new EntityType(), OFFSET_ENTITY_TYPE );
+				break;
+			case FIELD_ALT_TYPE:
+				this.alternativeEntityType = decode( new EntityType(), OFFSET_ALT_TYPE );
+				break;
+			case FIELD_VELOCITY:
+				this.linearVelocity = decode( new VectorRecord(), OFFSET_VELOCITY );
+				break;
+			case FIELD_LOCATION:
+				this.location = decode( new WorldCoordinate(), OFFSET_LOCATION );
+				break;
+			case FIELD_ORIENTATION:
+				this.orientation = decode( new EulerAngles(), OFFSET_ORIENTATION );
+				break;
+			case FIELD_DEAD_RECKONING:
+				this.deadReckoningParams = decode( new DeadReckoningParameter(), OFFSET_DEAD_RECKONING );
+				break;
+			case FIELD_MARKING:
+				this.marking = raw == null ? "" : readMarking( raw );
+				break;
+			case FIELD_CAPABILITIES:
+				this.capabilities = decode( new EntityCapabilities(), OFFSET_CAPABILITIES );
+				break;
+			case FIELD_ARTICULATIONS:
+				int count = raw == null ? 0 : raw[OFFSET_PARAM_COUNT] & 0xff;
+				List<ArticulationParameter> parameters = new ArrayList<>( count );
+				for( int i = 0; i < count; i++ )
+				{
+					parameters.add( decode(new ArticulationParameter(),
+					                       OFFSET_ARTICULATIONS+(i*ARTICULATION_SIZE)) );
+				}
+
+				this.articulationParameters = parameters;
+				break;
+			default:
+				throw new IllegalArgumentException( "Unknown EntityStatePdu field: "+field );
+		}
+
+		this.decoded |= field;
+	}
+
+	/**
+	 * Pull the marking out of the raw body. Skips the character set byte and trims as we go,
+	 * rather than building the full string and then trimming it into another one.
+	 */
+	private static String readMarking( byte[] body )
+	{
+		int start = OFFSET_MARKING+1;
+		int end = start+11;
+		while( start < end && (body[start] & 0xff) <= ' ' )
+			start++;
+		while( end > start && (body[end-1] & 0xff) <= ' ' )
+			end--;
+
+		return new String( body, start, end-start );
+	}
+
+	/**
+	 * Decode every remaining field. Used before a full re-encode. The raw bytes are kept, as
+	 * other threads may still be reading from them.
+	 */
+	private void decodeAll()
+	{
+		if( decoded == FIELD_ALL )
+			return;
+
+		getEntityID();
+		getEntityType();
+		getAlternativeEntityType();
+		getLinearVelocity();
+		getLocation();
+		getOrientation();
+		getDeadReckoningParams();
+		decodeMarking();
+		getCapabilities();
+		getArticulationParameter();
+	}
+
+	/**
+	 * The raw bytes can be used as the base for encoding unless the articulation parameters
+	 * have been decoded, as they may have changed size.
+	 */
+	private boolean canWriteFromRaw()
+	{
+		return raw != null && (decoded & FIELD_ARTICULATIONS) == 0;
+	}
+
+	/**
+	 * Copy the raw body into the buffer and then write each decoded field back over its slot.
+	 */
+	private void writeFromRaw( DisBuffer buffer ) throws IOException
+	{
+		// fields decoded by other threads while we work are the same as the raw bytes anyway
+		int decoded = this.decoded;
+		int start = buffer.position();
+		buffer.write( raw );
+		int end = buffer.position();
+
+		buffer.putUI8( start+OFFSET_FORCE_ID, forceID.value() );
+		buffer.putInt( start+OFFSET_APPEARANCE, appearance );
+		writeIfDecoded( buffer, decoded, FIELD_ENTITY_ID, entityID, start+OFFSET_ENTITY_ID );
+		writeIfDecoded( buffer, decoded, FIELD_ENTITY_TYPE, entityType, start+OFFSET_ENTITY_TYPE );
+		writeIfDecoded( buffer, decoded, FIELD_ALT_TYPE, alternativeEntityType, start+OFFSET_ALT_TYPE );
+		writeIfDecoded( buffer, decoded, FIELD_VELOCITY, linearVelocity, start+OFFSET_VELOCITY );
+		writeIfDecoded( buffer, decoded, FIELD_LOCATION, location, start+OFFSET_LOCATION );
+		writeIfDecoded( buffer, decoded, FIELD_ORIENTATION, orientation, start+OFFSET_ORIENTATION );
+		writeIfDecoded( buffer, decoded, FIELD_DEAD_RECKONING, deadReckoningParams, start+OFFSET_DEAD_RECKONING );
+		writeIfDecoded( buffer, decoded, FIELD_CAPABILITIES, capabilities, start+OFFSET_CAPABILITIES );
+		if( (decoded & FIELD_MARKING) != 0 )
+		{
+			buffer.position( start+OFFSET_MARKING );
+			buffer.writeFixedString( marking, 11 );
+		}
+
+		buffer.position( end );
+	}
+
+	private void writeIfDecoded( DisBuffer buffer, int decoded, int field, IPduComponent record, int index )
+		throws IOException
+	{
+		if( (decoded & field) == 0 )
+			return;
+
+		buffer.position( index );
+		record.to( buffer );
+	}
+
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Convenience Methods   //////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
 	public Kind getKind()
 	{
-		return entityType.getKindEnum();
+		if( (decoded & FIELD_ENTITY_TYPE) == 0 && raw != null )
+			return Kind.fromValue( (short)(raw[OFFSET_ENTITY_TYPE] & 0xff) );
+		else
+			return getEntityType().getKindEnum();
 	}
 
 	public Domain getDomain()
 	{
-		return entityType.getDomainEnum();
+		if( (decoded & FIELD_ENTITY_TYPE) == 0 && raw != null )
+			return Domain.fromValue( (short)(raw[OFFSET_ENTITY_TYPE+1] & 0xff) );
+		else
+			return getEntityType().getDomainEnum();
 	}
 	
 	@Override
 	public int getSiteId()
 	{
-		return entityID.getSiteId();
+		if( (decoded & FIELD_ENTITY_ID) == 0 && raw != null )
+			return BitHelpers.readShortBE( raw, OFFSET_ENTITY_ID ) & 0xffff;
+		else
+			return getEntityID().getSiteId();
 	}
 	
 	@Override
 	public int getAppId()
 	{
-		return entityID.getAppId();
+		if( (decoded & FIELD_ENTITY_ID) == 0 && raw != null )
+			return BitHelpers.readShortBE( raw, OFFSET_ENTITY_ID+2 ) & 0xffff;
+		else
+			return getEntityID().getAppId();
+	}
+
+	/**
+	 * @return The entity id in its packed form (see {@link EntityId#pack(int, int, int)}). If
+	 *         the id hasn't been decoded yet it is read straight from the received bytes, and
+	 *         no {@link EntityId} is created.
+	 */
+	public long getPackedEntityId()
+	{
+		if( (decoded & FIELD_ENTITY_ID) == 0 && raw != null )
+			return EntityId.pack( raw, OFFSET_ENTITY_ID );
+		else
+			return getEntityID().getPackedId();
+	}
+
+	/**
+	 * @return The entity type in its packed form (see {@link EntityType#getPackedType()}). If
+	 *         the type hasn't been decoded yet it is read straight from the received bytes, and
+	 *         no {@link EntityType} is created.
+	 */
+	public long getPackedEntityType()
+	{
+		if( (decoded & FIELD_ENTITY_TYPE) == 0 && raw != null )
+			return BitHelpers.readLongBE( raw, OFFSET_ENTITY_TYPE );
+		else
+			return getEntityType().getPackedType();
+	}
+
+	/**
+	 * Each ESPDU carries the full state of its entity, so the latest one for an entity
+	 * supersedes any earlier one. The key is the packed entity id, tagged with the PDU type.
+	 */
+	@Override
+	public long getConflationKey()
+	{
+		return conflationKey( getPackedEntityId() );
+	}
+
+	/**
+	 * Every setter calls {@link #markDirty()}, so the serialized form can be cached.
+	 */
+	@Override
+	protected boolean isCacheable()
+	{
+		return true;
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -203,19 +645,26 @@ public class EntityStatePdu extends PDU
 	////////////////////////////////////////////////////////////////////////////////////////////
 	public EntityId getEntityID()
 	{
+		if( (decoded & FIELD_ENTITY_ID) == 0 )
+			decodeField( FIELD_ENTITY_ID );
+
 		return entityID;
 	}
 
 	public void setEntityID( EntityId entityID )
 	{
 		this.entityID = entityID;
+		this.decoded |= FIELD_ENTITY_ID;
+		markDirty();
 	}
 
 	public void setEntityID( int siteId, int appId, int entityId )
 	{
-		this.entityID.setSiteId( siteId );
-		this.entityID.setAppId( appId );
-		this.entityID.setEntityId( entityId );
+		EntityId id = getEntityID();
+		id.setSiteId( siteId );
+		id.setAppId( appId );
+		id.setEntityId( entityId );
+		markDirty();
 	}
 
 	public ForceId getForceID()
@@ -226,56 +675,82 @@ public class EntityStatePdu extends PDU
 	public void setForceID( ForceId forceID )
 	{
 		this.forceID = forceID;
+		markDirty();
 	}
 
 	public EntityType getEntityType()
 	{
+		if( (decoded & FIELD_ENTITY_TYPE) == 0 )
+			decodeField( FIELD_ENTITY_TYPE );
+
 		return entityType;
 	}
 
 	public void setEntityType( EntityType entityType )
 	{
 		this.entityType = entityType;
+		this.decoded |= FIELD_ENTITY_TYPE;
+		markDirty();
 	}
 
 	public EntityType getAlternativeEntityType()
 	{
+		if( (decoded & FIELD_ALT_TYPE) == 0 )
+			decodeField( FIELD_ALT_TYPE );
+
 		return alternativeEntityType;
 	}
 
 	public void setAlternativeEntityType( EntityType alternativeEntityType )
 	{
 		this.alternativeEntityType = alternativeEntityType;
+		this.decoded |= FIELD_ALT_TYPE;
+		markDirty();
 	}
 
 	public VectorRecord getLinearVelocity()
 	{
+		if( (decoded & FIELD_VELOCITY) == 0 )
+			decodeField( FIELD_VELOCITY );
+
 		return linearVelocity;
 	}
 
 	public void setLinearVelocity( VectorRecord velocity )
 	{
 		this.linearVelocity = velocity;
+		this.decoded |= FIELD_VELOCITY;
+		markDirty();
 	}
 
 	public WorldCoordinate getLocation()
 	{
+		if( (decoded & FIELD_LOCATION) == 0 )
+			decodeField( FIELD_LOCATION );
+
 		return location;
 	}
 
 	public void setLocation( WorldCoordinate location )
 	{
 		this.location = location;
+		this.decoded |= FIELD_LOCATION;
+		markDirty();
 	}
 
 	public EulerAngles getOrientation()
 	{
+		if( (decoded & FIELD_ORIENTATION) == 0 )
+			decodeField( FIELD_ORIENTATION );
+
 		return orientation;
 	}
 
 	public void setOrientation( EulerAngles orientation )
 	{
 		this.orientation = orientation;
+		this.decoded |= FIELD_ORIENTATION;
+		markDirty();
 	}
 
 	public int getAppearance()
@@ -286,6 +761,7 @@ public class EntityStatePdu extends PDU
 	public void setAppearance( int appearance )
 	{
 		this.appearance = appearance;
+		markDirty();
 	}
 
 	/**
@@ -307,16 +783,22 @@ public class EntityStatePdu extends PDU
 	public void setFrozen( boolean isFrozen )
 	{
 		this.appearance = BitField32.set( this.appearance, 21, isFrozen );
+		markDirty();
 	}
 
 	public DeadReckoningParameter getDeadReckoningParams()
 	{
+		if( (decoded & FIELD_DEAD_RECKONING) == 0 )
+			decodeField( FIELD_DEAD_RECKONING );
+
 		return deadReckoningParams;
 	}
 
 	public void setDeadReckoningParams( DeadReckoningParameter deadReckoningParams )
 	{
 		this.deadReckoningParams = deadReckoningParams;
+		this.decoded |= FIELD_DEAD_RECKONING;
+		markDirty();
 	}
 
 	/**
@@ -327,8 +809,9 @@ public class EntityStatePdu extends PDU
 	 */
 	public String getMarking()
 	{
+		String marking = decodeMarking();
 		if( marking == null || marking.isEmpty() )
-			return entityID.getAppId()+"-"+entityID.getEntityId();
+			return getEntityID().getAppId()+"-"+getEntityID().getEntityId();
 
 		return marking;
 	}
@@ -336,20 +819,30 @@ public class EntityStatePdu extends PDU
 	public void setMarking( String marking )
 	{
 		this.marking = marking;
+		this.decoded |= FIELD_MARKING;
+		markDirty();
 	}
 
 	public EntityCapabilities getCapabilities()
 	{
+		if( (decoded & FIELD_CAPABILITIES) == 0 )
+			decodeField( FIELD_CAPABILITIES );
+
 		return capabilities;
 	}
 
 	public void setCapabilities( EntityCapabilities capabilities )
 	{
 		this.capabilities = capabilities;
+		this.decoded |= FIELD_CAPABILITIES;
+		markDirty();
 	}
 
 	public List<ArticulationParameter> getArticulationParameter()
 	{
+		if( (decoded & FIELD_ARTICULATIONS) == 0 )
+			decodeField( FIELD_ARTICULATIONS );
+
 		return articulationParameters;
 	}
 
@@ -360,9 +853,19 @@ public class EntityStatePdu extends PDU
 			                                    " articulation parameters are supported by the DIS specification" );
 
 		this.articulationParameters = articulationParameters;
+		this.decoded |= FIELD_ARTICULATIONS;
+		markDirty();
 	}
 
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+	/**
+	 * @return The conflation key for an ESPDU about the given (packed) entity. See
+	 *         {@link #getConflationKey()}.
+	 */
+	public static long conflationKey( long packedEntityId )
+	{
+		return ((long)PduType.EntityState.value() << 56) | packedEntityId;
+	}
 }
@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.radio;
 import java.io.IOException;
 import java.util.Arrays;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.PDU;
@@ -97,6 +98,28 @@ public class SignalPdu extends PDU
 		
 		setData( dataLength, data );
 	}
+
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		entityID.from( buffer );
+		radioID = buffer.readUI16();
+		encodingScheme.from( buffer );
+		tdlType = TdlType.fromValue( buffer.readUI16() );
+		sampleRate = buffer.readUI32();
+		int dataLength = buffer.readUI16();
+		samples = buffer.readUI16();
+		
+		boolean lengthAligned = dataLength % 8 == 0;
+		int lengthBytes = dataLength / 8;
+		if( !lengthAligned )
+			++lengthBytes;
+		
+		byte[] data = new byte[lengthBytes];
+		buffer.readFully( data );
+		
+		setData( dataLength, data );
+	}
 	
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
@@ -110,6 +133,19 @@ public class SignalPdu extends PDU
 		dos.writeUI16( samples );
 		dos.write( data );
 	}
+
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		entityID.to( buffer );
+		buffer.writeUI16( radioID );
+		encodingScheme.to( buffer );
+		buffer.writeUI16( tdlType.value() );
+		buffer.writeUI32( sampleRate );
+		buffer.writeUI16( dataLength );
+		buffer.writeUI16( samples );
+		buffer.write( data );
+	}
 	
 	@Override
 	public final int getContentLength()
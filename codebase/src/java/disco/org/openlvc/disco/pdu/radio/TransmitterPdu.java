@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Arrays;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.DisSizes;
@@ -132,6 +133,41 @@ public class TransmitterPdu extends PDU
 		dis.readFully( antennaParameter );
 		setAntennaPattern( antennaPatternType, antennaParameter );
 	}
+
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		entityID.from( buffer );
+		radioId = buffer.readUI16();
+		radioEntityType.from( buffer );
+		transmitState = TransmitState.fromValue( buffer.readUI8() );
+		inputSource = InputSource.fromValue( buffer.readUI8() );
+		
+		// Padding
+		buffer.skip16();
+				
+		antennaLocation.from( buffer );
+		AntennaPatternType antennaPatternType = AntennaPatternType.fromValue( buffer.readUI16() );
+		int antennaPatternLength = buffer.readUI16();
+		transmissionFrequency = buffer.readUI64();
+		transmissionFrequencyBandwidth = buffer.readFloat();
+		power = buffer.readFloat();
+		modulationType.from( buffer );
+		cryptoSystem = CryptoSystem.fromValue( buffer.readUI16() );
+		cryptoKey = buffer.readUI16();
+		
+		short modulationParametersLength = buffer.readUI8();
+		
+		// Padding
+		buffer.skip24();
+		byte[] modulationParameter = new byte[modulationParametersLength];
+		buffer.readFully( modulationParameter );
+		setModulation( modulationType, modulationParameter );
+		
+		byte[] antennaParameter = new byte[antennaPatternLength];
+		buffer.readFully( antennaParameter );
+		setAntennaPattern( antennaPatternType, antennaParameter );
+	}
 	
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
@@ -162,6 +198,36 @@ public class TransmitterPdu extends PDU
 		dos.write( modulationParameter );
 		dos.write( antennaPatternParameter );
 	}
+
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		entityID.to( buffer );
+		buffer.writeUI16( radioId );
+		radioEntityType.to( buffer );
+		buffer.writeUI8( transmitState.value() );
+		buffer.writeUI8( inputSource.value() );
+		
+		buffer.writePadding16();
+		
+		antennaLocation.to( buffer );
+		buffer.writeUI16( antennaPatternType.value() );
+		// This will never be beyond the bounds of a UI16 due to input verification in the setter
+		buffer.writeUI16( antennaPatternParameter.length );
+		buffer.writeUI64( transmissionFrequency );
+		buffer.writeFloat( transmissionFrequencyBandwidth );
+		buffer.writeFloat( power );
+		modulationType.to( buffer );
+		buffer.writeUI16( cryptoSystem.value() );
+		buffer.writeUI16( cryptoKey );
+				
+		// This will never be beyond the bounds of a UI8 due to input verification in the setter
+		buffer.writeUI8( (short)modulationParameter.length );
+		
+		buffer.writePadding24();
+		buffer.write( modulationParameter );
+		buffer.write( antennaPatternParameter );
+	}
 	
 	@Override
 	public int getContentLength()
@@ -216,6 +282,31 @@ public class TransmitterPdu extends PDU
 	{
 		return new FullRadioId( this.entityID, this.radioId );
 	}
+
+	/**
+	 * Transmitter PDUs carry the full state of one radio, so the latest one for a radio
+	 * supersedes any earlier one. Entity id and radio id together need all 64 bits, so they are
+	 * mixed down to 56 and tagged with the PDU type. Two radios can therefore share a key, which
+	 * {@link #conflatesWith(PDU)} catches.
+	 */
+	@Override
+	public long getConflationKey()
+	{
+		return conflationKey( entityID.getPackedId(), radioId );
+	}
+
+	/**
+	 * Our keys can collide, so check that the other PDU really is about the same radio.
+	 */
+	@Override
+	public boolean conflatesWith( PDU older )
+	{
+		if( older instanceof TransmitterPdu == false )
+			return false;
+
+		TransmitterPdu other = (TransmitterPdu)older;
+		return radioId == other.radioId && entityID.equals( other.entityID );
+	}
 	
 	public void setEntityId( EntityId id )
 	{
@@ -412,4 +503,16 @@ public class TransmitterPdu extends PDU
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+	/**
+	 * @return The conflation key for a Transmitter PDU about the given radio. See
+	 *         {@link #getConflationKey()}.
+	 */
+	public static long conflationKey( long packedEntityId, int radioId )
+	{
+		long h = (packedEntityId << 16) | (radioId & 0xffff);
+		h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+		h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		h ^= (h >>> 33);
+		return ((long)PduType.Transmitter.value() << 56) | (h >>> 8);
+	}
 }
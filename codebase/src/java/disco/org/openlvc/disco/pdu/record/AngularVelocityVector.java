@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.DisSizes;
@@ -103,6 +104,14 @@ public class AngularVelocityVector implements IPduComponent, Cloneable
 		rateAboutZAxis = dis.readFloat();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		rateAboutXAxis = buffer.readFloat();
+		rateAboutYAxis = buffer.readFloat();
+		rateAboutZAxis = buffer.readFloat();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -110,6 +119,14 @@ public class AngularVelocityVector implements IPduComponent, Cloneable
 		dos.writeFloat( rateAboutYAxis );
 		dos.writeFloat( rateAboutZAxis );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeFloat( rateAboutXAxis );
+		buffer.writeFloat( rateAboutYAxis );
+		buffer.writeFloat( rateAboutZAxis );
+    }
 	
 	@Override
     public int getByteLength()
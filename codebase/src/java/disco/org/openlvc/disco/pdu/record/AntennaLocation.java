@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -108,12 +109,26 @@ public class AntennaLocation implements IPduComponent, Cloneable
 		relativeAntennaLocation.from( dis );
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		antennaLocation.from( buffer );
+		relativeAntennaLocation.from( buffer );
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
 		antennaLocation.to( dos );
 		relativeAntennaLocation.to( dos );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		antennaLocation.to( buffer );
+		relativeAntennaLocation.to( buffer );
+    }
 	
 	@Override
     public final int getByteLength()
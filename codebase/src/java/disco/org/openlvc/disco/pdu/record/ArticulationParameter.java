@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.DisSizes;
@@ -125,6 +126,16 @@ public class ArticulationParameter implements IPduComponent, Cloneable
 		parameterValue = dis.readLong();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		typeDesignator = ParameterTypeDesignator.fromValue( buffer.readUI8() );
+		changeIndicator = buffer.readUI8();
+		attachedTo = buffer.readUI16();
+		parameterType.setInt( buffer.readInt() );
+		parameterValue = buffer.readLong();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -134,6 +145,16 @@ public class ArticulationParameter implements IPduComponent, Cloneable
 		dos.writeInt( parameterType.getInt() );
 		dos.writeLong( parameterValue );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeUI8( typeDesignator.value() );
+		buffer.writeUI8( changeIndicator );
+		buffer.writeUI16( attachedTo );
+		buffer.writeInt( parameterType.getInt() );
+		buffer.writeLong( parameterValue );
+    }
 	
 	@Override
     public int getByteLength()
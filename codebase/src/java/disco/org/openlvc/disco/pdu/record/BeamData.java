@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.IOException;
 import java.util.Objects;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -121,6 +122,16 @@ public class BeamData implements IPduComponent, Cloneable
 		this.sweepSync = dis.readFloat();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		this.azimuthCenter = buffer.readFloat();
+		this.azimuthSweep = buffer.readFloat();
+		this.elevationCenter = buffer.readFloat();
+		this.elevationSweep = buffer.readFloat();
+		this.sweepSync = buffer.readFloat();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -130,6 +141,17 @@ public class BeamData implements IPduComponent, Cloneable
 		dos.writeFloat( this.elevationSweep );
 		dos.writeFloat( this.sweepSync );
 
+    }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeFloat( this.azimuthCenter );
+		buffer.writeFloat( this.azimuthSweep );
+		buffer.writeFloat( this.elevationCenter );
+		buffer.writeFloat( this.elevationSweep );
+		buffer.writeFloat( this.sweepSync );
+
     }
 	
 	@Override
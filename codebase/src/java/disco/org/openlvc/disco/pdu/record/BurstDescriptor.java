@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -108,6 +109,16 @@ public class BurstDescriptor implements IPduComponent, Cloneable
 		rate     = dis.readUI16();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		munition.from( buffer );
+		warhead  = Warhead.fromValue( buffer.readUI16() );
+		fuse     = Fuse.fromValue( buffer.readUI16() );
+		quantity = buffer.readUI16();
+		rate     = buffer.readUI16();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -117,6 +128,16 @@ public class BurstDescriptor implements IPduComponent, Cloneable
 		dos.writeUI16( quantity );
 		dos.writeUI16( rate );
 	}
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		munition.to( buffer );
+		buffer.writeUI16( warhead.value() );
+		buffer.writeUI16( fuse.value() );
+		buffer.writeUI16( quantity );
+		buffer.writeUI16( rate );
+	}
 	
 	@Override
 	public final int getByteLength()
@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -85,6 +86,13 @@ public class ClockTime implements IPduComponent, Cloneable
 		this.timePastTheHour = dis.readUI32();
 	}
 
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		this.hours = buffer.readInt();
+		this.timePastTheHour = buffer.readUI32();
+	}
+
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
 	{
@@ -92,6 +100,13 @@ public class ClockTime implements IPduComponent, Cloneable
 		dos.writeUI32( this.timePastTheHour );
 	}
 
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		buffer.writeInt( this.hours );
+		buffer.writeUI32( this.timePastTheHour );
+	}
+
 	@Override
 	public final int getByteLength()
 	{
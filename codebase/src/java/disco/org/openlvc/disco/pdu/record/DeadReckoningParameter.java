@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.IOException;
 import java.util.Arrays;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -118,6 +119,15 @@ public class DeadReckoningParameter implements IPduComponent, Cloneable
 		entityAngularVelocity.from( dis );
 	}
 
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		deadReckoningAlgorithm = DeadReckoningAlgorithm.fromValue( buffer.readUI8() );
+		buffer.readFully( deadReckoningOtherParameters );
+		entityLinearAcceleration.from( buffer );
+		entityAngularVelocity.from( buffer );
+	}
+
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
 	{
@@ -126,6 +136,15 @@ public class DeadReckoningParameter implements IPduComponent, Cloneable
 		entityLinearAcceleration.to( dos );
 		entityAngularVelocity.to( dos );
 	}
+
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		buffer.writeUI8( deadReckoningAlgorithm.value() );
+		buffer.write( deadReckoningOtherParameters );
+		entityLinearAcceleration.to( buffer );
+		entityAngularVelocity.to( buffer );
+	}
 	
 	@Override
 	public final int getByteLength()
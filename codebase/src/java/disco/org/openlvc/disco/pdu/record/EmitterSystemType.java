@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.IOException;
 import java.util.Objects;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -111,6 +112,14 @@ public class EmitterSystemType implements IPduComponent, Cloneable
 		number = dis.readUI8();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		name = buffer.readUI16();
+		function = EmitterSystemFunction.fromValue( buffer.readUI8() );
+		number = buffer.readUI8();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -118,6 +127,14 @@ public class EmitterSystemType implements IPduComponent, Cloneable
 		dos.writeUI8( function.value() );
 		dos.writeUI8( number );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeUI16( name );
+		buffer.writeUI8( function.value() );
+		buffer.writeUI8( number );
+    }
 	
 	@Override
     public final int getByteLength()
@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.EOFException;
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -120,6 +121,19 @@ public class EncodingScheme implements IPduComponent, Cloneable
 		this.encodingType = EncodingType.fromValue( encodingTypeValue );
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		int ch1 = buffer.readUI8();
+		int ch2 = buffer.readUI8();
+		
+		// Encoding class is held in the top two bits, encoding type is the rest
+		byte encodingClassValue = (byte)((ch1 & 0xC0) >> 6);
+		short encodingTypeValue = (short)(((ch1 & 0x3F) << 8) + ch2);
+		this.encodingClass = EncodingClass.fromValue( encodingClassValue );
+		this.encodingType = EncodingType.fromValue( encodingTypeValue );
+    }
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -135,6 +149,19 @@ public class EncodingScheme implements IPduComponent, Cloneable
 	    dos.write( ch1 );
 	    dos.write( ch2 );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		// Encoding class is held in the top two bits, encoding type is the rest
+		byte encodingClassValue = encodingClass.value();
+		short encodingTypeValue = encodingType.value();
+	    int ch1 = ((encodingClassValue & 0x03) << 6) | ((encodingTypeValue & 0x3F00) >> 8);
+	    int ch2 = encodingTypeValue & 0xFF;
+	    
+	    buffer.writeByte( ch1 );
+	    buffer.writeByte( ch2 );
+    }
 	
 	@Override
     public final int getByteLength()
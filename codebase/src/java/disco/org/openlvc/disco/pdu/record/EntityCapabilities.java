@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.EOFException;
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.DisSizes;
@@ -116,6 +117,21 @@ public class EntityCapabilities implements IPduComponent, Cloneable
 		adsb = (ch1 & 0x10) != 0;
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		int ch1 = buffer.readInt();
+		
+		if( ch1 < 0 )
+			throw new EOFException();		
+		
+		ammunitionSupply = (ch1 & 0x01) != 0;
+		fuelSupply = (ch1 & 0x02) != 0;
+		recovery = (ch1 & 0x04) != 0;
+		repair = (ch1 & 0x08) != 0;
+		adsb = (ch1 & 0x10) != 0;
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -139,6 +155,29 @@ public class EntityCapabilities implements IPduComponent, Cloneable
 		dos.writeInt( ch1 );
 	}
 
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		int ch1 = 0;
+		
+		if( ammunitionSupply )
+			ch1 |= 0x01;
+		
+		if( fuelSupply )
+			ch1 |= 0x02;
+		
+		if( recovery )
+			ch1 |= 0x04;
+		
+		if( repair )
+			ch1 |= 0x08;
+		
+		if ( adsb )
+			ch1 |= 0x10;
+		
+		buffer.writeInt( ch1 );
+	}
+
 	@Override
     public final int getByteLength()
 	{
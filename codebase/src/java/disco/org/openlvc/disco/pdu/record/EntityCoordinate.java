@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -102,6 +103,14 @@ public class EntityCoordinate implements IPduComponent, Cloneable
 		z = dis.readFloat();
 	}
 
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		x = buffer.readFloat();
+		y = buffer.readFloat();
+		z = buffer.readFloat();
+	}
+
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
 	{
@@ -110,6 +119,14 @@ public class EntityCoordinate implements IPduComponent, Cloneable
 		dos.writeFloat( z );
 	}
 
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		buffer.writeFloat( x );
+		buffer.writeFloat( y );
+		buffer.writeFloat( z );
+	}
+
 	@Override
 	public final int getByteLength()
 	{
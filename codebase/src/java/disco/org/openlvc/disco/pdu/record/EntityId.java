@@ -18,7 +18,9 @@
 package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -92,31 +94,12 @@ public class EntityId implements IPduComponent, Cloneable
 	@Override
 	public int hashCode()
 	{
-		// Limitations: Max Site & App IDs == 255 :(
-		
-		// -------------------------------------------------------------------------
-		// Shift Hash: Anything over 255 for Site/App ID will be 0
-		// -------------------------------------------------------------------------
-		// For Site & App ID: Clear out high-24 bits, then move into top two octet slots
-		// For EntityID     : Clear out high-16 bits and keep in the bottom two octet slots
-		//
-		//return ((siteId  & 255) << 24) + // &255 cleans out high-24, then we move low 8 to top slot
-		//       ((appId   & 255) << 16) + // &255 cleans out high-24, then we move low 8 to 2nd slot
-		//       (entityId & 65535);       // &65535 cleans out high-16, and we keep the low 16
-		
-		// -------------------------------------------------------------------------
-		// Modulo Hash: Anything over 255 for Site/App ID will wrap (256=0, 257=1, ...)
-		// -------------------------------------------------------------------------
-		// First, we wrap the Site and App IDs back around to something below 256.
-		// This also has the effect of clearly out the high-24 bits
-		//
-		// Second, we move them into the top and second-top octet slots
-		//
-		// Finally, we clean out the high-16 bits for the Entity ID and keep them
-		//
-		int siteId = this.siteId % 256;
-		int appId = this.appId % 256;
-		return (siteId << 24) + (appId << 16) + (entityId & 65535);
+		// All 48 bits of site/app/entity go into the hash. The old approach of keeping only the
+		// low 8 bits of the site and app ids (site%256, app%256) meant exercises with many sites
+		// piled up in a handful of buckets. Multiplying by the golden ratio constant and folding
+		// the top half down means every input bit affects the result.
+		long hash = getPackedId() * 0x9E3779B97F4A7C15L;
+		return (int)(hash ^ (hash >>> 32));
 	}
 
 	/**
@@ -172,6 +155,14 @@ public class EntityId implements IPduComponent, Cloneable
 		entityId = dis.readUI16();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		siteId = buffer.readUI16();
+		appId  = buffer.readUI16();
+		entityId = buffer.readUI16();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -179,6 +170,14 @@ public class EntityId implements IPduComponent, Cloneable
 		dos.writeUI16( appId );
 		dos.writeUI16( entityId );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeUI16( siteId );
+		buffer.writeUI16( appId );
+		buffer.writeUI16( entityId );
+    }
 	
 	@Override
     public final int getByteLength()
@@ -249,8 +248,59 @@ public class EntityId implements IPduComponent, Cloneable
 		return siteId+"-"+appId;
 	}
 
+	/**
+	 * @return The site, app and entity ids packed into the low 48 bits of a long. See
+	 *         {@link #pack(int, int, int)}.
+	 */
+	public long getPackedId()
+	{
+		return pack( siteId, appId, entityId );
+	}
+
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+	/**
+	 * Pack an entity id into a long: site in bits 32-47, app in bits 16-31 and entity in bits
+	 * 0-15. Two ids are equal exactly when their packed forms are equal, so the packed form can
+	 * be used as a map key without having to create (or hash) an {@link EntityId}.
+	 */
+	public static long pack( int siteId, int appId, int entityId )
+	{
+		return ((long)(siteId & 0xffff) << 32) | ((long)(appId & 0xffff) << 16) | (entityId & 0xffff);
+	}
+
+	/**
+	 * Pack the entity id that is encoded (big-endian site, app, entity) at the given offset of
+	 * the array. Lets a received packet be matched against stored entities before, or without,
+	 * decoding it.
+	 */
+	public static long pack( byte[] bytes, int offset )
+	{
+		return ((long)(((bytes[offset]   & 0xff) << 8) | (bytes[offset+1] & 0xff)) << 32) |
+		       ((long)(((bytes[offset+2] & 0xff) << 8) | (bytes[offset+3] & 0xff)) << 16) |
+		       (((bytes[offset+4] & 0xff) << 8) | (bytes[offset+5] & 0xff));
+	}
+
+	/**
+	 * Pack the entity id that is encoded at the given absolute index of the buffer. The buffer's
+	 * position is not changed.
+	 */
+	public static long pack( ByteBuffer buffer, int index )
+	{
+		return ((long)(buffer.getShort(index)   & 0xffff) << 32) |
+		       ((long)(buffer.getShort(index+2) & 0xffff) << 16) |
+		       (buffer.getShort(index+4) & 0xffff);
+	}
+
+	/**
+	 * @return A new {@link EntityId} from a packed id. See {@link #pack(int, int, int)}.
+	 */
+	public static EntityId unpack( long packed )
+	{
+		return new EntityId( (int)(packed >>> 32) & 0xffff,
+		                     (int)(packed >>> 16) & 0xffff,
+		                     (int)packed & 0xffff );
+	}
 
 }
@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.IOException;
 import java.util.StringTokenizer;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -188,6 +189,18 @@ public class EntityType implements IPduComponent, Cloneable
 		extra = dis.readUI8();
 	}
 
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		kind = buffer.readUI8();
+		domain = buffer.readUI8();
+		country = buffer.readUI16();
+		category = buffer.readUI8();
+		subcategory = buffer.readUI8();
+		specific = buffer.readUI8();
+		extra = buffer.readUI8();
+	}
+
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
 	{
@@ -200,6 +213,18 @@ public class EntityType implements IPduComponent, Cloneable
 		dos.writeUI8( extra );
 	}
 
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		buffer.writeUI8( kind );
+		buffer.writeUI8( domain );
+		buffer.writeUI16( country );
+		buffer.writeUI8( category );
+		buffer.writeUI8( subcategory );
+		buffer.writeUI8( specific );
+		buffer.writeUI8( extra );
+	}
+
 	@Override
 	public final int getByteLength()
 	{
@@ -220,6 +245,23 @@ public class EntityType implements IPduComponent, Cloneable
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return All seven fields packed into a long, in the same order and widths as they are on
+	 *         the wire: kind in the top 8 bits, then domain (8), country (16), category (8),
+	 *         subcategory (8), specific (8) and extra in the bottom 8. Two types are equal
+	 *         exactly when their packed forms are.
+	 */
+	public long getPackedType()
+	{
+		return ((kind        & 0xffL)   << 56) |
+		       ((domain      & 0xffL)   << 48) |
+		       ((country     & 0xffffL) << 32) |
+		       ((category    & 0xffL)   << 24) |
+		       ((subcategory & 0xffL)   << 16) |
+		       ((specific    & 0xffL)   << 8) |
+		        (extra       & 0xffL);
+	}
+
 	public short getKind()
 	{
 		return kind;
@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.DisSizes;
@@ -98,6 +99,14 @@ public class EulerAngles implements IPduComponent, Cloneable
 		phi = dis.readFloat();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		psi = buffer.readFloat();
+		theta = buffer.readFloat();
+		phi = buffer.readFloat();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -105,6 +114,14 @@ public class EulerAngles implements IPduComponent, Cloneable
 		dos.writeFloat( theta );
 		dos.writeFloat( phi );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeFloat( psi );
+		buffer.writeFloat( theta );
+		buffer.writeFloat( phi );
+    }
 	
 	@Override
     public int getByteLength()
@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -96,6 +97,13 @@ public class EventIdentifier implements IPduComponent, Cloneable
 		eventID = dis.readUI16();
 	}
 
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		simulationAddress.from( buffer );
+		eventID = buffer.readUI16();
+	}
+
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
 	{
@@ -103,6 +111,13 @@ public class EventIdentifier implements IPduComponent, Cloneable
 		dos.writeUI16( eventID );
 	}
 
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		simulationAddress.to( buffer );
+		buffer.writeUI16( eventID );
+	}
+
 	@Override
 	public final int getByteLength()
 	{
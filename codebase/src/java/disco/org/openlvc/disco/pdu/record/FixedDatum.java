@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -93,12 +94,26 @@ public class FixedDatum implements IPduComponent, Cloneable
 		this.datumValue = dis.readUI32();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		this.datumId = buffer.readUI32();
+		this.datumValue = buffer.readUI32();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
 		dos.writeUI32( this.datumId );
 		dos.writeUI32( this.datumValue );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeUI32( this.datumId );
+		buffer.writeUI32( this.datumValue );
+    }
 	
 	@Override
     public final int getByteLength()
@@ -21,6 +21,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.util.Objects;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.DisSizes;
@@ -115,6 +116,19 @@ public class FrozenBehavior implements IPduComponent, Cloneable
 		processUpdates = (ch1 & 0x04) != 0;
 	}
 
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		short ch1 = buffer.readUI8();
+		
+		if( ch1 < 0 )
+			throw new EOFException();
+		
+		runSimulationClock = (ch1 & 0x01) != 0;
+		transmitUpdates = (ch1 & 0x02) != 0;
+		processUpdates = (ch1 & 0x04) != 0;
+	}
+
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
 	{
@@ -132,6 +146,23 @@ public class FrozenBehavior implements IPduComponent, Cloneable
 		dos.writeUI8( ch1 );
 	}
 
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		short ch1 = 0;
+		
+		if( runSimulationClock )
+			ch1 |= 0x01;
+		
+		if( transmitUpdates )
+			ch1 |= 0x02;
+		
+		if( processUpdates )
+			ch1 |= 0x04;
+		
+		buffer.writeUI8( ch1 );
+	}
+
 	@Override
     public final int getByteLength()
 	{
@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.IOException;
 import java.util.Objects;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -125,6 +126,16 @@ public class FundamentalParameterData implements IPduComponent, Cloneable
 		this.pulseWidth = dis.readFloat();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		this.frequency = buffer.readFloat();
+		this.frequencyRange = buffer.readFloat();
+		this.radiatedPower = buffer.readFloat();
+		this.pulseRepetitionFrequency = buffer.readFloat();
+		this.pulseWidth = buffer.readFloat();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -134,6 +145,17 @@ public class FundamentalParameterData implements IPduComponent, Cloneable
 		dos.writeFloat( this.pulseRepetitionFrequency );
 		dos.writeFloat( this.pulseWidth );
 
+    }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeFloat( this.frequency );
+		buffer.writeFloat( this.frequencyRange );
+		buffer.writeFloat( this.radiatedPower );
+		buffer.writeFloat( this.pulseRepetitionFrequency );
+		buffer.writeFloat( this.pulseWidth );
+
     }
 	
 	@Override
@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.IOException;
 import java.util.Objects;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -112,6 +113,15 @@ public class JammingTechnique implements IPduComponent, Cloneable
 		this.specific = dis.readUI8();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		this.kind = buffer.readUI8();
+		this.category = buffer.readUI8();
+		this.subcategory = buffer.readUI8();
+		this.specific = buffer.readUI8();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -120,6 +130,15 @@ public class JammingTechnique implements IPduComponent, Cloneable
 		dos.writeUI8( this.subcategory );
 		dos.writeUI8( this.specific );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeUI8( this.kind );
+		buffer.writeUI8( this.category );
+		buffer.writeUI8( this.subcategory );
+		buffer.writeUI8( this.specific );
+    }
 	
 	@Override
     public final int getByteLength()
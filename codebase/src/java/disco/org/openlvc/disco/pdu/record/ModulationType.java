@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.DisSizes;
@@ -150,6 +151,15 @@ public class ModulationType implements IPduComponent, Cloneable
 		system = ModulationSystem.fromValue( dis.readUI16() );
 	}
 
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		spreadSpectrum.from( buffer );
+		majorModulationType = MajorModulationType.fromValue( buffer.readUI16() );
+		detail = buffer.readUI16();
+		system = ModulationSystem.fromValue( buffer.readUI16() );
+	}
+
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
 	{
@@ -158,6 +168,15 @@ public class ModulationType implements IPduComponent, Cloneable
 		dos.writeUI16( detail );
 		dos.writeUI16( system.value() );
 	}
+
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		spreadSpectrum.to( buffer );
+		buffer.writeUI16( majorModulationType.value() );
+		buffer.writeUI16( detail );
+		buffer.writeUI16( system.value() );
+	}
 	
 	@Override
 	public final int getByteLength()
@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.field.PduType;
@@ -30,6 +31,9 @@ public class PduHeader
 	//----------------------------------------------------------
 	//                    STATIC VARIABLES
 	//----------------------------------------------------------
+	/** Size of an encoded PDU header in bytes */
+	public static final int HEADER_LENGTH = 12;
+
 	private static final byte[] PADDING_DEFAULT = new byte[] { 0,0 };
 	private static final byte[] PADDING_CUSTOM  = new byte[] { (byte)0xbe, (byte)0xef };
 
@@ -91,6 +95,22 @@ public class PduHeader
 		return this; // return ourselves so the method can be chained
 	}
 
+	/**
+	 * Buffer based version of {@link #from(DisInputStream)}.
+	 */
+	public PduHeader from( DisBuffer buffer ) throws IOException
+	{
+		this.version = ProtocolVersion.fromValue( buffer.readUI8() );
+		this.exerciseId = buffer.readUI8();
+		this.pduType = PduType.fromValue( buffer.readUI8() );
+		this.family = ProtocolFamily.fromValue( buffer.readUI8() );
+		this.timestamp = buffer.readUI32();
+		this.pduLength = buffer.readUI16(); // Length
+		buffer.skip16(); // padding bytes
+		
+		return this; // return ourselves so the method can be chained
+	}
+
 	/**
 	 * Write the contents of the PDU to the given output stream. We include the content
 	 * length of the 
@@ -113,9 +133,26 @@ public class PduHeader
 		dos.write( paddingBytes ); // can be custom
 	}
 
+	/**
+	 * Buffer based version of {@link #to(DisOutputStream, int)}.
+	 */
+	public void to( DisBuffer buffer, int contentLength ) throws IOException
+	{
+		int totalLength = getHeaderLength() + contentLength;
+		
+		buffer.writeUI8( this.version.value() );
+		buffer.writeUI8( exerciseId );
+		buffer.writeUI8( pduType.value() );
+		buffer.writeUI8( family.value() );
+		buffer.writeUI32( timestamp );
+
+		buffer.writeUI16( totalLength );
+		buffer.write( paddingBytes ); // can be custom
+	}
+
 	public final int getHeaderLength()
 	{
-		return 12;
+		return HEADER_LENGTH;
 	}
 
 	@Override
@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -121,6 +122,17 @@ public class RadioEntityType implements IPduComponent, Cloneable
         nomenclature = dis.readUI16();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		entityKind = EntityKind.fromValue( buffer.readUI8() );
+		domain = Domain.fromValue( buffer.readUI8() );
+		country = Country.fromValue( buffer.readUI16() );
+        category = buffer.readUI8();
+        nomenclatureVersion = buffer.readUI8();
+        nomenclature = buffer.readUI16();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -131,6 +143,17 @@ public class RadioEntityType implements IPduComponent, Cloneable
 		dos.writeUI8( nomenclatureVersion );
 		dos.writeUI16( nomenclature );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeUI8( entityKind.value() );
+		buffer.writeUI8( domain.value() );
+		buffer.writeUI16( country.value() );
+		buffer.writeUI8( category );
+		buffer.writeUI8( nomenclatureVersion );
+		buffer.writeUI16( nomenclature );
+    }
 	
 	@Override
     public final int getByteLength()
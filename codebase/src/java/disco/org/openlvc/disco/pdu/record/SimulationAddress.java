@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -94,12 +95,26 @@ public class SimulationAddress implements IPduComponent, Cloneable
 		applicationIdentifier = dis.readUI16();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		siteIdentifier = buffer.readUI16();
+		applicationIdentifier = buffer.readUI16();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
 		dos.writeUI16( siteIdentifier );
 		dos.writeUI16( applicationIdentifier );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeUI16( siteIdentifier );
+		buffer.writeUI16( applicationIdentifier );
+    }
 	
 	@Override
     public final int getByteLength()
@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.IOException;
 import java.util.Objects;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -108,6 +109,14 @@ public class TrackJamData implements IPduComponent, Cloneable
 		this.beamNumber = dis.readUI8();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		target.from( buffer );
+		this.emitterNumber = buffer.readUI8();
+		this.beamNumber = buffer.readUI8();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -115,6 +124,14 @@ public class TrackJamData implements IPduComponent, Cloneable
 		dos.writeUI8( this.emitterNumber );
 		dos.writeUI8( this.beamNumber );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		target.to( buffer );
+		buffer.writeUI8( this.emitterNumber );
+		buffer.writeUI8( this.beamNumber );
+    }
 	
 	@Override
     public final int getByteLength()
@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.IOException;
 import java.util.Arrays;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -108,6 +109,23 @@ public class VariableDatum implements IPduComponent, Cloneable
 		setDatumValue( value );
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		this.datumId = buffer.readUI32();
+		
+		int lengthInBits = (int)buffer.readUI32();
+		int lengthInBytes = lengthInBits / 8;
+		byte[] value = new byte[lengthInBytes];
+		buffer.readFully( value );
+		
+		int paddingDelta = lengthInBytes % 8;
+		if( paddingDelta > 0 )
+			buffer.skip( 8 - paddingDelta );
+		
+		setDatumValue( value );
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -118,6 +136,17 @@ public class VariableDatum implements IPduComponent, Cloneable
 		dos.write( this.datumValue );
 		dos.write( this.datumPadding );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeUI32( datumId );
+		buffer.writeUI32( getDatumLengthInBits() );
+
+		// write the value and padding to round it out to 64-bit boundary
+		buffer.write( this.datumValue );
+		buffer.write( this.datumPadding );
+    }
 	
 	@Override
     public final int getByteLength()
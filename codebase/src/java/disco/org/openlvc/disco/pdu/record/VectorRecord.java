@@ -20,6 +20,7 @@ package org.openlvc.disco.pdu.record;
 import java.io.IOException;
 import java.util.Objects;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -106,6 +107,14 @@ public class VectorRecord implements IPduComponent, Cloneable
 		thirdComponent = dis.readFloat();
     }
 
+	@Override
+    public void from( DisBuffer buffer ) throws IOException
+    {
+		firstComponent = buffer.readFloat();
+		secondComponent = buffer.readFloat();
+		thirdComponent = buffer.readFloat();
+    }
+
 	@Override
     public void to( DisOutputStream dos ) throws IOException
     {
@@ -113,6 +122,14 @@ public class VectorRecord implements IPduComponent, Cloneable
 		dos.writeFloat( secondComponent );
 		dos.writeFloat( thirdComponent );
     }
+
+	@Override
+    public void to( DisBuffer buffer ) throws IOException
+    {
+		buffer.writeFloat( firstComponent );
+		buffer.writeFloat( secondComponent );
+		buffer.writeFloat( thirdComponent );
+    }
 	
 	@Override
 	public final int getByteLength()
@@ -19,6 +19,7 @@ package org.openlvc.disco.pdu.record;
 
 import java.io.IOException;
 
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.DisInputStream;
 import org.openlvc.disco.pdu.DisOutputStream;
 import org.openlvc.disco.pdu.IPduComponent;
@@ -126,6 +127,14 @@ public class WorldCoordinate implements IPduComponent, Cloneable
 		y = dis.readDouble();
 		z = dis.readDouble();
 	}
+
+	@Override
+	public void from( DisBuffer buffer ) throws IOException
+	{
+		x = buffer.readDouble();
+		y = buffer.readDouble();
+		z = buffer.readDouble();
+	}
 	
 	@Override
 	public void to( DisOutputStream dos ) throws IOException
@@ -134,6 +143,14 @@ public class WorldCoordinate implements IPduComponent, Cloneable
 		dos.writeDouble( y );
 		dos.writeDouble( z );
 	}
+
+	@Override
+	public void to( DisBuffer buffer ) throws IOException
+	{
+		buffer.writeDouble( x );
+		buffer.writeDouble( y );
+		buffer.writeDouble( z );
+	}
 	
 	@Override
 	public final int getByteLength()
@@ -115,12 +115,12 @@ public class FirePdu extends PDU
 	@Override
 	public final int getContentLength()
 	{
-		return 78;
+		return 84;
 
 		// int size = firingEntityID.getByteLength();          // 6
 		// size += targetEntityID.getByteLength();             // 6
 		// size += munitionID.getByteLength();                 // 6
-		// size += eventID.getByteLength();
+		// size += eventID.getByteLength();                    // 6
 
 		// size += DisSizes.UI32_SIZE;	// Fire Mission Index  // 4
 		// size += locationInWorld.getByteLength();            // 24
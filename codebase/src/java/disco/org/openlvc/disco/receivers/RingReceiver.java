@@ -0,0 +1,259 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.receivers;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.OpsCenter;
+import org.openlvc.disco.PduReceiver;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.utils.BufferPool;
+import org.openlvc.disco.utils.RingBuffer;
+
+/**
+ * Same model as the {@link SingleThreadReceiver}, with incoming packets queued and processed
+ * on a single separate thread, but the hand-off is through a preallocated, lock-free
+ * {@link RingBuffer} rather than a <code>LinkedBlockingQueue</code>. Nothing is allocated
+ * and no locks are taken to get a packet from the network thread to the processing thread.
+ * <p/>
+ * The ring is single-producer, which matches a connection with one receive thread, unless the
+ * UDP connection has been configured with several receive threads. If the ring is full when a
+ * packet arrives, the packet is dropped and counted.
+ * <p/>
+ * The ring size and how the processing thread waits for work are set with
+ * {@link DiscoConfiguration#setRingBufferSize(int)} and
+ * {@link DiscoConfiguration#setRingWaitStrategy(RingBuffer.WaitStrategy)}.
+ */
+public class RingReceiver extends PduReceiver
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private RingBuffer<ByteBuffer> receiveRing;
+	private ReceiverThread receiveThread;
+	private AtomicLong droppedPackets;
+	private BufferPool bufferPool; // pool that incoming direct buffers should be returned to
+
+	// Monitoring
+	private long totalProcessNanos;
+	private long avgProcessNanos;
+	private long packetsProcessed;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	public RingReceiver( OpsCenter opscenter )
+	{
+		super( opscenter );
+
+		DiscoConfiguration configuration = opscenter.getConfiguration();
+		boolean multiProducer = configuration.getUdpConfiguration().getReceiverThreads() > 1;
+		this.receiveRing = new RingBuffer<>( configuration.getRingBufferSize(),
+		                                     multiProducer,
+		                                     configuration.getRingWaitStrategy() );
+		this.receiveThread = null;                 // set in open()
+		this.droppedPackets = new AtomicLong( 0 ); // reset in open()
+		this.bufferPool = null;                    // set on first pooled receive()
+
+		this.totalProcessNanos = 0;
+		this.avgProcessNanos = 0;
+		this.packetsProcessed = 0;
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+	@Override
+	public void receive( byte[] array )
+	{
+		if( isFiltered(array) )
+			return;
+
+		if( receiveRing.offer(ByteBuffer.wrap(array)) == false )
+		{
+			droppedPackets.incrementAndGet();
+			discarded( array );
+		}
+	}
+
+	/**
+	 * Queue the pooled buffer as-is. The receiver thread will return it to the pool once it
+	 * has been deserialized.
+	 */
+	@Override
+	public void receive( ByteBuffer packet, BufferPool pool )
+	{
+		// only ever one connection feeding us, so this is always the same pool; the ring
+		// handoff makes it visible to the receiver thread
+		this.bufferPool = pool;
+
+		if( isFiltered(packet) )
+		{
+			pool.release( packet );
+		}
+		else if( receiveRing.offer(packet) == false )
+		{
+			droppedPackets.incrementAndGet();
+			discarded( packet );
+			pool.release( packet );
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Lifecycle Methods   ////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public void open() throws DiscoException
+	{
+		this.droppedPackets.set( 0 );
+		this.receiveThread = new ReceiverThread();
+		this.receiveThread.start();
+	}
+
+	@Override
+	public void close() throws DiscoException
+	{
+		logger.info( "Received shutdown notice -- clearing recv ring (%d pdus)", receiveRing.size() );
+
+		try
+		{
+			this.receiveThread.interrupt();
+			this.receiveThread.join();
+		}
+		catch( InterruptedException ie )
+		{ /*ignore*/ }
+
+		// consumer has stopped, so we can safely drain whatever is left
+		ByteBuffer packet = null;
+		while( (packet = receiveRing.poll()) != null )
+		{
+			if( bufferPool != null )
+				bufferPool.release( packet );
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return Number of packets dropped because the ring was full when they arrived
+	 */
+	public long getDroppedPacketCount()
+	{
+		return droppedPackets.get();
+	}
+
+	/**
+	 * @return The most packets that have been waiting in the ring at once
+	 */
+	public long getHighWaterMark()
+	{
+		return receiveRing.getHighWaterMark();
+	}
+
+	public int getCapacity()
+	{
+		return receiveRing.capacity();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Monitoring Methods   ///////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public long getQueuedPacketCount()
+	{
+		return receiveRing.size();
+	}
+
+	@Override
+	public long getAvgProcessTimeNanos()
+	{
+		return avgProcessNanos;
+	}
+
+	@Override
+	public long getProcessedPacketCount()
+	{
+		return packetsProcessed;
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Class: ReceiverThread   ////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private class ReceiverThread extends Thread
+	{
+		public ReceiverThread()
+		{
+			super( "Disco-RingRecvThread" );
+		}
+
+		public void run()
+		{
+			List<PDU> batch = new ArrayList<>( MAX_BATCH );
+			while( Thread.interrupted() == false )
+			{
+				try
+				{
+					ByteBuffer packet = receiveRing.take();
+
+					// drain whatever else is already waiting, up to a batch worth
+					long nanoStart = System.nanoTime();
+					int count = 0;
+					do
+					{
+						PDU pdu = decode( packet, bufferPool );
+						if( pdu != null )
+							batch.add( pdu );
+
+						++count;
+					}
+					while( count < MAX_BATCH && (packet = receiveRing.poll()) != null );
+
+					deliver( batch );
+					long nanoTime = System.nanoTime() - nanoStart;
+
+					// take our metrics
+					packetsProcessed += count;
+					totalProcessNanos += nanoTime;
+					avgProcessNanos = totalProcessNanos / packetsProcessed;
+				}
+				catch( InterruptedException ie )
+				{
+					// time to shut down
+					return;
+				}
+				catch( Exception e )
+				{
+					logger.warn( "(PduRecv) Unknown exception while processing PDU, skipping it: "+e.getMessage(), e );
+				}
+			}
+		}
+	}
+}
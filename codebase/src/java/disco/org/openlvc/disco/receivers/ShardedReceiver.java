@@ -0,0 +1,361 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.receivers;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.IPduListener;
+import org.openlvc.disco.OpsCenter;
+import org.openlvc.disco.PduReceiver;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.utils.BufferPool;
+import org.openlvc.disco.utils.RingBuffer;
+
+/**
+ * Decodes and delivers packets on a number of worker threads in parallel, while still making
+ * sure that all the PDUs from any one entity are delivered in the order they arrived.
+ * <p/>
+ * Each worker has its own {@link RingBuffer}. When a packet arrives, a key is read straight from
+ * the raw bytes and used to pick the worker:
+ * <ul>
+ *   <li>EntityState, Emission, Transmitter and Signal PDUs all start their body with the id of
+ *       the entity that sent them. These are hashed on site/app/entity, so every PDU for a given
+ *       entity lands on the same worker and is handled strictly in order.</li>
+ *   <li>Everything else is dealt out round-robin.</li>
+ * </ul>
+ * Each worker decodes its packets and hands them to the {@link IPduListener} itself, in
+ * batches if the listener is an {@link org.openlvc.disco.IPduBatchListener}. This
+ * means <b>the listener will be called from several threads at once</b> and must be thread
+ * safe. It will never be called concurrently for two PDUs from the same entity, though.
+ * <p/>
+ * The number of workers defaults to the number of available processors and can be set with
+ * {@link DiscoConfiguration#setReceiverWorkerCount(int)}. Each worker ring is sized and waits
+ * according to the ring settings in {@link DiscoConfiguration}. Packets that arrive when their
+ * worker's ring is full are dropped and counted.
+ */
+public class ShardedReceiver extends PduReceiver
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int OFFSET_PDU_TYPE = 2;
+	private static final int OFFSET_ENTITY   = 12; // site(2), app(2), entity(2)
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private Worker[] workers;
+	private int nextWorker;          // round-robin for unkeyed PDUs; races are harmless
+	private BufferPool bufferPool;   // pool that incoming direct buffers should be returned to
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	public ShardedReceiver( OpsCenter opscenter )
+	{
+		super( opscenter );
+
+		DiscoConfiguration configuration = opscenter.getConfiguration();
+		int count = configuration.getReceiverWorkerCount();
+		this.workers = new Worker[count];
+		for( int i = 0; i < count; i++ )
+			this.workers[i] = new Worker( i, configuration );
+
+		this.nextWorker = 0;
+		this.bufferPool = null; // set on first pooled receive()
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+	@Override
+	public void receive( byte[] array )
+	{
+		if( isFiltered(array) )
+			return;
+
+		ByteBuffer packet = ByteBuffer.wrap( array );
+		Worker worker = workers[selectWorker(packet)];
+		if( worker.ring.offer(packet) == false )
+		{
+			worker.dropped.incrementAndGet();
+			discarded( array );
+		}
+	}
+
+	/**
+	 * Queue the pooled buffer as-is on the worker it belongs to. The worker will return it to
+	 * the pool once it has been deserialized.
+	 */
+	@Override
+	public void receive( ByteBuffer packet, BufferPool pool )
+	{
+		// all our connections share the one pool; the ring handoff makes it visible to workers
+		this.bufferPool = pool;
+
+		if( isFiltered(packet) )
+		{
+			pool.release( packet );
+			return;
+		}
+
+		Worker worker = workers[selectWorker(packet)];
+		if( worker.ring.offer(packet) == false )
+		{
+			worker.dropped.incrementAndGet();
+			discarded( packet );
+			pool.release( packet );
+		}
+	}
+
+	/**
+	 * Figure out which worker the packet between the buffer's position and limit belongs on.
+	 * The buffer is not modified.
+	 */
+	private int selectWorker( ByteBuffer packet )
+	{
+		if( workers.length == 1 )
+			return 0;
+
+		int start = packet.position();
+		if( packet.remaining() >= OFFSET_ENTITY+6 && isKeyed(packet.get(start+OFFSET_PDU_TYPE)) )
+		{
+			// site/app/entity packed into a long, then mixed so that sequential entity
+			// numbers spread evenly over the workers
+			long hash = EntityId.pack( packet, start+OFFSET_ENTITY ) * 0x9E3779B97F4A7C15L;
+			return (int)((hash >>> 33) % workers.length);
+		}
+
+		int next = nextWorker + 1;
+		if( next >= workers.length )
+			next = 0;
+
+		nextWorker = next;
+		return next;
+	}
+
+	private final boolean isKeyed( byte type )
+	{
+		return type == PduType.EntityState.value() ||
+		       type == PduType.Emission.value() ||
+		       type == PduType.Transmitter.value() ||
+		       type == PduType.Signal.value();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Lifecycle Methods   ////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public void open() throws DiscoException
+	{
+		for( Worker worker : workers )
+		{
+			worker.dropped.set( 0 );
+			worker.thread = new Thread( worker, "Disco-ShardRecv-"+worker.index );
+			worker.thread.start();
+		}
+	}
+
+	@Override
+	public void close() throws DiscoException
+	{
+		logger.info( "Received shutdown notice -- clearing %d recv rings (%d pdus)",
+		             workers.length, getQueuedPacketCount() );
+
+		for( Worker worker : workers )
+		{
+			if( worker.thread != null )
+				worker.thread.interrupt();
+		}
+
+		for( Worker worker : workers )
+		{
+			try
+			{
+				if( worker.thread != null )
+					worker.thread.join();
+			}
+			catch( InterruptedException ie )
+			{ /*ignore*/ }
+
+			// consumer has stopped, so we can safely drain whatever is left
+			ByteBuffer packet = null;
+			while( (packet = worker.ring.poll()) != null )
+			{
+				if( bufferPool != null )
+					bufferPool.release( packet );
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public int getWorkerCount()
+	{
+		return workers.length;
+	}
+
+	/**
+	 * @return Number of packets dropped across all workers because their ring was full
+	 */
+	public long getDroppedPacketCount()
+	{
+		long total = 0;
+		for( Worker worker : workers )
+			total += worker.dropped.get();
+
+		return total;
+	}
+
+	/**
+	 * @return The most packets that have been waiting on any single worker at once
+	 */
+	public long getHighWaterMark()
+	{
+		long highest = 0;
+		for( Worker worker : workers )
+			highest = Math.max( highest, worker.ring.getHighWaterMark() );
+
+		return highest;
+	}
+
+	/**
+	 * @return Number of packets processed by the given worker. Useful for checking how evenly
+	 *         the load is spread.
+	 */
+	public long getProcessedPacketCount( int worker )
+	{
+		return workers[worker].processed;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Monitoring Methods   ///////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	@Override
+	public long getQueuedPacketCount()
+	{
+		long total = 0;
+		for( Worker worker : workers )
+			total += worker.ring.size();
+
+		return total;
+	}
+
+	@Override
+	public long getAvgProcessTimeNanos()
+	{
+		long nanos = 0;
+		long packets = 0;
+		for( Worker worker : workers )
+		{
+			nanos += worker.totalProcessNanos;
+			packets += worker.processed;
+		}
+
+		return packets == 0 ? 0 : nanos / packets;
+	}
+
+	@Override
+	public long getProcessedPacketCount()
+	{
+		long total = 0;
+		for( Worker worker : workers )
+			total += worker.processed;
+
+		return total;
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Class: Worker   ////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private class Worker implements Runnable
+	{
+		private final int index;
+		private final RingBuffer<ByteBuffer> ring;
+		private final AtomicLong dropped;
+		private Thread thread;
+
+		// Monitoring, only written by the worker thread
+		private volatile long processed;
+		private volatile long totalProcessNanos;
+
+		public Worker( int index, DiscoConfiguration configuration )
+		{
+			this.index = index;
+			// multi-producer so that connections with several receive threads can feed us
+			this.ring = new RingBuffer<>( configuration.getRingBufferSize(),
+			                              true,
+			                              configuration.getRingWaitStrategy() );
+			this.dropped = new AtomicLong( 0 );
+			this.thread = null; // set in open()
+			this.processed = 0;
+			this.totalProcessNanos = 0;
+		}
+
+		public void run()
+		{
+			List<PDU> batch = new ArrayList<>( MAX_BATCH );
+			while( Thread.interrupted() == false )
+			{
+				try
+				{
+					ByteBuffer packet = ring.take();
+
+					// drain whatever else is already waiting, up to a batch worth
+					long nanoStart = System.nanoTime();
+					int count = 0;
+					do
+					{
+						PDU pdu = decode( packet, bufferPool );
+						if( pdu != null )
+							batch.add( pdu );
+
+						++count;
+					}
+					while( count < MAX_BATCH && (packet = ring.poll()) != null );
+
+					deliver( batch );
+
+					// take our metrics
+					totalProcessNanos += System.nanoTime() - nanoStart;
+					processed += count;
+				}
+				catch( InterruptedException ie )
+				{
+					// time to shut down
+					return;
+				}
+				catch( Exception e )
+				{
+					logger.warn( "(PduRecv) Unknown exception while processing PDU, skipping it: "+e.getMessage(), e );
+				}
+			}
+		}
+	}
+}
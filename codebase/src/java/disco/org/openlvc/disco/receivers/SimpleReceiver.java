@@ -18,11 +18,14 @@
 package org.openlvc.disco.receivers;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.openlvc.disco.DiscoException;
 import org.openlvc.disco.OpsCenter;
 import org.openlvc.disco.PduReceiver;
+import org.openlvc.disco.pdu.PDU;
 import org.openlvc.disco.pdu.UnsupportedPDU;
+import org.openlvc.disco.utils.BufferPool;
 
 public class SimpleReceiver extends PduReceiver
 {
@@ -54,9 +57,68 @@ public class SimpleReceiver extends PduReceiver
 	@Override
 	public void receive( byte[] array )
 	{
+		if( isFiltered(array) )
+			return;
+
+		try
+		{
+			PDU pdu = pduFactory.create( array );
+			clientListener.receive( pdu );
+			
+			// listener is done with it - hand it back for reuse (no-op unless recycling is on)
+			pduFactory.recycle( pdu );
+		}
+		catch( IOException ioex )
+		{
+			logger.warn( "(PduRecv) Problem deserializing PDU: "+ioex.getMessage(), ioex );
+		}
+		catch( UnsupportedPDU up )
+		{
+			// log and continue
+			if( logger.isTraceEnabled() )
+				logger.trace( "(PduRecv) Received unsupported PDU, skipping it: "+up.getMessage() );					
+		}
+		catch( DiscoException de )
+		{
+			// log and continue
+			if( logger.isDebugEnabled() )
+				logger.debug( "(PduRecv) Problem deserializing PDU, skipping it: "+de.getMessage(), de );
+		}
+		catch( Exception e )
+		{
+			logger.warn( "(PduRecv) Unknown exception while processing PDU, skipping it: "+e.getMessage(), e );
+		}
+	}
+
+	/**
+	 * Deserialize the PDU straight out of the pooled buffer, return the buffer to the pool and
+	 * then hand the PDU to the client application. As with {@link #receive(byte[])}, this will
+	 * block until the client is done with the PDU.
+	 */
+	@Override
+	public void receive( ByteBuffer packet, BufferPool pool )
+	{
+		if( isFiltered(packet) )
+		{
+			pool.release( packet );
+			return;
+		}
+
 		try
 		{
-			clientListener.receive( pduFactory.create(array) );
+			PDU pdu = null;
+			try
+			{
+				pdu = pduFactory.create( packet );
+			}
+			finally
+			{
+				// PDU doesn't hold on to the buffer, so it can go back as soon as we've decoded
+				pool.release( packet );
+			}
+
+			clientListener.receive( pdu );
+			pduFactory.recycle( pdu );
 		}
 		catch( IOException ioex )
 		{
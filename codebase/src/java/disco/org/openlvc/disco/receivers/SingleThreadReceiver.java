@@ -17,17 +17,28 @@
  */
 package org.openlvc.disco.receivers;
 
-import java.io.IOException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.openlvc.disco.DiscoException;
 import org.openlvc.disco.OpsCenter;
 import org.openlvc.disco.PduReceiver;
-import org.openlvc.disco.pdu.UnsupportedPDU;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.PduConflation;
+import org.openlvc.disco.utils.BufferPool;
+import org.openlvc.disco.utils.ConflatingQueue;
 
 /**
  * Places all incoming packets on a queue and processes them in a single, separate thread.
+ * <p/>
+ * The queue is bounded (see {@link DiscoConfiguration#getPduQueueSize()}). By default, packets
+ * that arrive when it is full are dropped. In conflating mode (see
+ * {@link DiscoConfiguration#getPduQueueOverflow()}) a state PDU replaces any undecoded packet
+ * for the same entity that is still waiting, keyed straight from the packet bytes with
+ * {@link PduConflation#keyOf(ByteBuffer)}. A slow listener then only ever sees the latest state
+ * of each entity rather than working through a backlog of stale ones. Events are never conflated.
  */
 public class SingleThreadReceiver extends PduReceiver
 {
@@ -38,9 +49,10 @@ public class SingleThreadReceiver extends PduReceiver
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
-	private BlockingQueue<byte[]> receiveQueue;
+	private ConflatingQueue<ByteBuffer> receiveQueue;
 	private ReceiverThread receiveThread;
 	private long droppedPackets;
+	private BufferPool bufferPool; // pool that incoming direct buffers should be returned to
 
 	// Monitoring
 	private long totalProcessNanos;
@@ -54,9 +66,14 @@ public class SingleThreadReceiver extends PduReceiver
 	{
 		super( opscenter );
 		
-		this.receiveQueue = new LinkedBlockingQueue<>();
+		DiscoConfiguration configuration = opscenter.getConfiguration();
+		this.receiveQueue = new ConflatingQueue<>( configuration.getPduQueueSize(),
+		                                           configuration.getPduQueueOverflow(),
+		                                           PduConflation::keyOf,
+		                                           PduConflation::conflatesWith );
 		this.receiveThread = null;   // set in open()
 		this.droppedPackets = 0;     // reset in open()
+		this.bufferPool = null;      // set on first pooled receive()
 
 		this.totalProcessNanos = 0;
 		this.avgProcessNanos = 0;
@@ -75,9 +92,53 @@ public class SingleThreadReceiver extends PduReceiver
 	@Override
 	public void receive( byte[] array )
 	{
-		boolean result = receiveQueue.offer( array );
+		// drop anything we don't want before it takes up space on the queue
+		if( isFiltered(array) )
+			return;
+
+		boolean result = receiveQueue.offer( ByteBuffer.wrap(array) );
 		if( !result )
+		{
 			++droppedPackets;
+			discarded( array );
+		}
+	}
+
+	/**
+	 * Queue the pooled buffer as-is. The receiver thread will return it to the pool once it
+	 * has been deserialized.
+	 */
+	@Override
+	public void receive( ByteBuffer packet, BufferPool pool )
+	{
+		// only ever one connection feeding us, so this is always the same pool; the queue
+		// handoff makes it visible to the receiver thread
+		this.bufferPool = pool;
+
+		if( isFiltered(packet) )
+		{
+			pool.release( packet );
+			return;
+		}
+
+		boolean result = receiveQueue.offer( packet );
+		if( !result )
+		{
+			++droppedPackets;
+			discarded( packet );
+			pool.release( packet );
+		}
+	}
+
+	/**
+	 * A packet was dropped or conflated out of the queue without being decoded. Called on the
+	 * thread that queued its replacement.
+	 */
+	private void evicted( ByteBuffer packet )
+	{
+		discarded( packet );
+		if( bufferPool != null )
+			bufferPool.release( packet );
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -87,6 +148,7 @@ public class SingleThreadReceiver extends PduReceiver
 	public void open() throws DiscoException
 	{
 		this.droppedPackets = 0;
+		this.receiveQueue.setEvictionListener( this::evicted ); // opened before any packets arrive
 		this.receiveThread = new ReceiverThread();
 		this.receiveThread.start();
 	}
@@ -121,9 +183,21 @@ public class SingleThreadReceiver extends PduReceiver
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return Number of packets that were thrown away because the queue was full
+	 */
 	public long getDroppedPacketCount()
 	{
-		return droppedPackets;
+		return droppedPackets + receiveQueue.getDroppedCount();
+	}
+
+	/**
+	 * @return Number of packets replaced by a newer one for the same entity before they were
+	 *         decoded. Only ever non-zero in conflating mode.
+	 */
+	public long getConflatedPacketCount()
+	{
+		return receiveQueue.getConflatedCount();
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -162,43 +236,41 @@ public class SingleThreadReceiver extends PduReceiver
 		
 		public void run()
 		{
+			List<PDU> batch = new ArrayList<>( MAX_BATCH );
 			while( Thread.interrupted() == false )
 			{
 				try
 				{
-					byte[] packet = receiveQueue.take();
-					
+					ByteBuffer packet = receiveQueue.take();
+
+					// drain whatever else is already waiting, up to a batch worth. Pooled
+					// buffers go back once decoded (wrapped byte[]s from the legacy path are
+					// ignored by the pool)
 					long nanoStart = System.nanoTime();
-					clientListener.receive( pduFactory.create(packet) );
+					int count = 0;
+					do
+					{
+						PDU pdu = decode( packet, bufferPool );
+						if( pdu != null )
+							batch.add( pdu );
+
+						++count;
+					}
+					while( count < MAX_BATCH && (packet = receiveQueue.poll()) != null );
+
+					deliver( batch );
 					long nanoTime = System.nanoTime() - nanoStart;
 
 					// take our metrics
-					++packetsProcessed;
+					packetsProcessed += count;
 					totalProcessNanos += nanoTime;
 					avgProcessNanos = totalProcessNanos / packetsProcessed;
 				}
-				catch( IOException ioex )
-				{
-					// warn about the error and move on to the next PDU
-					logger.warn( "(PduRecv) Problem deserializing PDU: "+ioex.getMessage(), ioex );
-				}
 				catch( InterruptedException ie )
 				{
 					// time to shut down
 					return;
 				}
-				catch( UnsupportedPDU up )
-				{
-					// log and continue
-					if( logger.isTraceEnabled() )
-						logger.trace( "(PduRecv) Received unsupported PDU, skipping it: "+up.getMessage() );					
-				}
-				catch( DiscoException de )
-				{
-					// log and continue
-					if( logger.isDebugEnabled() )
-						logger.debug( "(PduRecv) Problem deserializing PDU, skipping it: "+de.getMessage(), de );
-				}
 				catch( Exception e )
 				{
 					logger.warn( "(PduRecv) Unknown exception while processing PDU, skipping it: "+e.getMessage(), e );
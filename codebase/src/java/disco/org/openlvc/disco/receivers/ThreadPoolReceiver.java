@@ -18,6 +18,7 @@
 package org.openlvc.disco.receivers;
 
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -29,7 +30,7 @@ import org.openlvc.disco.DiscoException;
 import org.openlvc.disco.OpsCenter;
 import org.openlvc.disco.PduReceiver;
 import org.openlvc.disco.connection.IConnection;
-import org.openlvc.disco.pdu.DisInputStream;
+import org.openlvc.disco.pdu.DisBuffer;
 import org.openlvc.disco.pdu.PDU;
 import org.openlvc.disco.pdu.UnsupportedPDU;
 import org.openlvc.disco.pdu.record.PduHeader;
@@ -63,8 +64,8 @@ public class ThreadPoolReceiver extends PduReceiver implements RejectedExecution
 	private AtomicLong metricsTotalPdusReceived;
 	private AtomicLong metricsTotalPdusReceivedSize;
 	private AtomicLong metricsTotalPdusDropped;
-//	private AtomicLong metricsTotalPdusFiltered;
-//	private AtomicLong metricsTotalPdusFilteredSize;
+	private AtomicLong metricsTotalPdusFiltered;
+	private AtomicLong metricsTotalPdusFilteredSize;
 	private AtomicLong metricsTotalPdusDelivered;
 	private AtomicLong metricsTotalPdusDeliveredSize;
 
@@ -89,8 +90,8 @@ public class ThreadPoolReceiver extends PduReceiver implements RejectedExecution
 		this.metricsTotalPdusReceived      = new AtomicLong( 0 );
 		this.metricsTotalPdusReceivedSize  = new AtomicLong( 0 );
 		this.metricsTotalPdusDropped       = new AtomicLong( 0 );
-//		this.metricsTotalPdusFiltered      = new AtomicLong( 0 );
-//		this.metricsTotalPdusFilteredSize  = new AtomicLong( 0 );
+		this.metricsTotalPdusFiltered      = new AtomicLong( 0 );
+		this.metricsTotalPdusFilteredSize  = new AtomicLong( 0 );
 		this.metricsTotalPdusDelivered     = new AtomicLong( 0 );
 		this.metricsTotalPdusDeliveredSize = new AtomicLong( 0 );
 	}
@@ -127,6 +128,15 @@ public class ThreadPoolReceiver extends PduReceiver implements RejectedExecution
 	{
 		this.metricsTotalPdusReceived.incrementAndGet();
 		this.metricsTotalPdusReceivedSize.addAndGet( array.length );
+
+		// header filter runs here rather than in the ingest task so that dropped packets
+		// never take up space on the ingest queue
+		if( isFiltered(array) )
+		{
+			this.metricsTotalPdusFiltered.incrementAndGet();
+			this.metricsTotalPdusFilteredSize.addAndGet( array.length );
+			return;
+		}
 		
 		// create the task and submit to the executor
 		IngestTask ingestTask = new IngestTask( array );
@@ -139,7 +149,10 @@ public class ThreadPoolReceiver extends PduReceiver implements RejectedExecution
 	public void rejectedExecution( Runnable task, ThreadPoolExecutor executor )
 	{
 		if( executor == this.ingestExecutor )
+		{
 			metricsTotalPdusDropped.incrementAndGet();
+			discarded( ((IngestTask)task).buffer );
+		}
 	}
 	
 	//----------------------------------------------------------
@@ -157,31 +170,30 @@ public class ThreadPoolReceiver extends PduReceiver implements RejectedExecution
 		
 		public void run()
 		{
-			// wrap the buffer in a stream we can read from
-			DisInputStream instream = new DisInputStream( buffer );
+			// wrap the array in a buffer we can read from
+			DisBuffer disbuffer = new DisBuffer( buffer );
 			
 			// 1. Read off the header first
 			PduHeader header = new PduHeader();
 			try
 			{
-				header.from( instream );
+				header.from( disbuffer );
 			}
-			catch( IOException ioex )
+			catch( IOException | BufferUnderflowException ioex )
 			{
 				logger.error( "Error reading PDU Header, discarding packet", ioex );
 				return;
 			}
 			
 			// 2. First Filter
-			// Do we want to filter this based on any header values?
-			// TODO Implement
+			// Header values were already checked by the PduHeaderFilter in receive()
 			
 			// 3. Turn the bytes into a PDU
 			PDU pdu = null;
 			try
 			{
 				pdu = pduFactory.create( header );
-				pdu.from( instream );
+				pdu.from( disbuffer );
 			}
 			catch( UnsupportedPDU up )
 			{
@@ -0,0 +1,199 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.senders;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.OpsCenter;
+import org.openlvc.disco.PduSender;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.utils.RingBuffer;
+import org.openlvc.disco.utils.ThreadUtils;
+
+/**
+ * Same model as the {@link SingleThreadSender}, with PDUs queued and serialized/sent on a
+ * single separate thread, but the hand-off is through a preallocated, lock-free
+ * {@link RingBuffer} rather than a <code>LinkedBlockingQueue</code>.
+ * <p/>
+ * The ring is multi-producer, so any number of application threads can call
+ * {@link #send(PDU)}. Calls will wait (according to the configured wait strategy) when the
+ * ring is full.
+ */
+public class RingSender extends PduSender
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private RingBuffer<PDU> sendRing;
+	private Thread sendThread;
+
+	// Monitoring
+	private AtomicLong droppedPdus;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	public RingSender( OpsCenter opscenter )
+	{
+		super( opscenter );
+
+		DiscoConfiguration configuration = opscenter.getConfiguration();
+		this.sendRing = new RingBuffer<>( configuration.getRingBufferSize(),
+		                                  true,
+		                                  configuration.getRingWaitStrategy() );
+		this.sendThread = null; // set in open()
+		this.droppedPdus = new AtomicLong( 0 );
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+	public void send( PDU pdu )
+	{
+		try
+		{
+			sendRing.put( pdu );
+		}
+		catch( InterruptedException ie )
+		{
+			// we were told to stop waiting for space, so this one never made it
+			droppedPdus.incrementAndGet();
+			discarded( pdu );
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Lifecycle Methods   ////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Start the send thread. The OpsCenter never opens its sender, so {@link PduSender#create}
+	 * does this once the sender is fully constructed. Does nothing if already running.
+	 */
+	public void open() throws DiscoException
+	{
+		if( this.sendThread != null && this.sendThread.isAlive() )
+			return;
+
+		this.droppedPdus.set( 0 );
+		this.sendThread = new SendThread();
+		this.sendThread.start();
+	}
+
+	public void close() throws DiscoException
+	{
+		if( this.sendThread == null )
+			return;
+
+		// try to flush the ring
+		logger.info( "Received shutdown notice -- flushing send ring (%d pdus)", sendRing.size() );
+		long startWait = System.currentTimeMillis();
+		while( sendRing.isEmpty() == false && sendThread.isAlive() )
+			ThreadUtils.exceptionlessSleep( 100 );
+
+		logger.info( "Ring has been flushed. Took %d ms", System.currentTimeMillis()-startWait );
+
+		try
+		{
+			this.sendThread.interrupt();
+			this.sendThread.join();
+		}
+		catch( InterruptedException ie )
+		{ /*ignore*/ }
+
+		this.sendThread = null;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Monitoring Methods   ///////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public long getQueuedPduCount()
+	{
+		return sendRing.size();
+	}
+
+	/**
+	 * @return Number of PDUs that were never sent, either because the sending thread was
+	 *         interrupted while waiting for space, or because they failed to serialize
+	 */
+	public long getDroppedPduCount()
+	{
+		return droppedPdus.get();
+	}
+
+	/**
+	 * @return The most PDUs that have been waiting in the ring at once
+	 */
+	public long getHighWaterMark()
+	{
+		return sendRing.getHighWaterMark();
+	}
+
+	public int getCapacity()
+	{
+		return sendRing.capacity();
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Class: SendThread   ////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private class SendThread extends Thread
+	{
+		public SendThread()
+		{
+			super( "Disco-RingSendThread" );
+		}
+
+		public void run()
+		{
+			while( Thread.interrupted() == false )
+			{
+				PDU pdu = null;
+				try
+				{
+					pdu = sendRing.take();
+
+					// Send it off to the network
+					connection.send( pdu );
+				}
+				catch( InterruptedException ie )
+				{
+					// time to shut down
+					return;
+				}
+				catch( Exception ex )
+				{
+					// warn about the error and move on to the next PDU
+					droppedPdus.incrementAndGet();
+					discarded( pdu );
+					logger.warn( "Error trying to serialize PDU ("+pdu+"): "+ex.getMessage(), ex );
+				}
+			}
+		}
+	}
+}
@@ -52,11 +52,12 @@ public class SimpleSender extends PduSender
 	{
 		try
 		{
-			super.connection.send( pdu.toByteArray() );
+			super.connection.send( pdu );
 		}
 		catch( DiscoException ioex )
 		{
 			logger.warn( "(PduSend) Problem serializing PDU for sending: "+ioex.getMessage(), ioex );
+			discarded( pdu );
 		}
 	}
 
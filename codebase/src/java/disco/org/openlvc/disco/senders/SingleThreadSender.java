@@ -17,19 +17,24 @@
  */
 package org.openlvc.disco.senders;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-
 import org.openlvc.disco.DiscoException;
 import org.openlvc.disco.OpsCenter;
 import org.openlvc.disco.PduSender;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.connection.IConnection;
 import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.utils.ConflatingQueue;
 import org.openlvc.disco.utils.ThreadUtils;
 
 /**
  * Sender will queue messages for later sending and conversion on a different thread.
  * Sender contains a single thread to do that conversion and sending work.
- * Calls to {@link #send(PDU)} will block when the queue is full.
+ * <p/>
+ * What happens when the queue is full depends on {@link DiscoConfiguration#getPduQueueOverflow()}.
+ * By default calls to {@link #send(PDU)} will block. In conflating mode a state PDU replaces any
+ * unsent one for the same entity (see {@link PDU#getConflationKey()}), so a backed up queue only
+ * ever holds the latest state of each entity rather than minutes of stale updates. PDUs that are
+ * replaced or dropped are counted as discarded in the connection metrics.
  */
 public class SingleThreadSender extends PduSender
 {
@@ -40,7 +45,7 @@ public class SingleThreadSender extends PduSender
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
-	private BlockingQueue<PDU> sendQueue;
+	private ConflatingQueue<PDU> sendQueue;
 	private Thread sendThread;
 
 	//----------------------------------------------------------
@@ -50,7 +55,15 @@ public class SingleThreadSender extends PduSender
 	{
 		super( opscenter );
 		
-		this.sendQueue = new LinkedBlockingQueue<>(100000);
+		DiscoConfiguration configuration = opscenter.getConfiguration();
+		this.sendQueue = new ConflatingQueue<>( configuration.getPduQueueSize(),
+		                                        configuration.getPduQueueOverflow(),
+		                                        PDU::getConflationKey,
+		                                        PDU::conflatesWith );
+
+		// count evictions without handing out 'this' before we're fully constructed
+		IConnection connection = this.connection;
+		this.sendQueue.setEvictionListener( pdu -> discarded(connection,pdu) );
 		this.sendThread = new SendThread();
 		this.sendThread.start();
 	}
@@ -66,7 +79,9 @@ public class SingleThreadSender extends PduSender
 			sendQueue.put( pdu );
 		}
 		catch( InterruptedException ie )
-		{}
+		{
+			discarded( pdu );
+		}
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -98,6 +113,39 @@ public class SingleThreadSender extends PduSender
 	}
 	
 	
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Monitoring Methods   ///////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public long getQueuedPduCount()
+	{
+		return sendQueue.size();
+	}
+
+	/**
+	 * @return Number of PDUs that were replaced by a newer PDU for the same entity before they
+	 *         could be sent. Only ever non-zero in conflating mode.
+	 */
+	public long getConflatedPduCount()
+	{
+		return sendQueue.getConflatedCount();
+	}
+
+	/**
+	 * @return Number of PDUs dropped from the head of a full queue to make space
+	 */
+	public long getDroppedPduCount()
+	{
+		return sendQueue.getDroppedCount();
+	}
+
+	/**
+	 * @return How long the oldest unsent PDU has been waiting, in millis
+	 */
+	public long getQueueLagMillis()
+	{
+		return sendQueue.getOldestAgeMillis();
+	}
+
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
@@ -133,6 +181,7 @@ public class SingleThreadSender extends PduSender
 				{
 					// warn about the error and move on to the next PDU
 					logger.warn( "Error trying to serialize PDU ("+pdu+"): "+ex.getMessage(), ex );
+					discarded( pdu );
 				}
 			}
 		}
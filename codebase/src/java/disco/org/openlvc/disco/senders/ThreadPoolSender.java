@@ -17,29 +17,36 @@
  */
 package org.openlvc.disco.senders;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-
 import org.openlvc.disco.DiscoException;
 import org.openlvc.disco.OpsCenter;
 import org.openlvc.disco.PduSender;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.connection.IConnection;
 import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.utils.ConflatingQueue;
 import org.openlvc.disco.utils.ThreadUtils;
 
-public class ThreadPoolSender extends PduSender implements RejectedExecutionHandler
+/**
+ * Queues PDUs and has a small pool of threads pull them off the queue to serialize and send.
+ * <p/>
+ * What happens when the queue is full depends on {@link DiscoConfiguration#getPduQueueOverflow()}.
+ * By default calls to {@link #send(PDU)} block until there is space. In conflating mode a state
+ * PDU replaces any unsent one for the same entity (see {@link PDU#getConflationKey()}), while
+ * events are never conflated. PDUs that are replaced or dropped are counted as discarded in the
+ * connection metrics. The caller's thread is never used to do the sending itself.
+ */
+public class ThreadPoolSender extends PduSender
 {
 	//----------------------------------------------------------
 	//                    STATIC VARIABLES
 	//----------------------------------------------------------
+	private static final int THREAD_COUNT = 2;
 
 	//----------------------------------------------------------
 	//                   INSTANCE VARIABLES
 	//----------------------------------------------------------
-	private BlockingQueue<Runnable> sendQueue;
-	private ThreadPoolExecutor sendExecutor;
+	private ConflatingQueue<PDU> sendQueue;
+	private Thread[] sendThreads;
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -48,9 +55,24 @@ public class ThreadPoolSender extends PduSender implements RejectedExecutionHand
 	{
 		super( opscenter );
 		
-		this.sendQueue = new LinkedBlockingQueue<>(100000);
-		this.sendExecutor = new ThreadPoolExecutor( 2, 2, 60, TimeUnit.SECONDS, sendQueue );
-		this.sendExecutor.setRejectedExecutionHandler( this );
+		DiscoConfiguration configuration = opscenter.getConfiguration();
+		this.sendQueue = new ConflatingQueue<>( configuration.getPduQueueSize(),
+		                                        configuration.getPduQueueOverflow(),
+		                                        PDU::getConflationKey,
+		                                        PDU::conflatesWith );
+
+		// count evictions without handing out 'this' before we're fully constructed
+		IConnection connection = this.connection;
+		this.sendQueue.setEvictionListener( pdu -> discarded(connection,pdu) );
+
+		// the OpsCenter doesn't open senders, so we need to be ready to go from here
+		this.sendThreads = new Thread[THREAD_COUNT];
+		for( int i = 0; i < sendThreads.length; i++ )
+		{
+			this.sendThreads[i] = new Thread( this::sendLoop, "Disco-SendPool-"+i );
+			this.sendThreads[i].setDaemon( true );
+			this.sendThreads[i].start();
+		}
 	}
 
 	//----------------------------------------------------------
@@ -59,7 +81,38 @@ public class ThreadPoolSender extends PduSender implements RejectedExecutionHand
 
 	public void send( PDU pdu )
 	{
-		sendExecutor.execute( new SendTask(pdu) );
+		try
+		{
+			sendQueue.put( pdu );
+		}
+		catch( InterruptedException ie )
+		{
+			discarded( pdu );
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void sendLoop()
+	{
+		while( Thread.interrupted() == false )
+		{
+			PDU pdu = null;
+			try
+			{
+				pdu = sendQueue.take();
+				connection.send( pdu );
+			}
+			catch( InterruptedException ie )
+			{
+				// time to shut down
+				return;
+			}
+			catch( DiscoException ioex )
+			{
+				logger.warn( "Error trying to serialize PDU ("+pdu+"): "+ioex.getMessage(), ioex );
+				discarded( pdu );
+			}
+		}
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -80,47 +133,53 @@ public class ThreadPoolSender extends PduSender implements RejectedExecutionHand
 
 		logger.info( "Queue has been flushed. Took %d ms", System.currentTimeMillis()-startWait );
 
-		// shut down the executors
-		this.sendExecutor.shutdown();
-		while( this.sendExecutor.isShutdown() == false )
+		// shut down the threads
+		for( Thread thread : sendThreads )
+			thread.interrupt();
+
+		try
 		{
-			try { Thread.sleep( 1000 ); }catch( InterruptedException ie ) { return; }
+			for( Thread thread : sendThreads )
+				thread.join();
 		}
+		catch( InterruptedException ie )
+		{ /*ignore*/ }
 	}
-	
-	
+
 	////////////////////////////////////////////////////////////////////////////////////////////
-	/// ThreadPoolExecutor Methods   ///////////////////////////////////////////////////////////
+	/// Monitoring Methods   ///////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
-	public void rejectedExecution( Runnable task, ThreadPoolExecutor executor )
+	public long getQueuedPduCount()
 	{
-		// run ourselves
-		task.run();
-		//logger.warn( "(PDU Send) Conversion task was rejected for PDU: "+((ConversionTask)task).pdu );
+		return sendQueue.size();
+	}
+
+	/**
+	 * @return Number of PDUs that were replaced by a newer PDU for the same entity before they
+	 *         could be sent. Only ever non-zero in conflating mode.
+	 */
+	public long getConflatedPduCount()
+	{
+		return sendQueue.getConflatedCount();
+	}
+
+	/**
+	 * @return Number of PDUs dropped from the head of a full queue to make space
+	 */
+	public long getDroppedPduCount()
+	{
+		return sendQueue.getDroppedCount();
+	}
+
+	/**
+	 * @return How long the oldest unsent PDU has been waiting, in millis
+	 */
+	public long getQueueLagMillis()
+	{
+		return sendQueue.getOldestAgeMillis();
 	}
 
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
-	
-	////////////////////////////////////////////////////////////////////////////////////////////
-	/// Class: SendTask   //////////////////////////////////////////////////////////////////////
-	////////////////////////////////////////////////////////////////////////////////////////////
-	private class SendTask implements Runnable
-	{
-		public PDU pdu;
-		public SendTask( PDU pdu ) { this.pdu = pdu; }
-		
-		public void run()
-		{
-			try
-			{
-				connection.send( pdu.toByteArray() );
-			}
-			catch( DiscoException ioex )
-			{
-				logger.warn( "Error trying to serialize PDU ("+pdu+"): "+ioex.getMessage(), ioex );
-			}
-		}
-	}
 }
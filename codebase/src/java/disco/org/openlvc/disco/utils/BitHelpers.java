@@ -544,14 +544,14 @@ public class BitHelpers
 	{
 		checkUnderflow( 8, buffer, offset );
 
-		return (((long)buffer[0] << 56) +
-		        ((long)(buffer[1] & 255) << 48) +
-		        ((long)(buffer[2] & 255) << 40) +
-		        ((long)(buffer[3] & 255) << 32) +
-		        ((long)(buffer[4] & 255) << 24) +
-		        ((buffer[5] & 255) << 16) +
-		        ((buffer[6] & 255) <<  8) +
-		        ((buffer[7] & 255) <<  0));
+		return (((long)buffer[offset] << 56) +
+		        ((long)(buffer[offset+1] & 255) << 48) +
+		        ((long)(buffer[offset+2] & 255) << 40) +
+		        ((long)(buffer[offset+3] & 255) << 32) +
+		        ((long)(buffer[offset+4] & 255) << 24) +
+		        ((buffer[offset+5] & 255) << 16) +
+		        ((buffer[offset+6] & 255) <<  8) +
+		        ((buffer[offset+7] & 255) <<  0));
 	}
 
 	/**
@@ -564,14 +564,14 @@ public class BitHelpers
 	{
 		checkUnderflow( 8, buffer, offset );
 
-		return (((long)buffer[7] << 56) +
-		        ((long)(buffer[6] & 255) << 48) +
-		        ((long)(buffer[5] & 255) << 40) +
-		        ((long)(buffer[4] & 255) << 32) +
-		        ((long)(buffer[3] & 255) << 24) +
-		        ((buffer[2] & 255) << 16) +
-		        ((buffer[1] & 255) <<  8) +
-		        ((buffer[0] & 255) <<  0));
+		return (((long)buffer[offset+7] << 56) +
+		        ((long)(buffer[offset+6] & 255) << 48) +
+		        ((long)(buffer[offset+5] & 255) << 40) +
+		        ((long)(buffer[offset+4] & 255) << 32) +
+		        ((long)(buffer[offset+3] & 255) << 24) +
+		        ((buffer[offset+2] & 255) << 16) +
+		        ((buffer[offset+1] & 255) <<  8) +
+		        ((buffer[offset+0] & 255) <<  0));
 	}
 	
 	
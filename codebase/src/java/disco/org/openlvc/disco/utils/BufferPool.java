@@ -0,0 +1,146 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of fixed-size, direct {@link ByteBuffer}s that can be handed out and later returned
+ * so that they can be reused. This lets us receive packets off the network without allocating
+ * a fresh buffer for each one.
+ * <p/>
+ * Buffers are allocated lazily. If the pool is empty when someone asks for a buffer, a new one
+ * is created. When a buffer is released it is returned to the pool, unless the pool is already
+ * holding <code>capacity</code> buffers, in which case it is left for the garbage collector.
+ * <p/>
+ * <b>Ownership:</b> Once a buffer has been acquired, whoever holds it owns it. Ownership can be
+ * passed along (for example, from a connection to a receiver), but the final owner <b>must</b>
+ * call {@link #release(ByteBuffer)} once they are done with the contents, and must not touch
+ * the buffer after that.
+ * <p/>
+ * This class is thread safe. Buffers are typically acquired on one thread and released on
+ * another.
+ */
+public class BufferPool
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private int bufferSize;
+	private int capacity;
+	private ArrayBlockingQueue<ByteBuffer> pool;
+
+	// Monitoring
+	private AtomicLong allocated;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	/**
+	 * @param bufferSize The size (in bytes) of each buffer in the pool
+	 * @param capacity   The maximum number of idle buffers the pool will hold on to
+	 */
+	public BufferPool( int bufferSize, int capacity )
+	{
+		if( bufferSize < 1 )
+			throw new IllegalArgumentException( "Buffer size must be positive: "+bufferSize );
+		if( capacity < 1 )
+			throw new IllegalArgumentException( "Pool capacity must be positive: "+capacity );
+
+		this.bufferSize = bufferSize;
+		this.capacity = capacity;
+		this.pool = new ArrayBlockingQueue<>( capacity );
+		this.allocated = new AtomicLong( 0 );
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+	/**
+	 * Take a buffer from the pool, allocating a new one if the pool is empty. The returned buffer
+	 * is cleared (position 0, limit at capacity) and ready to be written into.
+	 *
+	 * @return A buffer that the caller now owns until it is passed to {@link #release(ByteBuffer)}
+	 */
+	public ByteBuffer acquire()
+	{
+		ByteBuffer buffer = pool.poll();
+		if( buffer == null )
+		{
+			allocated.incrementAndGet();
+			return ByteBuffer.allocateDirect( bufferSize );
+		}
+
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Return the given buffer to the pool so that it can be reused. Buffers that did not come
+	 * from a pool of this size are ignored, as are buffers released while the pool is full.
+	 *
+	 * @param buffer The buffer to return. Caller must not use it again after this call.
+	 */
+	public void release( ByteBuffer buffer )
+	{
+		if( buffer == null || buffer.isDirect() == false || buffer.capacity() != bufferSize )
+			return;
+
+		pool.offer( buffer );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public int getBufferSize()
+	{
+		return this.bufferSize;
+	}
+
+	public int getCapacity()
+	{
+		return this.capacity;
+	}
+
+	/**
+	 * @return The number of buffers currently sitting idle in the pool
+	 */
+	public int getAvailableCount()
+	{
+		return pool.size();
+	}
+
+	/**
+	 * @return The total number of buffers this pool has ever had to allocate. If this keeps
+	 *         climbing in steady state, the pool capacity is too small for the load.
+	 */
+	public long getAllocatedCount()
+	{
+		return allocated.get();
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
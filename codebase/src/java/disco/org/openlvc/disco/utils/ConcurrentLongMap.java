@@ -0,0 +1,560 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * A concurrent map from primitive <code>long</code> keys to object values, for places (such as
+ * the PDU stores, keyed on packed entity ids) where boxing every key and hashing through a key
+ * object on every lookup adds up.
+ * <p/>
+ * The map is split into segments, each an open-addressed (linear probing) table of
+ * <code>long[]</code> keys and <code>Object[]</code> values guarded by its own
+ * {@link StampedLock}. Writers take the segment's write lock. Readers run an optimistic read
+ * against the table and only take the read lock if a write got in the way, so lookups neither
+ * allocate nor block in the common case. Keys are mixed before use, so dense or patterned keys
+ * (sequential entity numbers, a few sites) still spread evenly across segments and slots.
+ * <p/>
+ * Null values are not supported. Iteration ({@link #values()}, {@link #forEachValue(Consumer)})
+ * works from a segment-by-segment snapshot and doesn't see later changes. This class is thread
+ * safe.
+ *
+ * @param <V> The value type
+ */
+public class ConcurrentLongMap<V>
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int DEFAULT_SEGMENTS = 16;
+	private static final int INITIAL_CAPACITY = 16;  // slots per segment, power of two
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private final Segment<V>[] segments;
+	private final int segmentShift;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	public ConcurrentLongMap()
+	{
+		this( DEFAULT_SEGMENTS );
+	}
+
+	/**
+	 * @param concurrency The number of independently locked segments, rounded up to a power of
+	 *                    two. Roughly the number of threads expected to write at once.
+	 */
+	public ConcurrentLongMap( int concurrency )
+	{
+		if( concurrency < 1 || concurrency > (1 << 16) )
+			throw new IllegalArgumentException( "Concurrency must be between 1 and 65536: "+concurrency );
+
+		int count = Integer.highestOneBit( concurrency );
+		if( count < concurrency )
+			count <<= 1;
+
+		// no generic arrays, but every element we put in really is a Segment<V>
+		@SuppressWarnings("unchecked")
+		Segment<V>[] segments = (Segment<V>[])new Segment<?>[count];
+		for( int i = 0; i < count; i++ )
+			segments[i] = new Segment<>();
+
+		this.segments = segments;
+
+		// segments are chosen from the top bits of the hash, slots from the bottom bits
+		this.segmentShift = 64 - Integer.numberOfTrailingZeros( count );
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Map Methods   //////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return The value for the key, or null if there isn't one
+	 */
+	public V get( long key )
+	{
+		long hash = mix( key );
+		return segmentFor( hash ).get( key, hash );
+	}
+
+	public V getOrDefault( long key, V defaultValue )
+	{
+		V value = get( key );
+		return value == null ? defaultValue : value;
+	}
+
+	public boolean containsKey( long key )
+	{
+		return get( key ) != null;
+	}
+
+	/**
+	 * @return The previous value for the key, or null if there wasn't one
+	 */
+	public V put( long key, V value )
+	{
+		if( value == null )
+			throw new NullPointerException();
+
+		long hash = mix( key );
+		return segmentFor( hash ).put( key, hash, value, false );
+	}
+
+	/**
+	 * @return The existing value for the key (which is left in place), or null if there wasn't
+	 *         one and the given value was stored
+	 */
+	public V putIfAbsent( long key, V value )
+	{
+		if( value == null )
+			throw new NullPointerException();
+
+		long hash = mix( key );
+		return segmentFor( hash ).put( key, hash, value, true );
+	}
+
+	/**
+	 * Return the value for the key, creating and storing it with the given function if there
+	 * isn't one. The function is called while the key's segment is locked, so it should be quick
+	 * and must not touch this map.
+	 */
+	public V computeIfAbsent( long key, LongFunction<? extends V> function )
+	{
+		long hash = mix( key );
+		Segment<V> segment = segmentFor( hash );
+		V existing = segment.get( key, hash );
+		if( existing != null )
+			return existing;
+
+		return segment.computeIfAbsent( key, hash, function );
+	}
+
+	/**
+	 * @return The value that was removed, or null if there wasn't one
+	 */
+	public V remove( long key )
+	{
+		long hash = mix( key );
+		return segmentFor( hash ).remove( key, hash, null );
+	}
+
+	/**
+	 * Remove the key only if it currently maps to the given value (by identity or equals).
+	 *
+	 * @return True if it was removed
+	 */
+	public boolean remove( long key, V value )
+	{
+		if( value == null )
+			return false;
+
+		long hash = mix( key );
+		return segmentFor( hash ).remove( key, hash, value ) != null;
+	}
+
+	/**
+	 * Remove every entry whose value matches the filter. The filter is called while the
+	 * entry's segment is locked.
+	 *
+	 * @return The number of entries removed
+	 */
+	public int removeIf( Predicate<? super V> filter )
+	{
+		int removed = 0;
+		for( Segment<V> segment : segments )
+			removed += segment.removeIf( filter );
+
+		return removed;
+	}
+
+	public void clear()
+	{
+		for( Segment<V> segment : segments )
+			segment.clear();
+	}
+
+	public int size()
+	{
+		int size = 0;
+		for( Segment<V> segment : segments )
+			size += segment.size;
+
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		for( Segment<V> segment : segments )
+			if( segment.size > 0 )
+				return false;
+
+		return true;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Iteration Methods   ////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return A snapshot of all the values in the map, in no particular order
+	 */
+	public List<V> values()
+	{
+		List<V> values = new ArrayList<>( size() );
+		for( Segment<V> segment : segments )
+			segment.collect( values );
+
+		return values;
+	}
+
+	/**
+	 * Pass each value to the given action. Values are copied out a segment at a time and the
+	 * action is run with no locks held, so it is free to modify the map.
+	 */
+	public void forEachValue( Consumer<? super V> action )
+	{
+		List<V> batch = new ArrayList<>();
+		for( Segment<V> segment : segments )
+		{
+			segment.collect( batch );
+			for( int i = 0; i < batch.size(); i++ )
+				action.accept( batch.get(i) );
+
+			batch.clear();
+		}
+	}
+
+	private final Segment<V> segmentFor( long hash )
+	{
+		return segments[(int)(hash >>> segmentShift) & (segments.length-1)];
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	/**
+	 * Murmur3 64-bit finalizer. Every key bit affects every hash bit, so both the top bits (used
+	 * for the segment) and the bottom bits (used for the slot) are well distributed.
+	 */
+	private static final long mix( long key )
+	{
+		long hash = key;
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: Segment   ///////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * One open-addressed table. An empty slot is one with a null value. Removal shifts later
+	 * entries in the same probe run back rather than leaving tombstones, so lookups can always
+	 * stop at the first empty slot.
+	 */
+	private static final class Segment<V>
+	{
+		private final StampedLock lock = new StampedLock();
+		private long[] keys = new long[INITIAL_CAPACITY];
+		private Object[] values = new Object[INITIAL_CAPACITY];
+		private volatile int size = 0;
+
+		private V get( long key, long hash )
+		{
+			long stamp = lock.tryOptimisticRead();
+			if( stamp != 0 )
+			{
+				V value = find( key, hash );
+				if( lock.validate(stamp) )
+					return value;
+			}
+
+			stamp = lock.readLock();
+			try
+			{
+				return find( key, hash );
+			}
+			finally
+			{
+				lock.unlockRead( stamp );
+			}
+		}
+
+		/**
+		 * Probe for the key. Under an optimistic read the arrays may be mid-change, so this is
+		 * written to never throw or loop forever on a torn view; the caller's validate() throws
+		 * away whatever it returns in that case.
+		 */
+		@SuppressWarnings("unchecked")
+		private V find( long key, long hash )
+		{
+			long[] keys = this.keys;
+			Object[] values = this.values;
+			if( keys.length != values.length )
+				return null; // caught mid-resize
+
+			int mask = keys.length - 1;
+			int index = (int)hash & mask;
+			for( int probes = 0; probes <= mask; probes++ )
+			{
+				Object value = values[index];
+				if( value == null )
+					return null;
+				if( keys[index] == key )
+					return (V)value;
+
+				index = (index+1) & mask;
+			}
+
+			return null;
+		}
+
+		/**
+		 * @return The slot holding the key, or the empty slot where it would go, as
+		 *         <code>-(slot+1)</code>. Write lock must be held.
+		 */
+		private int slotFor( long key, long hash )
+		{
+			int mask = keys.length - 1;
+			int index = (int)hash & mask;
+			while( values[index] != null )
+			{
+				if( keys[index] == key )
+					return index;
+
+				index = (index+1) & mask;
+			}
+
+			return -(index+1);
+		}
+
+		@SuppressWarnings("unchecked")
+		private V put( long key, long hash, V value, boolean onlyIfAbsent )
+		{
+			long stamp = lock.writeLock();
+			try
+			{
+				int slot = slotFor( key, hash );
+				if( slot >= 0 )
+				{
+					V previous = (V)values[slot];
+					if( onlyIfAbsent == false )
+						values[slot] = value;
+
+					return previous;
+				}
+
+				insert( -(slot+1), key, value );
+				return null;
+			}
+			finally
+			{
+				lock.unlockWrite( stamp );
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private V computeIfAbsent( long key, long hash, LongFunction<? extends V> function )
+		{
+			long stamp = lock.writeLock();
+			try
+			{
+				int slot = slotFor( key, hash );
+				if( slot >= 0 )
+					return (V)values[slot];
+
+				V value = function.apply( key );
+				if( value != null )
+					insert( -(slot+1), key, value );
+
+				return value;
+			}
+			finally
+			{
+				lock.unlockWrite( stamp );
+			}
+		}
+
+		private void insert( int slot, long key, Object value )
+		{
+			keys[slot] = key;
+			values[slot] = value;
+			++size;
+
+			// keep at most half full so probe runs stay short
+			if( size > keys.length >> 1 )
+				resize( keys.length << 1 );
+		}
+
+		@SuppressWarnings("unchecked")
+		private V remove( long key, long hash, V expected )
+		{
+			long stamp = lock.writeLock();
+			try
+			{
+				int slot = slotFor( key, hash );
+				if( slot < 0 )
+					return null;
+
+				V existing = (V)values[slot];
+				if( expected != null && expected != existing && expected.equals(existing) == false )
+					return null;
+
+				delete( slot );
+				return existing;
+			}
+			finally
+			{
+				lock.unlockWrite( stamp );
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private int removeIf( Predicate<? super V> filter )
+		{
+			long stamp = lock.writeLock();
+			try
+			{
+				int removed = 0;
+				int index = 0;
+				while( index < values.length )
+				{
+					// delete() can shift a later entry into this slot, so look at it again
+					Object value = values[index];
+					if( value != null && filter.test((V)value) )
+					{
+						delete( index );
+						++removed;
+					}
+					else
+					{
+						++index;
+					}
+				}
+
+				return removed;
+			}
+			finally
+			{
+				lock.unlockWrite( stamp );
+			}
+		}
+
+		/**
+		 * Empty the slot, then walk the rest of the probe run moving back any entry whose home
+		 * slot means it would no longer be found past the gap. Write lock must be held.
+		 */
+		private void delete( int slot )
+		{
+			int mask = keys.length - 1;
+			int gap = slot;
+			int index = slot;
+			values[gap] = null;
+			--size;
+
+			while( true )
+			{
+				index = (index+1) & mask;
+				if( values[index] == null )
+					return;
+
+				// can the entry at index stay put? only if its home lies cyclically in (gap,index]
+				int home = (int)mix(keys[index]) & mask;
+				boolean stays = gap <= index ? (gap < home && home <= index)
+				                             : (gap < home || home <= index);
+				if( stays == false )
+				{
+					keys[gap] = keys[index];
+					values[gap] = values[index];
+					values[index] = null;
+					gap = index;
+				}
+			}
+		}
+
+		private void resize( int capacity )
+		{
+			long[] oldKeys = this.keys;
+			Object[] oldValues = this.values;
+			long[] newKeys = new long[capacity];
+			Object[] newValues = new Object[capacity];
+			int mask = capacity - 1;
+			for( int i = 0; i < oldKeys.length; i++ )
+			{
+				if( oldValues[i] == null )
+					continue;
+
+				int index = (int)mix(oldKeys[i]) & mask;
+				while( newValues[index] != null )
+					index = (index+1) & mask;
+
+				newKeys[index] = oldKeys[i];
+				newValues[index] = oldValues[i];
+			}
+
+			this.keys = newKeys;
+			this.values = newValues;
+		}
+
+		private void clear()
+		{
+			long stamp = lock.writeLock();
+			try
+			{
+				this.keys = new long[INITIAL_CAPACITY];
+				this.values = new Object[INITIAL_CAPACITY];
+				this.size = 0;
+			}
+			finally
+			{
+				lock.unlockWrite( stamp );
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void collect( List<? super V> into )
+		{
+			long stamp = lock.readLock();
+			try
+			{
+				for( Object value : values )
+					if( value != null )
+						into.add( (V)value );
+			}
+			finally
+			{
+				lock.unlockRead( stamp );
+			}
+		}
+	}
+}
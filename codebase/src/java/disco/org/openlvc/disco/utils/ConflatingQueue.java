@@ -0,0 +1,577 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded FIFO queue that can optionally <i>conflate</i>: when an element is added and an older
+ * element with the same key is still waiting, the newer one takes the older one's place instead
+ * of joining the back of the queue. For state updates (where only the latest value matters) this
+ * keeps the queue, and so the delay through it, bounded by the number of distinct keys rather
+ * than by the update rate. Elements without a key ({@link #NO_KEY}) are never conflated and keep
+ * their order.
+ * <p/>
+ * Conflated elements keep the older element's position, so a frequently updated key can't be
+ * starved by always being pushed to the back. Where keys can collide, an identity check can be
+ * given that must confirm two elements really are about the same thing before one replaces
+ * the other. An element that fails the check just joins the back of the queue, unconflated.
+ * <p/>
+ * What happens when the queue is full depends on the {@link Overflow} policy:
+ * <ul>
+ *   <li>{@link Overflow#Block}: {@link #put(Object)} waits for space; {@link #offer(Object)}
+ *       rejects the element. Nothing is lost. Keys are ignored.</li>
+ *   <li>{@link Overflow#DropOldest}: the element at the head is discarded to make room. Keys
+ *       are ignored.</li>
+ *   <li>{@link Overflow#Conflate}: keyed elements replace any waiting element with the same
+ *       key. If the queue is still full, the oldest element is discarded.</li>
+ * </ul>
+ * The queue keeps counts of what has been added, conflated, dropped and taken, along with its
+ * high water mark and the age of the oldest waiting element, so that callers can report on how
+ * far behind their consumer is running. Callers that need to know about each element that is
+ * thrown away (to release it, or count it) can register an eviction listener.
+ * <p/>
+ * This class is thread safe, and any number of threads may add or take.
+ *
+ * @param <E> The type of element held in the queue
+ */
+public class ConflatingQueue<E>
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	/** Key for elements that must never be conflated */
+	public static final long NO_KEY = -1;
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private final int capacity;
+	private final Overflow overflow;
+	private final ToLongFunction<? super E> keyFunction;
+	private final BiPredicate<? super E,? super E> identityCheck; // may be null
+
+	private final ReentrantLock lock;
+	private final Condition notEmpty;
+	private final Condition notFull;
+	private final ArrayDeque<Node<E>> queue;
+	private final ConcurrentLongMap<Node<E>> waiting; // keyed nodes still in the queue
+	private Consumer<? super E> evictionListener;     // may be null
+
+	// Metrics, all guarded by lock
+	private long offeredCount;
+	private long conflatedCount;
+	private long droppedCount;
+	private long takenCount;
+	private int highWaterMark;
+	private long totalWaitNanos;
+	private long maxWaitNanos;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	/**
+	 * Create a queue that does not conflate
+	 */
+	public ConflatingQueue( int capacity, Overflow overflow )
+	{
+		this( capacity, overflow, null );
+	}
+
+	/**
+	 * @param capacity    The most elements the queue will hold
+	 * @param overflow    What to do when the queue is full
+	 * @param keyFunction Returns the conflation key for an element, or {@link #NO_KEY}. Only
+	 *                    used with {@link Overflow#Conflate}. May be null, in which case nothing
+	 *                    is conflated.
+	 */
+	public ConflatingQueue( int capacity, Overflow overflow, ToLongFunction<? super E> keyFunction )
+	{
+		this( capacity, overflow, keyFunction, null );
+	}
+
+	/**
+	 * @param capacity      The most elements the queue will hold
+	 * @param overflow      What to do when the queue is full
+	 * @param keyFunction   Returns the conflation key for an element, or {@link #NO_KEY}. Only
+	 *                      used with {@link Overflow#Conflate}. May be null, in which case
+	 *                      nothing is conflated.
+	 * @param identityCheck Given a new element and a waiting one with the same key, returns true
+	 *                      if the new one may replace the waiting one. May be null if keys never
+	 *                      collide.
+	 */
+	public ConflatingQueue( int capacity,
+	                        Overflow overflow,
+	                        ToLongFunction<? super E> keyFunction,
+	                        BiPredicate<? super E,? super E> identityCheck )
+	{
+		if( capacity < 1 )
+			throw new IllegalArgumentException( "Queue capacity must be at least 1: "+capacity );
+
+		this.capacity = capacity;
+		this.overflow = overflow;
+		this.keyFunction = overflow == Overflow.Conflate ? keyFunction : null;
+		this.identityCheck = identityCheck;
+
+		this.lock = new ReentrantLock();
+		this.notEmpty = lock.newCondition();
+		this.notFull = lock.newCondition();
+		this.queue = new ArrayDeque<>( Math.min(capacity,1024) );
+		this.waiting = new ConcurrentLongMap<>( 1 );
+		this.evictionListener = null;
+
+		this.offeredCount = 0;
+		this.conflatedCount = 0;
+		this.droppedCount = 0;
+		this.takenCount = 0;
+		this.highWaterMark = 0;
+		this.totalWaitNanos = 0;
+		this.maxWaitNanos = 0;
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Producer Methods   /////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Add the element without waiting. Under {@link Overflow#Block} this fails if the queue is
+	 * full; under the other policies it always succeeds, although something may be dropped.
+	 *
+	 * @return True if the element was queued (or conflated), false if it was rejected
+	 */
+	public boolean offer( E element )
+	{
+		long key = keyOf( element );
+		lock.lock();
+		try
+		{
+			++offeredCount;
+			if( conflate(key,element) )
+				return true;
+
+			if( queue.size() >= capacity )
+			{
+				if( overflow == Overflow.Block )
+				{
+					--offeredCount;
+					return false;
+				}
+
+				dropOldest();
+			}
+
+			enqueue( key, element );
+			return true;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Add the element, waiting for space under {@link Overflow#Block}. Under the other policies
+	 * this never waits.
+	 */
+	public void put( E element ) throws InterruptedException
+	{
+		long key = keyOf( element );
+		lock.lockInterruptibly();
+		try
+		{
+			++offeredCount;
+			if( conflate(key,element) )
+				return;
+
+			if( overflow == Overflow.Block )
+			{
+				while( queue.size() >= capacity )
+					notFull.await();
+			}
+			else if( queue.size() >= capacity )
+			{
+				dropOldest();
+			}
+
+			enqueue( key, element );
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	private long keyOf( E element )
+	{
+		if( element == null )
+			throw new NullPointerException();
+
+		return keyFunction == null ? NO_KEY : keyFunction.applyAsLong( element );
+	}
+
+	/**
+	 * If the element has a key and there's an element with that key still waiting, swap it in.
+	 * Lock must be held.
+	 */
+	private boolean conflate( long key, E element )
+	{
+		if( key == NO_KEY )
+			return false;
+
+		Node<E> existing = waiting.get( key );
+		if( existing == null )
+			return false;
+
+		// keys collided; leave the waiting one alone and queue this one as if it had no key
+		if( identityCheck != null && identityCheck.test(element,existing.element) == false )
+			return false;
+
+		E replaced = existing.element;
+		existing.element = element;
+		++conflatedCount;
+		evicted( replaced );
+		return true;
+	}
+
+	private void enqueue( long key, E element )
+	{
+		Node<E> node = new Node<>( key, element, System.nanoTime() );
+		queue.addLast( node );
+		if( key != NO_KEY )
+			waiting.putIfAbsent( key, node ); // already taken if we failed the identity check
+
+		if( queue.size() > highWaterMark )
+			highWaterMark = queue.size();
+
+		notEmpty.signal();
+	}
+
+	private void dropOldest()
+	{
+		++droppedCount;
+		evicted( dequeue() );
+	}
+
+	private void evicted( E element )
+	{
+		if( evictionListener != null )
+			evictionListener.accept( element );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Consumer Methods   /////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return The element at the head of the queue, or null if it is empty
+	 */
+	public E poll()
+	{
+		lock.lock();
+		try
+		{
+			return queue.isEmpty() ? null : take0();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The element at the head of the queue, waiting up to the given time for one to
+	 *         arrive. Null if none did.
+	 */
+	public E poll( long timeout, TimeUnit unit ) throws InterruptedException
+	{
+		long nanos = unit.toNanos( timeout );
+		lock.lockInterruptibly();
+		try
+		{
+			while( queue.isEmpty() )
+			{
+				if( nanos <= 0 )
+					return null;
+
+				nanos = notEmpty.awaitNanos( nanos );
+			}
+
+			return take0();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The element at the head of the queue, waiting for one if it is empty
+	 */
+	public E take() throws InterruptedException
+	{
+		lock.lockInterruptibly();
+		try
+		{
+			while( queue.isEmpty() )
+				notEmpty.await();
+
+			return take0();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Move up to <code>max</code> waiting elements into the given collection, in order, without
+	 * waiting.
+	 *
+	 * @return The number of elements moved
+	 */
+	public int drainTo( Collection<? super E> into, int max )
+	{
+		lock.lock();
+		try
+		{
+			int count = 0;
+			while( count < max && queue.isEmpty() == false )
+			{
+				into.add( take0() );
+				++count;
+			}
+
+			return count;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	private E take0()
+	{
+		long waited = System.nanoTime() - queue.peekFirst().queuedAt;
+		totalWaitNanos += waited;
+		if( waited > maxWaitNanos )
+			maxWaitNanos = waited;
+
+		++takenCount;
+		return dequeue();
+	}
+
+	private E dequeue()
+	{
+		Node<E> node = queue.pollFirst();
+		if( node.key != NO_KEY )
+			waiting.remove( node.key, node );
+
+		notFull.signal();
+		return node.element;
+	}
+
+	/**
+	 * Discard everything that is waiting. Discarded elements are not counted as dropped.
+	 */
+	public void clear()
+	{
+		lock.lock();
+		try
+		{
+			queue.clear();
+			waiting.clear();
+			notFull.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public int size()
+	{
+		lock.lock();
+		try
+		{
+			return queue.size();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	public int getCapacity()
+	{
+		return this.capacity;
+	}
+
+	public Overflow getOverflow()
+	{
+		return this.overflow;
+	}
+
+	/**
+	 * Set a listener to be told about each element that is thrown away without being taken,
+	 * whether dropped because the queue was full or replaced by a newer element with the same
+	 * key. It is called with the queue's lock held, so it must be quick and must not call back
+	 * into the queue. Elements discarded by {@link #clear()} are not passed to it.
+	 * 
+	 * @param listener The listener, or null for none
+	 */
+	public void setEvictionListener( Consumer<? super E> listener )
+	{
+		lock.lock();
+		try
+		{
+			this.evictionListener = listener;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return How long (in millis) the element at the head of the queue has been waiting, or 0
+	 *         if the queue is empty. A conflated element counts from when its slot was first
+	 *         queued, so this is how far behind the consumer is running.
+	 */
+	public long getOldestAgeMillis()
+	{
+		lock.lock();
+		try
+		{
+			Node<E> head = queue.peekFirst();
+			return head == null ? 0 : TimeUnit.NANOSECONDS.toMillis( System.nanoTime()-head.queuedAt );
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/** @return The number of elements accepted by offer() or put(), conflated or not */
+	public long getOfferedCount()    { lock.lock(); try { return offeredCount; } finally { lock.unlock(); } }
+
+	/** @return The number of elements that replaced an older waiting element */
+	public long getConflatedCount()  { lock.lock(); try { return conflatedCount; } finally { lock.unlock(); } }
+
+	/** @return The number of elements discarded because the queue was full */
+	public long getDroppedCount()    { lock.lock(); try { return droppedCount; } finally { lock.unlock(); } }
+
+	/** @return The number of elements handed to consumers */
+	public long getTakenCount()      { lock.lock(); try { return takenCount; } finally { lock.unlock(); } }
+
+	/** @return The most elements that have been waiting at once */
+	public int getHighWaterMark()    { lock.lock(); try { return highWaterMark; } finally { lock.unlock(); } }
+
+	/** @return The longest any taken element spent waiting, in nanos */
+	public long getMaxWaitNanos()    { lock.lock(); try { return maxWaitNanos; } finally { lock.unlock(); } }
+
+	/**
+	 * @return The average time taken elements spent waiting, in nanos. As with
+	 *         {@link #getOldestAgeMillis()}, conflated elements count from when their slot was
+	 *         first queued.
+	 */
+	public long getAverageWaitNanos()
+	{
+		lock.lock();
+		try
+		{
+			return takenCount == 0 ? 0 : totalWaitNanos / takenCount;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Enum: Overflow   ///////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * What a {@link ConflatingQueue} does when an element is added and it is full
+	 */
+	public enum Overflow
+	{
+		/** Wait for space (or reject, for offer()). Lossless, but a slow consumer holds up producers. */
+		Block,
+
+		/** Discard the oldest waiting element. */
+		DropOldest,
+
+		/** Replace any waiting element with the same key, dropping the oldest if still full. */
+		Conflate;
+
+		public static Overflow fromString( String name )
+		{
+			switch( name.trim().toLowerCase() )
+			{
+				case "block":
+					return Block;
+				case "drop-oldest":
+				case "dropoldest":
+				case "drop":
+					return DropOldest;
+				case "conflate":
+					return Conflate;
+				default:
+					throw new IllegalArgumentException( "Unknown overflow policy: "+name );
+			}
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: Node   //////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private static class Node<E>
+	{
+		private final long key;
+		private final long queuedAt;
+		private E element;
+
+		private Node( long key, E element, long queuedAt )
+		{
+			this.key = key;
+			this.element = element;
+			this.queuedAt = queuedAt;
+		}
+	}
+}
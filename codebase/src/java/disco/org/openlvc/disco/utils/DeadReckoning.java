@@ -0,0 +1,383 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.DeadReckoningAlgorithm;
+import org.openlvc.disco.pdu.record.AngularVelocityVector;
+import org.openlvc.disco.pdu.record.DeadReckoningParameter;
+import org.openlvc.disco.pdu.record.EulerAngles;
+import org.openlvc.disco.pdu.record.VectorRecord;
+import org.openlvc.disco.pdu.record.WorldCoordinate;
+
+/**
+ * The standard DIS dead reckoning algorithms (IEEE 1278.1 Annex E), used to work out where an
+ * entity should be some time after it last published its state.
+ * <ul>
+ *   <li><b>Static/Other</b>: Entity does not move.</li>
+ *   <li><b>FPW/FVW</b>: Location moves with the world velocity (and acceleration for FVW).
+ *       Orientation is fixed.</li>
+ *   <li><b>RPW/RVW</b>: As for FPW/FVW, with the orientation also turning at the body-axis
+ *       angular velocity.</li>
+ *   <li><b>FPB/FVB/RPB/RVB</b>: As above, but the velocity and acceleration are given in body
+ *       coordinates and turn with the entity as it rotates. Acceleration is taken to be constant
+ *       in the body frame.</li>
+ * </ul>
+ *
+ * Orientations are handled as world-to-body rotation matrices built from the DIS Euler angles
+ * (psi/theta/phi applied about z/y/x), so there are no special cases near the poles. The output
+ * records may be the same objects as the inputs. The matrices need a little scratch space; the
+ * plain methods allocate it per call, while the overloads that take a scratch array (of at least
+ * {@link #SCRATCH_SIZE}) allocate nothing and suit callers checking many updates.
+ */
+public class DeadReckoning
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	/** Below this angular rate (rad/s) we treat the entity as not rotating */
+	private static final double MIN_RATE = 1e-9;
+
+	/** Number of doubles needed in the scratch array given to the non-allocating methods */
+	public static final int SCRATCH_SIZE = 18;
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	private DeadReckoning()
+	{
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	/**
+	 * Dead reckon the state in the given PDU forward to the given time (millis since the epoch),
+	 * starting from the PDU's local timestamp (when Disco received or sent it).
+	 *
+	 * @param pdu         The last known state of the entity
+	 * @param time        The time to extrapolate to
+	 * @param location    Record to store the extrapolated location in
+	 * @param orientation Record to store the extrapolated orientation in
+	 */
+	public static void extrapolateTo( EntityStatePdu pdu,
+	                                  long time,
+	                                  WorldCoordinate location,
+	                                  EulerAngles orientation )
+	{
+		double seconds = (time - pdu.getLocalTimestamp()) / 1000.0;
+		extrapolate( pdu, seconds, location, orientation );
+	}
+
+	/**
+	 * Dead reckon the state in the given PDU forward by the given number of seconds, using the
+	 * algorithm and parameters in the PDU.
+	 *
+	 * @param pdu         The last known state of the entity
+	 * @param seconds     How far forward to extrapolate
+	 * @param location    Record to store the extrapolated location in
+	 * @param orientation Record to store the extrapolated orientation in
+	 */
+	public static void extrapolate( EntityStatePdu pdu,
+	                                double seconds,
+	                                WorldCoordinate location,
+	                                EulerAngles orientation )
+	{
+		DeadReckoningParameter parameters = pdu.getDeadReckoningParams();
+		extrapolate( parameters.getDeadReckoningAlgorithm(),
+		             pdu.getLocation(),
+		             pdu.getOrientation(),
+		             pdu.getLinearVelocity(),
+		             parameters.getEntityLinearAcceleration(),
+		             parameters.getEntityAngularVelocity(),
+		             seconds,
+		             location,
+		             orientation );
+	}
+
+	/**
+	 * Dead reckon the given state forward by the given number of seconds.
+	 *
+	 * @param algorithm       The dead reckoning algorithm to apply
+	 * @param location0       Location at the start (ECEF)
+	 * @param orientation0    Orientation at the start
+	 * @param velocity        Linear velocity, in world or body coordinates depending on algorithm
+	 * @param acceleration    Linear acceleration, in world or body coordinates as above
+	 * @param angularVelocity Angular velocity about the body axes (rad/s)
+	 * @param seconds         How far forward to extrapolate
+	 * @param location        Record to store the extrapolated location in
+	 * @param orientation     Record to store the extrapolated orientation in
+	 */
+	public static void extrapolate( DeadReckoningAlgorithm algorithm,
+	                                WorldCoordinate location0,
+	                                EulerAngles orientation0,
+	                                VectorRecord velocity,
+	                                VectorRecord acceleration,
+	                                AngularVelocityVector angularVelocity,
+	                                double seconds,
+	                                WorldCoordinate location,
+	                                EulerAngles orientation )
+	{
+		extrapolate( algorithm,
+		             location0,
+		             orientation0,
+		             velocity,
+		             acceleration,
+		             angularVelocity,
+		             seconds,
+		             location,
+		             orientation,
+		             new double[SCRATCH_SIZE] );
+	}
+
+	/**
+	 * As for {@link #extrapolate(DeadReckoningAlgorithm, WorldCoordinate, EulerAngles,
+	 * VectorRecord, VectorRecord, AngularVelocityVector, double, WorldCoordinate, EulerAngles)},
+	 * but working in the given scratch array rather than allocating one.
+	 *
+	 * @param scratch Working space, at least {@link #SCRATCH_SIZE} long. Contents are
+	 *                overwritten, so it must not be shared between threads.
+	 */
+	public static void extrapolate( DeadReckoningAlgorithm algorithm,
+	                                WorldCoordinate location0,
+	                                EulerAngles orientation0,
+	                                VectorRecord velocity,
+	                                VectorRecord acceleration,
+	                                AngularVelocityVector angularVelocity,
+	                                double seconds,
+	                                WorldCoordinate location,
+	                                EulerAngles orientation,
+	                                double[] scratch )
+	{
+		// read everything up front so the outputs can alias the inputs
+		double px = location0.getX();
+		double py = location0.getY();
+		double pz = location0.getZ();
+		float psi = orientation0.getPsi();
+		float theta = orientation0.getTheta();
+		float phi = orientation0.getPhi();
+
+		boolean moving = seconds != 0.0 &&
+		                 algorithm != DeadReckoningAlgorithm.Static &&
+		                 algorithm != DeadReckoningAlgorithm.Other;
+		if( !moving )
+		{
+			setLocation( location, px, py, pz );
+			setOrientation( orientation, psi, theta, phi );
+			return;
+		}
+
+		double vx = velocity.getFirstComponent();
+		double vy = velocity.getSecondComponent();
+		double vz = velocity.getThirdComponent();
+		double ax = 0.0, ay = 0.0, az = 0.0;
+		if( hasAcceleration(algorithm) )
+		{
+			ax = acceleration.getFirstComponent();
+			ay = acceleration.getSecondComponent();
+			az = acceleration.getThirdComponent();
+		}
+
+		double wx = angularVelocity.getRateAboutXAxis();
+		double wy = angularVelocity.getRateAboutYAxis();
+		double wz = angularVelocity.getRateAboutZAxis();
+		double w = Math.sqrt( wx*wx + wy*wy + wz*wz );
+		double wt = w * seconds;
+		double sin = Math.sin( wt );
+		double cos = Math.cos( wt );
+
+		// world-to-body rotation at the start, in scratch[0..8]
+		double[] m = scratch;
+		toMatrix( psi, theta, phi, m, 0 );
+
+		//
+		// Location
+		//
+		if( isBodyAxis(algorithm) )
+		{
+			// R1 applied to velocity and R2 to acceleration, exactly as given in IEEE 1278.1
+			// Annex E so that we agree with other simulators. (The standard's R2 is not quite
+			// the double integral of the rotation.) Both collapse to the plain kinematic terms
+			// when not rotating.
+			double k1, k2, k3, j1, j2, j3;
+			if( w < MIN_RATE )
+			{
+				k1 = 0.0; k2 = seconds;                 k3 = 0.0;
+				j1 = 0.0; j2 = 0.5 * seconds * seconds; j3 = 0.0;
+			}
+			else
+			{
+				double w2 = w * w;
+				k1 = (wt - sin) / (w2*w);
+				k2 = sin / w;
+				k3 = (1.0 - cos) / w2;
+				j1 = (0.5*wt*wt - cos - wt*sin + 1.0) / (w2*w2);
+				j2 = (cos + wt*sin - 1.0) / w2;
+				j3 = (sin - wt*cos) / (w2*w);
+			}
+
+			double wv = wx*vx + wy*vy + wz*vz;
+			double wa = wx*ax + wy*ay + wz*az;
+			double bx = k1*wv*wx + k2*vx + k3*(wy*vz - wz*vy) + j1*wa*wx + j2*ax + j3*(wy*az - wz*ay);
+			double by = k1*wv*wy + k2*vy + k3*(wz*vx - wx*vz) + j1*wa*wy + j2*ay + j3*(wz*ax - wx*az);
+			double bz = k1*wv*wz + k2*vz + k3*(wx*vy - wy*vx) + j1*wa*wz + j2*az + j3*(wx*ay - wy*ax);
+
+			// body displacement back into the world frame (transpose of world-to-body)
+			setLocation( location,
+			             px + m[0]*bx + m[3]*by + m[6]*bz,
+			             py + m[1]*bx + m[4]*by + m[7]*bz,
+			             pz + m[2]*bx + m[5]*by + m[8]*bz );
+		}
+		else
+		{
+			double half = 0.5 * seconds * seconds;
+			setLocation( location,
+			             px + vx*seconds + ax*half,
+			             py + vy*seconds + ay*half,
+			             pz + vz*seconds + az*half );
+		}
+
+		//
+		// Orientation
+		//
+		if( isRotating(algorithm) == false || w < MIN_RATE )
+		{
+			setOrientation( orientation, psi, theta, phi );
+			return;
+		}
+
+		// DR = (1-cos)/w^2 ww' + cos I - sin/w [w]x, new world-to-body = DR * old
+		double c1 = (1.0 - cos) / (w*w);
+		double s1 = sin / w;
+		double dr0 = c1*wx*wx + cos,   dr1 = c1*wx*wy + s1*wz, dr2 = c1*wx*wz - s1*wy;
+		double dr3 = c1*wy*wx - s1*wz, dr4 = c1*wy*wy + cos,   dr5 = c1*wy*wz + s1*wx;
+		double dr6 = c1*wz*wx + s1*wy, dr7 = c1*wz*wy - s1*wx, dr8 = c1*wz*wz + cos;
+
+		double r0 = dr0*m[0] + dr1*m[3] + dr2*m[6];
+		double r1 = dr0*m[1] + dr1*m[4] + dr2*m[7];
+		double r2 = dr0*m[2] + dr1*m[5] + dr2*m[8];
+		double r5 = dr3*m[2] + dr4*m[5] + dr5*m[8];
+		double r8 = dr6*m[2] + dr7*m[5] + dr8*m[8];
+		setOrientation( orientation,
+		                (float)Math.atan2(r1,r0),
+		                (float)Math.asin(clamp(-r2)),
+		                (float)Math.atan2(r5,r8) );
+	}
+
+	/**
+	 * @return The angle (radians, 0 to PI) of the single rotation that takes one orientation
+	 *         to the other. Unlike comparing the Euler angles one by one, this is well behaved
+	 *         at every attitude.
+	 */
+	public static double getAngleBetween( EulerAngles first, EulerAngles second )
+	{
+		return getAngleBetween( first, second, new double[SCRATCH_SIZE] );
+	}
+
+	/**
+	 * As for {@link #getAngleBetween(EulerAngles, EulerAngles)}, but working in the given
+	 * scratch array rather than allocating one.
+	 *
+	 * @param scratch Working space, at least {@link #SCRATCH_SIZE} long. Contents are
+	 *                overwritten, so it must not be shared between threads.
+	 */
+	public static double getAngleBetween( EulerAngles first, EulerAngles second, double[] scratch )
+	{
+		toMatrix( first.getPsi(), first.getTheta(), first.getPhi(), scratch, 0 );
+		toMatrix( second.getPsi(), second.getTheta(), second.getPhi(), scratch, 9 );
+
+		// trace(A * B') is just the sum of the element-wise products
+		double trace = 0.0;
+		for( int i = 0; i < 9; i++ )
+			trace += scratch[i] * scratch[i+9];
+
+		return Math.acos( clamp((trace-1.0)/2.0) );
+	}
+
+	/**
+	 * Fill <code>m</code> (row major, starting at <code>o</code>) with the world-to-body rotation
+	 * for the given DIS Euler angles.
+	 */
+	private static void toMatrix( double psi, double theta, double phi, double[] m, int o )
+	{
+		double cpsi = Math.cos( psi ),   spsi = Math.sin( psi );
+		double ctht = Math.cos( theta ), stht = Math.sin( theta );
+		double cphi = Math.cos( phi ),   sphi = Math.sin( phi );
+
+		m[o+0] = ctht * cpsi;
+		m[o+1] = ctht * spsi;
+		m[o+2] = -stht;
+		m[o+3] = sphi * stht * cpsi - cphi * spsi;
+		m[o+4] = sphi * stht * spsi + cphi * cpsi;
+		m[o+5] = sphi * ctht;
+		m[o+6] = cphi * stht * cpsi + sphi * spsi;
+		m[o+7] = cphi * stht * spsi - sphi * cpsi;
+		m[o+8] = cphi * ctht;
+	}
+
+	private static double clamp( double value )
+	{
+		return Math.max( -1.0, Math.min(1.0,value) );
+	}
+
+	private static void setLocation( WorldCoordinate location, double x, double y, double z )
+	{
+		location.setX( x );
+		location.setY( y );
+		location.setZ( z );
+	}
+
+	private static void setOrientation( EulerAngles orientation, float psi, float theta, float phi )
+	{
+		orientation.setPsi( psi );
+		orientation.setTheta( theta );
+		orientation.setPhi( phi );
+	}
+
+	public static boolean isBodyAxis( DeadReckoningAlgorithm algorithm )
+	{
+		return algorithm == DeadReckoningAlgorithm.FPB ||
+		       algorithm == DeadReckoningAlgorithm.RPB ||
+		       algorithm == DeadReckoningAlgorithm.RVB ||
+		       algorithm == DeadReckoningAlgorithm.FVB;
+	}
+
+	public static boolean isRotating( DeadReckoningAlgorithm algorithm )
+	{
+		return algorithm == DeadReckoningAlgorithm.RPW ||
+		       algorithm == DeadReckoningAlgorithm.RVW ||
+		       algorithm == DeadReckoningAlgorithm.RPB ||
+		       algorithm == DeadReckoningAlgorithm.RVB;
+	}
+
+	public static boolean hasAcceleration( DeadReckoningAlgorithm algorithm )
+	{
+		return algorithm == DeadReckoningAlgorithm.RVW ||
+		       algorithm == DeadReckoningAlgorithm.FVW ||
+		       algorithm == DeadReckoningAlgorithm.RVB ||
+		       algorithm == DeadReckoningAlgorithm.FVB;
+	}
+}
@@ -28,6 +28,9 @@ import java.net.MulticastSocket;
 import java.net.NetworkInterface;
 import java.net.SocketAddress;
 import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.channels.DatagramChannel;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
@@ -333,6 +336,123 @@ public class NetworkUtils
 		}
 	}
 
+	/**
+	 * NIO equivalent of {@link #createMulticastPair(InetAddress, int, NetworkInterface, SocketOptions)}.
+	 * Returns a pair of {@link DatagramChannel}s set up in the same way as the sockets from that
+	 * method: the first is for sending and is bound to an ephemeral port on the first IPv4 address
+	 * of the NIC, the second is for receiving and is joined to the multicast group on the NIC.
+	 * <p/>
+	 * The same local loopback rules apply. Loopback is left enabled and <b>YOU</b> need to discard
+	 * received packets whose source address/port matches the local address of the send channel.
+	 * <p/>
+	 * Both channels are left in blocking mode.
+	 * 
+	 * @param address The multicast group address that the receiver channel will join
+	 * @param port    The multicast port that the receiver channel will use when joining the group
+	 * @param nic     The NIC that the multicast channel will listen on
+	 * @param options The options for the channels (sender/recevier buffers, TTL, ...)
+	 * @return        The send channel (index 0) and receive channel (index 1)
+	 * @throws DiscoException If there is a problem creating or binding either channel
+	 */
+	public static DatagramChannel[] createMulticastChannelPair( InetAddress address,
+	                                                            int port,
+	                                                            NetworkInterface nic,
+	                                                            SocketOptions options )
+		throws DiscoException
+	{
+		try
+		{
+			// Create the send channel -- see createMulticastPair() for why this is bound to the
+			//                            first IP on the NIC rather than the wildcard address
+			DatagramChannel sendChannel = DatagramChannel.open( StandardProtocolFamily.INET );
+			if( options != null )
+			{
+				sendChannel.setOption( StandardSocketOptions.SO_SNDBUF, options.getSendBufferSize() );
+				sendChannel.setOption( StandardSocketOptions.IP_TOS, options.getTrafficClass() );
+				sendChannel.setOption( StandardSocketOptions.IP_MULTICAST_TTL, options.getTimeToLive() );
+			}
+			sendChannel.bind( new InetSocketAddress(getFirstIPv4Address(nic),0) ); // ephemeral
+
+			// Create the receiver channel. MulticastSocket turns SO_REUSEADDR on for us, so we
+			// do the same here to allow several applications on the one host
+			DatagramChannel recvChannel = DatagramChannel.open( StandardProtocolFamily.INET );
+			recvChannel.setOption( StandardSocketOptions.SO_REUSEADDR, true );
+			if( options != null )
+				recvChannel.setOption( StandardSocketOptions.SO_RCVBUF, options.getRecvBufferSize() );
+
+			// Bind and then join the multicast group for the receiver channel
+			recvChannel.bind( new InetSocketAddress(port) );
+			recvChannel.join( address, nic );
+
+			return new DatagramChannel[] { sendChannel, recvChannel };
+		}
+		catch( IOException ioex )
+		{
+			throw new DiscoException( ioex );
+		}
+	}
+
+	/**
+	 * NIO equivalent of {@link #createBroadcastPair(int, NetworkInterface, SocketOptions)}.
+	 * Returns a pair of {@link DatagramChannel}s set up in the same way as the sockets from that
+	 * method: the first is for sending, bound to an ephemeral port on the NIC address, and the
+	 * second is for receiving, bound to the given port.
+	 * <p/>
+	 * The same local loopback rules apply, see {@link #createBroadcastPair(int, NetworkInterface, SocketOptions)}.
+	 * Both channels are left in blocking mode.
+	 * 
+	 * @param port    Port to bind the receive channel to
+	 * @param nic     The NIC to send and receive on
+	 * @param options Send/Receive channel configuration options
+	 * @return The send channel (index 0) and receive channel (index 1)
+	 * @throws DiscoException If there is a problem creating or binding either channel
+	 */
+	public static DatagramChannel[] createBroadcastChannelPair( int port,
+	                                                            NetworkInterface nic,
+	                                                            SocketOptions options )
+		throws DiscoException
+	{
+		InetAddress nicAddr = NetworkUtils.getFirstIPv4Address( nic );
+		
+		// Same platform-dependent receive binding as createBroadcastPair()
+		boolean windows = Platform.getOperatingSystem() == Platform.OS.Windows; 
+		InetAddress recvBindAddr = windows ? nicAddr
+		                                   : NetworkUtils.getFirstBroadcastAddress( nic );
+		InetAddress sendBindAddr = nicAddr;
+		
+		if( recvBindAddr == null )
+			throw new DiscoException( "interface ["+nic+"] does not support broadcast" );
+		
+		try
+		{
+			// Create the send channel
+			DatagramChannel sendChannel = DatagramChannel.open( StandardProtocolFamily.INET );
+			sendChannel.setOption( StandardSocketOptions.SO_BROADCAST, true );
+			if( options != null )
+			{
+				sendChannel.setOption( StandardSocketOptions.SO_SNDBUF, options.getSendBufferSize() );
+				sendChannel.setOption( StandardSocketOptions.IP_TOS, options.getTrafficClass() );
+			}
+			sendChannel.bind( new InetSocketAddress(sendBindAddr,0) );
+			
+			// Create the receive channel. Channels are created unbound, so we can set
+			// SO_REUSEADDR before binding without any special handling
+			DatagramChannel recvChannel = DatagramChannel.open( StandardProtocolFamily.INET );
+			recvChannel.setOption( StandardSocketOptions.SO_REUSEADDR, true );
+			recvChannel.setOption( StandardSocketOptions.SO_BROADCAST, true );
+			if( options != null )
+				recvChannel.setOption( StandardSocketOptions.SO_RCVBUF, options.getRecvBufferSize() );
+			
+			recvChannel.bind( new InetSocketAddress(recvBindAddr, port) );
+			
+			return new DatagramChannel[] { sendChannel, recvChannel };
+		}
+		catch( Exception e )
+		{
+			throw new DiscoException( "Cannot connect to "+recvBindAddr+":"+port+" - "+e.getMessage() , e );
+		}
+	}
+
 	/**
 	 * Return a list of all the {@link NetworkInterface}s in the machine, regardless of whether
 	 * they are up or not at the moment.
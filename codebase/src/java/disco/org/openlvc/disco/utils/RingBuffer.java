@@ -0,0 +1,319 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free queue backed by a preallocated array. Nothing is allocated once the ring
+ * has been created, and neither end ever takes a lock.
+ * <p/>
+ * There can only ever be a <b>single consumer</b>. There can be either a single producer or
+ * many, depending on how the ring was created. The single producer version skips the CAS that
+ * producers would otherwise need to claim a slot, so use it when you know only one thread will
+ * ever be calling {@link #offer(Object)} or {@link #put(Object)}.
+ * <p/>
+ * Each slot carries a sequence number that says whether it is ready to be written or read.
+ * Producers publish by bumping the slot sequence after storing the element, which gives the
+ * consumer a happens-before edge to the element without any other fencing.
+ * <p/>
+ * When a blocking call has nothing to do it backs off according to the ring's
+ * {@link WaitStrategy}.
+ *
+ * @param <E> The type of element held in the ring
+ */
+public class RingBuffer<E>
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private final Object[] slots;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final boolean multiProducer;
+	private final WaitStrategy waitStrategy;
+
+	private final AtomicLong tail;     // next slot a producer will claim
+	private final AtomicLong head;     // next slot the consumer will read
+
+	// Monitoring
+	private final AtomicLong highWaterMark;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	/**
+	 * @param capacity      Minimum number of elements the ring can hold. Rounded up to the next
+	 *                      power of two.
+	 * @param multiProducer True if more than one thread may add elements
+	 * @param waitStrategy  How blocking calls should wait
+	 */
+	public RingBuffer( int capacity, boolean multiProducer, WaitStrategy waitStrategy )
+	{
+		if( capacity < 1 || capacity > (1 << 30) )
+			throw new IllegalArgumentException( "Ring capacity must be 1-2^30: "+capacity );
+
+		int size = Integer.highestOneBit( capacity );
+		if( size < capacity )
+			size <<= 1;
+
+		this.slots = new Object[size];
+		this.sequences = new AtomicLongArray( size );
+		for( int i = 0; i < size; i++ )
+			this.sequences.set( i, i );
+
+		this.mask = size - 1;
+		this.multiProducer = multiProducer;
+		this.waitStrategy = waitStrategy;
+
+		this.tail = new AtomicLong( 0 );
+		this.head = new AtomicLong( 0 );
+		this.highWaterMark = new AtomicLong( 0 );
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+	/**
+	 * Add the element to the ring if there is space for it.
+	 *
+	 * @return True if the element was added, false if the ring is full
+	 */
+	public boolean offer( E element )
+	{
+		if( element == null )
+			throw new NullPointerException();
+
+		long position = tail.get();
+		while( true )
+		{
+			int index = (int)position & mask;
+			long difference = sequences.get(index) - position;
+			if( difference == 0 )
+			{
+				// slot is free for this position, claim it
+				if( multiProducer == false )
+				{
+					tail.lazySet( position+1 );
+					break;
+				}
+				else if( tail.compareAndSet(position,position+1) )
+				{
+					break;
+				}
+			}
+			else if( difference < 0 )
+			{
+				// consumer hasn't freed this slot from the last lap, we're full
+				return false;
+			}
+
+			// someone else claimed it first, try the next one
+			position = tail.get();
+		}
+
+		int index = (int)position & mask;
+		slots[index] = element;
+		sequences.lazySet( index, position+1 );
+
+		// record how deep we've been; only take the CAS hit when it's a new record
+		long depth = position + 1 - head.get();
+		if( depth > highWaterMark.get() )
+			highWaterMark.accumulateAndGet( depth, Math::max );
+
+		return true;
+	}
+
+	/**
+	 * Add the element, waiting for space to free up if the ring is full.
+	 *
+	 * @throws InterruptedException If the calling thread is interrupted while waiting
+	 */
+	public void put( E element ) throws InterruptedException
+	{
+		int idle = 0;
+		while( offer(element) == false )
+			idle = waitStrategy.idle( idle );
+	}
+
+	/**
+	 * Remove the element at the head of the ring. Must only be called from the consumer thread.
+	 *
+	 * @return The element at the head of the ring, or <code>null</code> if it is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll()
+	{
+		long position = head.get();
+		int index = (int)position & mask;
+		if( sequences.get(index) != position+1 )
+			return null; // nothing published here yet
+
+		E element = (E)slots[index];
+		slots[index] = null;
+
+		// free the slot for the producers' next lap
+		sequences.lazySet( index, position+mask+1 );
+		head.lazySet( position+1 );
+		return element;
+	}
+
+	/**
+	 * Remove the element at the head of the ring, waiting for one to arrive if it is empty.
+	 * Must only be called from the consumer thread.
+	 *
+	 * @throws InterruptedException If the calling thread is interrupted while waiting
+	 */
+	public E take() throws InterruptedException
+	{
+		int idle = 0;
+		E element = null;
+		while( (element = poll()) == null )
+			idle = waitStrategy.idle( idle );
+
+		return element;
+	}
+
+	/**
+	 * Drop everything currently in the ring. Must only be called from the consumer thread, or
+	 * once the consumer has stopped.
+	 */
+	public void clear()
+	{
+		while( poll() != null )
+		{
+			// keep going
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return Number of elements in the ring. Only a snapshot if producers or consumer are busy.
+	 */
+	public int size()
+	{
+		long size = tail.get() - head.get();
+		return size < 0 ? 0 : (int)Math.min( size, slots.length );
+	}
+
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	public int capacity()
+	{
+		return slots.length;
+	}
+
+	/**
+	 * @return The most elements the ring has ever held at once
+	 */
+	public long getHighWaterMark()
+	{
+		return highWaterMark.get();
+	}
+
+	public WaitStrategy getWaitStrategy()
+	{
+		return waitStrategy;
+	}
+
+	public boolean isMultiProducer()
+	{
+		return multiProducer;
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Enum: WaitStrategy   ///////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * How a thread waits on a ring that is empty (consumer) or full (producer). This trades
+	 * latency against CPU use:
+	 * <ul>
+	 *   <li><b>BusySpin</b>: Never gives up the core. Lowest latency, burns a full core.</li>
+	 *   <li><b>Yield</b>: Spins briefly, then yields to other threads between checks.</li>
+	 *   <li><b>Park</b>: Spins, then yields, then parks for short periods. Cheapest on CPU
+	 *       when idle, at the cost of some wake-up latency.</li>
+	 * </ul>
+	 */
+	public enum WaitStrategy
+	{
+		BusySpin,
+		Yield,
+		Park;
+
+		private static final int SPIN_TRIES  = 100;
+		private static final int YIELD_TRIES = 200;
+		private static final long PARK_NANOS = 50_000;
+
+		/**
+		 * Wait a little. Called repeatedly while there is nothing to do, passing back whatever
+		 * the previous call returned (starting from 0).
+		 *
+		 * @throws InterruptedException If the calling thread has been interrupted
+		 */
+		public int idle( int counter ) throws InterruptedException
+		{
+			if( Thread.interrupted() )
+				throw new InterruptedException();
+
+			if( this == BusySpin || counter < SPIN_TRIES )
+				Thread.onSpinWait();
+			else if( this == Yield || counter < YIELD_TRIES )
+				Thread.yield();
+			else
+				LockSupport.parkNanos( PARK_NANOS );
+
+			return counter == Integer.MAX_VALUE ? counter : counter+1;
+		}
+
+		/**
+		 * Convert the configuration name of a strategy ("busy-spin", "yield" or "park") to the
+		 * strategy itself. The enum names are also accepted.
+		 */
+		public static WaitStrategy fromString( String name )
+		{
+			switch( name.trim().toLowerCase() )
+			{
+				case "busy-spin":
+				case "busyspin":
+				case "spin":
+					return BusySpin;
+				case "yield":
+					return Yield;
+				case "park":
+					return Park;
+				default:
+					throw new IllegalArgumentException( "Unknown wait strategy: "+name );
+			}
+		}
+	}
+}
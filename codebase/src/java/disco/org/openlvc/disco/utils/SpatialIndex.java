@@ -0,0 +1,497 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import org.openlvc.disco.pdu.record.WorldCoordinate;
+
+/**
+ * Uniform grid over ECEF space that keeps track of where a set of keyed values are, so that
+ * proximity queries only have to look at the values near the point of interest rather than
+ * all of them.
+ * <p/>
+ * Space is carved into cubes of {@link #getCellSize()} meters. Each value lives in the cell
+ * containing its last known location, and is moved between cells as it is updated. Queries
+ * work out which cells overlap the area of interest and only test the values in those. If a
+ * query would have to probe more cells than are actually occupied, the occupied cells are
+ * walked instead, so a very large query is never worse than a linear scan.
+ * <p/>
+ * The cell size should be in the same ballpark as typical query radii. Too small and queries
+ * probe lots of empty cells; too large and each cell holds too many values to test.
+ * <p/>
+ * This class is thread safe. Updates and queries can happen at the same time on different
+ * threads; queries see each value at either its old or new location.
+ *
+ * @param <K> The key type, used to identify a value when it moves or is removed
+ * @param <V> The value type returned from queries
+ */
+public class SpatialIndex<K,V>
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	public static final double DEFAULT_CELL_SIZE = 10000.0;
+
+	// Cell coordinates are packed 21 bits per axis into a long
+	private static final int  CELL_BITS   = 21;
+	private static final long CELL_MASK   = (1L << CELL_BITS) - 1;
+	private static final long CELL_OFFSET = 1L << (CELL_BITS-1);
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private final double cellSize;
+	private final ConcurrentMap<K,Entry<K,V>> entries;
+	private final ConcurrentMap<Long,Map<K,Entry<K,V>>> cells;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	public SpatialIndex()
+	{
+		this( DEFAULT_CELL_SIZE );
+	}
+
+	/**
+	 * @param cellSize Length (meters) of each side of a grid cell
+	 */
+	public SpatialIndex( double cellSize )
+	{
+		if( cellSize <= 0.0 )
+			throw new IllegalArgumentException( "Cell size must be positive: "+cellSize );
+
+		this.cellSize = cellSize;
+		this.entries = new ConcurrentHashMap<>();
+		this.cells = new ConcurrentHashMap<>();
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Update Methods   ///////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public void put( K key, V value, WorldCoordinate location )
+	{
+		put( key, value, location.getX(), location.getY(), location.getZ() );
+	}
+
+	/**
+	 * Store or update the value for the given key at the given ECEF location, moving it to a
+	 * new cell if it has crossed a cell boundary.
+	 */
+	public void put( K key, V value, double x, double y, double z )
+	{
+		long cell = cellKey( x, y, z );
+		while( true )
+		{
+			Entry<K,V> entry = entries.computeIfAbsent( key, Entry::new );
+			synchronized( entry )
+			{
+				// lost a race with remove(); go around and get a fresh entry
+				if( entry.removed )
+					continue;
+
+				entry.value = value;
+				entry.x = x;
+				entry.y = y;
+				entry.z = z;
+				if( entry.indexed == false || entry.cell != cell )
+				{
+					if( entry.indexed )
+						removeFromCell( entry.cell, key );
+
+					addToCell( cell, entry );
+					entry.cell = cell;
+					entry.indexed = true;
+				}
+
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Remove the value stored against the given key.
+	 *
+	 * @return The value that was removed, or null if there wasn't one
+	 */
+	public V remove( K key )
+	{
+		Entry<K,V> entry = entries.remove( key );
+		if( entry == null )
+			return null;
+
+		synchronized( entry )
+		{
+			if( entry.indexed )
+				removeFromCell( entry.cell, key );
+
+			entry.indexed = false;
+			entry.removed = true;
+			return entry.value;
+		}
+	}
+
+	/**
+	 * Remove the value stored against the given key, but only if it is still the given value
+	 * (compared by identity). Lets a caller clean up after a value without throwing away a newer
+	 * one that another thread has just put in its place.
+	 *
+	 * @return True if the value was removed, false if the key now maps to something else
+	 */
+	public boolean remove( K key, V value )
+	{
+		Entry<K,V> entry = entries.get( key );
+		if( entry == null )
+			return false;
+
+		synchronized( entry )
+		{
+			if( entry.removed || entry.value != value )
+				return false;
+
+			entries.remove( key, entry );
+			if( entry.indexed )
+				removeFromCell( entry.cell, key );
+
+			entry.indexed = false;
+			entry.removed = true;
+			return true;
+		}
+	}
+
+	public void clear()
+	{
+		for( K key : entries.keySet() )
+			remove( key );
+	}
+
+	private void addToCell( long cell, Entry<K,V> entry )
+	{
+		cells.compute( cell, (k,contents) -> {
+			if( contents == null )
+				contents = new ConcurrentHashMap<>();
+
+			contents.put( entry.key, entry );
+			return contents;
+		});
+	}
+
+	private void removeFromCell( long cell, K key )
+	{
+		// drop the cell altogether once it is empty so queries don't probe it
+		cells.computeIfPresent( cell, (k,contents) -> {
+			contents.remove( key );
+			return contents.isEmpty() ? null : contents;
+		});
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Query Methods   ////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public List<V> findWithin( WorldCoordinate location, double radius )
+	{
+		return findWithin( location.getX(), location.getY(), location.getZ(), radius );
+	}
+
+	/**
+	 * @return All values whose straight-line distance from the given ECEF point is no more
+	 *         than the given radius (meters). The list is not in any particular order.
+	 */
+	public List<V> findWithin( double x, double y, double z, double radius )
+	{
+		List<V> results = new ArrayList<>();
+		forEachWithin( x, y, z, radius, results::add );
+		return results;
+	}
+
+	/**
+	 * Pass every value within the given radius (meters) of the ECEF point to the given action,
+	 * without collecting them first.
+	 */
+	public void forEachWithin( double x, double y, double z, double radius, Consumer<? super V> action )
+	{
+		double radiusSquared = radius * radius;
+		visit( x-radius, y-radius, z-radius, x+radius, y+radius, z+radius, entry -> {
+			double dx = entry.x - x;
+			double dy = entry.y - y;
+			double dz = entry.z - z;
+			if( dx*dx + dy*dy + dz*dz <= radiusSquared )
+				action.accept( entry.value );
+		});
+	}
+
+	public List<V> findInBox( WorldCoordinate min, WorldCoordinate max )
+	{
+		return findInBox( min.getX(), min.getY(), min.getZ(), max.getX(), max.getY(), max.getZ() );
+	}
+
+	/**
+	 * @return All values inside the given axis-aligned ECEF box (inclusive). The list is not in
+	 *         any particular order.
+	 */
+	public List<V> findInBox( double minX, double minY, double minZ,
+	                          double maxX, double maxY, double maxZ )
+	{
+		List<V> results = new ArrayList<>();
+		visit( minX, minY, minZ, maxX, maxY, maxZ, entry -> {
+			if( entry.x >= minX && entry.x <= maxX &&
+			    entry.y >= minY && entry.y <= maxY &&
+			    entry.z >= minZ && entry.z <= maxZ )
+				results.add( entry.value );
+		});
+
+		return results;
+	}
+
+	public List<V> findNearest( WorldCoordinate location, int count )
+	{
+		return findNearest( location.getX(), location.getY(), location.getZ(), count );
+	}
+
+	/**
+	 * Find the <code>count</code> values closest to the given ECEF point. Cells are searched in
+	 * growing shells around the point until nothing further out could be closer than what has
+	 * already been found.
+	 *
+	 * @return Up to <code>count</code> values, closest first
+	 */
+	public List<V> findNearest( double x, double y, double z, int count )
+	{
+		if( count < 1 || entries.isEmpty() )
+			return Collections.emptyList();
+
+		// max-heap on distance, so the furthest of the current best is on top
+		PriorityQueue<Candidate<V>> best =
+			new PriorityQueue<>( count+1, (a,b) -> Double.compare(b.distanceSquared,a.distanceSquared) );
+		Consumer<Entry<K,V>> collector = entry -> {
+			double dx = entry.x - x;
+			double dy = entry.y - y;
+			double dz = entry.z - z;
+			double distanceSquared = dx*dx + dy*dy + dz*dz;
+			if( best.size() < count )
+			{
+				best.add( new Candidate<>(entry.value,distanceSquared) );
+			}
+			else if( distanceSquared < best.peek().distanceSquared )
+			{
+				best.poll();
+				best.add( new Candidate<>(entry.value,distanceSquared) );
+			}
+		};
+
+		long cx = cellIndex( x );
+		long cy = cellIndex( y );
+		long cz = cellIndex( z );
+		long probed = 0;
+		for( int ring = 0; ; ring++ )
+		{
+			probed += visitRing( cx, cy, cz, ring, collector );
+
+			// everything not yet searched is at least this far away
+			double searched = ring * cellSize;
+			if( best.size() == count && best.peek().distanceSquared <= searched*searched )
+				break;
+
+			if( best.size() >= entries.size() )
+				break;
+
+			// the shells are getting expensive; just look at everything
+			if( probed > cells.size() )
+			{
+				best.clear();
+				for( Entry<K,V> entry : entries.values() )
+					collector.accept( entry );
+
+				break;
+			}
+		}
+
+		List<V> results = new ArrayList<>( best.size() );
+		while( best.isEmpty() == false )
+			results.add( best.poll().value );
+
+		Collections.reverse( results );
+		return results;
+	}
+
+	/**
+	 * Pass every entry in a cell overlapping the given box to the visitor. Entries outside the
+	 * box may also be passed; the visitor has to do the precise test.
+	 */
+	private void visit( double minX, double minY, double minZ,
+	                    double maxX, double maxY, double maxZ,
+	                    Consumer<Entry<K,V>> visitor )
+	{
+		long cx0 = cellIndex( minX ), cx1 = cellIndex( maxX );
+		long cy0 = cellIndex( minY ), cy1 = cellIndex( maxY );
+		long cz0 = cellIndex( minZ ), cz1 = cellIndex( maxZ );
+		double cellCount = (double)(cx1-cx0+1) * (cy1-cy0+1) * (cz1-cz0+1);
+
+		if( cellCount > cells.size() )
+		{
+			// cheaper to walk what's there than to probe every cell in range
+			for( Map<K,Entry<K,V>> contents : cells.values() )
+				contents.values().forEach( visitor );
+
+			return;
+		}
+
+		for( long cx = cx0; cx <= cx1; cx++ )
+		{
+			for( long cy = cy0; cy <= cy1; cy++ )
+			{
+				for( long cz = cz0; cz <= cz1; cz++ )
+				{
+					Map<K,Entry<K,V>> contents = cells.get( pack(cx,cy,cz) );
+					if( contents != null )
+						contents.values().forEach( visitor );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pass every entry in the shell of cells exactly <code>ring</code> cells from the given
+	 * cell (in any axis) to the visitor.
+	 *
+	 * @return The number of cells probed
+	 */
+	private int visitRing( long cx, long cy, long cz, int ring, Consumer<Entry<K,V>> visitor )
+	{
+		int probed = 0;
+		for( int dx = -ring; dx <= ring; dx++ )
+		{
+			for( int dy = -ring; dy <= ring; dy++ )
+			{
+				// on the x/y faces we need the whole column, otherwise just the top and bottom
+				boolean face = Math.abs(dx) == ring || Math.abs(dy) == ring;
+				int step = face || ring == 0 ? 1 : 2*ring;
+				for( int dz = -ring; dz <= ring; dz += step )
+				{
+					++probed;
+					Map<K,Entry<K,V>> contents = cells.get( pack(cx+dx,cy+dy,cz+dz) );
+					if( contents != null )
+						contents.values().forEach( visitor );
+				}
+			}
+		}
+
+		return probed;
+	}
+
+	private long cellIndex( double value )
+	{
+		return (long)Math.floor( value / cellSize );
+	}
+
+	private long cellKey( double x, double y, double z )
+	{
+		return pack( cellIndex(x), cellIndex(y), cellIndex(z) );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public boolean contains( K key )
+	{
+		return entries.containsKey( key );
+	}
+
+	public int size()
+	{
+		return entries.size();
+	}
+
+	public boolean isEmpty()
+	{
+		return entries.isEmpty();
+	}
+
+	public double getCellSize()
+	{
+		return this.cellSize;
+	}
+
+	/**
+	 * @return The number of cells that currently hold at least one value
+	 */
+	public int getOccupiedCellCount()
+	{
+		return cells.size();
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	private static long pack( long cx, long cy, long cz )
+	{
+		return (((cx + CELL_OFFSET) & CELL_MASK) << (2*CELL_BITS)) |
+		       (((cy + CELL_OFFSET) & CELL_MASK) << CELL_BITS) |
+		       ((cz + CELL_OFFSET) & CELL_MASK);
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: Entry   /////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private static class Entry<K,V>
+	{
+		private final K key;
+		private volatile V value;
+		private volatile double x;
+		private volatile double y;
+		private volatile double z;
+
+		// only touched while holding the entry's lock
+		private long cell;
+		private boolean indexed;
+		private boolean removed;
+
+		private Entry( K key )
+		{
+			this.key = key;
+			this.indexed = false;
+			this.removed = false;
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: Candidate   /////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private static class Candidate<V>
+	{
+		private final V value;
+		private final double distanceSquared;
+
+		private Candidate( V value, double distanceSquared )
+		{
+			this.value = value;
+			this.distanceSquared = distanceSquared;
+		}
+	}
+}
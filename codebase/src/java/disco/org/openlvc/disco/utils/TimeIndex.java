@@ -0,0 +1,232 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a set of keyed values ordered by the time each was last updated, so that "what has
+ * changed since T" and "what hasn't changed since T" can be answered by looking at just the
+ * values involved, rather than everything.
+ * <p/>
+ * Values sit in a concurrent skip list ordered on their update time. Each key only ever has one
+ * entry, which is moved to the end of the list when the key is updated. Updates are
+ * <code>O(log n)</code>. Asking for the values updated since some time costs in proportion to
+ * how many there are. Removing everything older than some time pops entries off the front of
+ * the list.
+ * <p/>
+ * Times are whatever the caller wants them to be, typically millis since the epoch. They must
+ * not be negative. This class is thread safe.
+ *
+ * @param <K> The key type, used to find a value's existing entry when it is updated or removed
+ * @param <V> The value type returned from queries
+ */
+public class TimeIndex<K,V>
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	// Entries are ordered on (time << SEQUENCE_BITS | sequence) so that values updated in the
+	// same millisecond each get their own slot. 20 bits leaves room for times to the year 2248.
+	private static final int  SEQUENCE_BITS = 20;
+	private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private final ConcurrentSkipListMap<Long,Node<K,V>> byTime;
+	private final ConcurrentMap<K,Long> stamps;
+	private final AtomicLong sequence;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	public TimeIndex()
+	{
+		this.byTime = new ConcurrentSkipListMap<>();
+		this.stamps = new ConcurrentHashMap<>();
+		this.sequence = new AtomicLong( 0 );
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Update Methods   ///////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Store or update the value for the given key, recording that it was updated at the given
+	 * time. Any previous entry for the key is dropped.
+	 */
+	public void put( K key, V value, long time )
+	{
+		long stamp = (time << SEQUENCE_BITS) | (sequence.getAndIncrement() & SEQUENCE_MASK);
+		Node<K,V> node = new Node<>( key, value );
+
+		// done inside compute so two updates to the same key can't leave a stray entry behind
+		stamps.compute( key, (k,previous) -> {
+			if( previous != null )
+				byTime.remove( previous );
+
+			byTime.put( stamp, node );
+			return stamp;
+		});
+	}
+
+	/**
+	 * Remove the entry for the given key.
+	 *
+	 * @return The value that was removed, or null if there wasn't one
+	 */
+	public V remove( K key )
+	{
+		Long stamp = stamps.remove( key );
+		if( stamp == null )
+			return null;
+
+		Node<K,V> node = byTime.remove( stamp );
+		return node == null ? null : node.value;
+	}
+
+	/**
+	 * Remove every value that was last updated before the given time. Entries are taken off the
+	 * front of the list until one at or after the time is reached, so this only touches the
+	 * values that are actually removed.
+	 *
+	 * @param time     Values updated before this are removed
+	 * @param listener Told about each key/value that is removed, may be null
+	 * @return The number of values removed
+	 */
+	public int removeOlderThan( long time, BiConsumer<K,V> listener )
+	{
+		long bound = time << SEQUENCE_BITS;
+		int removed = 0;
+		Map.Entry<Long,Node<K,V>> oldest;
+		while( (oldest = byTime.firstEntry()) != null && oldest.getKey() < bound )
+		{
+			Node<K,V> node = oldest.getValue();
+
+			// only counts if the key hasn't been updated (and re-stamped) in the meantime
+			if( stamps.remove(node.key,oldest.getKey()) )
+			{
+				byTime.remove( oldest.getKey(), node );
+				if( listener != null )
+					listener.accept( node.key, node.value );
+
+				++removed;
+			}
+			else
+			{
+				// someone else moved or removed it; make sure it's gone and keep going
+				byTime.remove( oldest.getKey(), node );
+			}
+		}
+
+		return removed;
+	}
+
+	public void clear()
+	{
+		for( K key : stamps.keySet() )
+			remove( key );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Query Methods   ////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return All values last updated at or after the given time, oldest first
+	 */
+	public List<V> getUpdatedSince( long time )
+	{
+		List<V> results = new ArrayList<>();
+		forEachUpdatedSince( time, results::add );
+		return results;
+	}
+
+	/**
+	 * Pass every value last updated at or after the given time to the given action, oldest
+	 * first, without collecting them first.
+	 */
+	public void forEachUpdatedSince( long time, Consumer<? super V> action )
+	{
+		for( Node<K,V> node : byTime.tailMap(time << SEQUENCE_BITS, true).values() )
+			action.accept( node.value );
+	}
+
+	/**
+	 * @return The time the given key was last updated, or -1 if it isn't known
+	 */
+	public long getUpdateTime( K key )
+	{
+		Long stamp = stamps.get( key );
+		return stamp == null ? -1 : stamp >>> SEQUENCE_BITS;
+	}
+
+	/**
+	 * @return The time of the least recently updated value, or -1 if there are none
+	 */
+	public long getOldestUpdateTime()
+	{
+		Map.Entry<Long,Node<K,V>> oldest = byTime.firstEntry();
+		return oldest == null ? -1 : oldest.getKey() >>> SEQUENCE_BITS;
+	}
+
+	public boolean contains( K key )
+	{
+		return stamps.containsKey( key );
+	}
+
+	public int size()
+	{
+		return stamps.size();
+	}
+
+	public boolean isEmpty()
+	{
+		return stamps.isEmpty();
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: Node   //////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private static class Node<K,V>
+	{
+		private final K key;
+		private final V value;
+
+		private Node( K key, V value )
+		{
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
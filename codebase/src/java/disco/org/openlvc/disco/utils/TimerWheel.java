@@ -0,0 +1,393 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel for running large numbers of timers, each with its own deadline, off a
+ * single thread. Rather than sweeping over everything on a fixed period to see what is due, each
+ * {@link Timer} sits in the slot for the tick it is due on and the wheel only looks at the
+ * current slot each tick. Work is proportional to what is actually due, and timers with
+ * different deadlines fire at different times rather than all in one burst.
+ * <p/>
+ * Scheduling, rescheduling and cancelling a timer are all constant time. Timers are intrusive
+ * (the wheel links the timer objects themselves into its slots), so none of these allocate.
+ * Deadlines further out than one revolution of the wheel just sit in their slot for extra
+ * revolutions.
+ * <p/>
+ * Deadlines are wall-clock millis, and timers fire on the first tick at or after their
+ * deadline. The wheel itself runs off {@link System#nanoTime()}: a deadline is turned into a
+ * delay from the time it is scheduled, so stepping the wall clock (an NTP correction, say)
+ * doesn't stall or rush the timers. {@link Timer#expired(long)} is called on the wheel thread, outside of any locks, so
+ * it is free to reschedule itself or others. It should be quick; anything slow holds up every
+ * other timer.
+ * <p/>
+ * This class is thread safe.
+ */
+public class TimerWheel
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	public static final long DEFAULT_TICK_MILLIS = 100;
+	public static final int  DEFAULT_WHEEL_SIZE  = 512;
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private final String name;
+	private final long tickMillis;
+	private final long tickNanos;
+	private final Timer[] slots;  // head of a doubly linked list of timers in each slot
+	private final int mask;
+
+	private long startTime;       // System.nanoTime() of tick 0
+	private long currentTick;     // last tick that has been processed
+	private int size;
+	private Thread thread;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	public TimerWheel( String name )
+	{
+		this( name, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE );
+	}
+
+	/**
+	 * @param name       Name of the thread that runs the wheel
+	 * @param tickMillis Resolution of the wheel. Timers fire up to this much after their deadline.
+	 * @param wheelSize  Number of slots, rounded up to a power of two. One revolution of the wheel
+	 *                   is <code>tickMillis * wheelSize</code>.
+	 */
+	public TimerWheel( String name, long tickMillis, int wheelSize )
+	{
+		if( tickMillis < 1 )
+			throw new IllegalArgumentException( "Tick must be at least 1ms: "+tickMillis );
+		if( wheelSize < 1 || wheelSize > (1 << 20) )
+			throw new IllegalArgumentException( "Wheel size must be between 1 and 2^20: "+wheelSize );
+
+		int slotCount = Integer.highestOneBit( wheelSize );
+		if( slotCount < wheelSize )
+			slotCount <<= 1;
+
+		this.name = name;
+		this.tickMillis = tickMillis;
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos( tickMillis );
+		this.slots = new Timer[slotCount];
+		this.mask = slotCount - 1;
+
+		this.startTime = System.nanoTime();
+		this.currentTick = 0;
+		this.size = 0;
+		this.thread = null; // set in start()
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Lifecycle Methods   ////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public synchronized void start()
+	{
+		if( this.thread != null )
+			return;
+
+		// rebase the tick count, keeping any timers that are already scheduled where they are
+		long now = System.nanoTime();
+		for( Timer head : slots )
+			for( Timer timer = head; timer != null; timer = timer.next )
+				timer.tick = Math.max( 1, ticksUntil(timer.due,now) );
+
+		this.startTime = now;
+		this.currentTick = 0;
+		rehash();
+
+		this.thread = new Thread( this::run, name );
+		this.thread.setDaemon( true );
+		this.thread.start();
+	}
+
+	/**
+	 * Stop the wheel thread. Scheduled timers stay scheduled, and will fire (late) if the wheel
+	 * is started again. Use {@link #clear()} to drop them.
+	 */
+	public void stop()
+	{
+		Thread running;
+		synchronized( this )
+		{
+			running = this.thread;
+			this.thread = null;
+		}
+
+		if( running == null )
+			return;
+
+		running.interrupt();
+		try
+		{
+			running.join( 1000 );
+		}
+		catch( InterruptedException ie )
+		{ /*no-op*/ }
+	}
+
+	private void run()
+	{
+		List<Timer> expired = new ArrayList<>();
+		while( Thread.interrupted() == false )
+		{
+			try
+			{
+				long wait = startTime + (currentTick+1)*tickNanos - System.nanoTime();
+				if( wait > 0 )
+					TimeUnit.NANOSECONDS.sleep( wait );
+			}
+			catch( InterruptedException ie )
+			{
+				return;
+			}
+
+			// catch up on all the ticks that are due, collecting timers as we go
+			long nanos = System.nanoTime();
+			synchronized( this )
+			{
+				while( startTime + (currentTick+1)*tickNanos - nanos <= 0 )
+				{
+					++currentTick;
+					Timer timer = slots[(int)(currentTick & mask)];
+					while( timer != null )
+					{
+						Timer next = timer.next;
+						if( timer.tick <= currentTick )
+						{
+							unlink( timer );
+							expired.add( timer );
+						}
+
+						timer = next;
+					}
+				}
+			}
+
+			// fire them without holding the lock so they can reschedule
+			long now = System.currentTimeMillis();
+			for( int i = 0; i < expired.size(); i++ )
+			{
+				Timer timer = expired.get( i );
+				try
+				{
+					timer.expired( now );
+				}
+				catch( RuntimeException re )
+				{
+					// one bad timer mustn't stop the rest
+					Thread current = Thread.currentThread();
+					current.getUncaughtExceptionHandler().uncaughtException( current, re );
+				}
+			}
+
+			expired.clear();
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Scheduling Methods   ///////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Schedule the timer to fire at the given wall-clock time. If it is already scheduled, it is
+	 * moved to the new deadline. Deadlines in the past fire on the next tick. The deadline is
+	 * taken as a delay from now, so later changes to the wall clock don't move it.
+	 *
+	 * @throws IllegalStateException If the timer is scheduled on a different wheel
+	 */
+	public synchronized void schedule( Timer timer, long deadline )
+	{
+		if( timer.wheel != null && timer.wheel != this )
+			throw new IllegalStateException( "Timer is already scheduled on another wheel" );
+
+		if( timer.wheel == this )
+			unlink( timer );
+
+		long delay = Math.max( 0, deadline - System.currentTimeMillis() );
+		timer.deadline = deadline;
+		timer.due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( delay );
+		timer.tick = Math.max( currentTick+1, ticksUntil(timer.due,startTime) );
+		link( timer );
+	}
+
+	/**
+	 * Stop the timer from firing.
+	 *
+	 * @return True if it was scheduled on this wheel, false otherwise
+	 */
+	public synchronized boolean cancel( Timer timer )
+	{
+		if( timer.wheel != this )
+			return false;
+
+		unlink( timer );
+		return true;
+	}
+
+	/**
+	 * Cancel every scheduled timer.
+	 */
+	public synchronized void clear()
+	{
+		for( int i = 0; i < slots.length; i++ )
+		{
+			while( slots[i] != null )
+				unlink( slots[i] );
+		}
+	}
+
+	private void link( Timer timer )
+	{
+		int slot = (int)(timer.tick & mask);
+		timer.wheel = this;
+		timer.slot = slot;
+		timer.prev = null;
+		timer.next = slots[slot];
+		if( timer.next != null )
+			timer.next.prev = timer;
+
+		slots[slot] = timer;
+		++size;
+	}
+
+	private void unlink( Timer timer )
+	{
+		if( timer.prev == null )
+			slots[timer.slot] = timer.next;
+		else
+			timer.prev.next = timer.next;
+
+		if( timer.next != null )
+			timer.next.prev = timer.prev;
+
+		timer.wheel = null;
+		timer.prev = null;
+		timer.next = null;
+		--size;
+	}
+
+	/**
+	 * Move every timer into the slot for its (possibly recomputed) tick.
+	 */
+	private void rehash()
+	{
+		List<Timer> all = new ArrayList<>( size );
+		for( int i = 0; i < slots.length; i++ )
+		{
+			while( slots[i] != null )
+			{
+				all.add( slots[i] );
+				unlink( slots[i] );
+			}
+		}
+
+		for( Timer timer : all )
+			link( timer );
+	}
+
+	/**
+	 * @return The tick (counting from the given base time) that the due time falls on, rounded
+	 *         up. Both are {@link System#nanoTime()} values.
+	 */
+	private long ticksUntil( long due, long base )
+	{
+		long delta = due - base;
+		return delta <= 0 ? 0 : (delta + tickNanos - 1) / tickNanos;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return The number of timers currently scheduled
+	 */
+	public synchronized int size()
+	{
+		return this.size;
+	}
+
+	public synchronized boolean isRunning()
+	{
+		return this.thread != null;
+	}
+
+	public long getTickMillis()
+	{
+		return this.tickMillis;
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Class: Timer   /////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Something that can be scheduled on a {@link TimerWheel}. Extend this and implement
+	 * {@link #expired(long)}. A timer can be scheduled on one wheel at a time, once.
+	 */
+	public static abstract class Timer
+	{
+		// all guarded by the lock of the wheel the timer is on
+		private TimerWheel wheel;
+		private Timer prev;
+		private Timer next;
+		private int slot;
+		private long tick;
+		private long deadline;  // wall-clock millis, as given
+		private long due;       // System.nanoTime() the deadline works out to
+
+		/**
+		 * Called on the wheel thread once the deadline has passed. The timer is no longer
+		 * scheduled at this point; reschedule it if it should fire again.
+		 *
+		 * @param now The wall-clock time the wheel is processing
+		 */
+		protected abstract void expired( long now );
+
+		public long getDeadline()
+		{
+			return this.deadline;
+		}
+
+		public boolean isScheduled()
+		{
+			TimerWheel current = this.wheel;
+			if( current == null )
+				return false;
+
+			synchronized( current )
+			{
+				return this.wheel == current;
+			}
+		}
+	}
+}
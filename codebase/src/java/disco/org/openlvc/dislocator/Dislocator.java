@@ -21,6 +21,8 @@ import org.apache.logging.log4j.Logger;
 import org.openlvc.disco.DiscoException;
 import org.openlvc.disco.IPduListener;
 import org.openlvc.disco.OpsCenter;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.configuration.Flag;
 import org.openlvc.disco.pdu.PDU;
 import org.openlvc.disco.pdu.entity.EntityStatePdu;
 import org.openlvc.disco.pdu.field.PduType;
@@ -90,6 +92,10 @@ public class Dislocator implements IPduListener
     		{
         		// Open up the Disco Operations Centre
     			logger.info( "(Mode:Network) Connecting to DIS network" );
+
+        		// We only ever look at the marking and location of each ESPDU, so
+        		// don't bother decoding the rest of it
+        		DiscoConfiguration.set( Flag.Lazy );
         		opscenter = new OpsCenter( configuration.getDiscoConfiguration() );
         		opscenter.setPduListener( this );
         		opscenter.open();
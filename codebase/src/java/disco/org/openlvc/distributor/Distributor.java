@@ -23,6 +23,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.logging.log4j.Logger;
 import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.configuration.Flag;
 import org.openlvc.disco.utils.NetworkUtils;
 import org.openlvc.disco.utils.StringUtils;
 import org.openlvc.disco.utils.ThreadUtils;
@@ -86,11 +87,23 @@ public class Distributor
 		// 1. Print welcome information -- remember to introduce yo'self, fool
 		printWelcome();
 		
-		// 2. Bring the Reflector online before we open the flood gates
+		// 2. We're mostly filtering and forwarding, so only decode the PDU fields that our
+		//    filters actually look at, and re-use the original bytes when sending them on
+		DiscoConfiguration.set( Flag.Lazy );
+		
+		//    In pass-through mode, go further: only entity state is decoded at all and the rest
+		//    are carried as their raw bytes (links that need more decode them on the way out)
+		if( configuration.isPassthrough() )
+		{
+			logger.info( "Pass-through mode: PDUs are forwarded as received" );
+			DiscoConfiguration.set( Flag.Passthrough );
+		}
+
+		// 3. Bring the Reflector online before we open the flood gates
 		logger.info( "Starting Reflector" );
 		reflector.up();
 		
-		// 3. Bring the links up. Brace yoursef; the PDUs are coming.
+		// 4. Bring the links up. Brace yoursef; the PDUs are coming.
 		logger.info( "Bringing all links up:" );
 
 		for( ILink link : links )
@@ -98,7 +111,7 @@ public class Distributor
 		
 		logger.info( "" );
 		
-		// 4. Bring up the status logger if configured
+		// 5. Bring up the status logger if configured
 		if( configuration.isStatusLoggingEnabled() )
 		{
 			this.statusLogThread = new StatusLogger();
@@ -181,6 +194,7 @@ public class Distributor
 			if( link.isTransient() )
 			{
 				links.remove( link );
+				reflector.removeLink( link );
 				logger.debug( "Removed transient link "+link.getName() );
 			}
 		}
@@ -263,10 +277,12 @@ public class Distributor
 	
 	private String getStatusSummary( ILink link )
 	{
-		return String.format( "  %-8s [%4s] %s",
+		String queue = reflector.getQueueSummary( link );
+		return String.format( "  %-8s [%4s] %s%s",
 		                      StringUtils.max(link.getName(),8),
 		                      link.getLinkStatus(),
-		                      link.getStatusSummary() );
+		                      link.getStatusSummary(),
+		                      queue.isEmpty() ? "" : " "+queue );
 	}
 
 	//----------------------------------------------------------
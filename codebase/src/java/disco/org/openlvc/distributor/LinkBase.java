@@ -23,6 +23,7 @@ import org.openlvc.disco.pdu.PDU;
 import org.openlvc.distributor.configuration.LinkConfiguration;
 import org.openlvc.distributor.filters.FilterFactory;
 import org.openlvc.distributor.filters.FilterGroup;
+import org.openlvc.distributor.filters.IFilter;
 
 /**
  * Base class for all {@link ILink} implementations. Manages the tasks and tracking that is
@@ -45,6 +46,8 @@ public abstract class LinkBase
 	
 	protected FilterGroup receiveFilter;
 	protected FilterGroup sendFilter;
+	private IFilter compiledReceiveFilter; // what we actually test PDUs with, see setReceiveFilter()
+	private IFilter compiledSendFilter;
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -57,13 +60,13 @@ public abstract class LinkBase
 		this.isTransient = false;
 		
 		// pull the filter information out of the config
-		this.receiveFilter = null;
-		this.sendFilter = null;
+		setReceiveFilter( null );
+		setSendFilter( null );
 		if( linkConfiguration.isReceiveFiltering() )
-			this.receiveFilter = FilterFactory.parse( linkConfiguration.getReceiveFilter() );
+			setReceiveFilter( FilterFactory.parse(linkConfiguration.getReceiveFilter()) );
 		
 		if( linkConfiguration.isSendFiltering() )
-			this.sendFilter = FilterFactory.parse( linkConfiguration.getSendFilter() );
+			setSendFilter( FilterFactory.parse(linkConfiguration.getSendFilter()) );
 	}
 
 	//----------------------------------------------------------
@@ -86,27 +89,41 @@ public abstract class LinkBase
 	/** Return true if the PDU passes receive filtering and should be passed to reflector */
 	public boolean passesReceiveFilter( PDU pdu )
 	{
-		return receiveFilter == null ? true : receiveFilter.matches(pdu);
+		IFilter filter = compiledReceiveFilter;
+		return filter == null ? true : filter.matches(pdu);
 	}
 	
 	/** Return true if the PDU passes send filtering and should be passed to us by reflector */
 	public boolean passesSendFilter( PDU pdu )
 	{
-		return sendFilter == null ? true : sendFilter.matches(pdu);
+		IFilter filter = compiledSendFilter;
+		return filter == null ? true : filter.matches(pdu);
 	}
 
 
 	/**
 	 * Inbound filtering: <code>network -> reflector</code><p/>
 	 * Defines which messages are forwarded to the reflector.
+	 * <p/>
+	 * The group is compiled (see {@link FilterGroup#compile()}) and the compiled form is what
+	 * PDUs are tested against, so changes made to the group after it is set are not seen.
 	 */
-	public void setReceiveFilter( FilterGroup filterGroup ) { this.receiveFilter = filterGroup; }
+	public final void setReceiveFilter( FilterGroup filterGroup )
+	{
+		this.receiveFilter = filterGroup;
+		this.compiledReceiveFilter = filterGroup == null ? null : filterGroup.compile();
+	}
 
 	/**
 	 * Outbound filtering: <code>reflector -> network</code><p/>
-	 * Defines which messages the reflector will forward to us.
+	 * Defines which messages the reflector will forward to us. Compiled in the same way as the
+	 * receive filter.
 	 */
-	public void setSendFilter( FilterGroup filterGroup ) { this.sendFilter = filterGroup; }
+	public final void setSendFilter( FilterGroup filterGroup )
+	{
+		this.sendFilter = filterGroup;
+		this.compiledSendFilter = filterGroup == null ? null : filterGroup.compile();
+	}
 	
 	public FilterGroup getReceiveFilter()   { return this.receiveFilter; }
 	public FilterGroup getSendFilter()      { return this.sendFilter; }
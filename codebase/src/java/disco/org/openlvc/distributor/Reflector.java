@@ -18,13 +18,26 @@
 package org.openlvc.distributor;
 
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.utils.ConflatingQueue;
 
 /**
  * The {@link Reflector} is the central clearing house for all incoming messages.
  * Incoming packets are offered to the reflector, which will then queue and send
  * them out to all the other links.
+ * <p/>
+ * Each link has its own bounded outbound queue and delivery thread. The reflector only ever
+ * puts messages on those queues, and each link's thread applies the link's send filter and
+ * hands the message to {@link ILink#reflect(Message)}. A link that is slow to send (a congested
+ * WAN, say) only backs up its own queue, and everyone else carries on. What happens when a
+ * link's queue fills up is set per link (see
+ * {@link org.openlvc.distributor.configuration.LinkConfiguration#getQueueOverflow()}). By
+ * default the reflector waits for space, so nothing is lost. Links can opt in to conflating
+ * entity state instead, so a link that is behind sends the latest state of each entity rather
+ * than a backlog of stale updates, and events are only lost if the queue is full of them.
  */
 public class Reflector
 {
@@ -37,8 +50,8 @@ public class Reflector
 	//----------------------------------------------------------
 	private Distributor distributor;
 	private List<ILink> links;
-	private BlockingQueue<Message> queue;
-	private Thread workerThread;
+	private Map<ILink,Outbox> outboxes;
+	private volatile boolean up;
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -47,8 +60,8 @@ public class Reflector
 	{
 		this.distributor = distributor;
 		this.links = distributor.links;
-		this.queue = new LinkedBlockingQueue<>();
-		this.workerThread = null; // set when brought online
+		this.outboxes = new ConcurrentHashMap<>();
+		this.up = false;
 	}
 
 	//----------------------------------------------------------
@@ -65,8 +78,22 @@ public class Reflector
 	 * the link and not the reflector.
 	 * <p/>
 	 * 
-	 * An internal queue is maintained by the reflector. If this queue is out of space, calls
-	 * to this method will block until the message can be inserted.
+	 * The message is put on the outbound queue of every other link that is up. This only
+	 * blocks if one of those queues is full and that link is configured to block; otherwise a
+	 * full queue conflates or drops according to the link's configuration.
+	 * <p/>
+	 * 
+	 * The same PDU instance is handed to every other link, and their outbox threads read it at
+	 * the same time. So it is serialized once, here, before it is queued, and the links only
+	 * ever copy those cached bytes. Links don't modify the PDUs they are given, so the cache
+	 * never goes stale. Any lazily decoded fields the links' filters or writers touch are
+	 * decoded under the PDU's lock and safely published (see EntityStatePdu).
+	 * <p/>
+	 * 
+	 * The PDU sits in the outboxes after the source link's listener has returned, so it is
+	 * {@link PDU#retain() retained} here. Otherwise a link with PDU recycling switched on
+	 * (<code>disco.dis.recyclePdus</code>) would have it overwritten by the next one it reads.
+	 * PDUs that don't pass the receive filter are not retained, and can still be recycled.
 	 * 
 	 * @param message The message to queue for reflection
 	 * @throws InterruptedException If the thread was interrupted while waiting as part of the
@@ -74,8 +101,34 @@ public class Reflector
 	 */
 	public void reflect( Message message ) throws InterruptedException
 	{
-		if( message.getSouce().passesReceiveFilter(message.getPdu()) )
-			this.queue.put( message );
+		if( up == false )
+			return;
+
+		ILink source = message.getSouce();
+		if( source.passesReceiveFilter(message.getPdu()) == false )
+			return;
+
+		// keep it out of the source's recycling pool while it is queued, then serialize it
+		// once, here, so the outbox threads only ever read the cached bytes
+		message.getPdu().retain().setCacheEnabled( true ).prepareCache();
+		for( ILink link : links )
+		{
+			if( link != source && link.isUp() )
+				outboxFor(link).put( message );
+		}
+	}
+
+	private Outbox outboxFor( ILink link )
+	{
+		Outbox outbox = outboxes.get( link );
+		if( outbox != null )
+			return outbox;
+
+		return outboxes.computeIfAbsent( link, key -> {
+			Outbox created = new Outbox( key );
+			created.start();
+			return created;
+		});
 	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -83,12 +136,7 @@ public class Reflector
 	////////////////////////////////////////////////////////////////////////////////////////////
 	protected void up()
 	{
-		// make sure we are not already up
-		if( isUp() )
-			return;
-		
-		this.workerThread = new Thread( new Worker(), "Reflector" );
-		this.workerThread.start();
+		this.up = true;
 	}
 	
 	protected void down()
@@ -96,31 +144,33 @@ public class Reflector
 		// make sure we are not already down
 		if( isDown() )
 			return;
-		
-		// interrupt the thread and wait for it to finish
-		try
-		{
-			this.workerThread.interrupt();
-			this.workerThread.join();
-		}
-		catch( InterruptedException ie )
-		{
-			// nothing to do
-		}
-		finally
-		{
-			this.workerThread = null;
-		}
+
+		this.up = false;
+		for( Outbox outbox : outboxes.values() )
+			outbox.stop();
+
+		outboxes.clear();
+	}
+
+	/**
+	 * Stop delivering to the given link and throw away anything still queued for it. Called
+	 * when a link is removed from the distributor.
+	 */
+	protected void removeLink( ILink link )
+	{
+		Outbox outbox = outboxes.remove( link );
+		if( outbox != null )
+			outbox.stop();
 	}
 
 	public final boolean isUp()
 	{
-		return this.workerThread != null;
+		return this.up;
 	}
 	
 	public final boolean isDown()
 	{
-		return this.workerThread == null;
+		return this.up == false;
 	}
 
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -134,14 +184,81 @@ public class Reflector
 		return this.distributor;
 	}
 
+	/**
+	 * @return One-line summary of the outbound queue for the given link: depth, lag (how long the
+	 *         oldest waiting message has been there), average and max time spent queued, and
+	 *         how many messages were dropped or conflated. Empty if nothing has been queued for
+	 *         the link yet.
+	 */
+	public String getQueueSummary( ILink link )
+	{
+		Outbox outbox = outboxes.get( link );
+		if( outbox == null )
+			return "";
+
+		ConflatingQueue<Message> queue = outbox.queue;
+		return String.format( "queue { depth=%d/%d, lag=%dms, avg=%.1fms, max=%.1fms, dropped=%d, conflated=%d }",
+		                      queue.size(),
+		                      queue.getCapacity(),
+		                      queue.getOldestAgeMillis(),
+		                      queue.getAverageWaitNanos() / 1000000.0,
+		                      queue.getMaxWaitNanos() / 1000000.0,
+		                      queue.getDroppedCount(),
+		                      queue.getConflatedCount() );
+	}
+
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
 	////////////////////////////////////////////////////////////////////////////////////////////
-	/// Private Class: Reflector   /////////////////////////////////////////////////////////////
+	/// Private Class: Outbox   ////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
-	private class Worker implements Runnable
+	/**
+	 * The outbound queue for one link and the thread that feeds the link from it.
+	 */
+	private class Outbox implements Runnable
 	{
+		private final ILink link;
+		private final ConflatingQueue<Message> queue;
+		private Thread thread;
+
+		private Outbox( ILink link )
+		{
+			this.link = link;
+			this.queue = new ConflatingQueue<>( link.getConfiguration().getQueueSize(),
+			                                    link.getConfiguration().getQueueOverflow(),
+			                                    message -> message.getPdu().getConflationKey(),
+			                                    (newer,older) -> newer.getPdu().conflatesWith(older.getPdu()) );
+			this.thread = null; // set in start()
+		}
+
+		private void put( Message message ) throws InterruptedException
+		{
+			queue.put( message );
+		}
+
+		private void start()
+		{
+			this.thread = new Thread( this, "Reflector-"+link.getName() );
+			this.thread.setDaemon( true );
+			this.thread.start();
+		}
+
+		private void stop()
+		{
+			// interrupt the thread and wait for it to finish
+			try
+			{
+				this.thread.interrupt();
+				this.queue.clear();
+				this.thread.join( 1000 ); // don't let a wedged link hold up shutdown
+			}
+			catch( InterruptedException ie )
+			{
+				// nothing to do
+			}
+		}
+
 		public void run()
 		{
 			while( Thread.interrupted() == false )
@@ -149,15 +266,9 @@ public class Reflector
 				try
 				{
 					Message message = queue.take();
-					links.stream().filter( link -> link.isUp() )
-					              .filter( link -> link != message.getSouce() )
-					              .filter( link -> link.passesSendFilter(message.getPdu()) )
-					              .forEach( link -> link.reflect(message) );
-
-					// Queue debugging
-					// if( queue.size() % 1000 == 0 )
-					//	 distributor.getLogger().info( "Queue is at "+queue.size() );
-
+					PDU pdu = message.getPdu();
+					if( link.isUp() && link.passesSendFilter(pdu) )
+						link.reflect( message );
 				}
 				catch( InterruptedException ie )
 				{
@@ -165,8 +276,8 @@ public class Reflector
 				}
 				catch( Exception e )
 				{
-					distributor.getLogger().warn( "Exception in reflector, skipping PDU. Message: "+
-					                              e.getMessage(), e );
+					distributor.getLogger().warn( "Exception reflecting to link "+link.getName()+
+					                              ", skipping PDU. Message: "+e.getMessage(), e );
 				}
 			}
 		}
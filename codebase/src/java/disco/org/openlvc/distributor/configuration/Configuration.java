@@ -37,6 +37,7 @@ public class Configuration
 	public static final String KEY_LOG_LEVEL       = "distributor.loglevel";
 	public static final String KEY_LOG_FILE        = "distributor.logfile";
 	public static final String KEY_STATUS_INTERVAL = "distributor.statusInterval";
+	public static final String KEY_PASSTHROUGH     = "distributor.passthrough";
 	
 	// Link Configuration
 	public static final String KEY_LINKS           = "distributor.links";
@@ -51,6 +52,7 @@ public class Configuration
 	private Logger applicationLogger;
 	private String configFile = "etc/distributor.config";
 	private int statusInterval = 0;
+	private boolean passthrough = false;
 
 	//----------------------------------------------------------
 	//                      CONSTRUCTORS
@@ -141,6 +143,21 @@ public class Configuration
 	{
 		return this.statusInterval > 0;
 	}
+
+	/**
+	 * In pass-through mode PDUs are carried between links as the bytes they arrived as, with
+	 * only Entity State PDUs being (lazily) decoded so that filters can look at them. See
+	 * {@link org.openlvc.disco.configuration.Flag#Passthrough}.
+	 */
+	public boolean isPassthrough()
+	{
+		return this.passthrough;
+	}
+
+	public void setPassthrough( boolean passthrough )
+	{
+		this.passthrough = passthrough;
+	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Command Line Argument Methods   ////////////////////////////////////////////////////////
@@ -174,6 +191,8 @@ public class Configuration
 				this.loggingConfiguration.setLevel( args[++i] );
 			else if( argument.equalsIgnoreCase("--status-interval") )
 				this.setStatusLogInterval( Integer.parseInt(args[++i]) );
+			else if( argument.equalsIgnoreCase("--passthrough") )
+				this.setPassthrough( true );
 			else
 				throw new DiscoException( "Unknown argument: "+argument );
 		}
@@ -240,6 +259,9 @@ public class Configuration
 		{
 			this.statusInterval = Integer.parseInt( properties.getProperty(KEY_STATUS_INTERVAL) );
 		}
+
+		if( properties.containsKey(KEY_PASSTHROUGH) )
+			this.passthrough = Boolean.parseBoolean( properties.getProperty(KEY_PASSTHROUGH).trim() );
 	}
 
 	//----------------------------------------------------------
@@ -254,6 +276,7 @@ public class Configuration
 		System.out.println( "  --config-file      string   (optional)  Relative path to config file               (default: etc/distributor.config)" );
 		System.out.println( "  --log-level        string   (optional)  [OFF,FATAL,ERROR,WARN,INFO,DEBUG,TRACE]    (default: INFO)" );
 		System.out.println( "  --status-interval  int      (optional)  Interval between status logging in seconds (default: 0)" );
+		System.out.println( "  --passthrough               (optional)  Forward PDUs as received, decode ESPDUs only (default: off)" );
 		System.out.println( "" );
 	}
 }
@@ -23,9 +23,11 @@ import java.util.Random;
 
 import org.openlvc.disco.configuration.RprConfiguration.RtiProvider;
 import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.utils.ConflatingQueue.Overflow;
 import org.openlvc.disco.utils.StringUtils;
 import org.openlvc.distributor.Mode;
 import org.openlvc.distributor.TransportType;
+import org.openlvc.distributor.links.wan.BundleCompressor.Codec;
 
 public class LinkConfiguration implements Serializable
 {
@@ -57,6 +59,10 @@ public class LinkConfiguration implements Serializable
 	public static final String LINK_FILTER_RECV         = "filter.recv";
 	public static final String LINK_FILTER_SEND         = "filter.send";
 
+	// Outbound Queue Properties
+	public static final String LINK_QUEUE_SIZE          = "queue.size";
+	public static final String LINK_QUEUE_OVERFLOW      = "queue.overflow"; // block|drop-oldest|conflate
+
 	// DIS Properties
 	public static final String LINK_DIS_ADDRESS         = "dis.address";
 	public static final String LINK_DIS_PORT            = "dis.port";
@@ -77,6 +83,10 @@ public class LinkConfiguration implements Serializable
 	public static final String LINK_WAN_BUNDLING        = "wan.bundling";
 	public static final String LINK_WAN_BUNDLING_SIZE   = "wan.bundling.maxSize";
 	public static final String LINK_WAN_BUNDLING_TIME   = "wan.bundling.maxTime";
+	public static final String LINK_WAN_COMPRESSION     = "wan.compression"; // none|deflate
+	public static final String LINK_WAN_COMPRESSION_LVL = "wan.compression.level";
+	public static final String LINK_WAN_DELTA           = "wan.delta";
+	public static final String LINK_WAN_DELTA_KEYFRAME  = "wan.delta.keyframe";
 
 	// Relay Properties
 	public static final String LINK_RELAY_ADDRESS       = "relay.address";
@@ -155,6 +165,11 @@ public class LinkConfiguration implements Serializable
 				this.setReceiveFilter( value );
 			else if( key.equalsIgnoreCase(prefix+LINK_FILTER_SEND) )
 				this.setSendFilter( value );
+			// Queue Settings
+			else if( key.equalsIgnoreCase(prefix+LINK_QUEUE_SIZE) )
+				this.setQueueSize( value );
+			else if( key.equalsIgnoreCase(prefix+LINK_QUEUE_OVERFLOW) )
+				this.setQueueOverflow( value );
 			// DIS Settings
 			else if( key.equalsIgnoreCase(prefix+LINK_DIS_ADDRESS) )
 				this.setDisAddress( value );
@@ -191,6 +206,14 @@ public class LinkConfiguration implements Serializable
 				this.setWanBundlingSize( value );
 			else if( key.equalsIgnoreCase(prefix+LINK_WAN_BUNDLING_TIME) )
 				this.setWanBundlingTime( value );
+			else if( key.equalsIgnoreCase(prefix+LINK_WAN_COMPRESSION) )
+				this.setWanCompression( value );
+			else if( key.equalsIgnoreCase(prefix+LINK_WAN_COMPRESSION_LVL) )
+				this.setWanCompressionLevel( value );
+			else if( key.equalsIgnoreCase(prefix+LINK_WAN_DELTA) )
+				this.setWanDelta( value );
+			else if( key.equalsIgnoreCase(prefix+LINK_WAN_DELTA_KEYFRAME) )
+				this.setWanDeltaKeyframe( value );
 			// Relay Settings
 			else if( key.equalsIgnoreCase(prefix+LINK_RELAY_ADDRESS) )
 				this.setRelayAddress( value );
@@ -318,6 +341,37 @@ public class LinkConfiguration implements Serializable
 		else
 			return true;
 	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	// Outbound Queue Properties   /////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * @return The most messages the reflector will hold for this link while it is busy sending
+	 */
+	public int getQueueSize()
+	{
+		return getAsInt( LINK_QUEUE_SIZE, 10000 );
+	}
+
+	public void setQueueSize( String size )
+	{
+		set( LINK_QUEUE_SIZE, size );
+	}
+
+	/**
+	 * @return What the reflector does when this link's queue is full. Defaults to blocking, so
+	 *         nothing is ever lost. Links that would rather send the latest state of each entity
+	 *         than hold up the others can opt in to conflating.
+	 */
+	public Overflow getQueueOverflow()
+	{
+		return Overflow.fromString( getAsString(LINK_QUEUE_OVERFLOW,"block") );
+	}
+
+	public void setQueueOverflow( String overflow )
+	{
+		set( LINK_QUEUE_OVERFLOW, overflow );
+	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////////
 	// DIS Properties   ////////////////////////////////////////////////////////////////////////
@@ -645,6 +699,88 @@ public class LinkConfiguration implements Serializable
 		setWanBundlingTime( Integer.parseInt(millis) );
 	}
 
+	/**
+	 * @return How bundles sent over the WAN are compressed. Off by default. The relay is asked
+	 *         to use the same codec when sending back to us.
+	 */
+	public Codec getWanCompression()
+	{
+		return Codec.fromString( getAsString(LINK_WAN_COMPRESSION,"none") );
+	}
+
+	public void setWanCompression( Codec codec )
+	{
+		set( LINK_WAN_COMPRESSION, codec.name().toLowerCase() );
+	}
+
+	private void setWanCompression( String codec )
+	{
+		setWanCompression( Codec.fromString(codec) );
+	}
+
+	/**
+	 * @return Compression level (0-9) to use for the WAN codec. Defaults to 1 (fastest), which
+	 *         gets nearly all of the benefit on bundles of a few KB.
+	 */
+	public int getWanCompressionLevel()
+	{
+		return getAsInt( LINK_WAN_COMPRESSION_LVL, 1 );
+	}
+
+	public void setWanCompressionLevel( int level )
+	{
+		if( level < 0 || level > 9 )
+			throw new IllegalArgumentException( "WAN compression level must be between 0 and 9" );
+
+		set( LINK_WAN_COMPRESSION_LVL, level );
+	}
+
+	private void setWanCompressionLevel( String level )
+	{
+		setWanCompressionLevel( Integer.parseInt(level) );
+	}
+
+	/**
+	 * @return True if Entity State PDUs should be sent as deltas against the last state sent for
+	 *         each entity. Off by default. The relay is asked to do the same when sending back.
+	 */
+	public boolean isWanDelta()
+	{
+		return getAsBoolean( LINK_WAN_DELTA, false );
+	}
+
+	public void setWanDelta( boolean delta )
+	{
+		set( LINK_WAN_DELTA, delta );
+	}
+
+	private void setWanDelta( String delta )
+	{
+		setWanDelta( StringUtils.stringToBoolean(delta) );
+	}
+
+	/**
+	 * @return Longest time (millis) to go without sending the full state of an entity when
+	 *         delta encoding is on. Defaults to 5000.
+	 */
+	public int getWanDeltaKeyframe()
+	{
+		return getAsInt( LINK_WAN_DELTA_KEYFRAME, 5000 );
+	}
+
+	public void setWanDeltaKeyframe( int millis )
+	{
+		if( millis < 1 )
+			throw new IllegalArgumentException( "WAN delta keyframe interval must be positive" );
+
+		set( LINK_WAN_DELTA_KEYFRAME, millis );
+	}
+
+	private void setWanDeltaKeyframe( String millis )
+	{
+		setWanDeltaKeyframe( Integer.parseInt(millis) );
+	}
+
 	////////////////////////////////////////////////////////////////////////////////////////////
 	// Relay Properties   //////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
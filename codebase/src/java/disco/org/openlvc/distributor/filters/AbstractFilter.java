@@ -76,6 +76,23 @@ public abstract class AbstractFilter implements IFilter
 			return null;
 	}
 	
+	/**
+	 * Apply the operator to two numbers without boxing them. Contains/DoesNotContain compare the
+	 * decimal strings, as {@link Operator#compare(Object, Object)} does.
+	 */
+	protected final boolean compare( int expected, int received )
+	{
+		switch( operator )
+		{
+			case Equals:
+				return received == expected;
+			case DoesNotEqual:
+				return received != expected;
+			default:
+				return operator.compare( Integer.toString(expected), Integer.toString(received) );
+		}
+	}
+
 	protected final boolean patternMatches( Pattern pattern, String incoming )
 	{
 		boolean matches = pattern.matcher(incoming).matches();
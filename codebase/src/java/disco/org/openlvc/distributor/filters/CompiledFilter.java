@@ -0,0 +1,132 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.distributor.filters;
+
+import java.util.Arrays;
+
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.distributor.filters.FilterGroup.Type;
+
+/**
+ * The compiled form of a {@link FilterGroup}, as produced by {@link FilterGroup#compile()}.
+ * Children are held in a plain array and tested with a simple loop that stops at the first
+ * child that decides the result, so matching a PDU doesn't create iterators, streams or
+ * lambdas the way the parsed group does.
+ * <p/>
+ * An empty group is a constant: an <code>AND</code> of nothing always matches and an
+ * <code>OR</code> of nothing never does (the same as the parsed group would answer). These
+ * are available as {@link #ALWAYS} and {@link #NEVER}, and are what filters fold down to when
+ * their result doesn't depend on the PDU.
+ */
+public final class CompiledFilter implements IFilter
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	public static final CompiledFilter ALWAYS = new CompiledFilter( Type.AND, new IFilter[0] );
+	public static final CompiledFilter NEVER  = new CompiledFilter( Type.OR, new IFilter[0] );
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private final Type type;
+	private final IFilter[] filters;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	protected CompiledFilter( Type type, IFilter[] filters )
+	{
+		this.type = type;
+		this.filters = filters;
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+	@Override
+	public boolean matches( PDU pdu )
+	{
+		if( type == Type.AND )
+		{
+			for( int i = 0; i < filters.length; i++ )
+			{
+				if( filters[i].matches(pdu) == false )
+					return false;
+			}
+
+			return true;
+		}
+		else
+		{
+			for( int i = 0; i < filters.length; i++ )
+			{
+				if( filters[i].matches(pdu) )
+					return true;
+			}
+
+			return false;
+		}
+	}
+
+	@Override
+	public IFilter compile()
+	{
+		return this;
+	}
+
+	@Override
+	public String getFilterString()
+	{
+		return toString();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public Type getType()
+	{
+		return this.type;
+	}
+
+	/**
+	 * @return True if this group matches (or doesn't) regardless of the PDU
+	 */
+	public boolean isConstant()
+	{
+		return this.filters.length == 0;
+	}
+
+	protected IFilter[] getFilters()
+	{
+		return this.filters;
+	}
+
+	@Override
+	public String toString()
+	{
+		if( isConstant() )
+			return type == Type.AND ? "(ALWAYS)" : "(NEVER)";
+		else
+			return "("+this.type+"/"+Arrays.toString(this.filters)+")";
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
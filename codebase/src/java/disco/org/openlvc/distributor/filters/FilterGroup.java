@@ -17,6 +17,7 @@
  */
 package org.openlvc.distributor.filters;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -86,6 +87,66 @@ public class FilterGroup implements IFilter
 		return toString();
 	}
 
+	/**
+	 * Compile this group into a {@link CompiledFilter} that gives the same answers, but is
+	 * cheaper to run against every PDU. Each child is compiled in turn and then:
+	 * <ul>
+	 *   <li>Child groups of the same type are merged into this one: <code>(a && (b && c))</code>
+	 *       is <code>(a && b && c)</code></li>
+	 *   <li>Children that always or never match are folded away, or decide the whole group</li>
+	 *   <li>Repeats of the same filter are dropped</li>
+	 *   <li>A group left with a single child is replaced by that child</li>
+	 * </ul>
+	 * The group itself is not changed, so later changes to it are not seen by the compiled
+	 * filter; compile it again.
+	 */
+	@Override
+	public IFilter compile()
+	{
+		List<IFilter> compiled = new ArrayList<>( filters.size() );
+		for( IFilter filter : filters )
+		{
+			IFilter child = filter.compile();
+			if( child instanceof CompiledFilter )
+			{
+				CompiledFilter group = (CompiledFilter)child;
+				if( group.getType() == this.type )
+				{
+					// same type (or a constant that doesn't change our answer); pull it up
+					for( IFilter grandchild : group.getFilters() )
+						addUnique( compiled, grandchild );
+
+					continue;
+				}
+				else if( group.isConstant() )
+				{
+					// ALWAYS in an OR, or NEVER in an AND; nothing else matters
+					return group;
+				}
+			}
+
+			addUnique( compiled, child );
+		}
+
+		if( compiled.isEmpty() )
+			return type == Type.AND ? CompiledFilter.ALWAYS : CompiledFilter.NEVER;
+		else if( compiled.size() == 1 )
+			return compiled.get( 0 );
+		else
+			return new CompiledFilter( type, compiled.toArray(new IFilter[compiled.size()]) );
+	}
+
+	private void addUnique( List<IFilter> list, IFilter filter )
+	{
+		for( IFilter existing : list )
+		{
+			if( existing.getFilterString().equals(filter.getFilterString()) )
+				return;
+		}
+
+		list.add( filter );
+	}
+
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -103,6 +164,11 @@ public class FilterGroup implements IFilter
 	{
 		return this.filters;
 	}
+
+	public Type getType()
+	{
+		return this.type;
+	}
 	
 	@Override
 	public String toString()
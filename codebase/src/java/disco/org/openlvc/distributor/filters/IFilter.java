@@ -69,4 +69,16 @@ public interface IFilter
 	 * filter encapsultates.
 	 */
 	public String getFilterString();
+
+	/**
+	 * Return a filter that gives the same answer as this one, but is cheaper to evaluate. Links
+	 * compile their filters once when they are set and use the compiled form for every PDU. See
+	 * {@link FilterGroup#compile()}.
+	 * <p/>
+	 * Filters that are already as cheap as they are going to get return themselves.
+	 */
+	public default IFilter compile()
+	{
+		return this;
+	}
 }
@@ -0,0 +1,184 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.distributor.filters;
+
+import java.util.function.ToLongFunction;
+
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+
+/**
+ * Compiled form of a wildcard filter on a multi-part numeric field of an Entity State PDU,
+ * such as <code>entity.id == 1-*-*</code> or <code>entity.type == 1.2.225.*.*.*.*</code>.
+ * <p/>
+ * Rather than formatting the field as a string and running a regular expression over it, the
+ * field is packed into a long (each part in its own run of bits) and each part in the filter
+ * value becomes either "any value" (a <code>*</code>) or an exact number. The whole test is
+ * then a mask and compare on the packed value.
+ * <p/>
+ * Only values where every part is either a lone <code>*</code> or a plain number can be
+ * compiled this way. Anything else (<code>1*-2-3</code>, for example) is left to the regular
+ * expression in the original filter. See {@link #compile(AbstractFilter, String, ToLongFunction, int...)}.
+ */
+public final class PackedFieldFilter implements IFilter
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private final String filterString;
+	private final ToLongFunction<EntityStatePdu> packer;
+	private final long mask;
+	private final long value;
+	private final boolean negate;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	private PackedFieldFilter( String filterString,
+	                           ToLongFunction<EntityStatePdu> packer,
+	                           long mask,
+	                           long value,
+	                           boolean negate )
+	{
+		this.filterString = filterString;
+		this.packer = packer;
+		this.mask = mask;
+		this.value = value;
+		this.negate = negate;
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+	@Override
+	public boolean matches( PDU pdu )
+	{
+		if( pdu instanceof EntityStatePdu == false )
+			return false;
+
+		long packed = packer.applyAsLong( (EntityStatePdu)pdu );
+		return ((packed & mask) == value) != negate;
+	}
+
+	@Override
+	public String getFilterString()
+	{
+		return filterString;
+	}
+
+	@Override
+	public String toString()
+	{
+		return filterString;
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	/**
+	 * Compile the given wildcard filter into a mask and compare on the packed field, if its
+	 * value allows it.
+	 * <p/>
+	 * The value is split on any of the given separator characters and must have one part for
+	 * each of the given widths. Parts are packed most significant first, so the last width is
+	 * the low bits of the packed value. A number too large to fit in its part can never match.
+	 *
+	 * @param source     The filter being compiled. Its value and operator are used, and it is
+	 *                   returned as-is if the value can't be compiled.
+	 * @param separators Characters that separate the parts of the value
+	 * @param packer     Packs the field of an incoming PDU in the same layout as the widths
+	 * @param widths     Number of bits in each part of the packed field
+	 * @return A filter equivalent to the source that doesn't use a regular expression, or the
+	 *         source itself if the value has a wildcard that can't be expressed as a mask
+	 */
+	public static IFilter compile( AbstractFilter source,
+	                               String separators,
+	                               ToLongFunction<EntityStatePdu> packer,
+	                               int... widths )
+	{
+		String[] parts = split( source.value, separators );
+		if( parts.length != widths.length )
+			return source;
+
+		long mask = 0;
+		long value = 0;
+		boolean possible = true;
+		int shift = 0;
+		for( int i = parts.length-1; i >= 0; i-- )
+		{
+			String part = parts[i];
+			long partMask = (1L << widths[i]) - 1;
+			if( part.equals("*") == false )
+			{
+				// must be written the way the field is formatted, or the regex would never match
+				if( isPlainNumber(part) == false )
+					return source;
+
+				long number = Long.parseLong( part );
+				if( number > partMask )
+					possible = false;
+
+				mask |= partMask << shift;
+				value |= (number & partMask) << shift;
+			}
+
+			shift += widths[i];
+		}
+
+		// fold the cases where the answer doesn't depend on the PDU
+		boolean negate = source.operator != Operator.Equals;
+		if( possible == false )
+			return negate ? new PackedFieldFilter( source.getFilterString(), packer, 0, 0, false )
+			              : CompiledFilter.NEVER;
+		else if( mask == 0 && negate )
+			return CompiledFilter.NEVER;
+		else
+			return new PackedFieldFilter( source.getFilterString(), packer, mask, value, negate );
+	}
+
+	private static String[] split( String value, String separators )
+	{
+		StringBuilder builder = new StringBuilder( value.length() );
+		for( int i = 0; i < value.length(); i++ )
+		{
+			char character = value.charAt( i );
+			builder.append( separators.indexOf(character) == -1 ? character : '\n' );
+		}
+
+		return builder.toString().split( "\n", -1 );
+	}
+
+	private static boolean isPlainNumber( String part )
+	{
+		if( part.isEmpty() || part.length() > 9 || (part.length() > 1 && part.charAt(0) == '0') )
+			return false;
+
+		for( int i = 0; i < part.length(); i++ )
+		{
+			char character = part.charAt( i );
+			if( character < '0' || character > '9' )
+				return false;
+		}
+
+		return true;
+	}
+}
@@ -58,7 +58,7 @@ public class EntityDomainFilter extends AbstractFilter implements IFilter
 		if( espdu == null )
 			return false;
 		else
-			return operator.compare( domain, espdu.getEntityType().getDomain() );
+			return compare( domain, (int)(espdu.getPackedEntityType() >>> 48) & 0xff );
 	}
 
 	//----------------------------------------------------------
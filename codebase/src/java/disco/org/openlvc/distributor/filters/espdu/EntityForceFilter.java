@@ -58,7 +58,7 @@ public class EntityForceFilter extends AbstractFilter implements IFilter
 		if( espdu == null )
 			return false;
 		else
-			return operator.compare( forceId, espdu.getForceID().value() );
+			return compare( forceId, espdu.getForceID().value() );
 	}
 	
 	//----------------------------------------------------------
@@ -24,6 +24,7 @@ import org.openlvc.disco.pdu.entity.EntityStatePdu;
 import org.openlvc.distributor.filters.AbstractFilter;
 import org.openlvc.distributor.filters.IFilter;
 import org.openlvc.distributor.filters.Operator;
+import org.openlvc.distributor.filters.PackedFieldFilter;
 import org.openlvc.distributor.filters.Wildcards;
 
 public class EntityIdFilter extends AbstractFilter implements IFilter
@@ -64,6 +65,16 @@ public class EntityIdFilter extends AbstractFilter implements IFilter
 		return patternMatches( pattern, incoming );
 	}
 
+	/**
+	 * Ids with only whole-part wildcards (<code>1-*-*</code>) compile to a mask and compare on
+	 * the packed id, which a lazily decoded PDU can supply without decoding the id at all.
+	 */
+	@Override
+	public IFilter compile()
+	{
+		return PackedFieldFilter.compile( this, "-", EntityStatePdu::getPackedEntityId, 16, 16, 16 );
+	}
+
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
@@ -58,7 +58,7 @@ public class EntityKindFilter extends AbstractFilter implements IFilter
 		if( espdu == null )
 			return false;
 		else
-			return operator.compare( kind, espdu.getEntityType().getKind() );
+			return compare( kind, (int)(espdu.getPackedEntityType() >>> 56) );
 	}
 
 	//----------------------------------------------------------
@@ -24,6 +24,7 @@ import org.openlvc.disco.pdu.entity.EntityStatePdu;
 import org.openlvc.distributor.filters.AbstractFilter;
 import org.openlvc.distributor.filters.IFilter;
 import org.openlvc.distributor.filters.Operator;
+import org.openlvc.distributor.filters.PackedFieldFilter;
 import org.openlvc.distributor.filters.Wildcards;
 
 public class EntityTypeFilter extends AbstractFilter implements IFilter
@@ -61,6 +62,16 @@ public class EntityTypeFilter extends AbstractFilter implements IFilter
 		return patternMatches( pattern, incoming );
 	}
 
+	/**
+	 * Types with only whole-part wildcards (<code>1.2.225.*.*.*.*</code>) compile to a mask and
+	 * compare on the packed type, rather than a regex on its string form.
+	 */
+	@Override
+	public IFilter compile()
+	{
+		return PackedFieldFilter.compile( this, ".- ", EntityStatePdu::getPackedEntityType, 8, 8, 16, 8, 8, 8, 8 );
+	}
+
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
@@ -49,7 +49,7 @@ public class PduAppIdFilter extends AbstractFilter implements IFilter
 
 	public final boolean matches( PDU pdu )
 	{
-		return operator.compare( appId, pdu.getAppId() );
+		return compare( appId, pdu.getAppId() );
 	}
 
 	//----------------------------------------------------------
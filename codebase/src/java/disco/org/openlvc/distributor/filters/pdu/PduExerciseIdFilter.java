@@ -52,7 +52,7 @@ public class PduExerciseIdFilter extends AbstractFilter implements IFilter
 	 */
 	public final boolean matches( PDU pdu )
 	{
-		return operator.compare( exerciseId, pdu.getExerciseId() );
+		return compare( exerciseId, pdu.getExerciseId() );
 	}
 
 	//----------------------------------------------------------
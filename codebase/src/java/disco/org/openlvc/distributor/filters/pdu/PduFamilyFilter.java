@@ -53,7 +53,7 @@ public class PduFamilyFilter extends AbstractFilter implements IFilter
 	 */
 	public final boolean matches( PDU pdu )
 	{
-		return operator.compare( family, pdu.getHeader().getProtocolFamily().value() );
+		return compare( family, pdu.getHeader().getProtocolFamily().value() );
 	}
 
 	//----------------------------------------------------------
@@ -49,7 +49,7 @@ public class PduSiteIdFilter extends AbstractFilter implements IFilter
 
 	public final boolean matches( PDU pdu )
 	{
-		return operator.compare( siteId, pdu.getSiteId() );
+		return compare( siteId, pdu.getSiteId() );
 	}
 
 	//----------------------------------------------------------
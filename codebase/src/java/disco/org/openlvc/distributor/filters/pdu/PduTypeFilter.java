@@ -53,7 +53,7 @@ public class PduTypeFilter extends AbstractFilter implements IFilter
 	 */
 	public final boolean matches( PDU pdu )
 	{
-		return operator.compare( type, pdu.getType().value() );
+		return compare( type, pdu.getType().value() );
 	}
 
 	//----------------------------------------------------------
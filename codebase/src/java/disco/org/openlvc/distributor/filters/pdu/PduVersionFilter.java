@@ -53,7 +53,7 @@ public class PduVersionFilter extends AbstractFilter implements IFilter
 	 */
 	public final boolean matches( PDU pdu )
 	{
-		return operator.compare( version, pdu.getHeader().getVersion().value() );
+		return compare( version, pdu.getHeader().getVersion().value() );
 	}
 
 	//----------------------------------------------------------
@@ -19,8 +19,10 @@ package org.openlvc.distributor.links.hla;
 
 import org.openlvc.disco.IPduListener;
 import org.openlvc.disco.OpsCenter;
+import org.openlvc.disco.PduFactory;
 import org.openlvc.disco.configuration.DiscoConfiguration;
 import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.UnparsedPdu;
 import org.openlvc.distributor.Reflector;
 import org.openlvc.distributor.ILink;
 import org.openlvc.distributor.LinkBase;
@@ -115,7 +117,19 @@ public class HlaLink extends LinkBase implements ILink, IPduListener
 	{
 		try
 		{
-			this.opsCenter.sendRaw( message.getPdu() );
+			// HLA needs the PDU's contents to build objects/interactions from, so anything
+			// that has been passed through without being decoded has to be decoded now. Use
+			// our own factory so any custom types registered on it are picked up. Types it
+			// can't build are passed on as they are, just as they always have been.
+			PDU pdu = message.getPdu();
+			if( pdu instanceof UnparsedPdu )
+			{
+				PduFactory factory = opsCenter.getPduFactory();
+				if( factory.getSupportedPduTypes().contains(pdu.getType()) )
+					pdu = factory.parse( (UnparsedPdu)pdu );
+			}
+
+			this.opsCenter.sendRaw( pdu );
 		}
 		catch( Exception e )
 		{
@@ -37,6 +37,7 @@ import org.openlvc.distributor.Message;
 import org.openlvc.distributor.Reflector;
 import org.openlvc.distributor.TransportType;
 import org.openlvc.distributor.configuration.LinkConfiguration;
+import org.openlvc.distributor.links.wan.DeltaCodec;
 import org.openlvc.distributor.links.wan.TcpWanLink;
 
 /**
@@ -312,6 +313,7 @@ public class RelayLink extends LinkBase implements ILink
 		 * <ul>
 		 *   <li>Connection Name</li>
 		 *   <li>Bundling settings</li>
+		 *   <li>Compression and delta encoding settings</li>
 		 *   <li>Filtering (we flip the sender side filters)</li>
 		 * </ul>
 		 * 
@@ -356,7 +358,14 @@ public class RelayLink extends LinkBase implements ILink
 
 					ObjectInputStream ois = new ObjectInputStream( new ByteArrayInputStream(bytes) );
 					LinkConfiguration remoteConfiguration = (LinkConfiguration)ois.readObject();
-					out.writeInt( 1 );
+
+					// confirm with the codec we'll decode (and send back with), and whether
+					// we'll exchange ESPDU deltas. 1 means neither.
+					int response = remoteConfiguration.getWanCompression().value();
+					if( remoteConfiguration.isWanDelta() )
+						response |= DeltaCodec.HANDSHAKE_FLAG;
+
+					out.writeInt( response );
 					return remoteConfiguration;
 				}
 				catch( Exception e )
@@ -389,6 +398,14 @@ public class RelayLink extends LinkBase implements ILink
 			local.setWanBundling( remote.isWanBundling() );
 			local.setWanBundlingSize( remote.getWanBundlingSizeBytes() );
 			local.setWanBundlingTime( remote.getWanBundlingTime() );
+
+			// Compression
+			local.setWanCompression( remote.getWanCompression() );
+			local.setWanCompressionLevel( remote.getWanCompressionLevel() );
+
+			// Delta Encoding
+			local.setWanDelta( remote.isWanDelta() );
+			local.setWanDeltaKeyframe( remote.getWanDeltaKeyframe() );
 			
 			// Filtering
 			// Set remote's ingress as our egress to prevent unnecessary sending.
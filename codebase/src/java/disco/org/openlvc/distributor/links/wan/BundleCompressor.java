@@ -0,0 +1,466 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.distributor.links.wan;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.openlvc.disco.utils.StringUtils;
+
+/**
+ * Frames bundles for the WAN socket and optionally compresses them. Each bundle is compressed
+ * on its own, so a bundle never depends on one that came before it. To get a decent ratio out
+ * of bundles that small, both ends prime the compressor with a preset dictionary of typical DIS
+ * content (see {@link #createDictionary()}).
+ * <p/>
+ * Every bundle on the wire starts with an int length. If the top bit of the length is set, the
+ * bundle is compressed and the length is followed by another int with its uncompressed size.
+ * Bundles that don't get any smaller are sent as-is, so the receiver always checks the flag,
+ * whatever codec it agreed to.
+ * <p/>
+ * Lengths read off the wire are checked against {@link #getMaxBundleLength()} before anything
+ * is allocated for them, so a corrupt or hostile stream fails with an IOException rather than
+ * taking the process down.
+ * <p/>
+ * Sending and receiving keep separate state. One thread may send while another receives, but
+ * only one thread may do each. Call {@link #close()} when the connection goes down to free the
+ * native zlib state; it is created again if the compressor is used after that.
+ */
+public class BundleCompressor
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	public static final int COMPRESSED_FLAG = 0x80000000;
+
+	/** Largest bundle read off the wire unless told otherwise, see {@link #setMaxBundleLength(int)} */
+	public static final int DEFAULT_MAX_BUNDLE_LENGTH = 1024 * 1024;
+
+	private static final byte[] DICTIONARY = createDictionary();
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private Codec codec;
+	private int level;
+	private int maxBundleLength;
+
+	private Deflater deflater;   // created on first use of the Deflate codec
+	private Inflater inflater;   // created on first compressed bundle received
+	private byte[] deflateBuffer;
+
+	// metrics
+	private volatile long rawBytesSent;
+	private volatile long wireBytesSent;
+	private volatile long rawBytesReceived;
+	private volatile long wireBytesReceived;
+	private volatile long cpuNanos;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	public BundleCompressor( Codec codec, int level )
+	{
+		this.deflater = null;
+		this.inflater = null;
+		this.deflateBuffer = new byte[0];
+		this.maxBundleLength = DEFAULT_MAX_BUNDLE_LENGTH;
+		setCodec( codec, level );
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Sending Methods   //////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Write the given bundle to the stream, compressing it first if a codec is in use and it
+	 * actually makes the bundle smaller.
+	 *
+	 * @return The number of bytes written to the stream
+	 */
+	public int write( DataOutputStream out, byte[] bundle, int length ) throws IOException
+	{
+		int compressed = codec == Codec.Deflate ? deflate( bundle, length ) : -1;
+		int written;
+		if( compressed == -1 )
+		{
+			out.writeInt( length );
+			out.write( bundle, 0, length );
+			written = 4 + length;
+		}
+		else
+		{
+			out.writeInt( COMPRESSED_FLAG | compressed );
+			out.writeInt( length );
+			out.write( deflateBuffer, 0, compressed );
+			written = 8 + compressed;
+		}
+
+		rawBytesSent += length;
+		wireBytesSent += written;
+		return written;
+	}
+
+	/**
+	 * Deflate the bundle into {@link #deflateBuffer}.
+	 *
+	 * @return The compressed size, or -1 if compressing it wouldn't save anything
+	 */
+	private int deflate( byte[] bundle, int length )
+	{
+		long start = cpuTime();
+		if( deflateBuffer.length < length )
+			deflateBuffer = new byte[length];
+
+		if( deflater == null )
+			deflater = new Deflater( level );
+
+		deflater.reset();
+		deflater.setDictionary( DICTIONARY );
+		deflater.setInput( bundle, 0, length );
+		deflater.finish();
+
+		// only give it as much room as the raw bundle; if it needs more it isn't worth it
+		int compressed = 0;
+		while( !deflater.finished() && compressed < length - 4 )
+			compressed += deflater.deflate( deflateBuffer, compressed, length - 4 - compressed );
+
+		cpuNanos += cpuTime() - start;
+		return deflater.finished() ? compressed : -1;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Receiving Methods   ////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Read the next bundle off the stream, inflating it if the sender compressed it. Blocks
+	 * until the whole bundle has arrived.
+	 *
+	 * @return The uncompressed bundle
+	 * @throws IOException If the stream fails, a length is out of range, or the bundle can't be
+	 *                     inflated
+	 */
+	public byte[] read( DataInputStream in ) throws IOException
+	{
+		int header = in.readInt();
+		if( (header & COMPRESSED_FLAG) == 0 )
+		{
+			checkLength( "Bundle", header );
+			byte[] bundle = new byte[header];
+			in.readFully( bundle );
+			rawBytesReceived += header;
+			wireBytesReceived += 4 + header;
+			return bundle;
+		}
+
+		int length = header & ~COMPRESSED_FLAG;
+		int rawLength = in.readInt();
+		checkLength( "Compressed bundle", length );
+		checkLength( "Uncompressed bundle", rawLength );
+		byte[] compressed = new byte[length];
+		in.readFully( compressed );
+
+		byte[] bundle = inflate( compressed, rawLength );
+		rawBytesReceived += rawLength;
+		wireBytesReceived += 8 + length;
+		return bundle;
+	}
+
+	private void checkLength( String what, int length ) throws IOException
+	{
+		if( length < 0 || length > maxBundleLength )
+			throw new IOException( what+" length out of range (stream corrupt?): "+length );
+	}
+
+	private byte[] inflate( byte[] compressed, int rawLength ) throws IOException
+	{
+		long start = cpuTime();
+		if( inflater == null )
+			inflater = new Inflater();
+
+		try
+		{
+			inflater.reset();
+			inflater.setInput( compressed );
+
+			byte[] bundle = new byte[rawLength];
+			int position = 0;
+			while( !inflater.finished() )
+			{
+				int inflated = inflater.inflate( bundle, position, rawLength - position );
+				position += inflated;
+				if( inflated == 0 && inflater.needsDictionary() )
+					inflater.setDictionary( DICTIONARY );
+				else if( inflated == 0 && (inflater.needsInput() || position == rawLength) )
+					break;
+			}
+
+			if( !inflater.finished() || position != rawLength )
+				throw new IOException( "Compressed bundle is corrupt or truncated" );
+
+			return bundle;
+		}
+		catch( DataFormatException | IllegalArgumentException e )
+		{
+			// IllegalArgumentException comes from setDictionary() if the sender used another one
+			throw new IOException( "Could not inflate bundle: "+e.getMessage(), e );
+		}
+		finally
+		{
+			cpuNanos += cpuTime() - start;
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Lifecycle Methods   ////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Free the native memory held by the deflater and inflater. Only call this once nothing is
+	 * sending or receiving, such as when the link goes down. Using the compressor again after
+	 * this is fine; it just has to create them again.
+	 */
+	public void close()
+	{
+		if( deflater != null )
+		{
+			deflater.end();
+			deflater = null;
+		}
+
+		if( inflater != null )
+		{
+			inflater.end();
+			inflater = null;
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Change the codec used for bundles we send. Only call this while nothing is being sent,
+	 * such as during the handshake. Received bundles say whether they are compressed, so this
+	 * has no effect on them.
+	 *
+	 * @param codec The codec to compress with
+	 * @param level The Deflater compression level (0-9, or -1 for the default)
+	 */
+	public final void setCodec( Codec codec, int level )
+	{
+		if( level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION )
+			throw new IllegalArgumentException( "Compression level must be between -1 and 9: "+level );
+
+		this.codec = codec;
+		this.level = level;
+		if( codec == Codec.Deflate )
+		{
+			if( deflater != null )
+				deflater.end();
+
+			deflater = new Deflater( level );
+		}
+	}
+
+	public Codec getCodec()
+	{
+		return this.codec;
+	}
+
+	/**
+	 * Set the largest bundle (compressed or not) that {@link #read(DataInputStream)} will accept.
+	 * Anything claiming to be bigger is treated as a corrupt stream.
+	 */
+	public void setMaxBundleLength( int maxBundleLength )
+	{
+		if( maxBundleLength < 1 )
+			throw new IllegalArgumentException( "Max bundle length must be positive: "+maxBundleLength );
+
+		this.maxBundleLength = maxBundleLength;
+	}
+
+	public int getMaxBundleLength()
+	{
+		return this.maxBundleLength;
+	}
+
+	public int getLevel()
+	{
+		return this.level;
+	}
+
+	/**
+	 * @return Bytes put on the wire for each byte of bundle we sent, including framing
+	 */
+	public double getSendRatio()
+	{
+		return rawBytesSent == 0 ? 1.0 : (double)wireBytesSent / rawBytesSent;
+	}
+
+	/**
+	 * @return Bytes read off the wire for each byte of bundle we received, including framing
+	 */
+	public double getReceiveRatio()
+	{
+		return rawBytesReceived == 0 ? 1.0 : (double)wireBytesReceived / rawBytesReceived;
+	}
+
+	/**
+	 * @return CPU time spent compressing and inflating bundles, in nanoseconds
+	 */
+	public long getCpuNanos()
+	{
+		return this.cpuNanos;
+	}
+
+	/**
+	 * @return A summary of the compression achieved in each direction and what it cost, for
+	 *         link status strings
+	 */
+	public String getSummaryString()
+	{
+		return String.format( "zip={ codec=%s, out=%s/%s (%.0f%%), in=%s/%s (%.0f%%), cpu=%dms }",
+		                      codec.name().toLowerCase(),
+		                      StringUtils.humanReadableSize(wireBytesSent),
+		                      StringUtils.humanReadableSize(rawBytesSent),
+		                      getSendRatio()*100.0,
+		                      StringUtils.humanReadableSize(wireBytesReceived),
+		                      StringUtils.humanReadableSize(rawBytesReceived),
+		                      getReceiveRatio()*100.0,
+		                      cpuNanos / 1000000 );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	private static long cpuTime()
+	{
+		return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime()
+		                                                 : System.nanoTime();
+	}
+
+	/**
+	 * Build the preset dictionary both ends of a link prime their compressor with. It holds the
+	 * headers of the PDUs most often seen on a WAN link, followed by a typical Entity State PDU
+	 * (deflate finds matches near the end of the dictionary most cheaply, so the most common PDU
+	 * goes last). The bytes are written out explicitly rather than generated from the PDU
+	 * classes so that they can't drift: they are part of the wire protocol, and any change needs
+	 * a new {@link Codec}.
+	 */
+	protected static byte[] createDictionary()
+	{
+		ByteBuffer buffer = ByteBuffer.allocate( 256 );
+
+		// headers: version 6 and 7, exercise 1, then Signal, Transmitter, Detonation, Fire
+		int[][] headers = { {26,4,64}, {25,4,104}, {3,2,104}, {2,2,96} };
+		for( int version = 6; version <= 7; version++ )
+		{
+			for( int[] header : headers )
+			{
+				buffer.put( (byte)version ).put( (byte)1 ).put( (byte)header[0] ).put( (byte)header[1] );
+				buffer.putInt( 0 ).putShort( (short)header[2] ).putShort( (short)0 );
+			}
+		}
+
+		// Entity State PDU: header, id 1-1-1, friendly, no articulations
+		buffer.put( (byte)6 ).put( (byte)1 ).put( (byte)1 ).put( (byte)1 );
+		buffer.putInt( 0 ).putShort( (short)144 ).putShort( (short)0 );
+		buffer.putShort( (short)1 ).putShort( (short)1 ).putShort( (short)1 );
+		buffer.put( (byte)1 ).put( (byte)0 );
+
+		// entity and alternate type (platform, land, US), then velocity, location, orientation
+		for( int i = 0; i < 2; i++ )
+			buffer.put( (byte)1 ).put( (byte)1 ).putShort( (short)225 ).putInt( 0x01010000 );
+
+		buffer.put( new byte[12+24+12] );
+		buffer.putInt( 0 );                   // appearance
+		buffer.put( (byte)2 );                // dead reckoning: DRM(F,P,W)
+		buffer.put( new byte[15+12+12] );     // other params, acceleration, angular velocity
+		buffer.put( (byte)1 );                // marking: ASCII
+		buffer.put( new byte[11] );
+		buffer.putInt( 0 );                   // capabilities
+
+		byte[] dictionary = new byte[buffer.position()];
+		buffer.flip();
+		buffer.get( dictionary );
+		return dictionary;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Enum: Codec   //////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * How bundles are compressed. The value is what the relay sends back at the end of the
+	 * handshake to confirm the codec it will decode; older relays always send 1, which is
+	 * {@link #None}.
+	 */
+	public enum Codec
+	{
+		None( 1 ),
+		Deflate( 2 );
+
+		private final int value;
+		private Codec( int value )
+		{
+			this.value = value;
+		}
+
+		public int value()
+		{
+			return this.value;
+		}
+
+		/**
+		 * @return The codec for the given handshake value. Anything unknown is {@link #None}.
+		 */
+		public static Codec fromValue( int value )
+		{
+			for( Codec codec : values() )
+				if( codec.value == value )
+					return codec;
+
+			return None;
+		}
+
+		public static Codec fromString( String name )
+		{
+			switch( name.trim().toLowerCase() )
+			{
+				case "none":
+				case "off":
+				case "false":
+					return None;
+				case "deflate":
+				case "zlib":
+					return Deflate;
+				default:
+					throw new IllegalArgumentException( "Unknown compression codec: "+name );
+			}
+		}
+	}
+}
@@ -71,6 +71,8 @@ public class Bundler
 	private Logger logger;
 	private TcpWanLink link;
 	private LinkConfiguration linkConfiguration;
+	private BundleCompressor compressor;
+	private DeltaCodec deltas;      // null if not delta encoding ESPDUs, set in up()
 
 	// message queuing
 	private boolean bundleMessages; // bundle messages or not - if false, flush on every submit
@@ -104,6 +106,8 @@ public class Bundler
 	{
 		this.link = link;
 		this.linkConfiguration = link.getConfiguration();
+		this.compressor = link.getCompressor();
+		this.deltas = null;
 		this.logger = logger;
 
 		// message queuing
@@ -153,11 +157,14 @@ public class Bundler
 
 		try
 		{
-			// queue the message
+			// queue the message, as a delta against the last one for the entity if we can
 			byte[] pduBytes = pdu.toByteArray();
 			growBufferIfNeeded( 4/*size*/ + pduBytes.length );
-			buffer.putInt( pduBytes.length );
-			buffer.put( pduBytes );
+			if( deltas == null || deltas.encode(pduBytes,buffer,System.currentTimeMillis()) == false )
+			{
+				buffer.putInt( pduBytes.length );
+				buffer.put( pduBytes );
+			}
 			
 			// metrics
 			queuedMessages++;
@@ -248,17 +255,16 @@ public class Bundler
 		lock.lock();
 		try
 		{
-			// flu away!
+			// flu away! (compressing on the way if the link is configured to)
 			int bytes = buffer.position();
-			outstream.writeInt( bytes );
-			outstream.write( buffer.array(), 0, bytes );
+			int written = compressor.write( outstream, buffer.array(), bytes );
 
 			// metrics			
 			totalMessagesSent += queuedMessages;
 			totalBytesSent += bytes;
 			
 			if( logger.isDebugEnabled() )
-				logger.debug( "Sent "+bytes+" bytes to WAN ("+queuedMessages+" messages)" );
+				logger.debug( "Sent "+written+" bytes to WAN ("+bytes+" raw, "+queuedMessages+" messages)" );
 		}
 		catch( IOException ioex )
 		{
@@ -297,6 +303,13 @@ public class Bundler
 
 		this.outstream = outstream;
 
+		// Anything still here was meant for the last connection, and any deltas in it were
+		// against state the other end of this one doesn't have
+		this.deltas = link.getDeltaCodec();
+		this.buffer.clear();
+		this.queuedMessages = 0;
+		this.oldestMessage = 0;
+
 		// start the sender
 		this.senderThread = new Thread( new Sender(), linkConfiguration.getName()+"-Send" );
 		this.senderThread.setDaemon( true );
@@ -0,0 +1,356 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.distributor.links.wan;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.utils.BitHelpers;
+import org.openlvc.disco.utils.ConcurrentLongMap;
+
+/**
+ * Delta encoding for Entity State PDUs sent over a WAN link. Most of the ESPDU traffic on a link
+ * is the same entities re-sending state where little or nothing has changed, so rather than
+ * sending the whole PDU each time we send a keyframe (the full PDU) once, and after that only
+ * the fields that differ from the last PDU sent for that entity.
+ * <p/>
+ * A delta goes into the bundle in place of the PDU, with {@link #DELTA_FLAG} set on its size:
+ * <pre>
+ *   [int size|DELTA_FLAG][6 byte entity id][short field mask][each changed field, in order]
+ * </pre>
+ * The fields are the ones in {@link #FIELD_START}; the receiver copies the changed ones over the
+ * last PDU it saw for the entity to get the full PDU back. Anything that can't be expressed as a
+ * delta (first sighting, a change in size, or a delta that wouldn't be any smaller) goes as a
+ * keyframe. A keyframe is also forced every so often, so that if the two ends ever disagree it
+ * doesn't last long.
+ * <p/>
+ * This depends on the link delivering every bundle, in order, which TCP does. State lives only as
+ * long as the connection: a new connection starts with a new codec on both ends, so everything
+ * sent after a reconnect starts from a keyframe.
+ * <p/>
+ * Sending and receiving keep separate state. One thread may send while another receives, but
+ * only one thread may do each.
+ */
+public class DeltaCodec
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	/** Set on the size of a bundled PDU to mark it as a delta */
+	public static final int DELTA_FLAG = 0x80000000;
+
+	/** Set in the relay's handshake response when it agrees to exchange deltas */
+	public static final int HANDSHAKE_FLAG = 0x100;
+
+	// Fields of the ESPDU (header included) that are diffed. Entity id (12-18) is the key so it
+	// isn't in here. The last field runs to the end of the PDU, covering any articulations.
+	private static final int[] FIELD_START = { 0, 4, 8, 18, 20, 28, 36, 48, 72, 84, 88, 128, 140, 144 };
+	private static final int[] FIELD_END   = { 4, 8, 12, 20, 28, 36, 48, 72, 84, 88, 128, 140, 144, -1 };
+
+	private static final int ESPDU_LENGTH     = 144;
+	private static final int OFFSET_PDU_TYPE  = 2;
+	private static final int OFFSET_ENTITY_ID = 12;
+	private static final int RECORD_HEADER    = 8; // entity id + field mask
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private final long keyframeInterval;
+
+	// sending: the last PDU sent for each entity, keyed on the packed entity id
+	private final ConcurrentLongMap<State> sent;
+	private long nextSendSweep;
+
+	// receiving: the last PDU received for each entity, keyed on the packed entity id
+	private final ConcurrentLongMap<State> received;
+	private long nextReceiveSweep;
+
+	// metrics
+	private volatile long keyframesSent;
+	private volatile long deltasSent;
+	private volatile long bytesSaved;
+	private volatile long deltasDropped;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+	/**
+	 * @param keyframeInterval Longest time (millis) to go without sending an entity's full state
+	 */
+	public DeltaCodec( long keyframeInterval )
+	{
+		if( keyframeInterval < 1 )
+			throw new IllegalArgumentException( "Keyframe interval must be positive: "+keyframeInterval );
+
+		this.keyframeInterval = keyframeInterval;
+		// one thread each, so one segment each
+		this.sent = new ConcurrentLongMap<>( 1 );
+		this.nextSendSweep = 0;
+		this.received = new ConcurrentLongMap<>( 1 );
+		this.nextReceiveSweep = 0;
+
+		// metrics
+		this.keyframesSent = 0;
+		this.deltasSent = 0;
+		this.bytesSaved = 0;
+		this.deltasDropped = 0;
+	}
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Sending Methods   //////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Try to write the given PDU into the bundle as a delta. If it is written, the size prefix
+	 * (with {@link #DELTA_FLAG}) is written as well. If it isn't, the caller has to write the
+	 * full PDU as it normally would, and it becomes the entity's new keyframe.
+	 *
+	 * @param pdu    The serialized PDU. Must not be modified afterwards; it is kept as the base
+	 *               for the next delta.
+	 * @param buffer The bundle to write into. Must have room for the full PDU plus its size.
+	 * @param now    Current time in millis
+	 * @return True if a delta was written, false if the full PDU should be sent
+	 */
+	public boolean encode( byte[] pdu, ByteBuffer buffer, long now )
+	{
+		if( isEntityState(pdu,0,pdu.length) == false )
+			return false;
+
+		if( now >= nextSendSweep )
+			sweep( sent, now-keyframeInterval, now );
+
+		long key = EntityId.pack( pdu, OFFSET_ENTITY_ID );
+		State previous = sent.get( key );
+		if( previous == null ||
+		    previous.pdu.length != pdu.length ||
+		    now - previous.keyframeTime >= keyframeInterval )
+		{
+			sent.put( key, new State(pdu,now) );
+			++keyframesSent;
+			return false;
+		}
+
+		// work out what changed, and whether it is worth sending that way
+		int mask = 0;
+		int size = RECORD_HEADER;
+		for( int i = 0; i < FIELD_START.length; i++ )
+		{
+			int end = fieldEnd( i, pdu.length );
+			if( !Arrays.equals(pdu, FIELD_START[i], end, previous.pdu, FIELD_START[i], end) )
+			{
+				mask |= 1 << i;
+				size += end - FIELD_START[i];
+			}
+		}
+
+		if( size >= pdu.length )
+		{
+			previous.pdu = pdu;
+			previous.keyframeTime = now;
+			++keyframesSent;
+			return false;
+		}
+
+		buffer.putInt( DELTA_FLAG | size );
+		buffer.put( pdu, OFFSET_ENTITY_ID, 6 );
+		buffer.putShort( (short)mask );
+		for( int i = 0; i < FIELD_START.length; i++ )
+		{
+			if( (mask & (1 << i)) != 0 )
+				buffer.put( pdu, FIELD_START[i], fieldEnd(i,pdu.length)-FIELD_START[i] );
+		}
+
+		previous.pdu = pdu;
+		++deltasSent;
+		bytesSaved += pdu.length - size;
+		return true;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Receiving Methods   ////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Record a full PDU read out of a bundle, so that deltas that follow can be applied to it.
+	 * Anything that isn't an Entity State PDU is ignored.
+	 *
+	 * @throws DiscoException If the PDU runs past the end of the bundle
+	 */
+	public void keyframe( byte[] bundle, int offset, int length, long now ) throws DiscoException
+	{
+		checkBounds( bundle, offset, length );
+		if( isEntityState(bundle,offset,length) == false )
+			return;
+
+		if( now >= nextReceiveSweep )
+			sweep( received, now-(keyframeInterval*3), now );
+
+		// copy it out; the bundle array may be holding a lot of other PDUs
+		byte[] pdu = Arrays.copyOfRange( bundle, offset, offset+length );
+		received.put( EntityId.pack(pdu,OFFSET_ENTITY_ID), new State(pdu,now) );
+	}
+
+	/**
+	 * Rebuild the full PDU for the delta at the given location in a bundle.
+	 *
+	 * @return The full PDU, or null if we have nothing for the entity to apply the delta to
+	 * @throws DiscoException If the delta is malformed, or runs past the end of the bundle
+	 */
+	public byte[] decode( byte[] bundle, int offset, int length, long now ) throws DiscoException
+	{
+		checkBounds( bundle, offset, length );
+		if( length < RECORD_HEADER )
+			throw new DiscoException( "Malformed ESPDU delta: %d bytes is too short", length );
+
+		State previous = received.get( EntityId.pack(bundle,offset) );
+		if( previous == null )
+		{
+			++deltasDropped;
+			return null;
+		}
+
+		// a new array each time, as the last one may be backing a PDU that is still in use
+		int mask = BitHelpers.readShortBE( bundle, offset+6 ) & 0xffff;
+		byte[] pdu = previous.pdu.clone();
+		int position = offset + RECORD_HEADER;
+		for( int i = 0; i < FIELD_START.length; i++ )
+		{
+			if( (mask & (1 << i)) == 0 )
+				continue;
+
+			int size = fieldEnd(i,pdu.length) - FIELD_START[i];
+			if( position+size > offset+length )
+				throw new DiscoException( "Malformed ESPDU delta: fields run past end of record" );
+
+			System.arraycopy( bundle, position, pdu, FIELD_START[i], size );
+			position += size;
+		}
+
+		if( position != offset+length )
+			throw new DiscoException( "Malformed ESPDU delta: %d unused bytes", offset+length-position );
+
+		previous.pdu = pdu;
+		previous.keyframeTime = now;
+		return pdu;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper Methods   ///////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Drop state for entities we haven't heard about since the given time, so entities that
+	 * leave the exercise don't stay around forever. Only does the work once per keyframe interval.
+	 */
+	private void sweep( ConcurrentLongMap<State> states, long olderThan, long now )
+	{
+		states.removeIf( state -> state.keyframeTime < olderThan );
+
+		if( states == sent )
+			nextSendSweep = now + keyframeInterval;
+		else
+			nextReceiveSweep = now + keyframeInterval;
+	}
+
+	private final int fieldEnd( int field, int pduLength )
+	{
+		return FIELD_END[field] == -1 ? pduLength : FIELD_END[field];
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	public long getKeyframeInterval()
+	{
+		return this.keyframeInterval;
+	}
+
+	public long getKeyframesSent()
+	{
+		return this.keyframesSent;
+	}
+
+	public long getDeltasSent()
+	{
+		return this.deltasSent;
+	}
+
+	/**
+	 * @return Bytes of ESPDU we didn't have to send because they went as deltas
+	 */
+	public long getBytesSaved()
+	{
+		return this.bytesSaved;
+	}
+
+	/**
+	 * @return Deltas received for entities we had no state for. These are dropped; the next
+	 *         keyframe for the entity gets it going again.
+	 */
+	public long getDeltasDropped()
+	{
+		return this.deltasDropped;
+	}
+
+	public String getSummaryString()
+	{
+		return String.format( "delta={ keyframes=%d, deltas=%d, saved=%d, dropped=%d }",
+		                      keyframesSent,
+		                      deltasSent,
+		                      bytesSaved,
+		                      deltasDropped );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	private static boolean isEntityState( byte[] bytes, int offset, int length )
+	{
+		return length >= ESPDU_LENGTH &&
+		       (bytes[offset+OFFSET_PDU_TYPE] & 0xff) == PduType.EntityState.value();
+	}
+
+	/**
+	 * Make sure a record's size (read off the wire) keeps it inside the bundle
+	 */
+	private static void checkBounds( byte[] bundle, int offset, int length ) throws DiscoException
+	{
+		if( offset < 0 || length < 0 || length > bundle.length-offset )
+			throw new DiscoException( "Malformed bundle: record of %d bytes at %d runs past end (%d bytes)",
+			                          length, offset, bundle.length );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: State   /////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private static class State
+	{
+		private byte[] pdu;          // last PDU sent/received; never modified once stored
+		private long keyframeTime;   // sending: last keyframe; receiving: last update
+
+		private State( byte[] pdu, long keyframeTime )
+		{
+			this.pdu = pdu;
+			this.keyframeTime = keyframeTime;
+		}
+	}
+}
@@ -42,6 +42,7 @@ import org.openlvc.distributor.LinkBase;
 import org.openlvc.distributor.Message;
 import org.openlvc.distributor.Reflector;
 import org.openlvc.distributor.configuration.LinkConfiguration;
+import org.openlvc.distributor.links.wan.BundleCompressor.Codec;
 
 public class TcpWanLink extends LinkBase implements ILink
 {
@@ -57,6 +58,8 @@ public class TcpWanLink extends LinkBase implements ILink
 	private Socket socket;
 	private DataInputStream instream;
 	private DataOutputStream outstream;
+	private BundleCompressor compressor;
+	private DeltaCodec deltas;      // null unless both ends agreed to exchange deltas
 	private Bundler bundler;
 	private Receiver receiveThread;
 	
@@ -74,6 +77,10 @@ public class TcpWanLink extends LinkBase implements ILink
 		this.socket        = null;   // set in up()
 		this.instream      = null;   // set in up()
 		this.outstream     = null;   // set in up()
+		this.compressor    = new BundleCompressor( linkConfiguration.getWanCompression(),
+		                                       linkConfiguration.getWanCompressionLevel() );
+		this.compressor.setMaxBundleLength( maxBundleLength(linkConfiguration) );
+		this.deltas        = null;   // set in up()
 		this.bundler       = new Bundler( this, logger );
 		this.receiveThread = null;   // set in up()
 		
@@ -107,8 +114,10 @@ public class TcpWanLink extends LinkBase implements ILink
 		// The socket might have already been set using setSocket(), so just be wary
 		if( this.socket != null )
 		{
-			// We do have a socket, no need to connect. Just get reference to the streams
+			// We do have a socket, no need to connect. Just get reference to the streams.
+			// The relay agreed to whatever delta setting the other end asked for.
 			openStreams();
+			this.deltas = createDeltaCodec( linkConfiguration.isWanDelta() );
 		}
 		else
 		{
@@ -231,11 +240,30 @@ public class TcpWanLink extends LinkBase implements ILink
     		
     		logger.debug( "Wrote link configuration, waiting for confirmation" );
     		
+    		// Step 3. Agree on compression and delta encoding
+    		//         The relay confirms our configuration with the codec it will decode and
+    		//         send back to us with, flagging whether it will exchange ESPDU deltas.
+    		//         Relays that support neither send 1 (no compression, no deltas).
     		responseCode = instream.readInt();
     		if( responseCode == -1 )
     			throw new DiscoException( "Unknown error sending link configuration to RELAY." );
-    		else
-    			logger.debug( "Handshake complete" );
+
+    		boolean delta = (responseCode & DeltaCodec.HANDSHAKE_FLAG) != 0;
+    		if( delta != linkConfiguration.isWanDelta() )
+    			logger.warn( "[Link: %s] Relay does not support delta encoding, sending full PDUs", getName() );
+
+    		this.deltas = createDeltaCodec( delta );
+
+    		Codec requested = linkConfiguration.getWanCompression();
+    		Codec agreed = Codec.fromValue( responseCode & ~DeltaCodec.HANDSHAKE_FLAG );
+    		if( agreed != requested )
+    		{
+    			logger.warn( "[Link: %s] Relay does not support %s compression, using %s",
+    			             getName(), requested, agreed );
+    		}
+
+    		compressor.setCodec( agreed, linkConfiguration.getWanCompressionLevel() );
+    		logger.debug( "Handshake complete (compression: %s, delta: %s)", agreed, delta );
 		}
 		catch( Exception e )
 		{
@@ -293,6 +321,11 @@ public class TcpWanLink extends LinkBase implements ILink
     		this.receiveThread = null;
 		}
 
+		//
+		// 4. Nothing is sending or receiving any more, let go of the zlib state
+		//
+		compressor.close();
+
 		logger.trace( "Link is down" );
 		super.linkUp = false;
 	}
@@ -312,7 +345,7 @@ public class TcpWanLink extends LinkBase implements ILink
 			// all sending goes via the bundler, even if bundling isn't enabled (in which
 			// case it will just be flushed immediately)
 			bundler.submit( message.getPdu() );
-			metrics.pduSent( message.getPdu().getPduLength() );
+			metrics.pduSent( message.getPdu().getType().value(), message.getPdu().getPduLength() );
 		}
 		catch( IOException ioex )
 		{
@@ -325,13 +358,11 @@ public class TcpWanLink extends LinkBase implements ILink
 	 */
 	private void receiveNext() throws IOException
 	{
-		// read the payload off the socket
-		int length = instream.readInt();
-		byte[] payload = new byte[length];
-		instream.readFully( payload );
+		// read the payload off the socket, inflating it if needed
+		byte[] payload = compressor.read( instream );
 		
 		if( logger.isDebugEnabled() )
-			logger.debug( "Read payload >> %d bytes", length );
+			logger.debug( "Read payload >> %d bytes", payload.length );
 		
 		// process the bundle
 		processBundle( payload );
@@ -342,6 +373,7 @@ public class TcpWanLink extends LinkBase implements ILink
 		// Iterate over the bundle until there are now more pdus to read
 		try
 		{
+			long now = System.currentTimeMillis();
 			int position = 0;
 			while( position < payload.length )
 			{
@@ -349,14 +381,37 @@ public class TcpWanLink extends LinkBase implements ILink
 				int pduSize = BitHelpers.readIntBE( payload, position );
 				position += 4;
 				
-				// read the PDU straight off the buffer
-				// FIXME Need to add support for custom PDUs?
-				PDU pdu = PduFactory.getDefaultFactory().create( payload, position, pduSize );
-				position += pduSize;
+				PDU pdu;
+				if( (pduSize & DeltaCodec.DELTA_FLAG) != 0 )
+				{
+					// rebuild the full ESPDU from the delta and the last state we had
+					pduSize &= ~DeltaCodec.DELTA_FLAG;
+					byte[] full = deltas == null ? null : deltas.decode( payload, position, pduSize, now );
+					position += pduSize;
+					if( full == null )
+					{
+						logger.debug( "ESPDU delta dropped, no state for entity (waiting for keyframe)" );
+						continue;
+					}
+
+					pdu = PduFactory.getDefaultFactory().create( full, 0, full.length );
+					pduSize = full.length;
+				}
+				else
+				{
+					// remember entity states so we can apply any deltas that follow
+					if( deltas != null )
+						deltas.keyframe( payload, position, pduSize, now );
+
+					// read the PDU straight off the buffer
+					// FIXME Need to add support for custom PDUs?
+					pdu = PduFactory.getDefaultFactory().create( payload, position, pduSize );
+					position += pduSize;
+				}
 				
 				// reflect the PDU to the other links
 				reflector.reflect( new Message(this,pdu) );
-				metrics.pduReceived( pduSize );
+				metrics.pduReceived( pdu.getType().value(), pduSize );
 	
 				if( logger.isTraceEnabled() )
 					logger.trace( "Received >> "+pdu.getType() );
@@ -438,6 +493,25 @@ public class TcpWanLink extends LinkBase implements ILink
 		new Thread(reconnector,getName()+"-reconnect").start();
 	}
 
+	/**
+	 * Delta state only means anything for the connection it was built up on, so each time the
+	 * link comes up it starts again with a new codec (or none, if deltas weren't agreed to).
+	 */
+	private DeltaCodec createDeltaCodec( boolean enabled )
+	{
+		return enabled ? new DeltaCodec( linkConfiguration.getWanDeltaKeyframe() ) : null;
+	}
+
+	protected BundleCompressor getCompressor()
+	{
+		return this.compressor;
+	}
+
+	protected DeltaCodec getDeltaCodec()
+	{
+		return this.deltas;
+	}
+
 	protected void takeDownAndRemove()
 	{
 		reflector.getDistributor().takeDown( this );
@@ -456,10 +530,12 @@ public class TcpWanLink extends LinkBase implements ILink
 			// other distributor summary strings
 			//string = string.replaceFirst( "\\{ ", "\\{ WAN, tcp/%s:%d, " );
 			string = string.replaceFirst( "\\{ ", "\\{ WAN, " );
-			string = string.replaceFirst( "\\ }", "\\, %s }" );
+			string = string.replaceFirst( "\\ }", "\\, %s%s%s }" );
 			return String.format( string,
 			                      socket.getInetAddress().getHostAddress(),
-			                      socket.getPort() );
+			                      compressor.getCodec() == Codec.None ? "" :
+			                      ", "+compressor.getSummaryString(),
+			                      deltas == null ? "" : ", "+deltas.getSummaryString() );
 		}
 		else
 		{
@@ -505,6 +581,16 @@ public class TcpWanLink extends LinkBase implements ILink
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
+	/**
+	 * A bundle only runs over the size limit by the PDU that tipped it over (and a PDU's length
+	 * field is 16 bits), but the relay may have a bigger limit than we do. Allow plenty of room
+	 * on top of that before deciding a length read off the wire is garbage.
+	 */
+	private static int maxBundleLength( LinkConfiguration linkConfiguration )
+	{
+		return Math.max( linkConfiguration.getWanBundlingSizeBytes(), 0xffff ) * 16;
+	}
+
 	/////////////////////////////////////////////////////////////////////////////////////
 	/// Receive Processing  /////////////////////////////////////////////////////////////
 	/////////////////////////////////////////////////////////////////////////////////////
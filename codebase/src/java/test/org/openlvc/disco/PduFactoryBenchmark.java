@@ -0,0 +1,126 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco;
+
+import java.lang.management.ManagementFactory;
+
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.pdu.radio.TransmitterPdu;
+import org.openlvc.disco.pdu.record.PduHeader;
+
+/**
+ * Micro-benchmark for {@link PduFactory}: reflective vs pre-bound instantiation, and the
+ * allocation rate of a receive loop with and without PDU recycling.
+ * <p/>
+ * This is not part of the test suite. Run it by hand:
+ * <pre>
+ *   java -cp [classpath] org.openlvc.disco.PduFactoryBenchmark [iterations]
+ * </pre>
+ */
+public class PduFactoryBenchmark
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int WARMUP = 200000;
+
+	// stops the JIT from deciding our results are unused
+	private static long blackhole = 0;
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	@SuppressWarnings("deprecation")
+	private static void reflective( int iterations ) throws Exception
+	{
+		Class<? extends PDU> type = PduType.EntityState.getImplementationClass();
+		for( int i = 0; i < iterations; i++ )
+			blackhole += type.newInstance().getContentLength();
+	}
+
+	private static void bound( PduFactory factory, int iterations ) throws Exception
+	{
+		PduHeader header = new EntityStatePdu().getHeader();
+		for( int i = 0; i < iterations; i++ )
+			blackhole += factory.create( header ).getContentLength();
+	}
+
+	/**
+	 * What a single threaded receiver does: decode, hand to the listener, recycle
+	 */
+	private static void receiveLoop( PduFactory factory, byte[][] packets, int iterations )
+		throws Exception
+	{
+		for( int i = 0; i < iterations; i++ )
+		{
+			PDU pdu = factory.create( packets[i % packets.length] );
+			blackhole += pdu.getHeader().getTimestamp();
+			factory.recycle( pdu );
+		}
+	}
+
+	private static void run( String label, Task task, int iterations ) throws Exception
+	{
+		com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().threadId();
+
+		task.run( WARMUP );
+		long allocated = threads.getThreadAllocatedBytes( threadId );
+		long start = System.nanoTime();
+		task.run( iterations );
+		long nanos = System.nanoTime() - start;
+		allocated = threads.getThreadAllocatedBytes( threadId ) - allocated;
+		System.out.printf( "  %-16s %,12.0f ops/s  (%,6.1f ns/op, %,5d B/op)%n",
+		                   label,
+		                   iterations / (nanos / 1e9),
+		                   (double)nanos / iterations,
+		                   allocated / iterations );
+	}
+
+	public static void main( String[] args ) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		PduFactory factory = new PduFactory();
+		byte[][] packets = new byte[][] { new EntityStatePdu().toByteArray(),
+		                                  new TransmitterPdu().toByteArray() };
+
+		System.out.println( "Instantiation" );
+		run( "reflective", count -> reflective(count), iterations );
+		run( "bound", count -> bound(factory,count), iterations );
+
+		System.out.println( "Receive (ESPDU + Transmitter)" );
+		factory.setRecycling( false );
+		run( "no recycling", count -> receiveLoop(factory,packets,count), iterations );
+		factory.setRecycling( true );
+		run( "recycling", count -> receiveLoop(factory,packets,count), iterations );
+
+		System.out.println( "(ignore) "+blackhole );
+	}
+
+	//----------------------------------------------------------
+	//                     INNER CLASSES
+	//----------------------------------------------------------
+	@FunctionalInterface
+	private interface Task
+	{
+		public void run( int iterations ) throws Exception;
+	}
+}
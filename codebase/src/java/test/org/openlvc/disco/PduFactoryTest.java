@@ -0,0 +1,230 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco;
+
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.configuration.Flag;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.UnparsedPdu;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.pdu.radio.TransmitterPdu;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.pdu.record.EntityType;
+import org.openlvc.disco.pdu.record.PduHeader;
+import org.openlvc.disco.pdu.warfare.FirePdu;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups={"pdu","factory"})
+public class PduFactoryTest extends AbstractTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private PduFactory factory;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Test Class Setup/Tear Down   //////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@BeforeClass(alwaysRun=true)
+	public void beforeClass()
+	{
+	}
+
+	@BeforeMethod(alwaysRun=true)
+	public void beforeMethod()
+	{
+		this.factory = new PduFactory();
+	}
+
+	@AfterMethod(alwaysRun=true)
+	public void afterMethod()
+	{
+	}
+
+	@AfterClass(alwaysRun=true)
+	public void afterClass()
+	{
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// PDU Creation Testing Methods   ////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testCreateAllSupportedTypes() throws Exception
+	{
+		for( PduType type : factory.getSupportedPduTypes() )
+		{
+			PduHeader header = new PduHeader();
+			header.setPduType( type );
+			PDU pdu = factory.create( header );
+			Assert.assertEquals( pdu.getClass(), type.getImplementationClass() );
+			Assert.assertSame( pdu.getHeader(), header );
+		}
+	}
+
+	@Test
+	public void testPassthrough() throws Exception
+	{
+		FirePdu fire = new FirePdu();
+		fire.setFiringEntityID( new EntityId(1,2,3) );
+		fire.setTargetEntityID( new EntityId(4,5,6) );
+		fire.setRange( 1500.0f );
+		byte[] fireBytes = fire.toByteArray();
+
+		TransmitterPdu transmitter = new TransmitterPdu();
+		transmitter.setEntityId( new EntityId(7,8,9) );
+		transmitter.setRadioID( 2 );
+		byte[] transmitterBytes = transmitter.toByteArray();
+
+		EntityStatePdu espdu = new EntityStatePdu();
+		espdu.setEntityID( 1, 2, 3 );
+		espdu.setEntityType( new EntityType(1,2,225,1,3,4,5) );
+		byte[] espduBytes = espdu.toByteArray();
+
+		DiscoConfiguration.set( Flag.Passthrough );
+		DiscoConfiguration.set( Flag.Lazy );
+		try
+		{
+			// everything but entity state is carried as-is, and goes back out unchanged
+			PDU received = factory.create( fireBytes );
+			Assert.assertTrue( received instanceof UnparsedPdu );
+			Assert.assertEquals( received.getType(), PduType.Fire );
+			Assert.assertEquals( received.getSiteId(), 1 );
+			Assert.assertEquals( received.getAppId(), 2 );
+			Assert.assertEquals( received.toByteArray(), fireBytes );
+
+			received = factory.create( transmitterBytes );
+			Assert.assertTrue( received instanceof UnparsedPdu );
+			Assert.assertEquals( received.getConflationKey(), transmitter.getConflationKey() );
+
+			// types we don't know to start with an entity id don't get their bytes read as one
+			byte[] unknownBytes = fireBytes.clone();
+			unknownBytes[2] = (byte)PduType.Collision.value();
+			received = factory.create( unknownBytes );
+			Assert.assertEquals( received.getType(), PduType.Collision );
+			Assert.assertEquals( received.getSiteId(), 0 );
+			Assert.assertEquals( received.getAppId(), 0 );
+
+			// but can still be decoded properly when needed
+			FirePdu parsed = (FirePdu)factory.parse( (UnparsedPdu)factory.create(fireBytes) );
+			Assert.assertEquals( parsed.getTargetEntityID(), new EntityId(4,5,6) );
+			Assert.assertEquals( parsed.getRange(), 1500.0f );
+			Assert.assertEquals( parsed.toByteArray(), fireBytes );
+
+			// entity state is decoded, lazily, so filters can read it straight from the bytes
+			EntityStatePdu lazy = (EntityStatePdu)factory.create( espduBytes );
+			Assert.assertTrue( lazy.isLazy() );
+			Assert.assertEquals( lazy.getPackedEntityType(), espdu.getEntityType().getPackedType() );
+			Assert.assertEquals( lazy.toByteArray(), espduBytes );
+		}
+		finally
+		{
+			DiscoConfiguration.clear( Flag.Passthrough );
+			DiscoConfiguration.clear( Flag.Lazy );
+		}
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// PDU Recycling Testing Methods   ///////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testRecycleDisabledByDefault() throws Exception
+	{
+		byte[] bytes = new EntityStatePdu().toByteArray();
+		PDU first = factory.create( bytes );
+		factory.recycle( first );
+		Assert.assertNotSame( factory.create(bytes), first );
+	}
+
+	@Test
+	public void testRecycleReusesInstance() throws Exception
+	{
+		factory.setRecycling( true );
+
+		EntityStatePdu original = new EntityStatePdu();
+		original.setMarking( "FIRST" );
+		EntityStatePdu first = (EntityStatePdu)factory.create( original.toByteArray() );
+		factory.recycle( first );
+
+		// same instance comes back, but with the new contents
+		original.setMarking( "SECOND" );
+		original.setEntityID( 4, 5, 6 );
+		EntityStatePdu second = (EntityStatePdu)factory.create( original.toByteArray() );
+		Assert.assertSame( second, first );
+		Assert.assertEquals( second.getMarking(), "SECOND" );
+		Assert.assertEquals( second.getEntityID(), original.getEntityID() );
+		Assert.assertEquals( second.toByteArray(), original.toByteArray() );
+
+		// pool is now empty again, so we get a new one
+		Assert.assertNotSame( factory.create(original.toByteArray()), first );
+	}
+
+	@Test
+	public void testRetainedPduNotRecycled() throws Exception
+	{
+		factory.setRecycling( true );
+
+		byte[] bytes = new EntityStatePdu().toByteArray();
+		PDU first = factory.create( bytes );
+		first.retain();
+		factory.recycle( first );
+		Assert.assertNotSame( factory.create(bytes), first );
+	}
+
+	@Test
+	public void testRecyclePoolIsPerThread() throws Exception
+	{
+		factory.setRecycling( true );
+
+		byte[] bytes = new EntityStatePdu().toByteArray();
+		PDU first = factory.create( bytes );
+		factory.recycle( first );
+
+		PDU[] other = new PDU[1];
+		Thread thread = new Thread( () -> {
+			try { other[0] = factory.create(bytes); } catch( Exception e ) {}
+		});
+		thread.start();
+		thread.join();
+		Assert.assertNotNull( other[0] );
+		Assert.assertNotSame( other[0], first );
+		Assert.assertSame( factory.create(bytes), first );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
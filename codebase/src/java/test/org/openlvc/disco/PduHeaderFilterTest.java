@@ -0,0 +1,163 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
+import org.openlvc.disco.configuration.DisConfiguration;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.pdu.field.ProtocolFamily;
+import org.openlvc.disco.pdu.radio.TransmitterPdu;
+import org.openlvc.disco.pdu.warfare.FirePdu;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups={"pdu","filter"})
+public class PduHeaderFilterTest extends AbstractTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private DisConfiguration configuration;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Test Class Setup/Tear Down   //////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@BeforeClass(alwaysRun=true)
+	public void beforeClass()
+	{
+	}
+
+	@BeforeMethod(alwaysRun=true)
+	public void beforeMethod()
+	{
+		this.configuration = new DiscoConfiguration().getDisConfiguration();
+	}
+
+	@AfterMethod(alwaysRun=true)
+	public void afterMethod()
+	{
+	}
+
+	@AfterClass(alwaysRun=true)
+	public void afterClass()
+	{
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Header Filter Testing Methods   ///////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testFilterInactiveByDefault()
+	{
+		PduHeaderFilter filter = new PduHeaderFilter( configuration );
+		Assert.assertFalse( filter.isActive() );
+
+		byte[] bytes = new TransmitterPdu().toByteArray();
+		Assert.assertTrue( filter.accept(bytes,0,bytes.length) );
+		Assert.assertTrue( filter.accept(new byte[0],0,0) );
+	}
+
+	@Test
+	public void testFilterPduTypes()
+	{
+		configuration.setFilterPduTypes( EnumSet.of(PduType.EntityState,PduType.Fire) );
+		PduHeaderFilter filter = new PduHeaderFilter( configuration );
+		Assert.assertTrue( filter.isActive() );
+
+		byte[] espdu = new EntityStatePdu().toByteArray();
+		byte[] fire = new FirePdu().toByteArray();
+		byte[] transmitter = new TransmitterPdu().toByteArray();
+		Assert.assertTrue( filter.accept(espdu,0,espdu.length) );
+		Assert.assertTrue( filter.accept(fire,0,fire.length) );
+		Assert.assertFalse( filter.accept(transmitter,0,transmitter.length) );
+
+		// buffer form should give the same answer, from wherever the position is
+		ByteBuffer buffer = ByteBuffer.allocate( 1024 );
+		buffer.position( 7 );
+		buffer.put( transmitter ).flip().position( 7 );
+		Assert.assertFalse( filter.accept(buffer) );
+		Assert.assertEquals( buffer.position(), 7 );
+	}
+
+	@Test
+	public void testFilterProtocolFamily()
+	{
+		configuration.setFilterProtocolFamilies( EnumSet.of(ProtocolFamily.Radio) );
+		PduHeaderFilter filter = new PduHeaderFilter( configuration );
+
+		byte[] espdu = new EntityStatePdu().toByteArray();
+		byte[] transmitter = new TransmitterPdu().toByteArray();
+		Assert.assertFalse( filter.accept(espdu,0,espdu.length) );
+		Assert.assertTrue( filter.accept(transmitter,0,transmitter.length) );
+	}
+
+	@Test
+	public void testFilterSiteAndAppRanges()
+	{
+		configuration.setFilterSiteIds( "1-5, 10" );
+		configuration.setFilterAppIds( "300" );
+		PduHeaderFilter filter = new PduHeaderFilter( configuration );
+
+		EntityStatePdu espdu = new EntityStatePdu();
+		espdu.setEntityID( 3, 300, 1 );
+		byte[] bytes = espdu.toByteArray();
+		Assert.assertTrue( filter.accept(bytes,0,bytes.length) );
+		Assert.assertTrue( filter.accept(ByteBuffer.wrap(bytes)) );
+
+		espdu.setEntityID( 10, 301, 1 );
+		bytes = espdu.toByteArray();
+		Assert.assertFalse( filter.accept(bytes,0,bytes.length) );
+
+		espdu.setEntityID( 6, 300, 1 );
+		bytes = espdu.toByteArray();
+		Assert.assertFalse( filter.accept(bytes,0,bytes.length) );
+
+		// too short to hold the ids, let the decoder deal with it
+		Assert.assertTrue( filter.accept(bytes,0,12) );
+	}
+
+	@Test(expectedExceptions=DiscoException.class)
+	public void testFilterRejectsBadConfiguration()
+	{
+		configuration.setFilterSiteIds( "5-1" );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
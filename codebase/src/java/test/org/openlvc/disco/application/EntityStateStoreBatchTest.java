@@ -0,0 +1,121 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.application;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.pdu.record.WorldCoordinate;
+import org.openlvc.disco.pdu.simman.StartResumePdu;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"application"})
+public class EntityStateStoreBatchTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Batch Testing Methods   ///////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testBatchKeepsLatestPerEntity()
+	{
+		EntityStateStore store = new EntityStateStore( null );
+
+		// three updates for one entity, one for another, with something else mixed in
+		List<PDU> batch = new ArrayList<>();
+		batch.add( newEntityState(1,"Alpha",100) );
+		batch.add( newEntityState(2,"Bravo",105) );
+		batch.add( new StartResumePdu() );
+		batch.add( newEntityState(1,"Alpha",110) );
+		batch.add( newEntityState(1,"Alpha-2",120) );
+		store.receivePdus( batch );
+
+		Assert.assertEquals( store.size(), 2 );
+		Assert.assertSame( store.getEntityState(new EntityId(1,1,1)), batch.get(4) );
+		Assert.assertSame( store.getEntityState(new EntityId(1,1,2)), batch.get(1) );
+
+		// only the update that was kept makes it into the marking index
+		Assert.assertTrue( store.hasEntityState("Alpha-2") );
+		Assert.assertFalse( store.hasEntityState("Alpha") );
+		Assert.assertTrue( store.hasEntityState("Bravo") );
+
+		// and the time index has one entry per entity, at the latest time
+		Assert.assertEquals( store.getEntityStatesUpdatedSince(115).size(), 1 );
+		Assert.assertEquals( store.getEntityStatesUpdatedSince(0).size(), 2 );
+	}
+
+	@Test
+	public void testBatchMatchesSingleUpdates()
+	{
+		EntityStateStore single = new EntityStateStore( null );
+		EntityStateStore batched = new EntityStateStore( null );
+
+		List<PDU> batch = new ArrayList<>();
+		for( int i = 0; i < 50; i++ )
+			batch.add( newEntityState(1+(i%7),"Entity"+(i%7),i) );
+
+		for( PDU pdu : batch )
+			single.receivePdu( (EntityStatePdu)pdu );
+
+		batched.receivePdus( batch );
+
+		Assert.assertEquals( batched.size(), single.size() );
+		Assert.assertEquals( batched.getAllMarkings(), single.getAllMarkings() );
+		for( int i = 1; i <= 7; i++ )
+		{
+			EntityId id = new EntityId( 1, 1, i );
+			Assert.assertSame( batched.getEntityState(id), single.getEntityState(id) );
+		}
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Helper Methods   //////////////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	private EntityStatePdu newEntityState( int entity, String marking, long received )
+	{
+		EntityStatePdu pdu = new EntityStatePdu();
+		pdu.setEntityID( 1, 1, entity );
+		pdu.setMarking( marking );
+		pdu.setLocation( new WorldCoordinate(-2430000, 4700000, 3540000+entity) );
+		pdu.setLocalTimestamp( received );
+		return pdu;
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
@@ -0,0 +1,96 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.bus;
+
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+
+/**
+ * Micro-benchmark for {@link MessageBus#publish(Object)} with 1, 10 and 50 subscribers. Each
+ * subscriber has one handler for the concrete type and one for a parent type, which is how
+ * PDU listeners tend to look (an <code>EntityStatePdu</code> handler and a catch-all
+ * <code>PDU</code> handler).
+ * <p/>
+ * This is not part of the test suite. Run it by hand:
+ * <pre>
+ *   java -cp [classpath] org.openlvc.disco.bus.MessageBusBenchmark [iterations]
+ * </pre>
+ */
+public class MessageBusBenchmark
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int WARMUP = 500000;
+
+	// stops the JIT from deciding our results are unused
+	private static long blackhole = 0;
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	private static void run( int subscribers, int iterations )
+	{
+		MessageBus<PDU> bus = new MessageBus<>();
+		for( int i = 0; i < subscribers; i++ )
+			bus.subscribe( new Subscriber() );
+
+		PDU message = new EntityStatePdu();
+		for( int i = 0; i < WARMUP; i++ )
+			bus.publish( message );
+
+		long start = System.nanoTime();
+		for( int i = 0; i < iterations; i++ )
+			bus.publish( message );
+
+		long nanos = System.nanoTime() - start;
+		System.out.printf( "  %2d subscribers %,12.0f publishes/s  (%,8.1f ns/publish, %,6.1f ns/handler)%n",
+		                   subscribers,
+		                   iterations / (nanos / 1e9),
+		                   (double)nanos / iterations,
+		                   (double)nanos / iterations / (subscribers*2) );
+	}
+
+	public static void main( String[] args )
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		System.out.println( "Publish (2 handlers per subscriber)" );
+		run( 1, iterations );
+		run( 10, iterations/10 );
+		run( 50, iterations/50 );
+		System.out.println( "(ignore) "+blackhole );
+	}
+
+	//----------------------------------------------------------
+	//                     INNER CLASSES
+	//----------------------------------------------------------
+	public static class Subscriber
+	{
+		@EventHandler
+		public void onEntityState( EntityStatePdu pdu )
+		{
+			blackhole += pdu.getLocalTimestamp();
+		}
+
+		@EventHandler
+		public void onPdu( PDU pdu )
+		{
+			++blackhole;
+		}
+	}
+}
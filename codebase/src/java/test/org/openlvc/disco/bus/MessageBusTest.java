@@ -0,0 +1,236 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.bus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.utils.ConflatingQueue;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"bus"})
+public class MessageBusTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Dispatch Testing Methods   ////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testDispatchOrderAndInvalidation()
+	{
+		List<String> calls = new ArrayList<>();
+		MessageBus<Object> bus = new MessageBus<>();
+		Recorder first = new Recorder( "first", calls );
+		bus.subscribe( first );
+
+		// most specific type first, parents after
+		bus.publish( new Child() );
+		Assert.assertEquals( calls, List.of("first:child","first:parent") );
+
+		// only the parent handler sees a plain parent
+		calls.clear();
+		bus.publish( new Parent() );
+		Assert.assertEquals( calls, List.of("first:parent") );
+
+		// cached dispatch has to pick up a new subscriber...
+		calls.clear();
+		bus.subscribe( new Recorder("second",calls) );
+		bus.publishAll( List.of(new Child(),"ignored") );
+		Assert.assertEquals( calls, List.of("first:child","second:child","first:parent","second:parent") );
+
+		// ...and drop a removed one
+		calls.clear();
+		bus.unsubscribe( first );
+		bus.publish( new Child() );
+		Assert.assertEquals( calls, List.of("second:child","second:parent") );
+	}
+
+	@Test
+	public void testErrorHandling()
+	{
+		List<String> calls = new ArrayList<>();
+		MessageBus<Object> bus = new MessageBus<>();
+		bus.subscribe( new Thrower(calls) );
+
+		// errors go to the error handlers, and the exception itself is passed (not a wrapper)
+		bus.publish( new Parent() );
+		Assert.assertEquals( calls, List.of("error:IllegalStateException") );
+
+		bus.setThrowExceptionOnError( true );
+		try
+		{
+			bus.publish( new Parent() );
+			Assert.fail( "Expected the handler exception to propagate" );
+		}
+		catch( DiscoException de )
+		{
+			Assert.assertTrue( de.getCause() instanceof IllegalStateException );
+		}
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Async Delivery Testing Methods   //////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testAsyncSubscriberConflates() throws Exception
+	{
+		List<String> calls = new ArrayList<>();
+		MessageBus<Object> bus = new MessageBus<>();
+		bus.setConflationKey( message -> message instanceof Keyed ? ((Keyed)message).key : ConflatingQueue.NO_KEY );
+		Gated slow = new Gated();
+		bus.subscribeAsync( slow, 10, ConflatingQueue.Overflow.Conflate );
+		bus.subscribe( new Recorder("sync",calls) );
+
+		// first one gets picked up straight away, and the slow subscriber blocks on it
+		bus.publish( new Keyed(1,0) );
+		long deadline = System.currentTimeMillis() + 5000;
+		while( bus.getAsyncMetrics().get(0).getDeliveredCount() == 0 )
+		{
+			Assert.assertTrue( System.currentTimeMillis() < deadline, "Async subscriber never took a message" );
+			Thread.sleep( 5 );
+		}
+
+		// the rest back up, and are replaced by the latest for each key; sync delivery is unaffected
+		bus.publish( new Keyed(1,1) );
+		bus.publish( new Keyed(2,1) );
+		bus.publish( new Keyed(1,2) );
+		bus.publish( new Keyed(2,2) );
+		bus.publish( new Keyed(1,3) );
+		Assert.assertEquals( calls.size(), 6 );
+
+		MessageBus.AsyncMetrics metrics = bus.getAsyncMetrics().get( 0 );
+		Assert.assertEquals( metrics.getDepth(), 2 );
+		Assert.assertEquals( metrics.getConflatedCount(), 3 );
+		Assert.assertEquals( metrics.getDroppedCount(), 0 );
+
+		slow.gate.countDown();
+		Assert.assertTrue( slow.done.await(5,TimeUnit.SECONDS) );
+		Assert.assertEquals( slow.seen, List.of("1=0","1=3","2=2") );
+
+		bus.unsubscribe( slow );
+		Assert.assertTrue( bus.getAsyncMetrics().isEmpty() );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                     INNER CLASSES
+	//----------------------------------------------------------
+	public static class Parent
+	{
+	}
+
+	public static class Child extends Parent
+	{
+	}
+
+	public static class Keyed extends Parent
+	{
+		private final long key;
+		private final int value;
+
+		public Keyed( long key, int value )
+		{
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	public static class Recorder
+	{
+		private final String name;
+		private final List<String> calls;
+
+		public Recorder( String name, List<String> calls )
+		{
+			this.name = name;
+			this.calls = calls;
+		}
+
+		@EventHandler
+		public void onParent( Parent message )
+		{
+			calls.add( name+":parent" );
+		}
+
+		@EventHandler
+		public void onChild( Child message )
+		{
+			calls.add( name+":child" );
+		}
+	}
+
+	public static class Gated
+	{
+		private final CountDownLatch gate = new CountDownLatch( 1 );
+		private final CountDownLatch done = new CountDownLatch( 3 );
+		private final List<String> seen = Collections.synchronizedList( new ArrayList<>() );
+
+		@EventHandler
+		public void onKeyed( Keyed message ) throws InterruptedException
+		{
+			gate.await();
+			seen.add( message.key+"="+message.value );
+			done.countDown();
+		}
+	}
+
+	public static class Thrower
+	{
+		private final List<String> calls;
+
+		public Thrower( List<String> calls )
+		{
+			this.calls = calls;
+		}
+
+		@EventHandler
+		public void onParent( Parent message )
+		{
+			throw new IllegalStateException( "boom" );
+		}
+
+		@ErrorHandler
+		public void onError( Throwable cause, Object target )
+		{
+			calls.add( "error:"+cause.getClass().getSimpleName() );
+		}
+	}
+}
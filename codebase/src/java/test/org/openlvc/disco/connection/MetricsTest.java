@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.connection;
+
+import org.openlvc.disco.AbstractTest;
+import org.openlvc.disco.pdu.field.PduType;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups={"metrics"})
+public class MetricsTest extends AbstractTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private Metrics metrics;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Test Class Setup/Tear Down   //////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@BeforeClass(alwaysRun=true)
+	public void beforeClass()
+	{
+	}
+
+	@BeforeMethod(alwaysRun=true)
+	public void beforeMethod()
+	{
+		this.metrics = new Metrics();
+	}
+
+	@AfterMethod(alwaysRun=true)
+	public void afterMethod()
+	{
+	}
+
+	@AfterClass(alwaysRun=true)
+	public void afterClass()
+	{
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Metrics Testing Methods   /////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testPerTypeCounts()
+	{
+		metrics.pduSent( PduType.EntityState.value(), 144 );
+		metrics.pduSent( PduType.EntityState.value(), 144 );
+		metrics.pduReceived( PduType.Fire.value(), 96 );
+		metrics.pduDiscarded( PduType.Detonation.value() );
+		metrics.pduReceived( 10 );
+
+		Assert.assertEquals( metrics.getPdusSent(), 2 );
+		Assert.assertEquals( metrics.getBytesSent(), 288 );
+		Assert.assertEquals( metrics.getPdusReceived(), 2 );
+		Assert.assertEquals( metrics.getPdusSent(PduType.EntityState), 2 );
+		Assert.assertEquals( metrics.getPdusReceived(PduType.Fire), 1 );
+		Assert.assertEquals( metrics.getPdusReceived(PduType.Other), 1 );
+		Assert.assertEquals( metrics.getPdusDiscarded(PduType.Detonation), 1 );
+		Assert.assertEquals( metrics.getPdusSent(PduType.Fire), 0 );
+
+		Metrics.Snapshot snapshot = metrics.getSnapshot();
+		Assert.assertEquals( snapshot.getBytesSent(PduType.EntityState), 288 );
+		Assert.assertEquals( snapshot.getBytesReceived(PduType.Fire), 96 );
+		Assert.assertTrue( snapshot.getActiveTypes().contains(PduType.Detonation) );
+		Assert.assertFalse( snapshot.getActiveTypes().contains(PduType.Signal) );
+
+		metrics.reset();
+		Assert.assertEquals( metrics.getPdusSent(), 0 );
+		Assert.assertEquals( metrics.getPdusSent(PduType.EntityState), 0 );
+		Assert.assertEquals( snapshot.getPdusSent(), 2 ); // snapshot is unaffected
+	}
+
+	@Test
+	public void testConcurrentUpdatesAreNotLost() throws Exception
+	{
+		int threads = 4;
+		int perThread = 100000;
+		Thread[] workers = new Thread[threads];
+		for( int i = 0; i < threads; i++ )
+		{
+			workers[i] = new Thread( () -> {
+				for( int j = 0; j < perThread; j++ )
+					metrics.pduReceived( PduType.EntityState.value(), 100 );
+			});
+			workers[i].start();
+		}
+
+		for( Thread worker : workers )
+			worker.join();
+
+		Assert.assertEquals( metrics.getPdusReceived(), threads*perThread );
+		Assert.assertEquals( metrics.getBytesReceived(), threads*perThread*100L );
+		Assert.assertEquals( metrics.getPdusReceived(PduType.EntityState), threads*perThread );
+	}
+
+	@Test
+	public void testTypeFromHeader()
+	{
+		byte[] packet = new byte[12];
+		packet[2] = (byte)PduType.Signal.value();
+		Assert.assertEquals( Metrics.typeOf(packet), PduType.Signal.value() );
+		Assert.assertEquals( Metrics.typeOf(new byte[2]), PduType.Other.value() );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
@@ -0,0 +1,225 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.connection;
+
+import java.nio.ByteBuffer;
+
+import org.openlvc.disco.AbstractTest;
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.PduFactory;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.radio.SignalPdu;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.pdu.record.VariableDatum;
+import org.openlvc.disco.pdu.simman.CommentPdu;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@Test(groups={"connection","encoder"})
+public class PduEncoderTest extends AbstractTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Test Class Setup/Tear Down   //////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@BeforeClass(alwaysRun=true)
+	public void beforeClass()
+	{
+	}
+
+	@BeforeMethod(alwaysRun=true)
+	public void beforeMethod()
+	{
+	}
+
+	@AfterMethod(alwaysRun=true)
+	public void afterMethod()
+	{
+	}
+
+	@AfterClass(alwaysRun=true)
+	public void afterClass()
+	{
+	}
+
+	@DataProvider(name="direct")
+	public Object[][] direct()
+	{
+		return new Object[][] { {false}, {true} };
+	}
+
+	private SignalPdu createSignal( int dataSize )
+	{
+		SignalPdu pdu = new SignalPdu();
+		pdu.setEntityId( new EntityId(1,2,3) );
+		pdu.setRadioID( 4 );
+		pdu.setData( createData(dataSize) );
+		return pdu;
+	}
+
+	private CommentPdu createComment( CommentPdu pdu, int dataSize )
+	{
+		pdu.setOriginatingEntity( new EntityId(1,2,3) );
+		pdu.add( new VariableDatum(1,createData(dataSize)) );
+		return pdu;
+	}
+
+	private byte[] createData( int size )
+	{
+		byte[] data = new byte[size];
+		for( int i = 0; i < data.length; i++ )
+			data[i] = (byte)i;
+
+		return data;
+	}
+
+	private byte[] toBytes( ByteBuffer buffer )
+	{
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get( bytes );
+		return bytes;
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Encoding Testing Methods   ////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test(dataProvider="direct")
+	public void testEncodeRoundTrip( boolean direct ) throws Exception
+	{
+		EntityStatePdu before = new EntityStatePdu();
+		before.setEntityID( 1, 2, 3 );
+		before.setMarking( "ROUNDTRIP" );
+
+		PduEncoder encoder = new PduEncoder( direct );
+		byte[] encoded = toBytes( encoder.encode(before) );
+
+		// same bytes as the stream-based serializer, and the factory can read them back
+		Assert.assertEquals( encoded, before.toByteArray() );
+		PDU after = PduFactory.getDefaultFactory().create( encoded );
+		Assert.assertTrue( after instanceof EntityStatePdu );
+		Assert.assertEquals( ((EntityStatePdu)after).getEntityID(), before.getEntityID() );
+		Assert.assertEquals( ((EntityStatePdu)after).getMarking(), before.getMarking() );
+
+		// buffer is reused for the next PDU
+		SignalPdu signal = createSignal( 64 );
+		encoded = toBytes( encoder.encode(signal) );
+		SignalPdu readBack = (SignalPdu)PduFactory.getDefaultFactory().create( encoded );
+		Assert.assertEquals( readBack.getEntityId(), signal.getEntityId() );
+		Assert.assertEquals( readBack.getRadioID(), signal.getRadioID() );
+		Assert.assertEquals( readBack.getData(), signal.getData() );
+	}
+
+	@Test(dataProvider="direct")
+	public void testEncodeGrowsForLargePdu( boolean direct ) throws Exception
+	{
+		PduEncoder encoder = new PduEncoder( direct );
+		Assert.assertEquals( encoder.getCapacity(), PDU.MAX_SIZE );
+
+		// PDU that says up front that it needs more room
+		CommentPdu pdu = createComment( new CommentPdu(), PDU.MAX_SIZE*2 );
+		byte[] encoded = toBytes( encoder.encode(pdu) );
+		Assert.assertEquals( encoded.length, pdu.getPduLength() );
+		Assert.assertTrue( encoder.getCapacity() >= pdu.getPduLength() );
+
+		CommentPdu after = (CommentPdu)PduFactory.getDefaultFactory().create( encoded );
+		Assert.assertEquals( after.getVariableDatumRecords(), pdu.getVariableDatumRecords() );
+	}
+
+	@Test(dataProvider="direct")
+	public void testEncodeGrowsWhenPduUnderReportsLength( boolean direct ) throws Exception
+	{
+		// PDU that claims to be tiny, but writes more than the initial buffer
+		CommentPdu reference = createComment( new CommentPdu(), PDU.MAX_SIZE*3 );
+		CommentPdu liar = createComment( new CommentPdu()
+		{
+			@Override
+			public int getPduLength()
+			{
+				return 12;
+			}
+		}, PDU.MAX_SIZE*3 );
+
+		PduEncoder encoder = new PduEncoder( direct );
+		byte[] encoded = toBytes( encoder.encode(liar) );
+		Assert.assertTrue( encoder.getCapacity() > PDU.MAX_SIZE );
+		Assert.assertEquals( encoded, reference.toByteArray() );
+	}
+
+	@Test(dataProvider="direct")
+	public void testEncodeRejectsOversizePdu( boolean direct ) throws Exception
+	{
+		PduEncoder encoder = new PduEncoder( direct );
+		try
+		{
+			encoder.encode( createComment(new CommentPdu(),65507) );
+			Assert.fail( "Expected PDU over 65507 bytes to be rejected" );
+		}
+		catch( DiscoException de )
+		{
+			// success!
+		}
+
+		// PDU that only finds out it's too big while being written
+		CommentPdu liar = createComment( new CommentPdu()
+		{
+			@Override
+			public int getPduLength()
+			{
+				return 12;
+			}
+		}, 65480 );
+		try
+		{
+			encoder.encode( liar );
+			Assert.fail( "Expected PDU over 65507 bytes to be rejected" );
+		}
+		catch( DiscoException de )
+		{
+			// success!
+		}
+
+		// encoder is still usable afterwards
+		EntityStatePdu pdu = new EntityStatePdu();
+		Assert.assertEquals( toBytes(encoder.encode(pdu)), pdu.toByteArray() );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
@@ -0,0 +1,252 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.connection;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openlvc.disco.AbstractTest;
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.OpsCenter;
+import org.openlvc.disco.common.TestPduListener;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.pdu.record.VariableDatum;
+import org.openlvc.disco.pdu.simman.CommentPdu;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@Test(groups={"connection","udp"})
+public class UdpConnectionTest extends AbstractTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final String GROUP = "239.7.7.7";
+	private static final int EXERCISE = 1;
+	private static final int OTHER_EXERCISE = 2;
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+	private OpsCenter sender;
+	private OpsCenter otherSender;
+	private OpsCenter receiver;
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Test Class Setup/Tear Down   //////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@BeforeClass(alwaysRun=true)
+	public void beforeClass()
+	{
+	}
+
+	@BeforeMethod(alwaysRun=true)
+	public void beforeMethod()
+	{
+	}
+
+	@AfterMethod(alwaysRun=true)
+	public void afterMethod()
+	{
+		if( receiver != null )
+			receiver.close();
+		if( otherSender != null )
+			otherSender.close();
+		if( sender != null )
+			sender.close();
+
+		this.receiver = null;
+		this.otherSender = null;
+		this.sender = null;
+	}
+
+	@AfterClass(alwaysRun=true)
+	public void afterClass()
+	{
+	}
+
+	private OpsCenter createOpsCenter( String connection, int port, int exerciseId, int threads )
+	{
+		DiscoConfiguration configuration = new DiscoConfiguration();
+		configuration.setConnection( connection );
+		configuration.getUdpConfiguration().setNetworkInterface( "LOOPBACK" );
+		configuration.getUdpConfiguration().setAddress( GROUP );
+		configuration.getUdpConfiguration().setPort( port );
+		configuration.getUdpConfiguration().setReceiverThreads( threads );
+		configuration.getDisConfiguration().setExerciseId( (short)exerciseId );
+		return new OpsCenter( configuration );
+	}
+
+	@DataProvider(name="connections")
+	public Object[][] connections()
+	{
+		return new Object[][] { {"udp",3701}, {"udp-nio",3702} };
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Multi-Threaded Receive Testing Methods   //////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test(dataProvider="connections")
+	public void testMultiThreadedReceive( String connection, int port ) throws Exception
+	{
+		final int count = 500;
+		final int otherCount = 100;
+
+		// count every delivery against the entity id it carried
+		ConcurrentHashMap<Integer,AtomicInteger> delivered = new ConcurrentHashMap<>();
+		AtomicInteger total = new AtomicInteger( 0 );
+
+		this.receiver = createOpsCenter( connection, port, EXERCISE, 2 );
+		this.receiver.setPduListener( pdu -> {
+			int id = ((EntityStatePdu)pdu).getEntityID().getEntityIdentity();
+			delivered.computeIfAbsent( id, k -> new AtomicInteger() ).incrementAndGet();
+			total.incrementAndGet();
+		});
+		this.sender = createOpsCenter( connection, port, EXERCISE, 1 );
+		this.otherSender = createOpsCenter( connection, port, OTHER_EXERCISE, 1 );
+		this.receiver.open();
+		this.sender.open();
+		this.otherSender.open();
+
+		for( int i = 1; i <= count; i++ )
+		{
+			EntityStatePdu pdu = new EntityStatePdu();
+			pdu.setEntityID( 1, 1, i );
+			sender.send( pdu );
+
+			// throw in some packets for an exercise the receiver must discard
+			if( i <= otherCount )
+			{
+				EntityStatePdu other = new EntityStatePdu();
+				other.setEntityID( 2, 2, i );
+				otherSender.send( other );
+			}
+
+			// don't outrun the socket buffers
+			if( i % 50 == 0 )
+				Thread.sleep( 5 );
+		}
+
+		// wait for everything to arrive
+		Metrics metrics = receiver.getConnection().getMetrics();
+		long finishTime = System.currentTimeMillis() + 5000;
+		while( (total.get() < count || metrics.getPdusDiscarded() < otherCount) &&
+		       System.currentTimeMillis() < finishTime )
+			Thread.sleep( 10 );
+
+		// give any duplicates the chance to turn up
+		Thread.sleep( 100 );
+
+		// every packet reached the receiver, and only once
+		Assert.assertEquals( total.get(), count );
+		Assert.assertEquals( delivered.size(), count );
+		for( int i = 1; i <= count; i++ )
+			Assert.assertEquals( delivered.get(i).get(), 1, "Entity "+i+" delivered wrong number of times" );
+
+		// per-thread counts add up to the connection totals
+		long received = 0;
+		long discarded = 0;
+		int threads = 0;
+		IConnection udp = receiver.getConnection();
+		if( udp instanceof UdpNioConnection )
+		{
+			UdpNioConnection nio = (UdpNioConnection)udp;
+			threads = nio.getReceiverThreadCount();
+			for( int i = 0; i < threads; i++ )
+			{
+				received += nio.getReceivedCount( i );
+				discarded += nio.getDiscardedCount( i );
+			}
+		}
+		else
+		{
+			UdpConnection bio = (UdpConnection)udp;
+			threads = bio.getReceiverThreadCount();
+			for( int i = 0; i < threads; i++ )
+			{
+				received += bio.getReceivedCount( i );
+				discarded += bio.getDiscardedCount( i );
+			}
+		}
+
+		Assert.assertEquals( threads, 2 );
+		Assert.assertEquals( received, metrics.getPdusReceived() );
+		Assert.assertEquals( discarded, metrics.getPdusDiscarded() );
+		Assert.assertEquals( received, count );
+		Assert.assertEquals( discarded, otherCount );
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// PDU Send Testing Methods   ////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test(dataProvider="connections")
+	public void testSendPdu( String connection, int port ) throws Exception
+	{
+		TestPduListener listener = new TestPduListener();
+		this.receiver = createOpsCenter( connection, port, EXERCISE, 1 );
+		this.receiver.getConfiguration().getUdpConfiguration().setMaxPduSize( 65507 );
+		this.receiver.setPduListener( listener );
+		this.sender = createOpsCenter( connection, port, EXERCISE, 1 );
+		this.receiver.open();
+		this.sender.open();
+
+		// bigger than the encoder's starting buffer, so it has to grow on the way out
+		CommentPdu before = new CommentPdu();
+		before.setOriginatingEntity( new EntityId(1,2,3) );
+		before.add( new VariableDatum(1,new byte[PDU.MAX_SIZE*2]) );
+		before.setExerciseId( (short)EXERCISE );
+		sender.getConnection().send( before );
+
+		CommentPdu after = listener.waitForPdu( CommentPdu.class );
+		Assert.assertEquals( after.getOriginatingEntity(), before.getOriginatingEntity() );
+		Assert.assertEquals( after.getVariableDatumRecords(), before.getVariableDatumRecords() );
+
+		// too big for a datagram
+		CommentPdu oversize = new CommentPdu();
+		oversize.add( new VariableDatum(1,new byte[65507]) );
+		try
+		{
+			sender.getConnection().send( oversize );
+			Assert.fail( "Expected PDU over 65507 bytes to be rejected" );
+		}
+		catch( DiscoException de )
+		{
+			// success!
+		}
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
@@ -17,14 +17,29 @@
  */
 package org.openlvc.disco.pdu;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.openlvc.disco.AbstractTest;
 import org.openlvc.disco.PduFactory;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.configuration.Flag;
 import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.ParameterTypeDesignator;
 import org.openlvc.disco.pdu.field.appearance.GroundPlatformAppearance;
 import org.openlvc.disco.pdu.field.appearance.enums.CamouflageType;
 import org.openlvc.disco.pdu.field.appearance.enums.HatchState;
 import org.openlvc.disco.pdu.field.appearance.enums.PaintScheme;
 import org.openlvc.disco.pdu.field.appearance.enums.TrailingEffects;
+import org.openlvc.disco.pdu.record.ArticulationParameter;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.pdu.record.PduHeader;
+import org.openlvc.disco.pdu.simman.StartResumePdu;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
@@ -96,6 +111,234 @@ public class EntityStatePduTest extends AbstractTest
 		Assert.assertEquals( afterArray, beforeArray );
 	}
 
+	@Test
+	public void testEntityStatePduLazyDecode() throws Exception
+	{
+		EntityStatePdu before = new EntityStatePdu();
+		before.setEntityID( 1, 2, 3 );
+		before.setMarking( "LAZY" );
+		before.setAppearance( 0x00200000 );
+		before.getLocation().setX( 1234.5 );
+		before.getLinearVelocity().setFirstComponent( 9.5f );
+		ArticulationParameter parameter = new ArticulationParameter();
+		parameter.setTypeDesignator( ParameterTypeDesignator.ArticulatedPart );
+		parameter.setArticulatedPartTypeClass( 4096 );
+		before.getArticulationParameter().add( parameter );
+		byte[] beforeArray = before.toByteArray();
+
+		DiscoConfiguration.set( Flag.Lazy );
+		try
+		{
+			// untouched PDUs re-encode to exactly the same bytes
+			EntityStatePdu after = (EntityStatePdu)PduFactory.getDefaultFactory().create( beforeArray );
+			Assert.assertTrue( after.isLazy() );
+			Assert.assertEquals( after.toByteArray(), beforeArray );
+
+			// cheap fields don't need any of the records decoded
+			Assert.assertEquals( after.getSiteId(), 1 );
+			Assert.assertEquals( after.getAppId(), 2 );
+			Assert.assertEquals( after.getPackedEntityId(), EntityId.pack(1,2,3) );
+			Assert.assertEquals( after.getConflationKey(), PduConflation.keyOf(ByteBuffer.wrap(beforeArray)) );
+			Assert.assertNotEquals( after.getConflationKey(), PDU.NO_CONFLATION_KEY );
+			Assert.assertEquals( after.getMarking(), "LAZY" );
+			Assert.assertTrue( after.isFrozen() );
+			Assert.assertEquals( after.getContentLength(), before.getContentLength() );
+
+			// decoded records come out the same as they went in
+			Assert.assertEquals( after.getEntityID(), before.getEntityID() );
+			Assert.assertEquals( after.getLocation().getX(), 1234.5 );
+			Assert.assertEquals( after.getLinearVelocity().getFirstComponent(), 9.5f );
+			Assert.assertEquals( after.getArticulationParameter().size(), 1 );
+			Assert.assertEquals( after.toByteArray(), beforeArray );
+
+			// changes made through a getter or setter end up on the wire
+			after = (EntityStatePdu)PduFactory.getDefaultFactory().create( beforeArray );
+			after.getLocation().setX( 99.0 );
+			after.setMarking( "CHANGED" );
+			EntityStatePdu changed = (EntityStatePdu)PduFactory.getDefaultFactory().create( after.toByteArray() );
+			Assert.assertEquals( changed.getLocation().getX(), 99.0 );
+			Assert.assertEquals( changed.getMarking(), "CHANGED" );
+			Assert.assertEquals( changed.getLinearVelocity().getFirstComponent(), 9.5f );
+			Assert.assertEquals( changed.getEntityID(), before.getEntityID() );
+
+			// adding an articulation parameter changes the length
+			after.getArticulationParameter().add( new ArticulationParameter() );
+			changed = (EntityStatePdu)PduFactory.getDefaultFactory().create( after.toByteArray() );
+			Assert.assertEquals( changed.getArticulationParameter().size(), 2 );
+			Assert.assertEquals( changed.getMarking(), "CHANGED" );
+		}
+		finally
+		{
+			DiscoConfiguration.clear( Flag.Lazy );
+		}
+	}
+
+	@Test
+	public void testEntityStatePduLazyConcurrentReads() throws Exception
+	{
+		int threads = 4;
+		byte[][] packets = new byte[500][];
+		for( int i = 0; i < packets.length; i++ )
+		{
+			EntityStatePdu pdu = new EntityStatePdu();
+			pdu.setEntityID( 1, 2, i );
+			pdu.setMarking( "E"+i );
+			pdu.getLocation().setX( i );
+			pdu.getArticulationParameter().add( new ArticulationParameter() );
+			packets[i] = pdu.toByteArray();
+		}
+
+		DiscoConfiguration.set( Flag.Lazy );
+		ExecutorService executor = Executors.newFixedThreadPool( threads );
+		try
+		{
+			// every thread reads (and encodes) the same lazy PDU at the same time, as the
+			// distributor's links do; each should see every field, and the same bytes. Half
+			// of them go straight to a full re-encode (articulations decoded) while the others
+			// are still decoding fields from the raw bytes.
+			for( int i = 0; i < packets.length; i++ )
+			{
+				EntityStatePdu shared = (EntityStatePdu)PduFactory.getDefaultFactory().create( packets[i] );
+				CyclicBarrier barrier = new CyclicBarrier( threads );
+				int index = i;
+				List<Future<byte[]>> results = new ArrayList<>();
+				for( int t = 0; t < threads; t++ )
+				{
+					boolean encodeFirst = t % 2 == 0;
+					results.add( executor.submit(() -> {
+						barrier.await();
+						byte[] bytes = null;
+						if( encodeFirst )
+						{
+							Assert.assertEquals( shared.getArticulationParameter().size(), 1 );
+							bytes = shared.toByteArray();
+						}
+
+						Assert.assertEquals( shared.getLocation().getX(), (double)index );
+						Assert.assertEquals( shared.getMarking(), "E"+index );
+						Assert.assertEquals( shared.getEntityID().getEntityId(), index );
+						Assert.assertEquals( shared.getOrientation().getPsi(), 0.0f );
+						return bytes == null ? shared.toByteArray() : bytes;
+					}) );
+				}
+
+				for( Future<byte[]> result : results )
+					Assert.assertEquals( result.get(), packets[i] );
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+			DiscoConfiguration.clear( Flag.Lazy );
+		}
+	}
+
+	@Test
+	public void testEntityStatePduCachedBytes() throws Exception
+	{
+		EntityStatePdu pdu = new EntityStatePdu();
+		pdu.setEntityID( 1, 2, 3 );
+		pdu.setMarking( "CACHED" );
+		byte[] uncached = pdu.toByteArray();
+
+		pdu.setCacheEnabled( true );
+		Assert.assertFalse( pdu.isCached() );
+		Assert.assertEquals( pdu.toByteArray(), uncached );
+		Assert.assertTrue( pdu.isCached() );
+
+		// exercise id and timestamp are written fresh without dropping the cache
+		pdu.setExerciseId( (short)7 );
+		pdu.getHeader().setTimestamp( 0x01020304L );
+		EntityStatePdu received = (EntityStatePdu)PduFactory.getDefaultFactory().create( pdu.toByteArray() );
+		Assert.assertTrue( pdu.isCached() );
+		Assert.assertEquals( received.getExerciseId(), 7 );
+		Assert.assertEquals( received.getHeader().getTimestamp(), 0x01020304L );
+		Assert.assertEquals( received.getMarking(), "CACHED" );
+
+		// ...and never written into the cached bytes, which other threads may be reading
+		pdu.setExerciseId( (short)8 );
+		byte[] first = pdu.toByteArray();
+		pdu.setExerciseId( (short)9 );
+		Assert.assertEquals( first[1], 8 );
+		Assert.assertEquals( pdu.toByteArray()[1], 9 );
+
+		// setters drop the cache
+		pdu.setMarking( "CHANGED" );
+		Assert.assertFalse( pdu.isCached() );
+		received = (EntityStatePdu)PduFactory.getDefaultFactory().create( pdu.toByteArray() );
+		Assert.assertEquals( received.getMarking(), "CHANGED" );
+
+		// changes through a getter need an explicit markDirty()
+		pdu.getLocation().setX( 42.0 );
+		received = (EntityStatePdu)PduFactory.getDefaultFactory().create( pdu.toByteArray() );
+		Assert.assertEquals( received.getLocation().getX(), 0.0 );
+		pdu.markDirty();
+		received = (EntityStatePdu)PduFactory.getDefaultFactory().create( pdu.toByteArray() );
+		Assert.assertEquals( received.getLocation().getX(), 42.0 );
+
+		// can be filled ahead of time, before handing the PDU to several writers
+		pdu.markDirty();
+		pdu.prepareCache();
+		Assert.assertTrue( pdu.isCached() );
+
+		// types whose setters don't all mark the PDU dirty can't be cached
+		Assert.assertFalse( new StartResumePdu().setCacheEnabled(true).isCacheEnabled() );
+	}
+
+	@Test
+	public void testEntityStatePduCacheDroppedOnReread() throws Exception
+	{
+		assertCacheDroppedOnReread();
+		DiscoConfiguration.set( Flag.Lazy );
+		try
+		{
+			assertCacheDroppedOnReread();
+		}
+		finally
+		{
+			DiscoConfiguration.clear( Flag.Lazy );
+		}
+	}
+
+	/**
+	 * Cache the bytes of one ESPDU, then read different ones into the same instance, both via a
+	 * recycling factory and straight through from(). It must write out what it now holds.
+	 */
+	private void assertCacheDroppedOnReread() throws Exception
+	{
+		byte[] one = newEspduBytes( 1, "ONE" );
+		byte[] two = newEspduBytes( 2, "TWO" );
+		byte[] three = newEspduBytes( 3, "THREE" );
+
+		PduFactory factory = new PduFactory();
+		factory.setRecycling( true );
+		EntityStatePdu pdu = (EntityStatePdu)factory.create( one );
+		pdu.setCacheEnabled( true ).prepareCache();
+		factory.recycle( pdu );
+
+		EntityStatePdu recycled = (EntityStatePdu)factory.create( two );
+		Assert.assertSame( recycled, pdu );
+		Assert.assertFalse( recycled.isCacheEnabled() );
+		Assert.assertEquals( recycled.getEntityID(), new EntityId(2,2,2) );
+		Assert.assertEquals( recycled.toByteArray(), two );
+
+		// reading a new body in drops anything cached from the old one
+		recycled.setCacheEnabled( true ).prepareCache();
+		int bodyLength = three.length - PduHeader.HEADER_LENGTH;
+		recycled.from( new DisBuffer(three,PduHeader.HEADER_LENGTH,bodyLength) );
+		EntityStatePdu written = (EntityStatePdu)factory.create( recycled.toByteArray() );
+		Assert.assertEquals( written.getEntityID(), new EntityId(3,3,3) );
+		Assert.assertEquals( written.getMarking(), "THREE" );
+	}
+
+	private byte[] newEspduBytes( int id, String marking ) throws Exception
+	{
+		EntityStatePdu pdu = new EntityStatePdu();
+		pdu.setEntityID( id, id, id );
+		pdu.setMarking( marking );
+		return pdu.toByteArray();
+	}
+
 	///////////////////////////////////////////////////////////////////////////////////
 	/// Appearance Testing Method   ///////////////////////////////////////////////////
 	///////////////////////////////////////////////////////////////////////////////////
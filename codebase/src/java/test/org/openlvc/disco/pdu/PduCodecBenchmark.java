@@ -0,0 +1,209 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.pdu;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import org.openlvc.disco.PduFactory;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.configuration.Flag;
+import org.openlvc.disco.connection.PduEncoder;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.ParameterTypeDesignator;
+import org.openlvc.disco.pdu.radio.SignalPdu;
+import org.openlvc.disco.pdu.radio.TransmitterPdu;
+import org.openlvc.disco.pdu.record.ArticulationParameter;
+import org.openlvc.disco.pdu.record.PduHeader;
+
+/**
+ * Micro-benchmark comparing the stream based codec ({@link DisInputStream}/{@link DisOutputStream})
+ * against the buffer based codec ({@link DisBuffer}) for the PDUs we see the most of.
+ * <p/>
+ * This is not part of the test suite. Run it by hand:
+ * <pre>
+ *   java -cp [classpath] org.openlvc.disco.pdu.PduCodecBenchmark [iterations]
+ * </pre>
+ */
+public class PduCodecBenchmark
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int WARMUP = 200000;
+
+	// stops the JIT from deciding our results are unused
+	private static long blackhole = 0;
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	private static void decodeStream( byte[] bytes, int iterations ) throws Exception
+	{
+		PduFactory factory = PduFactory.getDefaultFactory();
+		for( int i = 0; i < iterations; i++ )
+		{
+			DisInputStream instream = new DisInputStream( bytes );
+			PduHeader header = new PduHeader();
+			header.from( instream );
+			PDU pdu = factory.create( header );
+			pdu.from( instream );
+			blackhole += pdu.getHeader().getTimestamp();
+		}
+	}
+
+	private static void decodeBuffer( byte[] bytes, int iterations ) throws Exception
+	{
+		PduFactory factory = PduFactory.getDefaultFactory();
+		for( int i = 0; i < iterations; i++ )
+		{
+			PDU pdu = factory.create( bytes );
+			blackhole += pdu.getHeader().getTimestamp();
+		}
+	}
+
+	private static void encodeStream( PDU pdu, int iterations ) throws Exception
+	{
+		for( int i = 0; i < iterations; i++ )
+		{
+			ByteArrayOutputStream baos = new ByteArrayOutputStream( pdu.getPduLength() );
+			DisOutputStream dos = new DisOutputStream( baos );
+			pdu.writePdu( dos );
+			blackhole += baos.toByteArray().length;
+		}
+	}
+
+	private static void encodeBuffer( PDU pdu, int iterations ) throws Exception
+	{
+		ByteBuffer buffer = ByteBuffer.allocate( PDU.MAX_SIZE );
+		DisBuffer disbuffer = new DisBuffer( buffer );
+		for( int i = 0; i < iterations; i++ )
+		{
+			buffer.clear();
+			pdu.writePdu( disbuffer );
+			blackhole += buffer.position();
+		}
+	}
+
+	/**
+	 * What the senders used to do before handing a PDU to the connection
+	 */
+	private static void encodeArray( PDU pdu, int iterations ) throws Exception
+	{
+		for( int i = 0; i < iterations; i++ )
+			blackhole += pdu.toByteArray().length;
+	}
+
+	/**
+	 * What the UDP connections do now: serialize into a reused, thread-owned send buffer
+	 */
+	private static void encodeSend( PDU pdu, int iterations ) throws Exception
+	{
+		PduEncoder encoder = new PduEncoder( true );
+		for( int i = 0; i < iterations; i++ )
+			blackhole += encoder.encode(pdu).remaining();
+	}
+
+	/**
+	 * What a forwarding filter does: decode, look at the marking, then send it on.
+	 */
+	private static void filterAndForward( byte[] bytes, int iterations ) throws Exception
+	{
+		PduFactory factory = PduFactory.getDefaultFactory();
+		for( int i = 0; i < iterations; i++ )
+		{
+			EntityStatePdu pdu = (EntityStatePdu)factory.create( bytes );
+			if( pdu.getMarking().startsWith("B") )
+				blackhole += pdu.toByteArray().length;
+		}
+	}
+
+	private static void run( String label, Task task, int iterations ) throws Exception
+	{
+		com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().threadId();
+
+		task.run( WARMUP );
+		long allocated = threads.getThreadAllocatedBytes( threadId );
+		long start = System.nanoTime();
+		task.run( iterations );
+		long nanos = System.nanoTime() - start;
+		allocated = threads.getThreadAllocatedBytes( threadId ) - allocated;
+		System.out.printf( "  %-12s %,12.0f ops/s  (%,6.1f ns/op, %,5d B/op)%n",
+		                   label,
+		                   iterations / (nanos / 1e9),
+		                   (double)nanos / iterations,
+		                   allocated / iterations );
+	}
+
+	private static void benchmark( PDU pdu, int iterations ) throws Exception
+	{
+		byte[] bytes = pdu.toByteArray();
+		System.out.printf( "%s (%d bytes)%n", pdu.getType(), bytes.length );
+		run( "decode/str", count -> decodeStream(bytes,count), iterations );
+		run( "decode/buf", count -> decodeBuffer(bytes,count), iterations );
+		run( "encode/str", count -> encodeStream(pdu,count), iterations );
+		run( "encode/buf", count -> encodeBuffer(pdu,count), iterations );
+		run( "encode/arr", count -> encodeArray(pdu,count), iterations );
+		run( "encode/send", count -> encodeSend(pdu,count), iterations );
+		if( pdu.setCacheEnabled(true).isCacheEnabled() )
+			run( "encode/cache", count -> encodeSend(pdu,count), iterations );
+		pdu.setCacheEnabled( false );
+	}
+
+	public static void main( String[] args ) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+
+		EntityStatePdu espdu = new EntityStatePdu();
+		espdu.setMarking( "BENCH" );
+		for( int i = 0; i < 4; i++ )
+		{
+			ArticulationParameter parameter = new ArticulationParameter();
+			parameter.setTypeDesignator( ParameterTypeDesignator.ArticulatedPart );
+			parameter.setArticulatedPartTypeClass( 4096 + i );
+			parameter.setArticulatedPartParameterValue( i * 1.5f );
+			espdu.getArticulationParameter().add( parameter );
+		}
+
+		SignalPdu signal = new SignalPdu();
+		signal.setData( new byte[480] );
+
+		benchmark( espdu, iterations );
+		byte[] espduBytes = espdu.toByteArray();
+		run( "filter/eager", count -> filterAndForward(espduBytes,count), iterations );
+		DiscoConfiguration.set( Flag.Lazy );
+		run( "filter/lazy", count -> filterAndForward(espduBytes,count), iterations );
+		DiscoConfiguration.clear( Flag.Lazy );
+
+		benchmark( new TransmitterPdu(), iterations );
+		benchmark( signal, iterations );
+		System.out.println( "(ignore) "+blackhole );
+	}
+
+	//----------------------------------------------------------
+	//                     INNER CLASSES
+	//----------------------------------------------------------
+	@FunctionalInterface
+	private interface Task
+	{
+		public void run( int iterations ) throws Exception;
+	}
+}
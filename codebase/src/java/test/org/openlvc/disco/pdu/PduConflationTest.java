@@ -0,0 +1,120 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.pdu;
+
+import java.nio.ByteBuffer;
+
+import org.openlvc.disco.PduFactory;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.configuration.Flag;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.radio.TransmitterPdu;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"pdu","conflation"})
+public class PduConflationTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Conflation Testing Methods   //////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testTransmitterIdentity()
+	{
+		TransmitterPdu first = newTransmitter( 1 );
+		TransmitterPdu again = newTransmitter( 1 );
+		TransmitterPdu second = newTransmitter( 2 );
+
+		// keys are checked, never trusted, for transmitters
+		Assert.assertEquals( again.getConflationKey(), first.getConflationKey() );
+		Assert.assertTrue( again.conflatesWith(first) );
+		Assert.assertFalse( second.conflatesWith(first) );
+		Assert.assertFalse( first.conflatesWith(newEntityState()) );
+
+		// same answers straight from the packets
+		ByteBuffer firstBytes = ByteBuffer.wrap( first.toByteArray() );
+		ByteBuffer againBytes = ByteBuffer.wrap( again.toByteArray() );
+		ByteBuffer secondBytes = ByteBuffer.wrap( second.toByteArray() );
+		Assert.assertEquals( PduConflation.keyOf(firstBytes), first.getConflationKey() );
+		Assert.assertEquals( PduConflation.keyOf(secondBytes), second.getConflationKey() );
+		Assert.assertTrue( PduConflation.conflatesWith(againBytes,firstBytes) );
+		Assert.assertFalse( PduConflation.conflatesWith(secondBytes,firstBytes) );
+		Assert.assertFalse( PduConflation.conflatesWith(firstBytes,ByteBuffer.wrap(newEntityState().toByteArray())) );
+	}
+
+	@Test
+	public void testUnparsedTransmitterIdentity() throws Exception
+	{
+		DiscoConfiguration.set( Flag.Passthrough );
+		try
+		{
+			PduFactory factory = new PduFactory();
+			PDU first = factory.create( newTransmitter(1).toByteArray() );
+			PDU again = factory.create( newTransmitter(1).toByteArray() );
+			PDU second = factory.create( newTransmitter(2).toByteArray() );
+			Assert.assertTrue( first instanceof UnparsedPdu );
+
+			Assert.assertEquals( first.getConflationKey(), newTransmitter(1).getConflationKey() );
+			Assert.assertTrue( again.conflatesWith(first) );
+			Assert.assertFalse( second.conflatesWith(first) );
+		}
+		finally
+		{
+			DiscoConfiguration.clear( Flag.Passthrough );
+		}
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Helper Methods   //////////////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	private TransmitterPdu newTransmitter( int radio )
+	{
+		TransmitterPdu pdu = new TransmitterPdu();
+		pdu.setEntityId( new EntityId(1,2,3) );
+		pdu.setRadioID( radio );
+		return pdu;
+	}
+
+	private EntityStatePdu newEntityState()
+	{
+		EntityStatePdu pdu = new EntityStatePdu();
+		pdu.setEntityID( 1, 2, 3 );
+		return pdu;
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
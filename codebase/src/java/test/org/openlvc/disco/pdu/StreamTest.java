@@ -18,11 +18,16 @@
 package org.openlvc.disco.pdu;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.openlvc.disco.AbstractTest;
 import org.openlvc.disco.PduFactory;
 import org.openlvc.disco.pdu.entity.EntityStatePdu;
 import org.openlvc.disco.pdu.field.ParameterTypeDesignator;
+import org.openlvc.disco.pdu.radio.SignalPdu;
+import org.openlvc.disco.pdu.radio.TransmitterPdu;
 import org.openlvc.disco.pdu.record.ArticulationParameter;
 import org.openlvc.disco.utils.StringUtils;
 import org.testng.Assert;
@@ -133,6 +138,58 @@ public class StreamTest extends AbstractTest
 		Assert.assertEquals( after.getPduLength(), before.getPduLength() );
 	}
 	
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Buffer Serialization Testing Methods   ////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testDisBufferMatchesStream() throws Exception
+	{
+		EntityStatePdu espdu = new EntityStatePdu();
+		ArticulationParameter param1 = new ArticulationParameter();
+		param1.setTypeDesignator( ParameterTypeDesignator.ArticulatedPart );
+		param1.setArticulatedPartTypeMetric( (short)7 );
+		param1.setArticulatedPartTypeClass( 33 );
+		param1.setArticulatedPartParameterValue( 3.14f );
+		espdu.getArticulationParameter().add( param1 );
+		espdu.setMarking( "DISCO" );
+
+		SignalPdu signal = new SignalPdu();
+		signal.setData( new byte[]{ 1, 2, 3, 4, 5 } );
+
+		for( PDU before : new PDU[]{ espdu, new TransmitterPdu(), signal } )
+		{
+			// stream encoding is our reference
+			ByteArrayOutputStream baos = new ByteArrayOutputStream( PDU.MAX_SIZE );
+			DisOutputStream dos = new DisOutputStream( baos );
+			before.writePdu( dos );
+			dos.flush();
+			byte[] expected = baos.toByteArray();
+
+			// buffer encoding must produce the same bytes, including into a direct buffer
+			ByteBuffer direct = ByteBuffer.allocateDirect( PDU.MAX_SIZE );
+			before.writePdu( new DisBuffer(direct) );
+			direct.flip();
+			byte[] actual = new byte[direct.remaining()];
+			direct.get( actual );
+			Assert.assertEquals( actual, expected, before.getType()+" encoding differs" );
+			Assert.assertEquals( before.toByteArray(), expected );
+
+			// decode straight from the direct buffer and re-encode
+			direct.rewind();
+			PDU after = PduFactory.getDefaultFactory().create( direct );
+			Assert.assertEquals( after.getType(), before.getType() );
+			Assert.assertFalse( direct.hasRemaining() );
+			Assert.assertEquals( after.toByteArray(), expected, before.getType()+" round trip differs" );
+		}
+	}
+
+	@Test(expectedExceptions=EOFException.class)
+	public void testDisBufferTruncatedPdu() throws Exception
+	{
+		byte[] full = new EntityStatePdu().toByteArray();
+		PduFactory.getDefaultFactory().create( Arrays.copyOf(full,full.length-10) );
+	}
+
 	//----------------------------------------------------------
 	//                     STATIC METHODS
 	//----------------------------------------------------------
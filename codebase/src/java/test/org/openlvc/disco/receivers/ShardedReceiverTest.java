@@ -0,0 +1,235 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.receivers;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.Logger;
+import org.openlvc.disco.AbstractTest;
+import org.openlvc.disco.IPduListener;
+import org.openlvc.disco.OpsCenter;
+import org.openlvc.disco.common.CommonSetup;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.connection.Metrics;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.PduType;
+import org.openlvc.disco.pdu.simman.StartResumePdu;
+import org.openlvc.disco.utils.BufferPool;
+import org.openlvc.disco.utils.RingBuffer.WaitStrategy;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"receivers","sharded"})
+public class ShardedReceiverTest extends AbstractTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Sharded Receiver Testing Methods   ////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testEntityOrderIsPreservedAcrossWorkers() throws Exception
+	{
+		int entities = 32;
+		int updates = 200;
+
+		// record the timestamps each entity's updates arrive with, in arrival order
+		Map<Long,List<Long>> arrivals = new ConcurrentHashMap<>();
+		IPduListener listener = pdu -> {
+			EntityStatePdu espdu = (EntityStatePdu)pdu;
+			arrivals.computeIfAbsent( espdu.getEntityID().getPackedId(),
+			                          key -> Collections.synchronizedList(new ArrayList<>()) )
+			        .add( espdu.getHeader().getTimestamp() );
+		};
+
+		ShardedReceiver receiver = new ShardedReceiver( newTestOpsCenter(4,entities*updates,listener) );
+		receiver.open();
+		try
+		{
+			// interleave the entities so that each worker has several on the go at once
+			for( int update = 0; update < updates; update++ )
+			{
+				for( int entity = 1; entity <= entities; entity++ )
+					receiver.receive( newEntityState(entity,update) );
+			}
+
+			waitFor( () -> receiver.getProcessedPacketCount() == entities*updates, 5000 );
+		}
+		finally
+		{
+			receiver.close();
+		}
+
+		Assert.assertEquals( receiver.getDroppedPacketCount(), 0 );
+		Assert.assertEquals( arrivals.size(), entities );
+		for( Map.Entry<Long,List<Long>> entry : arrivals.entrySet() )
+		{
+			List<Long> timestamps = entry.getValue();
+			Assert.assertEquals( timestamps.size(), updates, "Entity "+entry.getKey() );
+			for( int i = 0; i < updates; i++ )
+				Assert.assertEquals( timestamps.get(i).longValue(), i, "Entity "+entry.getKey() );
+		}
+
+		// make sure the work really was spread out, or we haven't tested anything
+		int busyWorkers = 0;
+		for( int i = 0; i < receiver.getWorkerCount(); i++ )
+		{
+			if( receiver.getProcessedPacketCount(i) > 0 )
+				++busyWorkers;
+		}
+
+		Assert.assertTrue( busyWorkers > 1, "All entities hashed onto one worker" );
+	}
+
+	@Test
+	public void testUnkeyedPdusAreDealtRoundRobin() throws Exception
+	{
+		int workers = 4;
+		int perWorker = 50;
+		ShardedReceiver receiver = new ShardedReceiver( newTestOpsCenter(workers,1024,pdu -> {}) );
+		receiver.open();
+		try
+		{
+			byte[] packet = new StartResumePdu().toByteArray();
+			for( int i = 0; i < workers*perWorker; i++ )
+				receiver.receive( packet.clone() );
+
+			waitFor( () -> receiver.getProcessedPacketCount() == workers*perWorker, 5000 );
+		}
+		finally
+		{
+			receiver.close();
+		}
+
+		for( int i = 0; i < workers; i++ )
+			Assert.assertEquals( receiver.getProcessedPacketCount(i), perWorker, "Worker "+i );
+	}
+
+	@Test
+	public void testFullRingDropsAndCounts() throws Exception
+	{
+		// one worker with room for four, never opened so nothing drains the ring
+		OpsCenter opscenter = newTestOpsCenter( 1, 4, pdu -> {} );
+		ShardedReceiver receiver = new ShardedReceiver( opscenter );
+		BufferPool pool = new BufferPool( 1500, 16 );
+
+		for( int i = 0; i < 4; i++ )
+			receiver.receive( newEntityState(1,i) );
+
+		Assert.assertEquals( receiver.getQueuedPacketCount(), 4 );
+		Assert.assertEquals( receiver.getDroppedPacketCount(), 0 );
+
+		// the array path just drops
+		receiver.receive( newEntityState(1,4) );
+		Assert.assertEquals( receiver.getDroppedPacketCount(), 1 );
+
+		// the pooled path drops and hands the buffer straight back
+		ByteBuffer buffer = pool.acquire();
+		buffer.put( newEntityState(1,5) ).flip();
+		receiver.receive( buffer, pool );
+		Assert.assertEquals( receiver.getDroppedPacketCount(), 2 );
+		Assert.assertEquals( pool.getAvailableCount(), 1 );
+
+		Assert.assertEquals( receiver.getQueuedPacketCount(), 4 );
+		Assert.assertEquals( opscenter.getMetrics().getPdusDiscarded(PduType.EntityState), 2 );
+
+		receiver.close();
+	}
+
+	@Test
+	public void testCloseReleasesQueuedBuffers() throws Exception
+	{
+		// never opened, so everything we hand over is still sitting in the rings at close
+		ShardedReceiver receiver = new ShardedReceiver( newTestOpsCenter(2,16,pdu -> {}) );
+		BufferPool pool = new BufferPool( 1500, 16 );
+
+		int count = 6;
+		for( int i = 0; i < count; i++ )
+		{
+			ByteBuffer buffer = pool.acquire();
+			buffer.put( newEntityState(i+1,0) ).flip();
+			receiver.receive( buffer, pool );
+		}
+
+		Assert.assertEquals( receiver.getQueuedPacketCount(), count );
+		Assert.assertEquals( pool.getAvailableCount(), 0 );
+
+		receiver.close();
+		Assert.assertEquals( receiver.getQueuedPacketCount(), 0 );
+		Assert.assertEquals( pool.getAvailableCount(), count );
+		Assert.assertEquals( pool.getAllocatedCount(), count );
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Helper Methods   //////////////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * An {@link OpsCenter} that can be handed to a receiver without being opened. There is no
+	 * connection behind it, so we supply the logger and metrics ourselves.
+	 */
+	private OpsCenter newTestOpsCenter( int workers, int ringSize, IPduListener listener )
+	{
+		DiscoConfiguration configuration = new DiscoConfiguration();
+		configuration.getLoggingConfiguration().setLevel( CommonSetup.CONSOLE_LOG_LEVEL );
+		configuration.setReceiverWorkerCount( workers );
+		configuration.setRingBufferSize( ringSize );
+		configuration.setRingWaitStrategy( WaitStrategy.Park );
+
+		Metrics metrics = new Metrics();
+		OpsCenter opscenter = new OpsCenter( configuration )
+		{
+			@Override public Logger getLogger() { return getConfiguration().getDiscoLogger(); }
+			@Override public Metrics getMetrics() { return metrics; }
+		};
+
+		opscenter.setPduListener( listener );
+		return opscenter;
+	}
+
+	/** @return A serialized ESPDU for the given entity, carrying the sequence as its timestamp */
+	private byte[] newEntityState( int entity, long sequence )
+	{
+		EntityStatePdu pdu = new EntityStatePdu();
+		pdu.setEntityID( 1, 1, entity );
+		pdu.getHeader().setTimestamp( sequence );
+		return pdu.toByteArray();
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
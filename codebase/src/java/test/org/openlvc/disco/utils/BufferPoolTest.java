@@ -0,0 +1,98 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.nio.ByteBuffer;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"utils","bufferpool"})
+public class BufferPoolTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Buffer Pool Testing Methods   /////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testBufferReuse()
+	{
+		BufferPool pool = new BufferPool( 1500, 4 );
+		
+		ByteBuffer first = pool.acquire();
+		Assert.assertTrue( first.isDirect() );
+		Assert.assertEquals( first.capacity(), 1500 );
+		Assert.assertEquals( pool.getAllocatedCount(), 1 );
+		
+		// dirty it up, give it back and make sure we get the same one back, cleared
+		first.put( (byte)1 ).put( (byte)2 ).flip();
+		pool.release( first );
+		Assert.assertEquals( pool.getAvailableCount(), 1 );
+
+		ByteBuffer second = pool.acquire();
+		Assert.assertSame( second, first );
+		Assert.assertEquals( second.position(), 0 );
+		Assert.assertEquals( second.limit(), 1500 );
+		Assert.assertEquals( pool.getAllocatedCount(), 1 );
+	}
+
+	@Test
+	public void testPoolCapacity()
+	{
+		BufferPool pool = new BufferPool( 64, 2 );
+		ByteBuffer a = pool.acquire();
+		ByteBuffer b = pool.acquire();
+		ByteBuffer c = pool.acquire();
+		Assert.assertEquals( pool.getAllocatedCount(), 3 );
+
+		// only two should be retained
+		pool.release( a );
+		pool.release( b );
+		pool.release( c );
+		Assert.assertEquals( pool.getAvailableCount(), 2 );
+	}
+
+	@Test
+	public void testForeignBuffersIgnored()
+	{
+		BufferPool pool = new BufferPool( 64, 2 );
+		pool.release( ByteBuffer.allocate(64) );        // heap
+		pool.release( ByteBuffer.allocateDirect(32) );  // wrong size
+		pool.release( null );
+		Assert.assertEquals( pool.getAvailableCount(), 0 );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
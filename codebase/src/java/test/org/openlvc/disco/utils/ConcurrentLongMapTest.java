@@ -0,0 +1,159 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.openlvc.disco.pdu.DisBuffer;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"utils","collections"})
+public class ConcurrentLongMapTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Map Testing Methods   /////////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testMatchesHashMap()
+	{
+		// small key range so puts, replaces and removes all collide a lot, and the tables
+		// grow and have entries shifted around on removal
+		Random random = new Random( 7 );
+		ConcurrentLongMap<Long> map = new ConcurrentLongMap<>( 4 );
+		Map<Long,Long> expected = new HashMap<>();
+		for( int i = 0; i < 200000; i++ )
+		{
+			long key = EntityId.pack( random.nextInt(8), random.nextInt(8), random.nextInt(64) );
+			long value = random.nextLong();
+			switch( random.nextInt(4) )
+			{
+				case 0:
+				case 1:
+					Assert.assertEquals( map.put(key,value), expected.put(key,value) );
+					break;
+				case 2:
+					Assert.assertEquals( map.remove(key), expected.remove(key) );
+					break;
+				default:
+					Assert.assertEquals( map.get(key), expected.get(key) );
+					break;
+			}
+		}
+
+		Assert.assertEquals( map.size(), expected.size() );
+		Assert.assertEquals( new HashSet<>(map.values()), new HashSet<>(expected.values()) );
+
+		// remove everything odd, check the rest are all still reachable
+		int removed = map.removeIf( value -> (value & 1) == 1 );
+		expected.values().removeIf( value -> (value & 1) == 1 );
+		Assert.assertEquals( map.size(), expected.size() );
+		Assert.assertTrue( removed > 0 );
+		for( Map.Entry<Long,Long> entry : expected.entrySet() )
+			Assert.assertEquals( map.get(entry.getKey()), entry.getValue() );
+
+		map.clear();
+		Assert.assertTrue( map.isEmpty() );
+	}
+
+	@Test
+	public void testConcurrentWriters() throws Exception
+	{
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+		int threads = 4;
+		int perThread = 20000;
+		CountDownLatch start = new CountDownLatch( 1 );
+		List<Thread> workers = new ArrayList<>();
+		for( int t = 0; t < threads; t++ )
+		{
+			int site = t;
+			Thread worker = new Thread( () -> {
+				try
+				{
+					start.await();
+				}
+				catch( InterruptedException ie )
+				{
+					return;
+				}
+
+				// each thread owns a site; add everything then remove every other entity
+				for( int entity = 0; entity < perThread; entity++ )
+					map.put( EntityId.pack(site,1,entity), site+"-"+entity );
+				for( int entity = 0; entity < perThread; entity += 2 )
+					map.remove( EntityId.pack(site,1,entity) );
+			});
+
+			worker.start();
+			workers.add( worker );
+		}
+
+		start.countDown();
+		for( Thread worker : workers )
+			worker.join();
+
+		Assert.assertEquals( map.size(), threads * perThread / 2 );
+		Assert.assertNull( map.get(EntityId.pack(2,1,100)) );
+		Assert.assertEquals( map.get(EntityId.pack(2,1,101)), "2-101" );
+		Assert.assertEquals( map.computeIfAbsent(EntityId.pack(2,1,101),key -> "new"), "2-101" );
+		Assert.assertEquals( map.computeIfAbsent(EntityId.pack(2,1,100),key -> "new"), "new" );
+	}
+
+	@Test
+	public void testEntityIdPacking() throws Exception
+	{
+		EntityId id = new EntityId( 0xFFFD, 300, 65535 );
+		long packed = id.getPackedId();
+		Assert.assertEquals( EntityId.unpack(packed), id );
+
+		byte[] bytes = new byte[8];
+		id.to( new DisBuffer(bytes) );
+		Assert.assertEquals( EntityId.pack(bytes,0), packed );
+
+		// ids that only differ above the low 8 bits of site/app no longer share a hash
+		Assert.assertNotEquals( new EntityId(1,1,1).hashCode(), new EntityId(257,1,1).hashCode() );
+		Assert.assertNotEquals( new EntityId(1,1,1).hashCode(), new EntityId(1,257,1).hashCode() );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
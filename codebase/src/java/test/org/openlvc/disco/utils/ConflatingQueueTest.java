@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"utils","queue"})
+public class ConflatingQueueTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Overflow Testing Methods   ////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testConflateKeepsPositionAndEvents()
+	{
+		// keys are the value / 10; anything negative is an event that must not be conflated
+		ConflatingQueue<Integer> queue =
+			new ConflatingQueue<>( 4, ConflatingQueue.Overflow.Conflate,
+			                       value -> value < 0 ? ConflatingQueue.NO_KEY : value / 10 );
+		List<Integer> evicted = new ArrayList<>();
+		queue.setEvictionListener( evicted::add );
+
+		queue.offer( 10 );
+		queue.offer( 20 );
+		queue.offer( -1 );
+		queue.offer( 11 );  // replaces 10 where it stands
+		queue.offer( -2 );
+		queue.offer( 12 );
+		Assert.assertEquals( queue.size(), 4 );
+		Assert.assertEquals( queue.getConflatedCount(), 2 );
+
+		// full, and nothing to conflate with, so the oldest goes
+		queue.offer( 30 );
+		Assert.assertEquals( queue.getDroppedCount(), 1 );
+		Assert.assertEquals( evicted, List.of(10,11,12) );
+		Assert.assertEquals( drain(queue), List.of(20,-1,-2,30) );
+
+		// once taken, a key starts a new slot at the back
+		queue.offer( 20 );
+		queue.offer( 40 );
+		Assert.assertEquals( queue.poll(), Integer.valueOf(20) );
+		queue.offer( 21 );
+		Assert.assertEquals( drain(queue), List.of(40,21) );
+		Assert.assertEquals( queue.getTakenCount(), 7 );
+		Assert.assertEquals( queue.getHighWaterMark(), 4 );
+	}
+
+	@Test
+	public void testIdentityCheckOnKeyCollision()
+	{
+		// keys are the value / 10, but only values of the same parity are really the same thing
+		ConflatingQueue<Integer> queue =
+			new ConflatingQueue<>( 8, ConflatingQueue.Overflow.Conflate,
+			                       value -> value / 10,
+			                       (newer,older) -> newer % 2 == older % 2 );
+
+		queue.offer( 10 );
+		queue.offer( 11 );  // same key, fails the check, so queued
+		queue.offer( 12 );  // replaces 10
+		queue.offer( 13 );  // would have replaced 12 on key alone
+		Assert.assertEquals( queue.getConflatedCount(), 1 );
+		Assert.assertEquals( drain(queue), List.of(12,11,13) );
+	}
+
+	@Test
+	public void testBlockAndDropOldest() throws Exception
+	{
+		ConflatingQueue<Integer> blocking = new ConflatingQueue<>( 2, ConflatingQueue.Overflow.Block );
+		Assert.assertTrue( blocking.offer(1) );
+		Assert.assertTrue( blocking.offer(1) );  // keys ignored, so no conflation
+		Assert.assertFalse( blocking.offer(2) );
+		Assert.assertEquals( blocking.getOfferedCount(), 2 );
+
+		// a blocked put goes through once there's space
+		Thread producer = new Thread( () -> {
+			try { blocking.put( 3 ); } catch( InterruptedException ie ) { /*no-op*/ }
+		});
+		producer.start();
+		Thread.sleep( 50 );
+		Assert.assertEquals( blocking.size(), 2 );
+		Assert.assertEquals( blocking.take(), Integer.valueOf(1) );
+		Assert.assertTrue( blocking.getMaxWaitNanos() >= 40_000_000L );
+		producer.join( 5000 );
+		Assert.assertEquals( drain(blocking), List.of(1,3) );
+
+		ConflatingQueue<Integer> dropping = new ConflatingQueue<>( 2, ConflatingQueue.Overflow.DropOldest );
+		for( int i = 0; i < 5; i++ )
+			dropping.offer( i );
+
+		Assert.assertEquals( dropping.getDroppedCount(), 3 );
+		Assert.assertEquals( drain(dropping), List.of(3,4) );
+		Assert.assertNull( dropping.poll() );
+		Assert.assertEquals( dropping.getOldestAgeMillis(), 0 );
+	}
+
+	private static List<Integer> drain( ConflatingQueue<Integer> queue )
+	{
+		List<Integer> drained = new ArrayList<>();
+		queue.drainTo( drained, Integer.MAX_VALUE );
+		return drained;
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
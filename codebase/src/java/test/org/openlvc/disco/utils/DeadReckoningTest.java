@@ -0,0 +1,214 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import org.openlvc.disco.application.DeadReckoningGate;
+import org.openlvc.disco.application.DisApplication;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.DeadReckoningAlgorithm;
+import org.openlvc.disco.pdu.record.AngularVelocityVector;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.pdu.record.EulerAngles;
+import org.openlvc.disco.pdu.record.VectorRecord;
+import org.openlvc.disco.pdu.record.WorldCoordinate;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"utils","deadreckoning"})
+public class DeadReckoningTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final double EPSILON = 1e-4;
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Algorithm Testing Methods   ///////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testWorldAxisAlgorithms()
+	{
+		EntityStatePdu pdu = newEntity( DeadReckoningAlgorithm.FVW );
+		pdu.setLinearVelocity( new VectorRecord(10f,0f,-2f) );
+		pdu.getDeadReckoningParams().setEntityLinearAcceleration( new VectorRecord(0f,2f,0f) );
+		pdu.getDeadReckoningParams().setEntityAngularVelocity( new AngularVelocityVector(0f,0f,0.5f) );
+
+		WorldCoordinate location = new WorldCoordinate();
+		EulerAngles orientation = new EulerAngles();
+		DeadReckoning.extrapolate( pdu, 2.0, location, orientation );
+
+		// p = p0 + vt + 1/2at^2; orientation fixed
+		Assert.assertEquals( location.getX(), 1000.0 + 20.0, EPSILON );
+		Assert.assertEquals( location.getY(), 2000.0 + 4.0, EPSILON );
+		Assert.assertEquals( location.getZ(), 3000.0 - 4.0, EPSILON );
+		Assert.assertEquals( orientation, pdu.getOrientation() );
+
+		// RPW ignores acceleration, but turns at 0.5 rad/s about the body z-axis
+		pdu.getDeadReckoningParams().setDeadReckoningAlgorithm( DeadReckoningAlgorithm.RPW );
+		DeadReckoning.extrapolate( pdu, 2.0, location, orientation );
+		Assert.assertEquals( location.getY(), 2000.0, EPSILON );
+		Assert.assertEquals( orientation.getPsi(), 1.0f, EPSILON );
+		Assert.assertEquals( orientation.getTheta(), 0.0f, EPSILON );
+		Assert.assertEquals( orientation.getPhi(), 0.0f, EPSILON );
+
+		// static doesn't move at all
+		pdu.getDeadReckoningParams().setDeadReckoningAlgorithm( DeadReckoningAlgorithm.Static );
+		DeadReckoning.extrapolate( pdu, 2.0, location, orientation );
+		Assert.assertEquals( location, pdu.getLocation() );
+	}
+
+	@Test
+	public void testBodyAxisAlgorithms()
+	{
+		// forward at 10 m/s while yawing at PI/2 rad/s: a quarter circle of radius 20/PI
+		EntityStatePdu pdu = newEntity( DeadReckoningAlgorithm.RPB );
+		pdu.setLinearVelocity( new VectorRecord(10f,0f,0f) );
+		pdu.getDeadReckoningParams().setEntityAngularVelocity( new AngularVelocityVector(0f,0f,(float)(Math.PI/2)) );
+
+		WorldCoordinate location = new WorldCoordinate();
+		EulerAngles orientation = new EulerAngles();
+		DeadReckoning.extrapolate( pdu, 1.0, location, orientation );
+
+		double radius = 20.0 / Math.PI;
+		Assert.assertEquals( location.getX(), 1000.0 + radius, EPSILON );
+		Assert.assertEquals( location.getY(), 2000.0 + radius, EPSILON );
+		Assert.assertEquals( location.getZ(), 3000.0, EPSILON );
+		Assert.assertEquals( orientation.getPsi(), Math.PI/2, EPSILON );
+
+		// heading north-east with no rotation, body velocity maps onto both world axes
+		pdu.getDeadReckoningParams().setDeadReckoningAlgorithm( DeadReckoningAlgorithm.FPB );
+		pdu.getDeadReckoningParams().setEntityAngularVelocity( new AngularVelocityVector() );
+		pdu.setOrientation( new EulerAngles((float)(Math.PI/4),0f,0f) );
+		DeadReckoning.extrapolate( pdu, 1.0, location, orientation );
+		Assert.assertEquals( location.getX(), 1000.0 + 10.0/Math.sqrt(2), EPSILON );
+		Assert.assertEquals( location.getY(), 2000.0 + 10.0/Math.sqrt(2), EPSILON );
+	}
+
+	@Test
+	public void testBodyAxisWithAcceleration()
+	{
+		// level, facing north, turning at 1 rad/s about z while accelerating on all three axes
+		EntityStatePdu pdu = newEntity( DeadReckoningAlgorithm.RVB );
+		pdu.setLinearVelocity( new VectorRecord(10f,0f,0f) );
+		pdu.getDeadReckoningParams().setEntityLinearAcceleration( new VectorRecord(1f,2f,3f) );
+		pdu.getDeadReckoningParams().setEntityAngularVelocity( new AngularVelocityVector(0f,0f,1f) );
+
+		WorldCoordinate location = new WorldCoordinate();
+		EulerAngles orientation = new EulerAngles();
+		DeadReckoning.extrapolate( pdu, 1.0, location, orientation );
+
+		// Worked by hand from the IEEE 1278.1 Annex E R1 and R2 with w=1, t=1:
+		//   R1 v = (sin1, 1-cos1, 0)*10                            = (8.414710, 4.596977, 0)
+		//   R2 a = (1.5-cos1-sin1)(w.a)w + (cos1+sin1-1)a + (sin1-cos1)(w x a)
+		//        = 0.118227*(0,0,3) + 0.381773*(1,2,3) + 0.301169*(-2,1,0)
+		//        = (-0.220564, 1.064715, 1.5)
+		Assert.assertEquals( location.getX(), 1000.0 + 8.194146, EPSILON );
+		Assert.assertEquals( location.getY(), 2000.0 + 5.661692, EPSILON );
+		Assert.assertEquals( location.getZ(), 3000.0 + 1.5, EPSILON );
+		Assert.assertEquals( orientation.getPsi(), 1.0f, EPSILON );
+		Assert.assertEquals( orientation.getTheta(), 0.0f, EPSILON );
+		Assert.assertEquals( orientation.getPhi(), 0.0f, EPSILON );
+	}
+
+	@Test
+	public void testAngleBetween()
+	{
+		EulerAngles level = new EulerAngles( 0f, 0f, 0f );
+		EulerAngles rolled = new EulerAngles( 0f, 0f, 0.1f );
+		Assert.assertEquals( DeadReckoning.getAngleBetween(level,level), 0.0, EPSILON );
+		Assert.assertEquals( DeadReckoning.getAngleBetween(level,rolled), 0.1, EPSILON );
+
+		// the same attitude written two different ways
+		EulerAngles flipped = new EulerAngles( (float)Math.PI, (float)Math.PI, (float)Math.PI );
+		Assert.assertEquals( DeadReckoning.getAngleBetween(level,flipped), 0.0, 1e-3 );
+
+		// scratch array is reused without leaking state between calls
+		double[] scratch = new double[DeadReckoning.SCRATCH_SIZE];
+		Assert.assertEquals( DeadReckoning.getAngleBetween(level,rolled,scratch), 0.1, EPSILON );
+		Assert.assertEquals( DeadReckoning.getAngleBetween(level,level,scratch), 0.0, EPSILON );
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Gate Testing Methods   ////////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testDeadReckoningGate()
+	{
+		DeadReckoningGate gate = new DisApplication().getDeadReckoningGate();
+		EntityStatePdu pdu = newEntity( DeadReckoningAlgorithm.FPW );
+		pdu.setLinearVelocity( new VectorRecord(10f,0f,0f) );
+
+		// first update always goes
+		long time = 1_000_000;
+		Assert.assertTrue( gate.shouldSend(pdu,time) );
+
+		// entity moving exactly as predicted is held back
+		pdu.getLocation().setX( 1000.0 + 10.0 );
+		Assert.assertFalse( gate.shouldSend(pdu,time+1000) );
+
+		// drifting past the 1m threshold lets it through
+		pdu.getLocation().setX( 1000.0 + 20.0 + 1.5 );
+		Assert.assertTrue( gate.shouldSend(pdu,time+2000) );
+
+		// turning past 3 degrees lets it through
+		pdu.getLocation().setX( 1000.0 + 20.0 + 1.5 + 10.0 );
+		Assert.assertFalse( gate.shouldSend(pdu,time+3000) );
+		pdu.setOrientation( new EulerAngles((float)Math.toRadians(4),0f,0f) );
+		Assert.assertTrue( gate.shouldSend(pdu,time+3000) );
+
+		// stays on track, but the heartbeat expires
+		pdu.getLocation().setX( 1000.0 + 20.0 + 1.5 + 10.0 + 49.99 );
+		Assert.assertFalse( gate.shouldSend(pdu,time+7999) );
+		pdu.getLocation().setX( 1000.0 + 20.0 + 1.5 + 10.0 + 50.0 );
+		Assert.assertTrue( gate.shouldSend(pdu,time+8000) );
+
+		// forced updates
+		Assert.assertFalse( gate.shouldSend(pdu,time+8000) );
+		gate.forceUpdate( pdu.getEntityID() );
+		Assert.assertTrue( gate.shouldSend(pdu,time+8000) );
+
+		Assert.assertEquals( gate.getPassedCount(), 5 );
+		Assert.assertEquals( gate.getSuppressedCount(), 4 );
+	}
+
+	private EntityStatePdu newEntity( DeadReckoningAlgorithm algorithm )
+	{
+		EntityStatePdu pdu = new EntityStatePdu();
+		pdu.setEntityID( new EntityId(1,2,3) );
+		pdu.setLocation( new WorldCoordinate(1000.0,2000.0,3000.0) );
+		pdu.setOrientation( new EulerAngles(0f,0f,0f) );
+		pdu.getDeadReckoningParams().setDeadReckoningAlgorithm( algorithm );
+		return pdu;
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
@@ -0,0 +1,173 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openlvc.disco.pdu.DisBuffer;
+import org.openlvc.disco.pdu.record.EntityId;
+
+/**
+ * Micro-benchmark for entity lookups as the PDU stores do them: 100,000 entities spread over
+ * 500 sites, looked up from the raw bytes of a received PDU. Compares:
+ * <ul>
+ *   <li>legacy: {@link ConcurrentHashMap} keyed on a decoded id with the old site%256/app%256 hash</li>
+ *   <li>entityid: {@link ConcurrentHashMap} keyed on a decoded {@link EntityId} (current hash)</li>
+ *   <li>packed: {@link ConcurrentLongMap} keyed on the id packed straight from the bytes</li>
+ * </ul>
+ * This is not part of the test suite. Run it by hand:
+ * <pre>
+ *   java -cp [classpath] org.openlvc.disco.utils.EntityLookupBenchmark [iterations]
+ * </pre>
+ */
+public class EntityLookupBenchmark
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int ENTITIES = 100000;
+	private static final int SITES    = 500;
+	private static final int WARMUP   = 2000000;
+
+	// stops the JIT from deciding our results are unused
+	private static long blackhole = 0;
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	private static void legacy( ConcurrentMap<LegacyId,Object> map, byte[][] wire, int iterations )
+		throws Exception
+	{
+		for( int i = 0; i < iterations; i++ )
+		{
+			EntityId id = new EntityId();
+			id.from( new DisBuffer(wire[i % wire.length]) );
+			blackhole += map.get( new LegacyId(id) ).hashCode();
+		}
+	}
+
+	private static void entityId( ConcurrentMap<EntityId,Object> map, byte[][] wire, int iterations )
+		throws Exception
+	{
+		for( int i = 0; i < iterations; i++ )
+		{
+			EntityId id = new EntityId();
+			id.from( new DisBuffer(wire[i % wire.length]) );
+			blackhole += map.get( id ).hashCode();
+		}
+	}
+
+	private static void packed( ConcurrentLongMap<Object> map, byte[][] wire, int iterations )
+	{
+		for( int i = 0; i < iterations; i++ )
+			blackhole += map.get( EntityId.pack(wire[i % wire.length],0) ).hashCode();
+	}
+
+	private static void run( String label, Task task, int iterations ) throws Exception
+	{
+		task.run( WARMUP );
+		long start = System.nanoTime();
+		task.run( iterations );
+		long nanos = System.nanoTime() - start;
+		System.out.printf( "  %-10s %,12.0f lookups/s  (%,6.1f ns/op)%n",
+		                   label, iterations / (nanos / 1e9), (double)nanos / iterations );
+	}
+
+	public static void main( String[] args ) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+
+		// 100k entities over 500 sites (a couple of apps each), stored in each kind of map
+		Random random = new Random( 42 );
+		EntityId[] ids = new EntityId[ENTITIES];
+		ConcurrentMap<LegacyId,Object> legacyMap = new ConcurrentHashMap<>();
+		ConcurrentMap<EntityId,Object> entityMap = new ConcurrentHashMap<>();
+		ConcurrentLongMap<Object> packedMap = new ConcurrentLongMap<>();
+		for( int i = 0; i < ENTITIES; i++ )
+		{
+			ids[i] = new EntityId( 1+(i % SITES), 1+(i/SITES) % 2, 1+i/(SITES*2) );
+			Object value = new Object();
+			legacyMap.put( new LegacyId(ids[i]), value );
+			entityMap.put( ids[i], value );
+			packedMap.put( ids[i].getPackedId(), value );
+		}
+
+		// the ids as they arrive on the wire, looked up in random order
+		byte[][] wire = new byte[ENTITIES][];
+		for( int i = 0; i < ENTITIES; i++ )
+		{
+			wire[i] = new byte[6];
+			ids[random.nextInt(ENTITIES)].to( new DisBuffer(wire[i]) );
+		}
+
+		Set<Integer> legacyHashes = new HashSet<>();
+		Set<Integer> currentHashes = new HashSet<>();
+		for( EntityId id : ids )
+		{
+			legacyHashes.add( new LegacyId(id).hashCode() );
+			currentHashes.add( id.hashCode() );
+		}
+
+		System.out.printf( "%,d entities over %d sites%n", ENTITIES, SITES );
+		System.out.printf( "  distinct hash codes: legacy %,d, current %,d%n",
+		                   legacyHashes.size(), currentHashes.size() );
+		run( "legacy", count -> legacy(legacyMap,wire,count), iterations );
+		run( "entityid", count -> entityId(entityMap,wire,count), iterations );
+		run( "packed", count -> packed(packedMap,wire,count), iterations );
+
+		System.out.println( "(ignore) "+blackhole );
+	}
+
+	//----------------------------------------------------------
+	//                     INNER CLASSES
+	//----------------------------------------------------------
+	@FunctionalInterface
+	private interface Task
+	{
+		public void run( int iterations ) throws Exception;
+	}
+
+	/**
+	 * Stand-in for {@link EntityId} with the hash it used to have
+	 */
+	private static class LegacyId
+	{
+		private final EntityId id;
+
+		private LegacyId( EntityId id )
+		{
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals( Object other )
+		{
+			return other instanceof LegacyId && ((LegacyId)other).id.equals( id );
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return ((id.getSiteId() % 256) << 24) + ((id.getAppId() % 256) << 16) + (id.getEntityId() & 65535);
+		}
+	}
+}
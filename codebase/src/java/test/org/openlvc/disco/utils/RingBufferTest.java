@@ -0,0 +1,160 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import org.openlvc.disco.utils.RingBuffer.WaitStrategy;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups={"utils","ringbuffer"})
+public class RingBufferTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Test Class Setup/Tear Down   //////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@BeforeClass(alwaysRun=true)
+	public void beforeClass()
+	{
+	}
+
+	@BeforeMethod(alwaysRun=true)
+	public void beforeMethod()
+	{
+	}
+
+	@AfterMethod(alwaysRun=true)
+	public void afterMethod()
+	{
+	}
+
+	@AfterClass(alwaysRun=true)
+	public void afterClass()
+	{
+	}
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Ring Buffer Testing Methods   /////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testRingOrderAndCapacity()
+	{
+		RingBuffer<Integer> ring = new RingBuffer<>( 3, false, WaitStrategy.Park );
+		Assert.assertEquals( ring.capacity(), 4 );
+		Assert.assertNull( ring.poll() );
+
+		// go round a few laps to make sure the slots are reused properly
+		int next = 0;
+		int expected = 0;
+		for( int lap = 0; lap < 5; lap++ )
+		{
+			for( int i = 0; i < 4; i++ )
+				Assert.assertTrue( ring.offer(next++) );
+
+			Assert.assertFalse( ring.offer(-1) );
+			Assert.assertEquals( ring.size(), 4 );
+
+			for( int i = 0; i < 4; i++ )
+				Assert.assertEquals( ring.poll().intValue(), expected++ );
+
+			Assert.assertTrue( ring.isEmpty() );
+		}
+
+		Assert.assertEquals( ring.getHighWaterMark(), 4 );
+	}
+
+	@Test(timeOut=10000)
+	public void testMultiProducer() throws Exception
+	{
+		final int producers = 4;
+		final int perProducer = 100000;
+		RingBuffer<Integer> ring = new RingBuffer<>( 64, true, WaitStrategy.Yield );
+
+		CountDownLatch start = new CountDownLatch( 1 );
+		Thread[] threads = new Thread[producers];
+		for( int p = 0; p < producers; p++ )
+		{
+			final int id = p;
+			threads[p] = new Thread( () -> {
+				try
+				{
+					start.await();
+					for( int i = 0; i < perProducer; i++ )
+						ring.put( id*perProducer + i );
+				}
+				catch( InterruptedException ie )
+				{ /*ignore*/ }
+			});
+			threads[p].start();
+		}
+
+		// every value must arrive exactly once, and in order for any given producer
+		int[] lastSeen = new int[producers];
+		Arrays.fill( lastSeen, -1 );
+		start.countDown();
+		for( int i = 0; i < producers*perProducer; i++ )
+		{
+			int value = ring.take();
+			int producer = value / perProducer;
+			Assert.assertTrue( value % perProducer > lastSeen[producer] );
+			lastSeen[producer] = value % perProducer;
+		}
+
+		for( int p = 0; p < producers; p++ )
+		{
+			threads[p].join();
+			Assert.assertEquals( lastSeen[p], perProducer-1 );
+		}
+
+		Assert.assertTrue( ring.isEmpty() );
+	}
+
+	@Test(timeOut=5000, expectedExceptions=InterruptedException.class)
+	public void testTakeInterrupted() throws Exception
+	{
+		RingBuffer<Integer> ring = new RingBuffer<>( 4, false, WaitStrategy.BusySpin );
+		Thread.currentThread().interrupt();
+		ring.take();
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
@@ -0,0 +1,167 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"utils","spatial"})
+public class SpatialIndexTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int COUNT = 2000;
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Query Testing Methods   ///////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testQueriesMatchLinearScan()
+	{
+		// points scattered over a 200km cube well away from the origin, as they would be in ECEF
+		Random random = new Random( 42 );
+		double[][] points = new double[COUNT][];
+		SpatialIndex<Integer,Integer> index = new SpatialIndex<>( 5000.0 );
+		for( int i = 0; i < COUNT; i++ )
+		{
+			points[i] = new double[]{ -2.4e6 + random.nextDouble()*2e5,
+			                           4.9e6 + random.nextDouble()*2e5,
+			                          -3.3e6 + random.nextDouble()*2e5 };
+			index.put( i, i, points[i][0], points[i][1], points[i][2] );
+		}
+
+		Assert.assertEquals( index.size(), COUNT );
+
+		for( int query = 0; query < 20; query++ )
+		{
+			double[] centre = points[random.nextInt(COUNT)];
+			double radius = 1000.0 + random.nextDouble() * 40000.0;
+
+			// radius
+			Set<Integer> expected = new HashSet<>();
+			for( int i = 0; i < COUNT; i++ )
+				if( distance(points[i],centre) <= radius )
+					expected.add( i );
+
+			Assert.assertEquals( new HashSet<>(index.findWithin(centre[0],centre[1],centre[2],radius)),
+			                     expected );
+
+			// box
+			expected.clear();
+			for( int i = 0; i < COUNT; i++ )
+			{
+				if( Math.abs(points[i][0]-centre[0]) <= radius &&
+				    Math.abs(points[i][1]-centre[1]) <= radius &&
+				    Math.abs(points[i][2]-centre[2]) <= radius )
+					expected.add( i );
+			}
+
+			List<Integer> boxed = index.findInBox( centre[0]-radius, centre[1]-radius, centre[2]-radius,
+			                                       centre[0]+radius, centre[1]+radius, centre[2]+radius );
+			Assert.assertEquals( new HashSet<>(boxed), expected );
+
+			// nearest
+			List<Integer> all = new ArrayList<>();
+			for( int i = 0; i < COUNT; i++ )
+				all.add( i );
+
+			all.sort( Comparator.comparingDouble(i -> distance(points[i],centre)) );
+			Assert.assertEquals( index.findNearest(centre[0],centre[1],centre[2],10), all.subList(0,10) );
+		}
+	}
+
+	@Test
+	public void testMoveAndRemove()
+	{
+		SpatialIndex<String,String> index = new SpatialIndex<>( 100.0 );
+		index.put( "a", "a", 0, 0, 0 );
+		index.put( "b", "b", 50, 0, 0 );
+		Assert.assertEquals( index.getOccupiedCellCount(), 1 );
+
+		// move "a" a long way; it should leave its old cell
+		index.put( "a", "a2", 10000, 0, 0 );
+		Assert.assertEquals( index.size(), 2 );
+		Assert.assertEquals( index.getOccupiedCellCount(), 2 );
+		Assert.assertEquals( index.findWithin(0,0,0,200), List.of("b") );
+		Assert.assertEquals( index.findWithin(10000,0,0,1), List.of("a2") );
+		Assert.assertEquals( index.findNearest(9000,0,0,1), List.of("a2") );
+
+		// removal empties the cell out as well
+		Assert.assertEquals( index.remove("a"), "a2" );
+		Assert.assertNull( index.remove("a") );
+		Assert.assertEquals( index.getOccupiedCellCount(), 1 );
+		Assert.assertTrue( index.findWithin(10000,0,0,1).isEmpty() );
+		Assert.assertEquals( index.findNearest(9000,0,0,5), List.of("b") );
+
+		index.clear();
+		Assert.assertTrue( index.isEmpty() );
+		Assert.assertEquals( index.getOccupiedCellCount(), 0 );
+	}
+
+	@Test
+	public void testRemoveOnlyIfValueMatches()
+	{
+		String stale = new String( "value" );
+		String fresh = new String( "value" );
+		SpatialIndex<String,String> index = new SpatialIndex<>( 100.0 );
+		index.put( "a", stale, 0, 0, 0 );
+		index.put( "a", fresh, 10, 0, 0 );
+
+		// a newer value has replaced it, so it stays (even though the two are equal)
+		Assert.assertFalse( index.remove("a",stale) );
+		Assert.assertTrue( index.contains("a") );
+		Assert.assertEquals( index.findWithin(10,0,0,1).size(), 1 );
+
+		Assert.assertTrue( index.remove("a",fresh) );
+		Assert.assertFalse( index.contains("a") );
+		Assert.assertEquals( index.getOccupiedCellCount(), 0 );
+		Assert.assertFalse( index.remove("a",fresh) );
+	}
+
+	private static double distance( double[] a, double[] b )
+	{
+		double dx = a[0] - b[0];
+		double dy = a[1] - b[1];
+		double dz = a[2] - b[2];
+		return Math.sqrt( dx*dx + dy*dy + dz*dz );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
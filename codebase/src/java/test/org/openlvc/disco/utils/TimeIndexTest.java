@@ -0,0 +1,108 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"utils","time"})
+public class TimeIndexTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Time Index Testing Methods   //////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testUpdatedSince()
+	{
+		long now = System.currentTimeMillis();
+		TimeIndex<String,String> index = new TimeIndex<>();
+		index.put( "a", "a1", now );
+		index.put( "b", "b1", now );
+		index.put( "c", "c1", now+10 );
+		Assert.assertEquals( index.size(), 3 );
+		Assert.assertEquals( index.getUpdatedSince(now), List.of("a1","b1","c1") );
+		Assert.assertEquals( index.getUpdatedSince(now+1), List.of("c1") );
+		Assert.assertTrue( index.getUpdatedSince(now+11).isEmpty() );
+
+		// updating moves the key to the end, and only the latest value is kept
+		index.put( "a", "a2", now+20 );
+		Assert.assertEquals( index.size(), 3 );
+		Assert.assertEquals( index.getUpdatedSince(now), List.of("b1","c1","a2") );
+		Assert.assertEquals( index.getUpdatedSince(now+1), List.of("c1","a2") );
+		Assert.assertEquals( index.getUpdateTime("a"), now+20 );
+		Assert.assertEquals( index.getOldestUpdateTime(), now );
+
+		Assert.assertEquals( index.remove("c"), "c1" );
+		Assert.assertNull( index.remove("c") );
+		Assert.assertEquals( index.getUpdatedSince(now+1), List.of("a2") );
+	}
+
+	@Test
+	public void testRemoveOlderThan()
+	{
+		TimeIndex<Integer,Integer> index = new TimeIndex<>();
+		for( int i = 0; i < 100; i++ )
+			index.put( i, i, 1000+i );
+
+		// refresh a few of the old ones so they survive
+		index.put( 5, 5, 2000 );
+		index.put( 7, 7, 2000 );
+
+		List<Integer> removed = new ArrayList<>();
+		Assert.assertEquals( index.removeOlderThan(1050,(key,value) -> removed.add(key)), 48 );
+		Assert.assertEquals( removed.size(), 48 );
+		Assert.assertEquals( removed.get(0), Integer.valueOf(0) );
+		Assert.assertFalse( removed.contains(5) );
+		Assert.assertFalse( removed.contains(50) );
+
+		Assert.assertEquals( index.size(), 52 );
+		Assert.assertTrue( index.contains(5) );
+		Assert.assertFalse( index.contains(6) );
+		Assert.assertEquals( index.getOldestUpdateTime(), 1050 );
+
+		// nothing more to do
+		Assert.assertEquals( index.removeOlderThan(1050,null), 0 );
+
+		index.clear();
+		Assert.assertTrue( index.isEmpty() );
+		Assert.assertEquals( index.getOldestUpdateTime(), -1 );
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}
@@ -0,0 +1,139 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.disco.utils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"utils","time"})
+public class TimerWheelTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Timer Wheel Testing Methods   /////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testTimersFireInDeadlineOrder() throws Exception
+	{
+		// small wheel so that some deadlines take more than one revolution
+		TimerWheel wheel = new TimerWheel( "TestWheel", 10, 8 );
+		List<String> fired = new CopyOnWriteArrayList<>();
+		CountDownLatch latch = new CountDownLatch( 3 );
+		long now = System.currentTimeMillis();
+		try
+		{
+			wheel.start();
+			wheel.schedule( new RecordingTimer("c",fired,latch), now+300 );
+			wheel.schedule( new RecordingTimer("a",fired,latch), now+20 );
+			wheel.schedule( new RecordingTimer("b",fired,latch), now+150 );
+			Assert.assertEquals( wheel.size(), 3 );
+
+			Assert.assertTrue( latch.await(2,TimeUnit.SECONDS) );
+			Assert.assertEquals( fired, List.of("a","b","c") );
+			Assert.assertEquals( wheel.size(), 0 );
+		}
+		finally
+		{
+			wheel.stop();
+		}
+	}
+
+	@Test
+	public void testRescheduleAndCancel() throws Exception
+	{
+		TimerWheel wheel = new TimerWheel( "TestWheel", 10, 64 );
+		List<String> fired = new CopyOnWriteArrayList<>();
+		CountDownLatch latch = new CountDownLatch( 1 );
+		long now = System.currentTimeMillis();
+		try
+		{
+			wheel.start();
+			RecordingTimer moved = new RecordingTimer( "moved", fired, latch );
+			RecordingTimer cancelled = new RecordingTimer( "cancelled", fired, latch );
+			wheel.schedule( moved, now+5000 );
+			wheel.schedule( cancelled, now+50 );
+			Assert.assertTrue( cancelled.isScheduled() );
+
+			// scheduling again moves it rather than adding a second entry
+			wheel.schedule( moved, now+100 );
+			Assert.assertEquals( wheel.size(), 2 );
+			Assert.assertEquals( moved.getDeadline(), now+100 );
+
+			Assert.assertTrue( wheel.cancel(cancelled) );
+			Assert.assertFalse( wheel.cancel(cancelled) );
+			Assert.assertFalse( cancelled.isScheduled() );
+
+			Assert.assertTrue( latch.await(2,TimeUnit.SECONDS) );
+			Thread.sleep( 100 );
+			Assert.assertEquals( fired, List.of("moved") );
+		}
+		finally
+		{
+			wheel.stop();
+		}
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: RecordingTimer   ////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	private static class RecordingTimer extends TimerWheel.Timer
+	{
+		private final String name;
+		private final List<String> fired;
+		private final CountDownLatch latch;
+
+		private RecordingTimer( String name, List<String> fired, CountDownLatch latch )
+		{
+			this.name = name;
+			this.fired = fired;
+			this.latch = latch;
+		}
+
+		@Override
+		protected void expired( long now )
+		{
+			Assert.assertTrue( now >= getDeadline() );
+			fired.add( name );
+			latch.countDown();
+		}
+	}
+}
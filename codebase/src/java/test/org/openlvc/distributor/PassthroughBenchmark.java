@@ -0,0 +1,158 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.distributor;
+
+import java.lang.management.ManagementFactory;
+
+import org.openlvc.disco.PduFactory;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.configuration.Flag;
+import org.openlvc.disco.connection.PduEncoder;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.ForceId;
+import org.openlvc.disco.pdu.radio.SignalPdu;
+import org.openlvc.disco.pdu.radio.TransmitterPdu;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.pdu.warfare.DetonationPdu;
+import org.openlvc.disco.pdu.warfare.FirePdu;
+import org.openlvc.distributor.filters.FilterFactory;
+import org.openlvc.distributor.filters.IFilter;
+
+/**
+ * Micro-benchmark of the Distributor's per-PDU work: decode a received packet, run it through
+ * a receive filter and a send filter, then write it out on two links. Uses a traffic mix of
+ * mostly entity state with some fire/detonation and a lot of radio, and compares the default
+ * (lazy entity state, everything else fully decoded) against pass-through mode.
+ * <p/>
+ * This is not part of the test suite. Run it by hand:
+ * <pre>
+ *   java -cp [classpath] org.openlvc.distributor.PassthroughBenchmark [iterations]
+ * </pre>
+ */
+public class PassthroughBenchmark
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int WARMUP = 500000;
+
+	// stops the JIT from deciding our results are unused
+	private static long blackhole = 0;
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	private static void forward( byte[][] packets, IFilter receive, IFilter send, int iterations )
+		throws Exception
+	{
+		PduFactory factory = PduFactory.getDefaultFactory();
+		PduEncoder encoder = new PduEncoder( true );
+		for( int i = 0; i < iterations; i++ )
+		{
+			PDU pdu = factory.create( packets[i % packets.length] );
+			if( receive.matches(pdu) == false || send.matches(pdu) == false )
+				continue;
+
+			// as the reflector does it: serialize once up front, then each link copies
+			pdu.setCacheEnabled( true ).prepareCache();
+			blackhole += encoder.encode(pdu).remaining();
+			blackhole += encoder.encode(pdu).remaining();
+		}
+	}
+
+	private static void run( String label, byte[][] packets, IFilter receive, IFilter send, int iterations )
+		throws Exception
+	{
+		com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().threadId();
+
+		forward( packets, receive, send, WARMUP );
+		long allocated = threads.getThreadAllocatedBytes( threadId );
+		long start = System.nanoTime();
+		forward( packets, receive, send, iterations );
+		long nanos = System.nanoTime() - start;
+		allocated = threads.getThreadAllocatedBytes( threadId ) - allocated;
+		System.out.printf( "  %-12s %,12.0f PDUs/s  (%,6.1f ns/op, %,5d B/op)%n",
+		                   label,
+		                   iterations / (nanos / 1e9),
+		                   (double)nanos / iterations,
+		                   allocated / iterations );
+	}
+
+	public static void main( String[] args ) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+
+		// 50% entity state, 10% fire/detonation, 40% radio
+		byte[][] packets = new byte[100][];
+		for( int i = 0; i < packets.length; i++ )
+		{
+			PDU pdu;
+			if( i < 50 )
+			{
+				EntityStatePdu espdu = new EntityStatePdu();
+				espdu.setEntityID( 1, 1, i );
+				espdu.setForceID( ForceId.values()[i % 4] );
+				espdu.setMarking( "E"+i );
+				pdu = espdu;
+			}
+			else if( i < 55 )
+			{
+				FirePdu fire = new FirePdu();
+				fire.setFiringEntityID( new EntityId(1,1,i) );
+				pdu = fire;
+			}
+			else if( i < 60 )
+			{
+				DetonationPdu detonation = new DetonationPdu();
+				detonation.setFiringEntityID( new EntityId(1,1,i) );
+				pdu = detonation;
+			}
+			else if( i < 80 )
+			{
+				TransmitterPdu transmitter = new TransmitterPdu();
+				transmitter.setEntityId( new EntityId(1,1,i) );
+				pdu = transmitter;
+			}
+			else
+			{
+				SignalPdu signal = new SignalPdu();
+				signal.setEntityId( new EntityId(1,1,i) );
+				signal.setData( new byte[320] );
+				pdu = signal;
+			}
+
+			packets[i] = pdu.toByteArray();
+		}
+
+		IFilter receive = FilterFactory.parse( "pdu.exerciseId == 1 && pdu.siteId == 1" ).compile();
+		IFilter send = FilterFactory.parse( "pdu.type != EntityState || entity.force != Neutral" ).compile();
+
+		DiscoConfiguration.set( Flag.Lazy );
+		System.out.println( "decode, filter, forward to 2 links" );
+		run( "lazy", packets, receive, send, iterations );
+		DiscoConfiguration.set( Flag.Passthrough );
+		run( "passthrough", packets, receive, send, iterations );
+		DiscoConfiguration.clear( Flag.Passthrough );
+		DiscoConfiguration.clear( Flag.Lazy );
+
+		System.out.println( "(ignore) "+blackhole );
+	}
+}
@@ -0,0 +1,244 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.distributor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openlvc.disco.PduFactory;
+import org.openlvc.disco.configuration.DiscoConfiguration;
+import org.openlvc.disco.configuration.Flag;
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.ForceId;
+import org.openlvc.disco.pdu.record.WorldCoordinate;
+import org.openlvc.disco.utils.ConflatingQueue.Overflow;
+import org.openlvc.distributor.configuration.Configuration;
+import org.openlvc.distributor.configuration.LinkConfiguration;
+import org.openlvc.distributor.filters.FilterFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"distributor","reflector"})
+public class ReflectorTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int PDU_COUNT = 2000;
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Valid: testQueueOverflowDefaultsToBlock()   ////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testQueueOverflowDefaultsToBlock()
+	{
+		Assert.assertEquals( new LinkConfiguration("test").getQueueOverflow(), Overflow.Block );
+
+		Properties properties = new Properties();
+		properties.setProperty( "distributor.test."+LinkConfiguration.LINK_QUEUE_OVERFLOW, "conflate" );
+		LinkConfiguration conflating = new LinkConfiguration( "test", properties );
+		Assert.assertEquals( conflating.getQueueOverflow(), Overflow.Conflate );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Valid: testFanOutOfLazyEntityState()   /////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Every lazily decoded ESPDU is handed to three links at once. Each link's outbox thread
+	 * runs its send filter and then reads and writes the shared PDU while the others do the
+	 * same, so they race on the lazy fields. All of them must see every PDU intact.
+	 */
+	@Test
+	public void testFanOutOfLazyEntityState() throws Exception
+	{
+		byte[][] packets = new byte[PDU_COUNT][];
+		for( int i = 0; i < PDU_COUNT; i++ )
+		{
+			EntityStatePdu espdu = new EntityStatePdu();
+			espdu.setEntityID( 1, 1, i );
+			espdu.setForceID( ForceId.Friendly );
+			espdu.setMarking( "E"+i );
+			espdu.setLocation( new WorldCoordinate(i,i*2,i*3) );
+			packets[i] = espdu.toByteArray();
+		}
+
+		Distributor distributor = new Distributor( new Configuration(new String[]{}) );
+		CapturingLink source = new CapturingLink( "source", null );
+		CapturingLink byForce = new CapturingLink( "byForce", "entity.force == Friendly" );
+		CapturingLink byId = new CapturingLink( "byId", "entity.id == 1-1-*" );
+		CapturingLink unfiltered = new CapturingLink( "unfiltered", null );
+		List<CapturingLink> sinks = Arrays.asList( byForce, byId, unfiltered );
+		distributor.links.add( source );
+		distributor.links.addAll( sinks );
+
+		Reflector reflector = new Reflector( distributor );
+		DiscoConfiguration.set( Flag.Lazy );
+		try
+		{
+			reflector.up();
+			for( ILink link : distributor.links )
+				link.up();
+
+			PduFactory factory = PduFactory.getDefaultFactory();
+			for( byte[] packet : packets )
+				reflector.reflect( new Message(source,factory.create(packet)) );
+
+			for( CapturingLink link : sinks )
+				Assert.assertTrue( link.done.await(10,TimeUnit.SECONDS), link.getName()+" timed out" );
+		}
+		finally
+		{
+			reflector.down();
+			DiscoConfiguration.clear( Flag.Lazy );
+		}
+
+		Assert.assertEquals( source.received.size(), 0 );
+		for( CapturingLink link : sinks )
+		{
+			Assert.assertEquals( link.received.size(), PDU_COUNT, link.getName() );
+			Assert.assertEquals( link.failures, 0, link.getName() );
+			for( int i = 0; i < PDU_COUNT; i++ )
+				Assert.assertEquals( link.received.get(i), packets[i], link.getName()+" pdu "+i );
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Valid: testQueuedPdusAreNotRecycled()   ////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * The source link's receiver recycles each PDU once its listener returns, which is while
+	 * the PDU is still queued for the other links. Reflected PDUs must be kept out of the pool.
+	 */
+	@Test
+	public void testQueuedPdusAreNotRecycled() throws Exception
+	{
+		Distributor distributor = new Distributor( new Configuration(new String[]{}) );
+		CapturingLink source = new CapturingLink( "source", null );
+		CapturingLink sink = new CapturingLink( "sink", null );
+		distributor.links.add( source );
+		distributor.links.add( sink );
+
+		Reflector reflector = new Reflector( distributor );
+		PduFactory factory = new PduFactory();
+		factory.setRecycling( true );
+		byte[] packet = new EntityStatePdu().toByteArray();
+		try
+		{
+			reflector.up();
+			source.up();
+			sink.up();
+
+			// as a receiver with recycling on does it: hand to the listener, then recycle
+			PDU reflected = factory.create( packet );
+			reflector.reflect( new Message(source,reflected) );
+			factory.recycle( reflected );
+			Assert.assertTrue( reflected.isRetained() );
+			Assert.assertNotSame( factory.create(packet), reflected );
+
+			// anything the source's receive filter drops is never queued, so can be reused
+			source.setReceiveFilter( FilterFactory.parse("pdu.type != EntityState") );
+			PDU filtered = factory.create( packet );
+			reflector.reflect( new Message(source,filtered) );
+			factory.recycle( filtered );
+			Assert.assertFalse( filtered.isRetained() );
+			Assert.assertSame( factory.create(packet), filtered );
+		}
+		finally
+		{
+			reflector.down();
+		}
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Private Class: CapturingLink   /////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/**
+	 * Link that reads the fields of each PDU it is given, checks them against what was sent
+	 * and keeps the bytes it would have written.
+	 */
+	private static class CapturingLink extends LinkBase implements ILink
+	{
+		private List<byte[]> received = new CopyOnWriteArrayList<>();
+		private CountDownLatch done = new CountDownLatch( PDU_COUNT );
+		private volatile int failures = 0;
+
+		private CapturingLink( String name, String sendFilter )
+		{
+			super( configure(name,sendFilter) );
+		}
+
+		public void up()                             { super.linkUp = true; }
+		public void down()                           { super.linkUp = false; }
+		public void setReflector( Reflector reflector ) {}
+		public String getStatusSummary()             { return getConfigSummary(); }
+		public String getConfigSummary()             { return getName(); }
+
+		public void reflect( Message message )
+		{
+			try
+			{
+				EntityStatePdu espdu = (EntityStatePdu)message.getPdu();
+				int id = espdu.getEntityID().getEntityId();
+				if( espdu.getMarking().equals("E"+id) == false ||
+				    espdu.getLocation().getX() != id ||
+				    espdu.getLocation().getZ() != id*3 )
+					++failures;
+
+				received.add( espdu.toByteArray() );
+			}
+			catch( Exception e )
+			{
+				++failures;
+			}
+			finally
+			{
+				done.countDown();
+			}
+		}
+
+		private static LinkConfiguration configure( String name, String sendFilter )
+		{
+			LinkConfiguration configuration = new LinkConfiguration( name );
+			if( sendFilter != null )
+				configuration.setSendFilter( sendFilter );
+
+			return configuration;
+		}
+	}
+}
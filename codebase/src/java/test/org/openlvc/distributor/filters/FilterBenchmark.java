@@ -0,0 +1,112 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.distributor.filters;
+
+import java.util.Random;
+
+import org.openlvc.disco.pdu.PDU;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.ForceId;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.pdu.record.EntityType;
+import org.openlvc.disco.pdu.warfare.FirePdu;
+
+/**
+ * Micro-benchmark for Distributor link filters: a mix of Entity State and Fire PDUs from a
+ * handful of sites run through some typical filter expressions, comparing the group returned
+ * by {@link FilterFactory} against its compiled form ({@link FilterGroup#compile()}).
+ * <p/>
+ * This is not part of the test suite. Run it by hand:
+ * <pre>
+ *   java -cp [classpath] org.openlvc.distributor.filters.FilterBenchmark [iterations]
+ * </pre>
+ */
+public class FilterBenchmark
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final String[] FILTERS = new String[] {
+		"entity.id == 1-*-* && entity.force != Neutral",
+		"entity.type == 1.2.225.*.*.*.* || pdu.type == Fire",
+		"pdu.exerciseId == 1 && (entity.id == 1-*-* || entity.id == 2-*-*) && entity.force == Friendly"
+	};
+
+	private static final int PDUS   = 10000;
+	private static final int WARMUP = 2000000;
+
+	// stops the JIT from deciding our results are unused
+	private static long blackhole = 0;
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	private static void filter( IFilter filter, PDU[] pdus, int iterations )
+	{
+		for( int i = 0; i < iterations; i++ )
+		{
+			if( filter.matches(pdus[i % pdus.length]) )
+				++blackhole;
+		}
+	}
+
+	private static void run( String label, IFilter filter, PDU[] pdus, int iterations )
+	{
+		filter( filter, pdus, WARMUP );
+		long start = System.nanoTime();
+		filter( filter, pdus, iterations );
+		long nanos = System.nanoTime() - start;
+		System.out.printf( "  %-10s %,12.0f PDUs/s  (%,6.1f ns/op)%n",
+		                   label, iterations / (nanos / 1e9), (double)nanos / iterations );
+	}
+
+	public static void main( String[] args )
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+
+		// mostly entity state from 4 sites, with the odd fire pdu mixed in
+		Random random = new Random( 42 );
+		PDU[] pdus = new PDU[PDUS];
+		for( int i = 0; i < PDUS; i++ )
+		{
+			if( random.nextInt(10) == 0 )
+			{
+				pdus[i] = new FirePdu();
+				continue;
+			}
+
+			EntityStatePdu espdu = new EntityStatePdu();
+			espdu.setEntityID( new EntityId(1+random.nextInt(4),1,random.nextInt(1000)) );
+			espdu.setEntityType( new EntityType(1,1+random.nextInt(2),225,1,random.nextInt(5),0,0) );
+			espdu.setForceID( ForceId.values()[random.nextInt(4)] );
+			pdus[i] = espdu;
+		}
+
+		for( String filterString : FILTERS )
+		{
+			FilterGroup parsed = FilterFactory.parse( filterString );
+			IFilter compiled = parsed.compile();
+			System.out.println( filterString );
+			System.out.println( "  compiled:  "+compiled );
+			run( "parsed", parsed, pdus, iterations );
+			run( "compiled", compiled, pdus, iterations );
+		}
+
+		System.out.println( "(ignore) "+blackhole );
+	}
+}
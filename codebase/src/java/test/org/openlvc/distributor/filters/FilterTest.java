@@ -17,8 +17,15 @@
  */
 package org.openlvc.distributor.filters;
 
+import java.util.Random;
+
+import org.openlvc.disco.pdu.PDU;
 import org.openlvc.disco.pdu.entity.EntityStatePdu;
 import org.openlvc.disco.pdu.field.ForceId;
+import org.openlvc.disco.pdu.record.EntityId;
+import org.openlvc.disco.pdu.record.EntityType;
+import org.openlvc.disco.pdu.warfare.FirePdu;
+import org.openlvc.distributor.filters.espdu.EntityIdFilter;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -68,6 +75,78 @@ public class FilterTest
 		Assert.assertFalse( choiceFilter.matches(espdu), "Did not detect mis-matching ForceID" );
 	}
 	
+	////////////////////////////////////////////////////////////////////////////////////////////
+	/// Compiled Filter Testing Methods   //////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testCompiledMatchesParsed()
+	{
+		String[] filterStrings = new String[] {
+			"entity.id == 1-*-*",
+			"entity.id != 1-*-* && entity.force != Neutral",
+			"entity.id == *-2-* || entity.id == 3-1-7",
+			"entity.id == 1*-2-* || entity.id == 70000-*-*",
+			"entity.id != *-*-* || entity.force == Opposing",
+			"entity.type == 1.2.225.*.*.*.* && (entity.force == Friendly || entity.kind == Munition)",
+			"entity.type != 1-1-*-*-*-*-* and entity.type == *.1.*.*.*.*.*",
+			"entity.force == Friendly && (pdu.siteId == 1 && (pdu.appId == 2 || pdu.appId == 3))",
+			"pdu.type == EntityState || pdu.type == Fire"
+		};
+
+		Random random = new Random( 42 );
+		PDU[] pdus = new PDU[500];
+		for( int i = 0; i < pdus.length; i++ )
+		{
+			if( i % 10 == 0 )
+			{
+				pdus[i] = new FirePdu();
+				continue;
+			}
+
+			EntityStatePdu espdu = new EntityStatePdu();
+			espdu.setEntityID( new EntityId(1+random.nextInt(3),1+random.nextInt(3),random.nextInt(20)) );
+			espdu.setEntityType( new EntityType(1+random.nextInt(2),1+random.nextInt(2),225,
+			                                    1,random.nextInt(3),0,0) );
+			espdu.setForceID( ForceId.values()[random.nextInt(4)] );
+			pdus[i] = espdu;
+		}
+
+		for( String filterString : filterStrings )
+		{
+			FilterGroup parsed = FilterFactory.parse( filterString );
+			IFilter compiled = parsed.compile();
+			for( int i = 0; i < pdus.length; i++ )
+			{
+				if( compiled.matches(pdus[i]) != parsed.matches(pdus[i]) )
+					Assert.fail( "Compiled filter disagrees on PDU "+i+": "+filterString );
+			}
+		}
+	}
+
+	@Test
+	public void testCompileFolding()
+	{
+		// nested AND groups are merged, repeats are dropped
+		IFilter compiled = FilterFactory.parse( "entity.force == Friendly && (entity.kind == Platform && entity.force == Friendly)" ).compile();
+		Assert.assertTrue( compiled instanceof CompiledFilter );
+		Assert.assertEquals( ((CompiledFilter)compiled).getFilters().length, 2 );
+
+		// whole-part wildcards don't need a regex
+		compiled = FilterFactory.parse( "entity.id == 1-*-*" ).compile();
+		Assert.assertTrue( compiled instanceof PackedFieldFilter );
+		Assert.assertTrue( compiled.getFilterString().endsWith("1-*-*") );
+
+		// partial ones do
+		compiled = FilterFactory.parse( "entity.id == 1*-*-*" ).compile();
+		Assert.assertTrue( compiled instanceof EntityIdFilter );
+
+		// ids that can't exist never match, and take the rest of an AND group with them
+		compiled = FilterFactory.parse( "entity.force == Friendly && entity.id == 70000-*-*" ).compile();
+		Assert.assertSame( compiled, CompiledFilter.NEVER );
+		compiled = FilterFactory.parse( "entity.force == Friendly || entity.id != *-*-*" ).compile();
+		Assert.assertFalse( compiled instanceof CompiledFilter );
+	}
+
 	////////////////////////////////////////////////////////////////////////////////////////////
 	/// Accessor and Mutator Methods   /////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////////////////////
@@ -0,0 +1,201 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.distributor.links.wan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.ForceId;
+import org.openlvc.disco.pdu.record.WorldCoordinate;
+import org.openlvc.distributor.links.wan.BundleCompressor.Codec;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"distributor","wan"})
+public class BundleCompressorTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Compression Testing Methods   /////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testRoundTrip() throws Exception
+	{
+		BundleCompressor sender = new BundleCompressor( Codec.Deflate, 1 );
+		BundleCompressor receiver = new BundleCompressor( Codec.None, 1 );
+
+		// a few bundles back to back, each compressed on its own
+		ByteArrayOutputStream wire = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream( wire );
+		byte[][] bundles = new byte[5][];
+		int raw = 0;
+		for( int i = 0; i < bundles.length; i++ )
+		{
+			bundles[i] = createBundle( new Random(i), 10 );
+			raw += bundles[i].length;
+			sender.write( out, bundles[i], bundles[i].length );
+		}
+
+		Assert.assertTrue( wire.size() < raw/2, "Expected at least 2:1, got "+raw+" -> "+wire.size() );
+		Assert.assertTrue( sender.getSendRatio() < 0.5 );
+
+		// receiver decodes whatever codec it was set up with; the flag is on the bundle
+		DataInputStream in = new DataInputStream( new ByteArrayInputStream(wire.toByteArray()) );
+		for( byte[] bundle : bundles )
+			Assert.assertEquals( receiver.read(in), bundle );
+
+		Assert.assertEquals( in.available(), 0 );
+		Assert.assertEquals( receiver.getReceiveRatio(), sender.getSendRatio(), 0.0001 );
+	}
+
+	@Test
+	public void testIncompressibleSentRaw() throws Exception
+	{
+		byte[] noise = new byte[1400];
+		new Random(42).nextBytes( noise );
+
+		BundleCompressor compressor = new BundleCompressor( Codec.Deflate, 9 );
+		ByteArrayOutputStream wire = new ByteArrayOutputStream();
+		compressor.write( new DataOutputStream(wire), noise, noise.length );
+
+		// no flag, no extra length; just the usual uncompressed framing
+		byte[] sent = wire.toByteArray();
+		Assert.assertEquals( sent.length, 4 + noise.length );
+		Assert.assertEquals( ByteBuffer.wrap(sent).getInt(), noise.length );
+
+		byte[] received = compressor.read( new DataInputStream(new ByteArrayInputStream(sent)) );
+		Assert.assertEquals( received, noise );
+	}
+
+	@Test(expectedExceptions=IOException.class)
+	public void testCorruptBundle() throws Exception
+	{
+		byte[] bundle = createBundle( new Random(7), 10 );
+		BundleCompressor compressor = new BundleCompressor( Codec.Deflate, 6 );
+		ByteArrayOutputStream wire = new ByteArrayOutputStream();
+		compressor.write( new DataOutputStream(wire), bundle, bundle.length );
+
+		byte[] sent = wire.toByteArray();
+		for( int i = 12; i < sent.length; i += 3 )
+			sent[i] ^= 0x5a;
+
+		compressor.read( new DataInputStream(new ByteArrayInputStream(sent)) );
+	}
+
+	@Test
+	public void testLengthsOutOfRange() throws Exception
+	{
+		BundleCompressor compressor = new BundleCompressor( Codec.Deflate, 6 );
+		compressor.setMaxBundleLength( 10000 );
+
+		// lengths come off the wire; none of these should get as far as an allocation
+		assertRejected( compressor, 10001 );                                    // too big, raw
+		assertRejected( compressor, BundleCompressor.COMPRESSED_FLAG | 10001 ); // too big, compressed
+		assertRejected( compressor, BundleCompressor.COMPRESSED_FLAG | 100, -1 );
+		assertRejected( compressor, BundleCompressor.COMPRESSED_FLAG | 100, Integer.MAX_VALUE );
+	}
+
+	private void assertRejected( BundleCompressor compressor, int... lengths )
+	{
+		ByteBuffer frame = ByteBuffer.allocate( 4*lengths.length + 16 );
+		for( int length : lengths )
+			frame.putInt( length );
+
+		try
+		{
+			compressor.read( new DataInputStream(new ByteArrayInputStream(frame.array())) );
+			Assert.fail( "Expected an IOException for lengths "+Arrays.toString(lengths) );
+		}
+		catch( IOException ioex )
+		{
+			Assert.assertTrue( ioex.getMessage().contains("out of range"), ioex.getMessage() );
+		}
+	}
+
+	@Test
+	public void testCloseAndReuse() throws Exception
+	{
+		byte[] bundle = createBundle( new Random(11), 10 );
+		BundleCompressor compressor = new BundleCompressor( Codec.Deflate, 6 );
+		for( int i = 0; i < 2; i++ )
+		{
+			ByteArrayOutputStream wire = new ByteArrayOutputStream();
+			compressor.write( new DataOutputStream(wire), bundle, bundle.length );
+			byte[] sent = wire.toByteArray();
+			Assert.assertTrue( sent.length < bundle.length );
+
+			byte[] received = compressor.read( new DataInputStream(new ByteArrayInputStream(sent)) );
+			Assert.assertEquals( received, bundle );
+
+			// as the link does when it goes down; coming back up again carries on as before
+			compressor.close();
+		}
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	/**
+	 * @return A bundle of entity states as {@link Bundler} lays them out: [size][pdu] repeated
+	 */
+	protected static byte[] createBundle( Random random, int count )
+	{
+		ByteBuffer buffer = ByteBuffer.allocate( count * 200 );
+		for( int i = 0; i < count; i++ )
+		{
+			EntityStatePdu espdu = new EntityStatePdu();
+			espdu.setEntityID( 1, 1, random.nextInt(500) );
+			espdu.setForceID( ForceId.Friendly );
+			espdu.setMarking( "TANK"+i );
+			espdu.setLocation( new WorldCoordinate(-2.4e6 + random.nextDouble()*1e4,
+			                                       4.9e6 + random.nextDouble()*1e4,
+			                                       -3.3e6 + random.nextDouble()*1e4) );
+
+			byte[] pdu = espdu.toByteArray();
+			buffer.putInt( pdu.length );
+			buffer.put( pdu );
+		}
+
+		byte[] bundle = new byte[buffer.position()];
+		buffer.flip();
+		buffer.get( bundle );
+		return bundle;
+	}
+}
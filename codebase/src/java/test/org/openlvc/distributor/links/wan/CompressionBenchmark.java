@@ -0,0 +1,96 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.distributor.links.wan;
+
+import java.io.DataOutputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.openlvc.distributor.links.wan.BundleCompressor.Codec;
+
+/**
+ * Measures what WAN bundle compression buys and costs: bytes on the wire and CPU time per
+ * bundle for each compression level, on bundles of entity states of a few different sizes.
+ * <p/>
+ * This is not part of the test suite. Run it by hand:
+ * <pre>
+ *   java -cp [classpath] org.openlvc.distributor.links.wan.CompressionBenchmark [iterations]
+ * </pre>
+ */
+public class CompressionBenchmark
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+	private static final int WARMUP = 20000;
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+	private static void run( byte[][] bundles, Codec codec, int level, int iterations ) throws Exception
+	{
+		// count what would go on the wire without keeping it
+		long[] wire = new long[1];
+		DataOutputStream out = new DataOutputStream( new OutputStream()
+		{
+			public void write( int b ) { wire[0]++; }
+			public void write( byte[] b, int off, int len ) { wire[0] += len; }
+		});
+
+		BundleCompressor compressor = new BundleCompressor( codec, level );
+		for( int i = 0; i < WARMUP; i++ )
+			compressor.write( out, bundles[i % bundles.length], bundles[i % bundles.length].length );
+
+		compressor = new BundleCompressor( codec, level );
+		long raw = 0;
+		wire[0] = 0;
+		long start = System.nanoTime();
+		for( int i = 0; i < iterations; i++ )
+		{
+			byte[] bundle = bundles[i % bundles.length];
+			compressor.write( out, bundle, bundle.length );
+			raw += bundle.length;
+		}
+
+		long nanos = System.nanoTime() - start;
+		System.out.printf( "  %-8s level=%d  %5.1f%% of raw  %,8.1f us/bundle  (%,6.0f MB/s)%n",
+		                   codec,
+		                   level,
+		                   wire[0] * 100.0 / raw,
+		                   nanos / 1000.0 / iterations,
+		                   raw / (nanos / 1e9) / 1e6 );
+	}
+
+	public static void main( String[] args ) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+
+		for( int count : new int[]{ 1, 10, 50 } )
+		{
+			Random random = new Random( count );
+			byte[][] bundles = new byte[100][];
+			for( int i = 0; i < bundles.length; i++ )
+				bundles[i] = BundleCompressorTest.createBundle( random, count );
+
+			System.out.printf( "%d entity states per bundle (%d bytes)%n", count, bundles[0].length );
+			run( bundles, Codec.None, 1, iterations );
+			for( int level : new int[]{ 1, 6, 9 } )
+				run( bundles, Codec.Deflate, level, iterations );
+		}
+	}
+}
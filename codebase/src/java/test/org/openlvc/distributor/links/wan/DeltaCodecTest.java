@@ -0,0 +1,214 @@
+/*
+ *   Copyright 2026 Open LVC Project.
+ *
+ *   This file is part of Open LVC Disco.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openlvc.distributor.links.wan;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openlvc.disco.DiscoException;
+import org.openlvc.disco.pdu.entity.EntityStatePdu;
+import org.openlvc.disco.pdu.field.ForceId;
+import org.openlvc.disco.pdu.record.ArticulationParameter;
+import org.openlvc.disco.pdu.record.VectorRecord;
+import org.openlvc.disco.pdu.record.WorldCoordinate;
+import org.openlvc.disco.pdu.warfare.FirePdu;
+import org.openlvc.disco.utils.BitHelpers;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"distributor","wan"})
+public class DeltaCodecTest
+{
+	//----------------------------------------------------------
+	//                    STATIC VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                   INSTANCE VARIABLES
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                      CONSTRUCTORS
+	//----------------------------------------------------------
+
+	//----------------------------------------------------------
+	//                    INSTANCE METHODS
+	//----------------------------------------------------------
+
+	///////////////////////////////////////////////////////////////////////////////////
+	/// Delta Testing Methods   ///////////////////////////////////////////////////////
+	///////////////////////////////////////////////////////////////////////////////////
+	@Test
+	public void testRoundTrip()
+	{
+		DeltaCodec sender = new DeltaCodec( 5000 );
+		DeltaCodec receiver = new DeltaCodec( 5000 );
+
+		// 20 entities, 2 of them moving, the rest heartbeating; a fire PDU in the mix
+		List<byte[]> sent = new ArrayList<>();
+		ByteBuffer bundle = ByteBuffer.allocate( 100000 );
+		int raw = 0;
+		for( int tick = 0; tick < 10; tick++ )
+		{
+			for( int entity = 0; entity < 20; entity++ )
+			{
+				EntityStatePdu espdu = createEspdu( entity, entity < 2 ? tick : 0 );
+				espdu.getHeader().setTimestamp( tick * 1000 );
+				sent.add( espdu.toByteArray() );
+			}
+
+			sent.add( new FirePdu().toByteArray() );
+		}
+
+		for( byte[] pdu : sent )
+		{
+			raw += 4 + pdu.length;
+			if( sender.encode(pdu,bundle,1000) == false )
+			{
+				bundle.putInt( pdu.length );
+				bundle.put( pdu );
+			}
+		}
+
+		// only the first sighting of each entity is a keyframe
+		Assert.assertEquals( sender.getKeyframesSent(), 20 );
+		Assert.assertEquals( sender.getDeltasSent(), 180 );
+		Assert.assertTrue( bundle.position()*4 < raw, "Expected 4:1, got "+raw+" -> "+bundle.position() );
+
+		// the receiver gets back exactly what was sent
+		List<byte[]> received = readBundle( receiver, bundle, 1000 );
+		Assert.assertEquals( received.size(), sent.size() );
+		for( int i = 0; i < sent.size(); i++ )
+			Assert.assertEquals( received.get(i), sent.get(i), "PDU "+i );
+
+		Assert.assertEquals( receiver.getDeltasDropped(), 0 );
+	}
+
+	@Test
+	public void testKeyframes()
+	{
+		DeltaCodec sender = new DeltaCodec( 100 );
+		ByteBuffer bundle = ByteBuffer.allocate( 10000 );
+		byte[] pdu = createEspdu( 1, 0 ).toByteArray();
+
+		Assert.assertFalse( sender.encode(pdu,bundle,1000) );
+		Assert.assertTrue( sender.encode(pdu,bundle,1050) );
+		Assert.assertFalse( sender.encode(pdu,bundle,1100) ); // interval is up
+		Assert.assertTrue( sender.encode(pdu,bundle,1101) );
+
+		// a change in size (articulations added) can't be a delta
+		EntityStatePdu articulated = createEspdu( 1, 0 );
+		articulated.getArticulationParameter().add( new ArticulationParameter() );
+		Assert.assertFalse( sender.encode(articulated.toByteArray(),bundle,1102) );
+		Assert.assertEquals( sender.getKeyframesSent(), 3 );
+
+		// a receiver that missed the keyframe drops the delta rather than guess
+		DeltaCodec receiver = new DeltaCodec( 100 );
+		bundle.clear();
+		Assert.assertTrue( sender.encode(articulated.toByteArray(),bundle,1103) );
+		bundle.flip();
+		int size = bundle.getInt() & ~DeltaCodec.DELTA_FLAG;
+		Assert.assertNull( receiver.decode(bundle.array(),4,size,1103) );
+		Assert.assertEquals( receiver.getDeltasDropped(), 1 );
+	}
+
+	@Test
+	public void testMalformedRecords()
+	{
+		DeltaCodec receiver = new DeltaCodec( 100 );
+		byte[] pdu = createEspdu( 1, 0 ).toByteArray();
+		receiver.keyframe( pdu, 0, pdu.length, 1000 );
+
+		// a delta record for the entity: id, mask (location changed), then the location
+		byte[] bundle = new byte[8+24];
+		System.arraycopy( pdu, 12, bundle, 0, 6 );
+		bundle[7] = (byte)(1 << 7);
+		Assert.assertNotNull( receiver.decode(bundle,0,bundle.length,1001) );
+
+		// sizes come off the wire, so anything that doesn't fit has to be caught, not read
+		assertMalformed( () -> receiver.decode(bundle,0,4,1002) );            // shorter than header
+		assertMalformed( () -> receiver.decode(bundle,0,-1,1002) );           // negative
+		assertMalformed( () -> receiver.decode(bundle,8,bundle.length,1002) ); // past the end
+		assertMalformed( () -> receiver.decode(bundle,0,20,1002) );           // fields cut short
+		assertMalformed( () -> receiver.keyframe(pdu,0,pdu.length+1,1002) );
+	}
+
+	private void assertMalformed( Runnable runnable )
+	{
+		try
+		{
+			runnable.run();
+			Assert.fail( "Expected a DiscoException for a malformed record" );
+		}
+		catch( DiscoException de )
+		{
+			// expected
+		}
+	}
+
+	/**
+	 * Split the bundle up the way the WAN link does, rebuilding deltas as we go
+	 */
+	private List<byte[]> readBundle( DeltaCodec codec, ByteBuffer bundle, long now )
+	{
+		List<byte[]> pdus = new ArrayList<>();
+		byte[] bytes = bundle.array();
+		int position = 0;
+		while( position < bundle.position() )
+		{
+			int size = BitHelpers.readIntBE( bytes, position );
+			position += 4;
+			if( (size & DeltaCodec.DELTA_FLAG) != 0 )
+			{
+				size &= ~DeltaCodec.DELTA_FLAG;
+				pdus.add( codec.decode(bytes,position,size,now) );
+			}
+			else
+			{
+				codec.keyframe( bytes, position, size, now );
+				byte[] pdu = new byte[size];
+				System.arraycopy( bytes, position, pdu, 0, size );
+				pdus.add( pdu );
+			}
+
+			position += size;
+		}
+
+		return pdus;
+	}
+
+	private EntityStatePdu createEspdu( int entity, int tick )
+	{
+		EntityStatePdu espdu = new EntityStatePdu();
+		espdu.setEntityID( 1, 1, entity );
+		espdu.setForceID( ForceId.Friendly );
+		espdu.setMarking( "E"+entity );
+		espdu.setLocation( new WorldCoordinate(-2.4e6 + entity*100 + tick*3.7,
+		                                       4.9e6 + entity*100,
+		                                       -3.3e6 + tick*0.5) );
+		if( tick > 0 )
+			espdu.setLinearVelocity( new VectorRecord(3.7f,0f,0.5f) );
+
+		return espdu;
+	}
+
+	//----------------------------------------------------------
+	//                     STATIC METHODS
+	//----------------------------------------------------------
+}